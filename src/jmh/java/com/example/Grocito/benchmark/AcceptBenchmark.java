@@ -0,0 +1,156 @@
+package com.example.Grocito.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Services.OrderAssignmentService;
+import com.example.Grocito.Services.OrderStateMachine;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Partners accepting orders through OrderAssignmentService.assignOrderToPartner on four threads,
+ * with racers partners going for each order at the same moment. Besides accepts per millisecond
+ * it reports the accepted and lost counters; lost / (accepted + lost) is the share of partners
+ * turned away, which with one racer should stay at zero. The state machine's claim stats are
+ * printed after the run.
+ *
+ * mvn -Pbenchmark verify -Djmh.includes=AcceptBenchmark -Djmh.args="-p racers=1,4,8"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AcceptBenchmark {
+
+    private static final String PINCODE = "411060";
+    private static final int CHUNK = 1_000;
+
+    @Param({ "1", "4" })
+    private int racers;
+
+    @Param({ "10000" })
+    private int orders;
+
+    private BenchmarkDatabase database;
+    private OrderAssignmentService orderAssignmentService;
+    private OrderStateMachine orderStateMachine;
+    private final List<Long> orderIds = new ArrayList<>();
+    private final List<Long> partnerIds = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Outcomes of the accepts, reported by JMH next to the throughput
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long accepted;
+        public long lost;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            accepted = 0;
+            lost = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(100, 0, 0);
+        orderAssignmentService = database.bean(OrderAssignmentService.class);
+        orderStateMachine = database.bean(OrderStateMachine.class);
+
+        // One partner per accept until the orders run out, so none reaches the active order limit
+        EntityManager entityManager = database.bean(EntityManager.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (int start = 0; start < orders; start += CHUNK) {
+            int from = start;
+            database.transactionTemplate().executeWithoutResult(status -> {
+                for (int i = from; i < Math.min(from + CHUNK, orders); i++) {
+                    Order order = new Order();
+                    order.setUser(entityManager.getReference(User.class, database.userIds.get(i % database.userIds.size())));
+                    order.setStatus("PLACED");
+                    order.setPincode(PINCODE);
+                    order.setOrderTime(now.minusMinutes(i % 60));
+                    order.setDeliveryAddress("House " + i + ", Main Road");
+                    order.setTotalAmount(150 + i % 500);
+                    entityManager.persist(order);
+                    orderIds.add(order.getId());
+                }
+            });
+        }
+        for (int start = 0; start < orders * racers; start += CHUNK) {
+            int from = start;
+            database.transactionTemplate().executeWithoutResult(status -> {
+                for (int i = from; i < Math.min(from + CHUNK, orders * racers); i++) {
+                    DeliveryPartnerAuth partner = new DeliveryPartnerAuth("partner" + i + "@grocito.bench", "secret",
+                            String.format("9%09d", i), "Partner " + i, PINCODE, "BIKE", "MH12" + i, "DL" + i);
+                    partner.setVerificationStatus("VERIFIED");
+                    entityManager.persist(partner);
+                    partnerIds.add(partner.getId());
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("Claims: " + orderStateMachine.getStats());
+        database.close();
+    }
+
+    /**
+     * Put every order back up for grabs so each iteration races on the same pool
+     */
+    @Setup(Level.Iteration)
+    public void reopenOrders() {
+        EntityManager entityManager = database.bean(EntityManager.class);
+        database.transactionTemplate().executeWithoutResult(status -> entityManager.createQuery(
+                "UPDATE Order o SET o.status = 'PLACED', o.deliveryPartner = null, o.assignedAt = null, o.offerExpiresAt = null "
+                        + "WHERE o.pincode = :pincode")
+                .setParameter("pincode", PINCODE)
+                .executeUpdate());
+        next.set(0);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean accept(Outcomes outcomes) {
+        // racers consecutive accepts go for the same order, each with a partner of its own
+        int i = next.getAndIncrement();
+        Long orderId = orderIds.get((i / racers) % orders);
+        Long partnerId = partnerIds.get(i % partnerIds.size());
+        boolean accepted = database.inRequest(() -> orderAssignmentService.assignOrderToPartner(orderId, partnerId));
+        if (accepted) {
+            outcomes.accepted++;
+        } else {
+            outcomes.lost++;
+        }
+        return accepted;
+    }
+}
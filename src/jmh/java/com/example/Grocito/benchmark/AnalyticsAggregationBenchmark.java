@@ -0,0 +1,174 @@
+package com.example.Grocito.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Services.AnalyticsAggregator;
+
+/**
+ * Compares the per-metric stream implementation of order analytics with AnalyticsAggregator
+ * computing the same metrics in one pass, sequentially and with parallel combine.
+ *
+ * mvn -Pbenchmark verify -Djmh.includes=AnalyticsAggregationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AnalyticsAggregationBenchmark {
+
+    private static final String[] STATUSES = { "PLACED", "PACKED", "ASSIGNED", "OUT_FOR_DELIVERY", "DELIVERED", "CANCELLED" };
+
+    @Param({ "10000", "100000", "1000000" })
+    private int orders;
+
+    private List<Order> rows;
+    private LocalDate today;
+    private AnalyticsAggregator<Order> sequential;
+    private AnalyticsAggregator<Order> parallel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        rows = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order();
+            order.setId((long) i);
+            order.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            order.setPincode(String.valueOf(110001 + random.nextInt(20)));
+            order.setOrderTime(now.minusMinutes(random.nextInt(90 * 24 * 60)));
+            order.setTotalAmount(50 + random.nextInt(200000) / 100.0);
+            rows.add(order);
+        }
+        today = LocalDate.now();
+        sequential = orderAnalytics(today, Integer.MAX_VALUE);
+        parallel = orderAnalytics(today, 1);
+    }
+
+    @Benchmark
+    public Map<String, Object> multiStream() {
+        return multiStreamAnalytics(rows, today);
+    }
+
+    @Benchmark
+    public Map<String, Object> singlePass() {
+        return toAnalytics(sequential.aggregate(rows), today);
+    }
+
+    @Benchmark
+    public Map<String, Object> singlePassParallel() {
+        return toAnalytics(parallel.aggregate(rows), today);
+    }
+
+    private static AnalyticsAggregator<Order> orderAnalytics(LocalDate today, int parallelThreshold) {
+        LocalDate weekAgo = today.minusDays(7);
+        LocalDate monthAgo = today.minusMonths(1);
+        LocalDate trendStart = today.minusDays(6);
+        return AnalyticsAggregator.<Order>builder()
+                .metric("all", null, Order::getTotalAmount)
+                .metric("today", o -> o.getOrderTime().toLocalDate().equals(today), Order::getTotalAmount)
+                .metric("week", o -> o.getOrderTime().toLocalDate().isAfter(weekAgo), Order::getTotalAmount)
+                .metric("month", o -> o.getOrderTime().toLocalDate().isAfter(monthAgo), Order::getTotalAmount)
+                .groupBy("status", null, Order::getStatus, null)
+                .groupBy("day", o -> !o.getOrderTime().toLocalDate().isBefore(trendStart),
+                        o -> o.getOrderTime().toLocalDate(), Order::getTotalAmount)
+                .parallelThreshold(parallelThreshold)
+                .build();
+    }
+
+    private static Map<String, Object> toAnalytics(AnalyticsAggregator<Order>.Result result, LocalDate today) {
+        Map<String, Object> analytics = new HashMap<>();
+        analytics.put("totalOrders", result.count("all"));
+        analytics.put("totalRevenue", result.sum("all"));
+        analytics.put("averageOrderValue", result.average("all"));
+        analytics.put("statusDistribution", result.groupCounts("status"));
+        analytics.put("todayOrders", result.count("today"));
+        analytics.put("weekOrders", result.count("week"));
+        analytics.put("monthOrders", result.count("month"));
+        analytics.put("todayRevenue", result.sum("today"));
+        analytics.put("weekRevenue", result.sum("week"));
+        analytics.put("monthRevenue", result.sum("month"));
+
+        List<Map<String, Object>> dailyTrends = new ArrayList<>();
+        for (int i = 6; i >= 0; i--) {
+            LocalDate date = today.minusDays(i);
+            Map<String, Object> dayData = new HashMap<>();
+            dayData.put("date", date.toString());
+            dayData.put("orders", result.groupCount("day", date));
+            dayData.put("revenue", result.groupSum("day", date));
+            dailyTrends.add(dayData);
+        }
+        analytics.put("dailyTrends", dailyTrends);
+        return analytics;
+    }
+
+    /**
+     * The per-metric stream implementation previously used by OrderService.getOrderAnalytics
+     */
+    private static Map<String, Object> multiStreamAnalytics(List<Order> orders, LocalDate today) {
+        Map<String, Object> analytics = new HashMap<>();
+        analytics.put("totalOrders", orders.size());
+        analytics.put("totalRevenue", orders.stream().mapToDouble(Order::getTotalAmount).sum());
+        analytics.put("averageOrderValue", orders.isEmpty() ? 0 :
+                orders.stream().mapToDouble(Order::getTotalAmount).average().orElse(0));
+        analytics.put("statusDistribution", orders.stream()
+                .collect(Collectors.groupingBy(Order::getStatus, Collectors.counting())));
+
+        LocalDate weekAgo = today.minusDays(7);
+        LocalDate monthAgo = today.minusMonths(1);
+        analytics.put("todayOrders", orders.stream()
+                .filter(order -> order.getOrderTime().toLocalDate().equals(today)).count());
+        analytics.put("weekOrders", orders.stream()
+                .filter(order -> order.getOrderTime().toLocalDate().isAfter(weekAgo)).count());
+        analytics.put("monthOrders", orders.stream()
+                .filter(order -> order.getOrderTime().toLocalDate().isAfter(monthAgo)).count());
+        analytics.put("todayRevenue", orders.stream()
+                .filter(order -> order.getOrderTime().toLocalDate().equals(today))
+                .mapToDouble(Order::getTotalAmount).sum());
+        analytics.put("weekRevenue", orders.stream()
+                .filter(order -> order.getOrderTime().toLocalDate().isAfter(weekAgo))
+                .mapToDouble(Order::getTotalAmount).sum());
+        analytics.put("monthRevenue", orders.stream()
+                .filter(order -> order.getOrderTime().toLocalDate().isAfter(monthAgo))
+                .mapToDouble(Order::getTotalAmount).sum());
+
+        List<Map<String, Object>> dailyTrends = new ArrayList<>();
+        for (int i = 6; i >= 0; i--) {
+            LocalDate date = today.minusDays(i);
+            List<Order> dayOrders = orders.stream()
+                    .filter(order -> order.getOrderTime().toLocalDate().equals(date))
+                    .collect(Collectors.toList());
+            Map<String, Object> dayData = new HashMap<>();
+            dayData.put("date", date.toString());
+            dayData.put("orders", dayOrders.size());
+            dayData.put("revenue", dayOrders.stream().mapToDouble(Order::getTotalAmount).sum());
+            dailyTrends.add(dayData);
+        }
+        analytics.put("dailyTrends", dailyTrends);
+        return analytics;
+    }
+}
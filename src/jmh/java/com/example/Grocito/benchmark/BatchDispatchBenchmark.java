@@ -0,0 +1,116 @@
+package com.example.Grocito.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.Grocito.Services.BatchDispatcher;
+
+/**
+ * Planning one dispatch round with BatchDispatcher.plan: a city of 25 pincodes, each with 200
+ * waiting orders from three stores and 80 partners, planned on 4 threads as dispatchAll does,
+ * and one crowded pincode matching its 200 oldest orders against 2k partners. The target is a
+ * city round well under a second and a crowded round under half of one.
+ *
+ * mvn -Pbenchmark verify -Djmh.includes=BatchDispatchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchDispatchBenchmark {
+
+    private static final double BASE_LATITUDE = 18.5204;
+    private static final double BASE_LONGITUDE = 73.8567;
+    private static final double KM = 0.009;
+
+    private BenchmarkDatabase database;
+    private BatchDispatcher batchDispatcher;
+    private ForkJoinPool pool;
+
+    private final List<List<BatchDispatcher.Pending>> cityOrders = new ArrayList<>();
+    private final List<List<BatchDispatcher.Available>> cityPartners = new ArrayList<>();
+    private List<BatchDispatcher.Pending> crowdedOrders;
+    private List<BatchDispatcher.Available> crowdedPartners;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(0, 0, 0);
+        batchDispatcher = database.bean(BatchDispatcher.class);
+        pool = new ForkJoinPool(4);
+
+        Random random = new Random(5);
+        long nextId = 1;
+        for (int pincode = 0; pincode < 25; pincode++) {
+            double latitude = BASE_LATITUDE + (pincode / 5) * 6 * KM;
+            double longitude = BASE_LONGITUDE + (pincode % 5) * 6 * KM;
+            cityOrders.add(orders(random, nextId, 200, latitude, longitude));
+            cityPartners.add(partners(random, nextId, 80, latitude, longitude));
+            nextId += 1000;
+        }
+        crowdedOrders = orders(random, 100_000, 200, BASE_LATITUDE, BASE_LONGITUDE);
+        crowdedPartners = partners(random, 200_000, 2000, BASE_LATITUDE, BASE_LONGITUDE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+        database.close();
+    }
+
+    @Benchmark
+    public int cityRound() throws Exception {
+        List<Future<BatchDispatcher.Plan>> plans = new ArrayList<>();
+        for (int i = 0; i < cityOrders.size(); i++) {
+            int pincode = i;
+            plans.add(pool.submit(() -> batchDispatcher.plan(cityOrders.get(pincode), cityPartners.get(pincode))));
+        }
+        int assigned = 0;
+        for (Future<BatchDispatcher.Plan> plan : plans) {
+            assigned += plan.get().getPairs().size();
+        }
+        return assigned;
+    }
+
+    @Benchmark
+    public BatchDispatcher.Plan crowdedRound() {
+        return batchDispatcher.plan(crowdedOrders, crowdedPartners);
+    }
+
+    private static List<BatchDispatcher.Pending> orders(Random random, long firstId, int count, double latitude, double longitude) {
+        double[][] stores = { { latitude, longitude }, { latitude + 2 * KM, longitude + KM }, { latitude - KM, longitude + 2 * KM } };
+        List<BatchDispatcher.Pending> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double[] store = stores[random.nextInt(stores.length)];
+            orders.add(new BatchDispatcher.Pending(firstId + i, store[0], store[1], 30.0 * (count - i) / count));
+        }
+        return orders;
+    }
+
+    private static List<BatchDispatcher.Available> partners(Random random, long firstId, int count, double latitude, double longitude) {
+        List<BatchDispatcher.Available> partners = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            partners.add(new BatchDispatcher.Available(firstId + i, latitude + (random.nextDouble() * 6 - 2) * KM,
+                    longitude + (random.nextDouble() * 6 - 2) * KM, 3.5 + random.nextDouble() * 1.5, random.nextInt(10) < 7 ? 0 : 1));
+        }
+        return partners;
+    }
+}
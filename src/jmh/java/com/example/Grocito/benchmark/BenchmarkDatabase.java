@@ -0,0 +1,163 @@
+package com.example.Grocito.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.Grocito.GrocitoApplication;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Services.OrderAnalyticsService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Boots the Grocito Spring context against an in-memory H2 database and seeds it with
+ * synthetic users, products and orders. Data volumes come from the benchmark @Params,
+ * so they can be changed from the command line, e.g. -Djmh.args="-p orders=200000".
+ */
+final class BenchmarkDatabase {
+
+    static final String[] PINCODES = { "110001", "110002", "412105", "441904", "560001" };
+    static final String[] CATEGORIES = { "Fruits", "Vegetables", "Dairy", "Bakery", "Beverages", "Snacks" };
+    static final String[] STATUSES = { "PLACED", "PACKED", "ASSIGNED", "OUT_FOR_DELIVERY", "DELIVERED", "CANCELLED" };
+    static final String[] WORDS = { "fresh", "organic", "apple", "banana", "milk", "bread", "juice", "chips",
+            "tomato", "potato", "paneer", "butter", "cookies", "mango", "onion", "yogurt" };
+
+    private static final int CHUNK = 1_000;
+
+    final ConfigurableApplicationContext context;
+    final List<Long> userIds = new ArrayList<>();
+    final List<Long> productIds = new ArrayList<>();
+
+    private BenchmarkDatabase(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Start a fresh context and seed the given number of rows
+     */
+    static BenchmarkDatabase start(int users, int products, int orders) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(GrocitoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:grocito-bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.Grocito=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--grocito.analytics.backfill-on-startup=false",
+                        "--grocito.dispatch.enabled=false");
+
+        BenchmarkDatabase database = new BenchmarkDatabase(context);
+        database.seed(users, products, orders);
+        return database;
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(bean(PlatformTransactionManager.class));
+    }
+
+    /**
+     * Run a service call the way a web request does: with one EntityManager bound for the whole
+     * call (open-in-view), so lazy collections touched outside @Transactional methods still load
+     */
+    <T> T inRequest(Supplier<T> call) {
+        EntityManagerFactory entityManagerFactory = bean(EntityManagerFactory.class);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            return call.get();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            EntityManagerFactoryUtils.closeEntityManager(entityManager);
+        }
+    }
+
+    void close() {
+        context.close();
+    }
+
+    private void seed(int users, int products, int orders) {
+        Random random = new Random(42);
+        EntityManager entityManager = bean(EntityManager.class);
+        TransactionTemplate tx = transactionTemplate();
+
+        for (int start = 0; start < users; start += CHUNK) {
+            int from = start;
+            tx.executeWithoutResult(status -> {
+                for (int i = from; i < Math.min(from + CHUNK, users); i++) {
+                    User user = new User();
+                    user.setFullName("Customer " + i);
+                    user.setEmail("customer" + i + "@grocito.bench");
+                    user.setPassword("secret");
+                    user.setRole("USER");
+                    user.setPincode(PINCODES[i % PINCODES.length]);
+                    user.setAddress("House " + i + ", Main Road");
+                    entityManager.persist(user);
+                    userIds.add(user.getId());
+                }
+            });
+        }
+
+        for (int start = 0; start < products; start += CHUNK) {
+            int from = start;
+            tx.executeWithoutResult(status -> {
+                for (int i = from; i < Math.min(from + CHUNK, products); i++) {
+                    Product product = new Product();
+                    product.setName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i);
+                    product.setDescription("Benchmark product " + i);
+                    product.setCategory(CATEGORIES[i % CATEGORIES.length]);
+                    product.setPincode(PINCODES[i % PINCODES.length]);
+                    product.setPrice(10 + random.nextInt(50000) / 100.0);
+                    // Large enough that checkout benchmarks never run out of stock
+                    product.setStock(i % 50 == 0 ? random.nextInt(10) : 10_000_000);
+                    entityManager.persist(product);
+                    productIds.add(product.getId());
+                }
+            });
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int start = 0; start < orders; start += CHUNK) {
+            int from = start;
+            tx.executeWithoutResult(status -> {
+                for (int i = from; i < Math.min(from + CHUNK, orders); i++) {
+                    Order order = new Order();
+                    order.setUser(entityManager.getReference(User.class, userIds.get(i % userIds.size())));
+                    order.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+                    order.setPincode(PINCODES[random.nextInt(PINCODES.length)]);
+                    order.setOrderTime(now.minusMinutes(random.nextInt(90 * 24 * 60)));
+                    order.setDeliveryAddress("House " + i + ", Main Road");
+                    order.setTotalAmount(50 + random.nextInt(200000) / 100.0);
+                    entityManager.persist(order);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+
+        bean(OrderAnalyticsService.class).rebuildAll();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.Grocito.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Repository.OrderRepository;
+import com.example.Grocito.Services.OrderAnalyticsService;
+import com.example.Grocito.Services.OrderPushService;
+import com.example.Grocito.Services.OrderService;
+import com.example.Grocito.dto.BulkStatusUpdate;
+
+/**
+ * Bulk status updates from the admin panel: OrderService.bulkUpdateStatus, which reads a chunk
+ * of orders in one query and moves them with one conditional UPDATE per status, against the
+ * findById and save per order it replaced (perOrderLoop). Every invocation packs the same orders,
+ * put back to PLACED beforehand.
+ *
+ * mvn -Pbenchmark verify -Djmh.includes=BulkStatusUpdateBenchmark -Djmh.args="-p batch=5000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkStatusUpdateBenchmark {
+
+    @Param({ "500", "5000" })
+    private int batch;
+
+    @Param({ "20000" })
+    private int orders;
+
+    private BenchmarkDatabase database;
+    private OrderService orderService;
+    private OrderRepository orderRepository;
+    private OrderAnalyticsService orderAnalyticsService;
+    private OrderPushService orderPushService;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private List<Long> orderIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(1000, 100, orders);
+        orderService = database.bean(OrderService.class);
+        orderRepository = database.bean(OrderRepository.class);
+        orderAnalyticsService = database.bean(OrderAnalyticsService.class);
+        orderPushService = database.bean(OrderPushService.class);
+        jdbcTemplate = database.bean(JdbcTemplate.class);
+        transactionTemplate = database.transactionTemplate();
+        orderIds = jdbcTemplate.queryForList("SELECT id FROM orders ORDER BY id LIMIT ?", Long.class, batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void placeAgain() {
+        jdbcTemplate.update("UPDATE orders SET status = 'PLACED' WHERE id BETWEEN ? AND ?",
+                orderIds.get(0), orderIds.get(orderIds.size() - 1));
+    }
+
+    @Benchmark
+    public BulkStatusUpdate setBased() {
+        return database.inRequest(() -> orderService.bulkUpdateStatus(orderIds, "PACKED", "SUPER_ADMIN", null));
+    }
+
+    /**
+     * bulkUpdateStatus as it was: each order read, changed and saved in turn, with its rollup
+     * delta and push event
+     */
+    @Benchmark
+    public List<Order> perOrderLoop() {
+        return database.inRequest(() -> transactionTemplate.execute(status -> {
+            List<Order> updatedOrders = new ArrayList<>();
+            for (Long orderId : orderIds) {
+                Order order = orderRepository.findById(orderId)
+                        .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+                String oldStatus = order.getStatus();
+                order.setStatus("PACKED");
+                Order updatedOrder = orderRepository.save(order);
+                orderAnalyticsService.recordStatusChange(updatedOrder, oldStatus);
+                orderPushService.statusChanged(updatedOrder, oldStatus);
+                updatedOrders.add(updatedOrder);
+            }
+            return updatedOrders;
+        }));
+    }
+}
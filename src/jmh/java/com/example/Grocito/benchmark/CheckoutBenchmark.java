@@ -0,0 +1,108 @@
+package com.example.Grocito.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.Grocito.Entity.Cart;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Services.CartService;
+import com.example.Grocito.Services.OrderService;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Cart and checkout write paths: CartService.addToCart and OrderService.placeOrderFromCart.
+ *
+ * mvn -Pbenchmark verify -Djmh.includes=CheckoutBenchmark -Djmh.args="-p orders=100000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Param({ "1000" })
+    private int users;
+
+    @Param({ "5000" })
+    private int products;
+
+    @Param({ "20000" })
+    private int orders;
+
+    private BenchmarkDatabase database;
+    private CartService cartService;
+    private OrderService orderService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(users, products, orders);
+        cartService = database.bean(CartService.class);
+        orderService = database.bean(OrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    /**
+     * Start every iteration with empty carts so cart size does not drift between iterations
+     */
+    @Setup(Level.Iteration)
+    public void clearCarts() {
+        EntityManager entityManager = database.bean(EntityManager.class);
+        database.transactionTemplate().executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM CartItem").executeUpdate();
+            entityManager.createQuery("DELETE FROM Cart").executeUpdate();
+        });
+    }
+
+    @Benchmark
+    public Cart addToCart() {
+        int i = next++;
+        return database.inRequest(() -> cartService.addToCart(userId(i), productId(i * 7), 1));
+    }
+
+    @Benchmark
+    public Order placeOrderFromCart() {
+        int i = next++;
+        Long userId = userId(i);
+        for (int item = 0; item < ITEMS_PER_ORDER; item++) {
+            int product = i * 7 + item;
+            database.inRequest(() -> cartService.addToCart(userId, productId(product), 1));
+        }
+        return database.inRequest(() -> orderService.placeOrderFromCart(userId, "House " + i + ", Main Road"));
+    }
+
+    private Long userId(int i) {
+        return database.userIds.get(Math.floorMod(i, database.userIds.size()));
+    }
+
+    private Long productId(int i) {
+        // Skip the low stock products seeded at every 50th position
+        int index = Math.floorMod(i, database.productIds.size());
+        if (index % 50 == 0) {
+            index = (index + 1) % database.productIds.size();
+        }
+        return database.productIds.get(index);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.Grocito.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.Grocito.Services.HotStockLedger;
+
+/**
+ * Reservation throughput on a single hot SKU: the striped HotStockLedger against one shared
+ * atomic counter, on one thread and on every core.
+ *
+ * mvn -Pbenchmark verify -Djmh.includes=HotStockLedgerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotStockLedgerBenchmark {
+
+    private static final Long SKU = 1L;
+    private static final long STOCK = Long.MAX_VALUE / 4;
+
+    private HotStockLedger ledger;
+    private AtomicLong counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ledger = new HotStockLedger();
+        ledger.designate(SKU, STOCK);
+        counter = new AtomicLong(STOCK);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean ledgerOneThread() {
+        return ledger.reserve(SKU, 1);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean ledgerAllCores() {
+        return ledger.reserve(SKU, 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean sharedCounterOneThread() {
+        return takeShared(1);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean sharedCounterAllCores() {
+        return takeShared(1);
+    }
+
+    private boolean takeShared(int quantity) {
+        long current = counter.get();
+        while (current >= quantity) {
+            if (counter.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+            current = counter.get();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.Grocito.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.Grocito.Services.PartnerAvailabilityRegistry;
+
+/**
+ * 100k online partners over 200 pincodes, with six threads sending heartbeats while one toggles
+ * partners offline and online, one checks a partner's availability (the dashboard) and one lists a
+ * pincode's available partners: PartnerAvailabilityRegistry against the copy-on-write list per
+ * pincode and last-seen map it replaced, which pruned stale partners on every listing.
+ *
+ * mvn -Pbenchmark verify -Djmh.includes=PartnerAvailabilityBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartnerAvailabilityBenchmark {
+
+    private static final int PARTNERS = 100_000;
+    private static final int PINCODES = 200;
+
+    private PartnerAvailabilityRegistry registry;
+
+    private ConcurrentHashMap<String, List<Long>> listsByPincode;
+    private ConcurrentHashMap<Long, LocalDateTime> lastSeen;
+
+    @State(Scope.Thread)
+    public static class Picker {
+
+        private final SplittableRandom random = new SplittableRandom();
+
+        long partner() {
+            return 1 + random.nextInt(PARTNERS);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new PartnerAvailabilityRegistry(300_000, 1_000);
+        listsByPincode = new ConcurrentHashMap<>();
+        lastSeen = new ConcurrentHashMap<>();
+        for (long id = 1; id <= PARTNERS; id++) {
+            registry.online(id, pincode(id));
+            listsByPincode.computeIfAbsent(pincode(id), k -> new CopyOnWriteArrayList<>()).add(id);
+            lastSeen.put(id, LocalDateTime.now());
+        }
+    }
+
+    @Benchmark
+    @Group("registry")
+    @GroupThreads(6)
+    public boolean registryHeartbeat(Picker picker) {
+        return registry.heartbeat(picker.partner());
+    }
+
+    @Benchmark
+    @Group("registry")
+    @GroupThreads(1)
+    public boolean registryToggle(Picker picker) {
+        long id = picker.partner();
+        registry.offline(id);
+        registry.online(id, pincode(id));
+        return true;
+    }
+
+    @Benchmark
+    @Group("registry")
+    @GroupThreads(1)
+    public boolean registryIsAvailable(Picker picker) {
+        return registry.isAvailable(picker.partner());
+    }
+
+    @Benchmark
+    @Group("registry")
+    @GroupThreads(1)
+    public int registryListPincode(Picker picker) {
+        return registry.available(pincode(picker.partner())).size();
+    }
+
+    @Benchmark
+    @Group("copyOnWrite")
+    @GroupThreads(6)
+    public LocalDateTime copyOnWriteHeartbeat(Picker picker) {
+        return lastSeen.put(picker.partner(), LocalDateTime.now());
+    }
+
+    @Benchmark
+    @Group("copyOnWrite")
+    @GroupThreads(1)
+    public boolean copyOnWriteToggle(Picker picker) {
+        Long id = picker.partner();
+        List<Long> partners = listsByPincode.get(pincode(id));
+        partners.remove(id);
+        lastSeen.remove(id);
+        partners.add(id);
+        lastSeen.put(id, LocalDateTime.now());
+        return true;
+    }
+
+    @Benchmark
+    @Group("copyOnWrite")
+    @GroupThreads(1)
+    public boolean copyOnWriteIsAvailable(Picker picker) {
+        long id = picker.partner();
+        return listsByPincode.get(pincode(id)).contains(id);
+    }
+
+    @Benchmark
+    @Group("copyOnWrite")
+    @GroupThreads(1)
+    public int copyOnWriteListPincode(Picker picker) {
+        List<Long> partners = listsByPincode.get(pincode(picker.partner()));
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(5);
+        partners.removeIf(partnerId -> {
+            LocalDateTime seen = lastSeen.get(partnerId);
+            return seen == null || seen.isBefore(cutoff);
+        });
+        return partners.size();
+    }
+
+    private static String pincode(long partnerId) {
+        return String.valueOf(411000 + partnerId % PINCODES);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.Grocito.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Services.ProductSearchIndex;
+
+/**
+ * Storefront search latency on the in-memory product index at catalogue sizes up to 500k SKUs.
+ *
+ * mvn -Pbenchmark verify -Djmh.includes=ProductSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ProductSearchBenchmark {
+
+    private static final String[] BRANDS = new String[400];
+    private static final String[] QUERIES = { "organic milk", "fresh tom", "brand17 butter", "choco", "mango juice 1l",
+            "basmati", "paneer", "brand203", "whole wheat bread", "apple" };
+
+    static {
+        for (int i = 0; i < BRANDS.length; i++) {
+            BRANDS[i] = "brand" + i;
+        }
+    }
+
+    @Param({ "50000", "500000" })
+    private int products;
+
+    private ProductSearchIndex index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] items = { "milk", "butter", "paneer", "bread", "tomato", "potato", "onion", "mango", "apple", "banana",
+                "juice", "chocolate", "chocos", "basmati", "rice", "atta", "cookies", "chips", "yogurt", "cheese" };
+        String[] adjectives = { "fresh", "organic", "whole", "wheat", "low", "fat", "premium", "classic", "spicy", "sweet" };
+        String[] sizes = { "200g", "500g", "1kg", "1l", "500ml", "pack" };
+
+        index = new ProductSearchIndex();
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setId((long) i + 1);
+            product.setName(BRANDS[random.nextInt(BRANDS.length)] + " " + adjectives[random.nextInt(adjectives.length)] + " "
+                    + items[random.nextInt(items.length)] + " " + sizes[random.nextInt(sizes.length)]);
+            product.setDescription(adjectives[random.nextInt(adjectives.length)] + " " + items[random.nextInt(items.length)]
+                    + " sourced from local farms");
+            product.setCategory(BenchmarkDatabase.CATEGORIES[random.nextInt(BenchmarkDatabase.CATEGORIES.length)]);
+            product.setPincode(BenchmarkDatabase.PINCODES[random.nextInt(BenchmarkDatabase.PINCODES.length)]);
+            product.setPrice(10 + random.nextInt(50000) / 100.0);
+            index.index(product);
+        }
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Hits topTwentyByRelevance() {
+        int i = next++;
+        return index.search(QUERIES[i % QUERIES.length], BenchmarkDatabase.PINCODES[i % BenchmarkDatabase.PINCODES.length],
+                null, ProductSearchIndex.Order.RELEVANCE, 0, 20);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Hits topTwentyByRelevanceInCategory() {
+        int i = next++;
+        return index.search(QUERIES[i % QUERIES.length], BenchmarkDatabase.PINCODES[i % BenchmarkDatabase.PINCODES.length],
+                BenchmarkDatabase.CATEGORIES[i % BenchmarkDatabase.CATEGORIES.length], ProductSearchIndex.Order.RELEVANCE, 0, 20);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.Grocito.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Services.OrderService;
+import com.example.Grocito.Services.ProductService;
+import com.example.Grocito.dto.CursorPage;
+import com.example.Grocito.dto.OrderView;
+
+/**
+ * Read paths behind the storefront and admin dashboard: product search, admin order list and analytics.
+ *
+ * mvn -Pbenchmark verify -Djmh.includes=QueryBenchmark -Djmh.args="-p orders=100000,1000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class QueryBenchmark {
+
+    @Param({ "1000" })
+    private int users;
+
+    @Param({ "5000" })
+    private int products;
+
+    @Param({ "20000" })
+    private int orders;
+
+    private BenchmarkDatabase database;
+    private ProductService productService;
+    private OrderService orderService;
+    private int next;
+
+    // Halfway down the unfiltered admin order list, by page number and by cursor
+    private int deepPage;
+    private String deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(users, products, orders);
+        productService = database.bean(ProductService.class);
+        orderService = database.bean(OrderService.class);
+
+        deepPage = orders / 20 / 2;
+        for (int page = 0; page < deepPage; page++) {
+            String cursor = deepCursor;
+            deepCursor = database.inRequest(() -> orderService.getOrdersAfter(cursor, 20, "orderTime",
+                    null, null, null, null, null)).getNextCursor();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Page<Product> getFilteredProducts() {
+        int i = next++;
+        return database.inRequest(() -> productService.getFilteredProducts(0, 20, "name", null, pincode(i),
+                BenchmarkDatabase.WORDS[i % BenchmarkDatabase.WORDS.length]));
+    }
+
+    @Benchmark
+    public Page<OrderView> getFilteredOrders() {
+        int i = next++;
+        return database.inRequest(() -> orderService.getFilteredOrders(i % 5, 20, "orderTime",
+                BenchmarkDatabase.STATUSES[i % BenchmarkDatabase.STATUSES.length], pincode(i), null, null, null));
+    }
+
+    @Benchmark
+    public Page<OrderView> deepOrderPageByOffset() {
+        return database.inRequest(() -> orderService.getFilteredOrders(deepPage, 20, "orderTime",
+                null, null, null, null, null));
+    }
+
+    @Benchmark
+    public CursorPage<OrderView> deepOrderPageByCursor() {
+        return database.inRequest(() -> orderService.getOrdersAfter(deepCursor, 20, "orderTime",
+                null, null, null, null, null));
+    }
+
+    @Benchmark
+    public Map<String, Object> getOrderAnalytics() {
+        String pincode = pincode(next++);
+        return database.inRequest(() -> orderService.getOrderAnalytics(pincode, null, null));
+    }
+
+    @Benchmark
+    public Map<String, Object> getDashboardAnalytics() {
+        return database.inRequest(() -> orderService.getDashboardAnalytics("SUPER_ADMIN", null));
+    }
+
+    @Benchmark
+    public Map<String, Object> getProductAnalytics() {
+        return database.inRequest(() -> productService.getProductAnalytics());
+    }
+
+    private static String pincode(int i) {
+        return BenchmarkDatabase.PINCODES[i % BenchmarkDatabase.PINCODES.length];
+    }
+}
@@ -2,8 +2,10 @@ package com.example.Grocito.Controller;
 
 import com.example.Grocito.Services.OrderAssignmentService;
 import com.example.Grocito.Services.DeliveryPartnerAuthService;
+import com.example.Grocito.Services.OrderPushService;
 import com.example.Grocito.Entity.Order;
 import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.dto.OrderView;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -28,6 +31,9 @@ public class DeliveryPartnerDashboardController {
     
     @Autowired
     private DeliveryPartnerAuthService authService;
+    
+    @Autowired
+    private OrderPushService orderPushService;
 
     /**
      * Get dashboard data for delivery partner
@@ -90,7 +96,7 @@ public class DeliveryPartnerDashboardController {
     }
 
     /**
-     * Accept an available order
+     * Accept an available order, or one offered to the partner by automatic assignment
      */
     @PostMapping("/accept-order/{orderId}")
     public ResponseEntity<?> acceptOrder(@PathVariable Long orderId, HttpServletRequest request) {
@@ -103,7 +109,8 @@ public class DeliveryPartnerDashboardController {
 
             logger.info("Partner {} attempting to accept order {}", partnerId, orderId);
             
-            boolean assigned = orderAssignmentService.assignOrderToPartner(orderId, partnerId);
+            boolean assigned = orderAssignmentService.acceptOffer(orderId, partnerId)
+                    || orderAssignmentService.assignOrderToPartner(orderId, partnerId);
             
             if (assigned) {
                 Map<String, Object> response = new HashMap<>();
@@ -186,7 +193,7 @@ public class DeliveryPartnerDashboardController {
             }
 
             String pincode = partnerOpt.get().getPincode();
-            List<Order> availableOrders = orderAssignmentService.getPendingOrdersForPincode(pincode);
+            List<OrderView> availableOrders = orderAssignmentService.getPendingOrdersForPincode(pincode);
             
             logger.info("Found {} available orders for partner {} in pincode {}", 
                        availableOrders.size(), partnerId, pincode);
@@ -199,6 +206,31 @@ public class DeliveryPartnerDashboardController {
         }
     }
 
+    /**
+     * Server-sent event stream of new orders in the partner's pincode and status changes of
+     * orders there or assigned to the partner (see OrderPushService). Load available-orders and
+     * my-orders once on connect (and on a "resync" event), then apply the events instead of polling.
+     * Browsers' EventSource cannot send headers, so the token may also be passed as ?token=.
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<SseEmitter> streamOrders(@RequestParam(required = false) String token, HttpServletRequest request) {
+        Long partnerId = getPartnerIdFromToken(request);
+        if (partnerId == null && token != null) {
+            partnerId = getPartnerIdFromToken("Bearer " + token);
+        }
+        if (partnerId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Optional<DeliveryPartnerAuth> partnerOpt = authService.getAuthRecordById(partnerId, null, null);
+        if (!partnerOpt.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        logger.info("Partner {} opened order stream for pincode {}", partnerId, partnerOpt.get().getPincode());
+        return ResponseEntity.ok(orderPushService.subscribePartner(partnerId, partnerOpt.get().getPincode()));
+    }
+
     /**
      * Get partner's assigned orders
      */
@@ -211,7 +243,7 @@ public class DeliveryPartnerDashboardController {
                         .body(Map.of("error", "Invalid or missing authentication token"));
             }
 
-            List<Order> myOrders = orderAssignmentService.getAssignedOrdersForPartner(partnerId);
+            List<OrderView> myOrders = orderAssignmentService.getAssignedOrdersForPartner(partnerId);
             
             logger.info("Found {} assigned orders for partner {}", myOrders.size(), partnerId);
             
@@ -257,7 +289,7 @@ public class DeliveryPartnerDashboardController {
                         .body(Map.of("error", "Invalid or missing authentication token"));
             }
 
-            List<Order> completedOrders = orderAssignmentService.getCompletedOrdersForPartner(partnerId);
+            List<OrderView> completedOrders = orderAssignmentService.getCompletedOrdersForPartner(partnerId);
             
             logger.info("Found {} completed orders for partner {}", completedOrders.size(), partnerId);
             
@@ -320,10 +352,11 @@ public class DeliveryPartnerDashboardController {
     }
 
     /**
-     * Keep partner alive (heartbeat)
+     * Keep partner alive (heartbeat), optionally with the partner's latitude and longitude
      */
     @PostMapping("/heartbeat")
-    public ResponseEntity<?> heartbeat(HttpServletRequest request) {
+    public ResponseEntity<?> heartbeat(@RequestBody(required = false) Map<String, Double> location,
+                                       HttpServletRequest request) {
         try {
             Long partnerId = getPartnerIdFromToken(request);
             if (partnerId == null) {
@@ -331,7 +364,11 @@ public class DeliveryPartnerDashboardController {
                         .body(Map.of("error", "Invalid or missing authentication token"));
             }
 
-            orderAssignmentService.keepPartnerAlive(partnerId);
+            if (location != null) {
+                orderAssignmentService.keepPartnerAlive(partnerId, location.get("latitude"), location.get("longitude"));
+            } else {
+                orderAssignmentService.keepPartnerAlive(partnerId);
+            }
             
             return ResponseEntity.ok(Map.of("message", "Heartbeat received", "timestamp", System.currentTimeMillis()));
         } catch (Exception e) {
@@ -345,8 +382,10 @@ public class DeliveryPartnerDashboardController {
      * Extract partner ID from delivery partner token
      */
     private Long getPartnerIdFromToken(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        
+        return getPartnerIdFromToken(request.getHeader("Authorization"));
+    }
+    
+    private Long getPartnerIdFromToken(String authHeader) {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             
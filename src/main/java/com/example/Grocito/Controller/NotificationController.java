@@ -2,16 +2,22 @@ package com.example.Grocito.Controller;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.Grocito.config.LoggerConfig;
 import com.example.Grocito.Entity.Notification;
+import com.example.Grocito.Entity.NotificationSummary;
+import com.example.Grocito.Services.NotificationFanOut;
 import com.example.Grocito.Services.NotificationService;
+import com.example.Grocito.dto.NotificationFanOutRequest;
+import com.example.Grocito.dto.NotificationFanOutStatus;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -22,6 +28,9 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationFanOut notificationFanOut;
+
     /**
      * Create a new notification
      * 
@@ -52,7 +61,55 @@ public class NotificationController {
     }
 
     /**
-     * Get notifications for a user
+     * Send one notification to a whole audience in the background
+     * 
+     * @param request The audience (USERS with userIds, ROLE with role and optional pincode, or
+     *                PARTNERS with pincode), message, type and link
+     * @return The fan-out status, to poll at /fan-out/{id}
+     */
+    @PostMapping("/fan-out")
+    public ResponseEntity<?> fanOut(@RequestBody NotificationFanOutRequest request) {
+        logger.info("Received request to fan out a notification");
+        
+        try {
+            NotificationFanOutStatus status = notificationFanOut.submit(request.getAudience(), request.getMessage(),
+                    request.getType(), request.getLink());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Notification fan-out rejected, queue is full");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many notification fan-outs queued, try again later");
+        }
+    }
+
+    /**
+     * Get the progress and throughput of a fan-out
+     * 
+     * @param fanOutId The fan-out ID
+     * @return The fan-out status
+     */
+    @GetMapping("/fan-out/{fanOutId}")
+    public ResponseEntity<NotificationFanOutStatus> getFanOutStatus(@PathVariable String fanOutId) {
+        NotificationFanOutStatus status = notificationFanOut.getStatus(fanOutId);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * Get recent fan-outs and totals since startup
+     * 
+     * @return recent and totals
+     */
+    @GetMapping("/fan-out")
+    public ResponseEntity<Map<String, Object>> getFanOuts() {
+        return ResponseEntity.ok(Map.of("recent", notificationFanOut.getRecent(), "totals", notificationFanOut.getTotals()));
+    }
+
+    /**
+     * Get the most recent notifications for a user (older ones through /cursor)
      * 
      * @param userId The user ID
      * @return List of notifications
@@ -72,7 +129,7 @@ public class NotificationController {
     }
 
     /**
-     * Get unread notifications for a user
+     * Get the most recent unread notifications for a user (older ones through /cursor)
      * 
      * @param userId The user ID
      * @return List of unread notifications
@@ -91,6 +148,77 @@ public class NotificationController {
         }
     }
 
+    /**
+     * Get the number of unread notifications for a user, without loading them
+     * 
+     * @param userId The user ID
+     * @return userId and unreadCount
+     */
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Object>> getUnreadCount(@RequestParam Long userId) {
+        logger.debug("Received request to get unread count for user ID: {}", userId);
+        
+        try {
+            return ResponseEntity.ok(Map.of("userId", userId, "unreadCount", notificationService.getUnreadCount(userId)));
+        } catch (Exception e) {
+            logger.error("Error retrieving unread count for user ID {}: {}", userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Get a user's notifications a page at a time, newest first
+     * 
+     * @param userId The user ID
+     * @param cursor nextCursor of the previous page, omitted for the first page
+     * @param size Page size
+     * @param unreadOnly Whether to list unread notifications only
+     * @return The page, with the cursor of the next one
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getNotificationsAfterCursor(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean unreadOnly) {
+        try {
+            return ResponseEntity.ok(notificationService.getNotificationsAfter(userId, cursor, size, unreadOnly));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Get what a user's old read notifications were, once retention has removed them
+     * 
+     * @param userId The user ID
+     * @return Count and first/last date per notification type
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<List<NotificationSummary>> getNotificationSummaries(@RequestParam Long userId) {
+        logger.info("Received request to get notification summaries for user ID: {}", userId);
+        
+        try {
+            return ResponseEntity.ok(notificationService.getSummaries(userId));
+        } catch (Exception e) {
+            logger.error("Error retrieving notification summaries for user ID {}: {}", userId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Stream a user's new notifications and unread count changes as server-sent events, instead
+     * of polling the list endpoints
+     * 
+     * @param userId The user ID
+     * @return The event stream
+     */
+    @GetMapping("/stream")
+    public SseEmitter streamNotifications(@RequestParam Long userId) {
+        logger.info("User {} opened notification stream", userId);
+        return notificationService.subscribe(userId);
+    }
+
     /**
      * Mark a notification as read
      * 
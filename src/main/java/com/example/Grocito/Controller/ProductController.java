@@ -219,6 +219,21 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductsByPincode(pincode, page, size, sortBy));
     }
     
+    // Get products with cursor (keyset) pagination; pass nextCursor back as cursor for the next page
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getProductsAfterCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String pincode) {
+        try {
+            return ResponseEntity.ok(productService.getProductsAfter(cursor, size, sortBy, category, pincode));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     // Get paginated products by category
     @GetMapping("/paginated/category/{category}")
     public ResponseEntity<Page<Product>> getPaginatedProductsByCategory(
@@ -231,16 +246,39 @@ public class ProductController {
     
     // Search products by keyword
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String keyword) {
-        return ResponseEntity.ok(productService.searchProducts(keyword));
+    public ResponseEntity<List<Product>> searchProducts(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.searchProducts(keyword, page, size));
     }
     
     // Search products by keyword and pincode
     @GetMapping("/search/pincode/{pincode}")
     public ResponseEntity<List<Product>> searchProductsByPincode(
             @RequestParam String keyword,
-            @PathVariable String pincode) {
-        return ResponseEntity.ok(productService.searchProductsByPincode(keyword, pincode));
+            @PathVariable String pincode,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.searchProductsByPincode(keyword, pincode, page, size));
+    }
+    
+    // Product cache hit/miss/eviction counters
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        return ResponseEntity.ok(productService.getCacheStats());
+    }
+    
+    // Suggest-as-you-type product names within a pincode (typo tolerant)
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestProducts(
+            @RequestParam String q,
+            @RequestParam String pincode,
+            @RequestParam(defaultValue = "8") int limit) {
+        if (q.trim().isEmpty() || pincode.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body("Both q and pincode are required");
+        }
+        return ResponseEntity.ok(productService.suggestProducts(q, pincode, limit));
     }
     
     // Update product stock (role-based access)
@@ -164,6 +164,24 @@ public class UserController {
         }
     }
     
+    // Admin: Get users with cursor (keyset) pagination; pass nextCursor back as cursor for the next page
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getUsersAfterCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "newest") String sortBy,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String pincode) {
+        try {
+            return ResponseEntity.ok(userService.getUsersAfter(cursor, limit, sortBy, search, role, status, pincode));
+        } catch (RuntimeException e) {
+            logger.error("Error fetching users after cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     // Admin: Update user role
     @PutMapping("/{id}/role")
     public ResponseEntity<?> updateUserRole(
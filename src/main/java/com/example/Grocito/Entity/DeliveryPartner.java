@@ -5,7 +5,9 @@ import java.time.LocalDateTime;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "delivery_partners")
+@Table(name = "delivery_partners", indexes = {
+        @Index(name = "idx_delivery_partners_pincode_availability", columnList = "assigned_pincode, availability_status")
+})
 public class DeliveryPartner {
 
     @Id
@@ -81,14 +83,11 @@ public class DeliveryPartner {
     @Column(name = "bank_account_holder_name", length = 100)
     private String bankAccountHolderName;
 
-<<<<<<< HEAD
     // Link to authentication record
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "auth_id")
     private DeliveryPartnerAuth authRecord;
 
-=======
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
     // Timestamps
     @Column(name = "created_at", nullable = true)
     private LocalDateTime createdAt = LocalDateTime.now();
@@ -317,7 +316,6 @@ public class DeliveryPartner {
         this.lastActiveAt = lastActiveAt;
     }
 
-<<<<<<< HEAD
     public DeliveryPartnerAuth getAuthRecord() {
         return authRecord;
     }
@@ -326,8 +324,6 @@ public class DeliveryPartner {
         this.authRecord = authRecord;
     }
 
-=======
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
     // Utility methods
     public void updateLastActive() {
         this.lastActiveAt = LocalDateTime.now();
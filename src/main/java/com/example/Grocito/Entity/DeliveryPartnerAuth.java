@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "delivery_partner_auth")
+@Table(name = "delivery_partner_auth", indexes = {
+        @Index(name = "idx_delivery_partner_auth_pincode_status", columnList = "pincode, verification_status")
+})
 public class DeliveryPartnerAuth {
 
     @Id
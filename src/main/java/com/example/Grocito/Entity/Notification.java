@@ -5,7 +5,12 @@ import java.time.LocalDateTime;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_read_created", columnList = "user_id, read_status, created_at"),
+        @Index(name = "idx_notifications_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_notifications_user_read_id", columnList = "user_id, read_status, id"),
+        @Index(name = "idx_notifications_read_created", columnList = "read_status, created_at")
+})
 public class Notification {
 
     @Id
@@ -15,6 +20,10 @@ public class Notification {
     @Column(name = "user_id")
     private Long userId;
 
+    // USER, or PARTNER when userId is a delivery partner (DeliveryPartnerAuth) ID
+    @Column(name = "recipient_type", nullable = false, length = 20)
+    private String recipientType = "USER";
+
     private String message;
     private String type;
 
@@ -56,6 +65,14 @@ public class Notification {
         this.userId = userId;
     }
 
+    public String getRecipientType() {
+        return recipientType;
+    }
+
+    public void setRecipientType(String recipientType) {
+        this.recipientType = recipientType;
+    }
+
     public String getMessage() {
         return message;
     }
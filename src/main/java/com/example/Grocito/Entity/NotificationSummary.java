@@ -0,0 +1,109 @@
+package com.example.Grocito.Entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Read notifications removed by the retention job, rolled up per recipient and type: how many
+ * there were and when the first and last of them were created.
+ */
+@Entity
+@Table(name = "notification_summaries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_notification_summaries", columnNames = { "user_id", "recipient_type", "type" })
+})
+public class NotificationSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "recipient_type", nullable = false, length = 20)
+    private String recipientType;
+
+    @Column(name = "type", nullable = false)
+    private String type;
+
+    @Column(name = "notification_count", nullable = false)
+    private long notificationCount;
+
+    @Column(name = "first_created_at", nullable = false)
+    private LocalDateTime firstCreatedAt;
+
+    @Column(name = "last_created_at", nullable = false)
+    private LocalDateTime lastCreatedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public NotificationSummary() {
+        super();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getRecipientType() {
+        return recipientType;
+    }
+
+    public void setRecipientType(String recipientType) {
+        this.recipientType = recipientType;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public long getNotificationCount() {
+        return notificationCount;
+    }
+
+    public void setNotificationCount(long notificationCount) {
+        this.notificationCount = notificationCount;
+    }
+
+    public LocalDateTime getFirstCreatedAt() {
+        return firstCreatedAt;
+    }
+
+    public void setFirstCreatedAt(LocalDateTime firstCreatedAt) {
+        this.firstCreatedAt = firstCreatedAt;
+    }
+
+    public LocalDateTime getLastCreatedAt() {
+        return lastCreatedAt;
+    }
+
+    public void setLastCreatedAt(LocalDateTime lastCreatedAt) {
+        this.lastCreatedAt = lastCreatedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.Grocito.Entity;
 
 import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -9,7 +10,16 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Keyset pagination: (sort key, id), optionally behind an equality filter
+        @Index(name = "idx_orders_time_id", columnList = "order_time, id"),
+        @Index(name = "idx_orders_amount_id", columnList = "total_amount, id"),
+        @Index(name = "idx_orders_pincode_time_id", columnList = "pincode, order_time, id"),
+        @Index(name = "idx_orders_status_time_id", columnList = "status, order_time, id"),
+        // Pending orders per pincode; a partner's orders by status and delivery date
+        @Index(name = "idx_orders_pincode_status_time", columnList = "pincode, status, order_time"),
+        @Index(name = "idx_orders_partner_status_delivered", columnList = "delivery_partner_auth_id, status, delivered_at")
+})
 public class Order {
     
 	@Id
@@ -29,6 +39,17 @@ public class Order {
     private LocalDateTime deliveredAt;
     private LocalDateTime cancelledAt;
 
+    // Store the order is picked up from; unset for the pincode's configured pickup point
+    @Column(name = "pickup_latitude", precision = 10, scale = 8)
+    private BigDecimal pickupLatitude;
+
+    @Column(name = "pickup_longitude", precision = 11, scale = 8)
+    private BigDecimal pickupLongitude;
+
+    // When an automatic assignment not yet accepted by its partner is taken back; unset otherwise
+    @Column(name = "offer_expires_at")
+    private LocalDateTime offerExpiresAt;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
@@ -183,6 +204,30 @@ public class Order {
 		this.cancelledAt = cancelledAt;
 	}
 
+	public BigDecimal getPickupLatitude() {
+		return pickupLatitude;
+	}
+
+	public void setPickupLatitude(BigDecimal pickupLatitude) {
+		this.pickupLatitude = pickupLatitude;
+	}
+
+	public BigDecimal getPickupLongitude() {
+		return pickupLongitude;
+	}
+
+	public void setPickupLongitude(BigDecimal pickupLongitude) {
+		this.pickupLongitude = pickupLongitude;
+	}
+
+	public LocalDateTime getOfferExpiresAt() {
+		return offerExpiresAt;
+	}
+
+	public void setOfferExpiresAt(LocalDateTime offerExpiresAt) {
+		this.offerExpiresAt = offerExpiresAt;
+	}
+
 	@Override
 	public String toString() {
 		return "Order [id=" + id + ", status=" + status + ", orderTime=" + orderTime + ", deliveryAddress="
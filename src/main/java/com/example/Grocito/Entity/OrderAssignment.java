@@ -5,7 +5,10 @@ import java.time.LocalDateTime;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "order_assignments")
+@Table(name = "order_assignments", indexes = {
+        @Index(name = "idx_order_assignments_status_assigned", columnList = "status, assigned_at"),
+        @Index(name = "idx_order_assignments_partner_status", columnList = "partner_id, status")
+})
 public class OrderAssignment {
 
     @Id
@@ -0,0 +1,103 @@
+package com.example.Grocito.Entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+
+/**
+ * Materialized per-pincode, per-day, per-status order rollup.
+ * One row holds the number of orders placed on statsDate in pincode that are
+ * currently in status, and the sum of their order totals.
+ */
+@Entity
+@Table(name = "order_daily_stats", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_order_daily_stats", columnNames = { "pincode", "stats_date", "status" })
+})
+public class OrderDailyStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "pincode", nullable = false, length = 10)
+    private String pincode;
+
+    @Column(name = "stats_date", nullable = false)
+    private LocalDate statsDate;
+
+    @Column(name = "status", nullable = false, length = 30)
+    private String status;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "revenue", nullable = false)
+    private double revenue;
+
+    public OrderDailyStats() {
+        super();
+    }
+
+    public OrderDailyStats(String pincode, LocalDate statsDate, String status, long orderCount, double revenue) {
+        super();
+        this.pincode = pincode;
+        this.statsDate = statsDate;
+        this.status = status;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPincode() {
+        return pincode;
+    }
+
+    public void setPincode(String pincode) {
+        this.pincode = pincode;
+    }
+
+    public LocalDate getStatsDate() {
+        return statsDate;
+    }
+
+    public void setStatsDate(LocalDate statsDate) {
+        this.statsDate = statsDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderDailyStats [id=" + id + ", pincode=" + pincode + ", statsDate=" + statsDate + ", status="
+                + status + ", orderCount=" + orderCount + ", revenue=" + revenue + "]";
+    }
+}
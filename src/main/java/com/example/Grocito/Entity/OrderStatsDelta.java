@@ -0,0 +1,69 @@
+package com.example.Grocito.Entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.*;
+
+/**
+ * One change to an order_daily_stats row not yet folded into it: orderCount orders, with
+ * revenue in order totals, added to (or, when negative, taken from) pincode's orders placed on
+ * statsDate and now in status. Written by order writers in their own transaction instead of an
+ * UPDATE of the shared rollup row.
+ */
+@Entity
+@Table(name = "order_stats_deltas")
+public class OrderStatsDelta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "pincode", nullable = false, length = 10)
+    private String pincode;
+
+    @Column(name = "stats_date", nullable = false)
+    private LocalDate statsDate;
+
+    @Column(name = "status", nullable = false, length = 30)
+    private String status;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "revenue", nullable = false)
+    private double revenue;
+
+    public OrderStatsDelta() {
+        super();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getPincode() {
+        return pincode;
+    }
+
+    public LocalDate getStatsDate() {
+        return statsDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderStatsDelta [id=" + id + ", pincode=" + pincode + ", statsDate=" + statsDate + ", status="
+                + status + ", orderCount=" + orderCount + ", revenue=" + revenue + "]";
+    }
+}
@@ -3,7 +3,12 @@ package com.example.Grocito.Entity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+		// Keyset pagination: (sort key, id) per pincode
+		@Index(name = "idx_products_pincode_name_id", columnList = "pincode, name, id"),
+		@Index(name = "idx_products_pincode_price_id", columnList = "pincode, price, id"),
+		@Index(name = "idx_products_pincode_category", columnList = "pincode, category")
+})
 public class Product {
 
 	@Id
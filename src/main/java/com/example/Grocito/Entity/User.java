@@ -8,7 +8,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+		// Keyset pagination: newest first within a role or pincode
+		@Index(name = "idx_users_role_id", columnList = "role, id"),
+		@Index(name = "idx_users_pincode_id", columnList = "pincode, id")
+})
 public class User {
     
 	@Id
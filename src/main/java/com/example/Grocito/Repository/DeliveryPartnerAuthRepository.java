@@ -16,6 +16,11 @@ public interface DeliveryPartnerAuthRepository extends JpaRepository<DeliveryPar
     // Find by email for login
     Optional<DeliveryPartnerAuth> findByEmail(String email);
     
+    // Lock the partner row until commit, so assignments to one partner take turns
+    @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT dpa FROM DeliveryPartnerAuth dpa WHERE dpa.id = :id")
+    Optional<DeliveryPartnerAuth> findLockedById(@Param("id") Long id);
+    
     // Find by phone number
     Optional<DeliveryPartnerAuth> findByPhoneNumber(String phoneNumber);
     
@@ -0,0 +1,136 @@
+package com.example.Grocito.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Keyset (seek) pagination helpers shared by the cursor endpoints.
+ *
+ * A cursor is the sort key values of the last row of a page, e.g. (orderTime, id), encoded as
+ * an opaque URL-safe token. The next page is the rows strictly after those values in sort order,
+ * so the database seeks straight to it through a matching composite index instead of reading and
+ * discarding every earlier row, and page N costs the same as page 1.
+ *
+ * Every sort must end with a unique property (the ID) and its properties must not be null.
+ */
+public final class Keyset {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private Keyset() {
+    }
+
+    /**
+     * Rows strictly after values in the given sort order, or null (no restriction) for the first page
+     */
+    public static <T> Specification<T> after(Sort sort, List<Object> values) {
+        if (values == null) {
+            return null;
+        }
+        List<Sort.Order> orders = sort.toList();
+        return (root, query, cb) -> {
+            // (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ... with > or < per sort direction
+            List<Predicate> alternatives = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                List<Predicate> terms = new ArrayList<>();
+                for (int j = 0; j < i; j++) {
+                    terms.add(cb.equal(root.get(orders.get(j).getProperty()), values.get(j)));
+                }
+                terms.add(beyond(cb, root.get(orders.get(i).getProperty()), orders.get(i).isAscending(), values.get(i)));
+                alternatives.add(cb.and(terms.toArray(new Predicate[0])));
+            }
+            return cb.or(alternatives.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Cursor pointing just past entity, for a page sorted by sort under the client's sortBy name
+     */
+    public static String encode(String sortBy, Sort sort, Object entity) {
+        BeanWrapperImpl properties = new BeanWrapperImpl(entity);
+        List<String> values = new ArrayList<>();
+        values.add(sortBy);
+        for (Sort.Order order : sort) {
+            values.add(String.valueOf(properties.getPropertyValue(order.getProperty())));
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(JSON.writeValueAsBytes(values));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    /**
+     * Sort key values of cursor, typed like the properties of entityType, or null for no cursor.
+     * Throws IllegalArgumentException for a malformed cursor or one issued for a different sort.
+     */
+    public static List<Object> decode(String cursor, String sortBy, Sort sort, Class<?> entityType) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        List<Sort.Order> orders = sort.toList();
+        String[] raw;
+        try {
+            raw = JSON.readValue(Base64.getUrlDecoder().decode(cursor), String[].class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (raw.length != orders.size() + 1 || !String.valueOf(sortBy).equals(raw[0])) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+        List<Object> values = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Class<?> type = BeanUtils.getPropertyDescriptor(entityType, orders.get(i).getProperty()).getPropertyType();
+            try {
+                values.add(parse(raw[i + 1], type));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+        return values;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Predicate beyond(CriteriaBuilder cb, Path<?> path, boolean ascending, Object value) {
+        Comparable key = (Comparable) value;
+        return ascending ? cb.greaterThan((Path<Comparable>) path, key) : cb.lessThan((Path<Comparable>) path, key);
+    }
+
+    private static Object parse(String value, Class<?> type) {
+        if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        }
+        if (type == Double.class || type == double.class) {
+            return Double.valueOf(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        if (type == String.class) {
+            return value;
+        }
+        throw new IllegalArgumentException("Unsupported cursor key type " + type.getSimpleName());
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.Grocito.Repository;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+/**
+ * Keyset page queries for repositories with Specification support.
+ */
+public interface KeysetExecutor<T> extends JpaSpecificationExecutor<T> {
+
+    /**
+     * Up to limit rows matching filter that come after the cursor values in sort order (from the
+     * start when after is null), without a count query. fetch names associations to load in the
+     * same statement.
+     */
+    default List<T> findAfter(Specification<T> filter, Sort sort, List<Object> after, int limit, String... fetch) {
+        Specification<T> spec = Specification.where(filter).and(Keyset.after(sort, after));
+        return findBy(spec, query -> fetch.length == 0
+                ? query.sortBy(sort).limit(limit).all()
+                : query.sortBy(sort).limit(limit).project(Arrays.asList(fetch)).all());
+    }
+}
@@ -1,16 +1,24 @@
 package com.example.Grocito.Repository;
 
-import java.util.List;
-
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.Grocito.Entity.Notification;
 
 @Repository
-public interface NotificationRepository extends JpaRepository<Notification, Long> {
+public interface NotificationRepository extends JpaRepository<Notification, Long>, KeysetExecutor<Notification> {
+    
+    long countByUserIdAndRecipientTypeAndReadStatus(Long userId, String recipientType, Boolean readStatus);
     
-    List<Notification> findByUserId(Long userId);
+    // Returns 1 only for the call that actually flips the notification to read
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.readStatus = true WHERE n.id = :id AND (n.readStatus = false OR n.readStatus IS NULL)")
+    int markReadIfUnread(@Param("id") Long id);
     
-    List<Notification> findByUserIdAndReadStatus(Long userId, Boolean readStatus);
-}
\ No newline at end of file
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.id = :id AND n.readStatus = false")
+    int deleteIfUnread(@Param("id") Long id);
+}
@@ -0,0 +1,44 @@
+package com.example.Grocito.Repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.Grocito.Entity.Notification;
+
+/**
+ * Reusable JPA Specifications for notification history.
+ */
+public final class NotificationSpecifications {
+
+    /**
+     * Newest first. IDs grow with creation time and, unlike createdAt, are never null or tied.
+     */
+    public static final Sort HISTORY_SORT = Sort.by(Sort.Order.desc("id"));
+
+    private NotificationSpecifications() {
+    }
+
+    /**
+     * Notifications of the given user (not of a delivery partner with the same ID)
+     */
+    public static Specification<Notification> forUser(Long userId) {
+        return (root, query, cb) -> cb.and(cb.equal(root.get("userId"), userId), cb.equal(root.get("recipientType"), "USER"));
+    }
+
+    /**
+     * Only unread notifications when unreadOnly is set
+     */
+    public static Specification<Notification> unread(boolean unreadOnly) {
+        if (!unreadOnly) {
+            return null;
+        }
+        return (root, query, cb) -> cb.isFalse(root.get("readStatus"));
+    }
+
+    /**
+     * Combine the history filters into a single specification
+     */
+    public static Specification<Notification> filter(Long userId, boolean unreadOnly) {
+        return Specification.where(forUser(userId)).and(unread(unreadOnly));
+    }
+}
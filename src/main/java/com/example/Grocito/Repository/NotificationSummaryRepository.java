@@ -0,0 +1,14 @@
+package com.example.Grocito.Repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.Grocito.Entity.NotificationSummary;
+
+@Repository
+public interface NotificationSummaryRepository extends JpaRepository<NotificationSummary, Long> {
+
+    List<NotificationSummary> findByUserIdAndRecipientTypeOrderByLastCreatedAtDesc(Long userId, String recipientType);
+}
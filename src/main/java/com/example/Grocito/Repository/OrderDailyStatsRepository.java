@@ -0,0 +1,25 @@
+package com.example.Grocito.Repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.Grocito.Entity.OrderDailyStats;
+
+@Repository
+public interface OrderDailyStatsRepository extends JpaRepository<OrderDailyStats, Long> {
+
+    boolean existsByPincodeAndStatsDateAndStatus(String pincode, LocalDate statsDate, String status);
+
+    // Atomically apply a delta to one rollup row (native so the deltas bind without casts)
+    @Modifying
+    @Query(value = "UPDATE order_daily_stats SET order_count = order_count + :countDelta, revenue = revenue + :revenueDelta " +
+           "WHERE pincode = :pincode AND stats_date = :statsDate AND status = :status", nativeQuery = true)
+    int applyDelta(@Param("pincode") String pincode, @Param("statsDate") LocalDate statsDate,
+                   @Param("status") String status, @Param("countDelta") long countDelta,
+                   @Param("revenueDelta") double revenueDelta);
+}
@@ -4,7 +4,7 @@ import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.example.Grocito.Entity.Order;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, KeysetExecutor<Order> {
     List<Order> findByUserId(Long userId);
     List<Order> findByPincode(String pincode);
     List<Order> findByStatus(String status);
@@ -16,7 +16,168 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     @org.springframework.data.jpa.repository.Query("SELECT o FROM Order o WHERE o.status = :status ORDER BY o.orderTime DESC")
     List<Order> findByStatusOrderByOrderTimeDesc(@org.springframework.data.repository.query.Param("status") String status);
-<<<<<<< HEAD
+
+    // Methods for order analytics
+    List<Order> findTop10ByOrderByOrderTimeDesc();
+
+    List<Order> findTop10ByPincodeOrderByOrderTimeDesc(String pincode);
+
+    long countByOrderTimeAfter(java.time.LocalDateTime after);
+
+    long countByPincodeAndOrderTimeAfter(String pincode, java.time.LocalDateTime after);
+
+    @org.springframework.data.jpa.repository.Query("SELECT MIN(o.orderTime) FROM Order o")
+    java.time.LocalDateTime findEarliestOrderTime();
+
+    @org.springframework.data.jpa.repository.Query("SELECT MAX(o.orderTime) FROM Order o")
+    java.time.LocalDateTime findLatestOrderTime();
+
+    // Order list variants that load the customer, partner and items with their products in the same
+    // query, so building an OrderView for every order needs no further statements
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = { "user", "user.cart", "deliveryPartner", "items", "items.product" })
+    @org.springframework.data.jpa.repository.Query("SELECT o FROM Order o")
+    List<Order> findAllWithDetails();
+
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = { "user", "user.cart", "deliveryPartner", "items", "items.product" })
+    List<Order> findWithDetailsByUserId(Long userId);
+
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = { "user", "user.cart", "deliveryPartner", "items", "items.product" })
+    List<Order> findWithDetailsByPincode(String pincode);
+
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = { "user", "user.cart", "deliveryPartner", "items", "items.product" })
+    List<Order> findWithDetailsByIdIn(java.util.Collection<Long> ids);
+
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = { "user", "user.cart", "deliveryPartner", "items", "items.product" })
+    List<Order> findWithDetailsByStatusAndPincodeOrderByOrderTimeAsc(String status, String pincode);
+
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = { "user", "user.cart", "deliveryPartner", "items", "items.product" })
+    List<Order> findWithDetailsByDeliveryPartnerIdAndStatusIn(Long deliveryPartnerId, List<String> statuses);
+
+    // Filtered pages join the to-one associations instead of selecting them once per row; items
+    // are left out because a collection fetch cannot be paged in the database
+    @Override
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = { "user", "user.cart", "deliveryPartner" })
+    org.springframework.data.domain.Page<Order> findAll(
+        org.springframework.data.jpa.domain.Specification<Order> spec,
+        org.springframework.data.domain.Pageable pageable
+    );
+
+    // Latest orders with their customer, for the recent activity feed
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = { "user", "user.cart" })
+    List<Order> findRecentWithUserByOrderByOrderTimeDesc(org.springframework.data.domain.Pageable pageable);
+
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = { "user", "user.cart" })
+    List<Order> findRecentWithUserByPincodeOrderByOrderTimeDesc(String pincode, org.springframework.data.domain.Pageable pageable);
+
+    // Active orders per partner for a set of assignment candidates, in one query
+    @org.springframework.data.jpa.repository.Query("SELECT o.deliveryPartner.id, COUNT(o) FROM Order o " +
+           "WHERE o.deliveryPartner.id IN :partnerIds AND o.status IN :statuses GROUP BY o.deliveryPartner.id")
+    List<Object[]> countActiveByDeliveryPartnerIdIn(
+        @org.springframework.data.repository.query.Param("partnerIds") java.util.Collection<Long> partnerIds,
+        @org.springframework.data.repository.query.Param("statuses") java.util.Collection<String> statuses
+    );
+
+    // Pincodes with orders waiting for a partner, and the oldest of those orders with their
+    // pickup point, for the batch dispatcher
+    @org.springframework.data.jpa.repository.Query("SELECT DISTINCT o.pincode FROM Order o WHERE o.status = :status AND o.pincode IS NOT NULL")
+    List<String> findDistinctPincodeByStatus(@org.springframework.data.repository.query.Param("status") String status);
+
+    @org.springframework.data.jpa.repository.Query("SELECT o.id, o.orderTime, o.pickupLatitude, o.pickupLongitude FROM Order o " +
+           "WHERE o.status = :status AND o.pincode = :pincode ORDER BY o.orderTime, o.id")
+    List<Object[]> findPickupsByStatusAndPincode(
+        @org.springframework.data.repository.query.Param("status") String status,
+        @org.springframework.data.repository.query.Param("pincode") String pincode,
+        org.springframework.data.domain.Pageable pageable
+    );
+
+    // Automatic assignments awaiting their partner's acceptance (OfferTimeouts). Accepting and
+    // taking back an offer are both conditional on it still being outstanding, so exactly one
+    // of the two can happen.
+    @org.springframework.data.jpa.repository.Query("SELECT o.id, o.deliveryPartner.id, o.offerExpiresAt FROM Order o " +
+           "WHERE o.status = 'ASSIGNED' AND o.offerExpiresAt IS NOT NULL")
+    List<Object[]> findOutstandingOffers();
+
+    @org.springframework.transaction.annotation.Transactional
+    @org.springframework.data.jpa.repository.Modifying(clearAutomatically = true)
+    @org.springframework.data.jpa.repository.Query("UPDATE Order o SET o.offerExpiresAt = NULL " +
+           "WHERE o.id = :orderId AND o.status = 'ASSIGNED' AND o.deliveryPartner.id = :partnerId AND o.offerExpiresAt IS NOT NULL")
+    int acceptOffer(
+        @org.springframework.data.repository.query.Param("orderId") Long orderId,
+        @org.springframework.data.repository.query.Param("partnerId") Long partnerId
+    );
+
+    @org.springframework.transaction.annotation.Transactional
+    @org.springframework.data.jpa.repository.Modifying(clearAutomatically = true)
+    @org.springframework.data.jpa.repository.Query("UPDATE Order o SET o.status = 'PLACED', o.deliveryPartner = NULL, o.assignedAt = NULL, " +
+           "o.offerExpiresAt = NULL, o.deliveryFee = 0, o.partnerEarning = 0 " +
+           "WHERE o.id = :orderId AND o.status = 'ASSIGNED' AND o.deliveryPartner.id = :partnerId AND o.offerExpiresAt <= :now")
+    int withdrawOffer(
+        @org.springframework.data.repository.query.Param("orderId") Long orderId,
+        @org.springframework.data.repository.query.Param("partnerId") Long partnerId,
+        @org.springframework.data.repository.query.Param("now") java.time.LocalDateTime now
+    );
+
+    // Status transitions (OrderStateMachine), each conditional on the status the caller saw, so
+    // of two racing out of the same status exactly one updates a row
+    @org.springframework.transaction.annotation.Transactional
+    @org.springframework.data.jpa.repository.Modifying(flushAutomatically = true, clearAutomatically = true)
+    @org.springframework.data.jpa.repository.Query("UPDATE Order o SET o.status = :to WHERE o.id = :orderId AND o.status = :from")
+    int transition(
+        @org.springframework.data.repository.query.Param("orderId") Long orderId,
+        @org.springframework.data.repository.query.Param("from") String from,
+        @org.springframework.data.repository.query.Param("to") String to
+    );
+
+    @org.springframework.transaction.annotation.Transactional
+    @org.springframework.data.jpa.repository.Modifying(flushAutomatically = true, clearAutomatically = true)
+    @org.springframework.data.jpa.repository.Query("UPDATE Order o SET o.status = :to " +
+           "WHERE o.id = :orderId AND o.status = :from AND o.deliveryPartner.id = :partnerId")
+    int transitionForPartner(
+        @org.springframework.data.repository.query.Param("orderId") Long orderId,
+        @org.springframework.data.repository.query.Param("partnerId") Long partnerId,
+        @org.springframework.data.repository.query.Param("from") String from,
+        @org.springframework.data.repository.query.Param("to") String to
+    );
+
+    @org.springframework.transaction.annotation.Transactional
+    @org.springframework.data.jpa.repository.Modifying(flushAutomatically = true, clearAutomatically = true)
+    @org.springframework.data.jpa.repository.Query("UPDATE Order o SET o.status = 'ASSIGNED', o.deliveryPartner = :partner, o.assignedAt = :now, " +
+           "o.deliveryFee = :deliveryFee, o.partnerEarning = :partnerEarning, o.offerExpiresAt = :offerExpiresAt " +
+           "WHERE o.id = :orderId AND o.status = 'PLACED'")
+    int claim(
+        @org.springframework.data.repository.query.Param("orderId") Long orderId,
+        @org.springframework.data.repository.query.Param("partner") com.example.Grocito.Entity.DeliveryPartnerAuth partner,
+        @org.springframework.data.repository.query.Param("now") java.time.LocalDateTime now,
+        @org.springframework.data.repository.query.Param("deliveryFee") double deliveryFee,
+        @org.springframework.data.repository.query.Param("partnerEarning") double partnerEarning,
+        @org.springframework.data.repository.query.Param("offerExpiresAt") java.time.LocalDateTime offerExpiresAt
+    );
+
+    // Bulk transitions (OrderService.bulkUpdateStatus): a chunk of orders with their to-one
+    // associations in one query, the conditional UPDATE of those still in the status they were
+    // read in, and their statuses as last committed once some of them were not
+    @org.springframework.data.jpa.repository.EntityGraph(attributePaths = { "user", "user.cart", "deliveryPartner" })
+    List<Order> findByIdIn(java.util.Collection<Long> ids);
+
+    @org.springframework.transaction.annotation.Transactional
+    @org.springframework.data.jpa.repository.Modifying(flushAutomatically = true, clearAutomatically = true)
+    @org.springframework.data.jpa.repository.Query("UPDATE Order o SET o.status = :to WHERE o.id IN :orderIds AND o.status = :from")
+    int transitionAll(
+        @org.springframework.data.repository.query.Param("orderIds") java.util.Collection<Long> orderIds,
+        @org.springframework.data.repository.query.Param("from") String from,
+        @org.springframework.data.repository.query.Param("to") String to
+    );
+
+    // The orders as last committed, locked against other changes until the transaction ends; in id
+    // order, so two callers locking overlapping orders take them in the same order
+    @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+    @org.springframework.data.jpa.repository.Query("SELECT o FROM Order o WHERE o.id IN :orderIds ORDER BY o.id")
+    List<Order> findLockedByIdIn(@org.springframework.data.repository.query.Param("orderIds") java.util.Collection<Long> orderIds);
+
+    // The order as last committed, for retrying a transition that lost a race
+    @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_READ)
+    @org.springframework.data.jpa.repository.Query("SELECT o FROM Order o WHERE o.id = :orderId")
+    java.util.Optional<Order> findCurrentById(@org.springframework.data.repository.query.Param("orderId") Long orderId);
     
     // Methods for delivery partner assignment
     List<Order> findByStatusAndPincodeOrderByOrderTimeAsc(String status, String pincode);
@@ -50,7 +211,5 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     // Method to find orders without partner earnings for migration
     List<Order> findByStatusAndPartnerEarningIsNull(String status);
-=======
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
 }
 
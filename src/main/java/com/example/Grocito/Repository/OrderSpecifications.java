@@ -0,0 +1,131 @@
+package com.example.Grocito.Repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.User;
+
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+
+/**
+ * Reusable JPA Specifications for dynamic order filtering.
+ *
+ * Each factory returns null when its filter is not set, so the specifications
+ * can be combined with Specification.where(..).and(..) without extra checks.
+ */
+public final class OrderSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private OrderSpecifications() {
+    }
+
+    /**
+     * Orders with the given status
+     */
+    public static Specification<Order> hasStatus(String status) {
+        if (status == null || status.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    /**
+     * Orders for the given pincode
+     */
+    public static Specification<Order> hasPincode(String pincode) {
+        if (pincode == null || pincode.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("pincode"), pincode);
+    }
+
+    /**
+     * Free text search on order ID, customer name, customer email and delivery address
+     */
+    public static Specification<Order> matchesSearch(String search) {
+        if (search == null || search.isEmpty()) {
+            return null;
+        }
+        String pattern = "%" + escapeLike(search.toLowerCase()) + "%";
+        return (root, query, cb) -> {
+            Join<Order, User> user = root.join("user", JoinType.LEFT);
+            return cb.or(
+                    cb.like(root.get("id").as(String.class), pattern, LIKE_ESCAPE),
+                    cb.like(cb.lower(user.get("fullName")), pattern, LIKE_ESCAPE),
+                    cb.like(cb.lower(user.get("email")), pattern, LIKE_ESCAPE),
+                    cb.like(cb.lower(root.get("deliveryAddress")), pattern, LIKE_ESCAPE));
+        };
+    }
+
+    /**
+     * Orders placed at or after the given time
+     */
+    public static Specification<Order> placedFrom(LocalDateTime from) {
+        if (from == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("orderTime"), from);
+    }
+
+    /**
+     * Orders placed strictly before the given time
+     */
+    public static Specification<Order> placedBefore(LocalDateTime before) {
+        if (before == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThan(root.get("orderTime"), before);
+    }
+
+    /**
+     * Combine all order list filters into a single specification
+     */
+    public static Specification<Order> filter(String status, String pincode, String search,
+            LocalDateTime from, LocalDateTime before) {
+        return Specification.where(hasStatus(status))
+                .and(hasPincode(pincode))
+                .and(matchesSearch(search))
+                .and(placedFrom(from))
+                .and(placedBefore(before));
+    }
+
+    /**
+     * Map the admin sortBy parameter to a database sort.
+     * Only orderTime and totalAmount are sortable (newest / largest first);
+     * anything else falls back to insertion order.
+     */
+    public static Sort sortFor(String sortBy) {
+        if ("orderTime".equals(sortBy) || "totalAmount".equals(sortBy)) {
+            return Sort.by(Sort.Order.desc(sortBy), Sort.Order.asc("id"));
+        }
+        return Sort.by(Sort.Order.asc("id"));
+    }
+
+    /**
+     * Sort for the cursor endpoint: like sortFor, but ties are broken by descending ID so the
+     * whole key runs in one direction and a (sort key, id) index can be scanned backwards.
+     */
+    public static Sort seekSortFor(String sortBy) {
+        if ("orderTime".equals(sortBy) || "totalAmount".equals(sortBy)) {
+            return Sort.by(Sort.Order.desc(sortBy), Sort.Order.desc("id"));
+        }
+        return Sort.by(Sort.Order.desc("id"));
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                sb.append(LIKE_ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
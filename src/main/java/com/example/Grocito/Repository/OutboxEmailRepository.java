@@ -0,0 +1,19 @@
+package com.example.Grocito.Repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.Grocito.Entity.OutboxEmail;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    // Rows held by one dispatch round
+    List<OutboxEmail> findByClaimToken(String claimToken);
+
+    List<OutboxEmail> findByStatus(String status);
+
+    long countByStatus(String status);
+}
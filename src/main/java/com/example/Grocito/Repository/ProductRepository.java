@@ -9,7 +9,7 @@ import org.springframework.data.repository.query.Param;
 
 import com.example.Grocito.Entity.Product;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, KeysetExecutor<Product> {
     List<Product> findByPincode(String pincode);
     
     List<Product> findByCategory(String category);
@@ -41,6 +41,11 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.category = :category AND p.pincode = :pincode AND (p.name LIKE %:search% OR p.description LIKE %:search%)")
     Page<Product> findByCategoryAndPincodeAndSearch(@Param("category") String category, @Param("pincode") String pincode, @Param("search") String search, Pageable pageable);
     
+    // Methods backing the in-memory product search index
+    List<Product> findTop5000ByIdGreaterThanOrderByIdAsc(Long id);
+    
+    Page<Product> findByIdIn(java.util.Collection<Long> ids, Pageable pageable);
+    
     // Additional methods for stock-based queries
     List<Product> findByStockLessThanEqual(int stock);
     List<Product> findByStock(int stock);
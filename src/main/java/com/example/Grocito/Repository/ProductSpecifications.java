@@ -0,0 +1,56 @@
+package com.example.Grocito.Repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.Grocito.Entity.Product;
+
+/**
+ * Reusable JPA Specifications for product listings.
+ *
+ * Each factory returns null when its filter is not set, so the specifications
+ * can be combined with Specification.where(..).and(..) without extra checks.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    /**
+     * Products in the given category
+     */
+    public static Specification<Product> hasCategory(String category) {
+        if (category == null || category.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    /**
+     * Products available in the given pincode
+     */
+    public static Specification<Product> hasPincode(String pincode) {
+        if (pincode == null || pincode.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("pincode"), pincode);
+    }
+
+    /**
+     * Combine all product list filters into a single specification
+     */
+    public static Specification<Product> filter(String category, String pincode) {
+        return Specification.where(hasCategory(category)).and(hasPincode(pincode));
+    }
+
+    /**
+     * Map the sortBy parameter of the cursor endpoint to a database sort.
+     * name and price sort ascending; anything else falls back to ID order.
+     */
+    public static Sort sortFor(String sortBy) {
+        if ("name".equals(sortBy) || "price".equals(sortBy)) {
+            return Sort.by(Sort.Order.asc(sortBy), Sort.Order.asc("id"));
+        }
+        return Sort.by(Sort.Order.asc("id"));
+    }
+}
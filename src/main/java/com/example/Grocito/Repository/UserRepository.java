@@ -1,9 +1,27 @@
 package com.example.Grocito.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.example.Grocito.Entity.User;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, KeysetExecutor<User> {
     Optional<User> findByEmail(String email);
+
+    // Filtered admin pages load each user's cart (an eager one-to-one) in the same query
+    @Override
+    @EntityGraph(attributePaths = { "cart" })
+    Page<User> findAll(Specification<User> spec, Pageable pageable);
+
+    // Per role: user count and how many were active (logged in, or else registered) after activeSince
+    @Query("SELECT u.role, COUNT(u), SUM(CASE WHEN COALESCE(u.lastLogin, u.registeredDate) > :activeSince THEN 1 ELSE 0 END) " +
+           "FROM User u GROUP BY u.role")
+    List<Object[]> countByRoleAndActivity(@Param("activeSince") LocalDate activeSince);
 }
@@ -0,0 +1,104 @@
+package com.example.Grocito.Repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.Grocito.Entity.User;
+
+/**
+ * Reusable JPA Specifications for the admin user list.
+ *
+ * Each factory returns null when its filter is not set, so the specifications
+ * can be combined with Specification.where(..).and(..) without extra checks.
+ */
+public final class UserSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * Users with the given role
+     */
+    public static Specification<User> hasRole(String role) {
+        if (role == null || role.trim().isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("role"), role);
+    }
+
+    /**
+     * Users registered for the given pincode
+     */
+    public static Specification<User> hasPincode(String pincode) {
+        if (pincode == null || pincode.trim().isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("pincode"), pincode);
+    }
+
+    /**
+     * Free text search on name and email
+     */
+    public static Specification<User> matchesSearch(String search) {
+        if (search == null || search.trim().isEmpty()) {
+            return null;
+        }
+        String pattern = "%" + escapeLike(search.trim().toLowerCase()) + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("fullName")), pattern, LIKE_ESCAPE),
+                cb.like(cb.lower(root.get("email")), pattern, LIKE_ESCAPE));
+    }
+
+    /**
+     * "active" users logged in (or, if they never did, registered) after activeSince; "inactive" the rest
+     */
+    public static Specification<User> hasStatus(String status, LocalDate activeSince) {
+        if (status == null || status.trim().isEmpty()) {
+            return null;
+        }
+        boolean active = "active".equalsIgnoreCase(status);
+        return (root, query, cb) -> {
+            jakarta.persistence.criteria.Expression<LocalDate> lastActivity =
+                    cb.coalesce(root.<LocalDate>get("lastLogin"), root.<LocalDate>get("registeredDate"));
+            return active ? cb.greaterThan(lastActivity, activeSince) : cb.lessThanOrEqualTo(lastActivity, activeSince);
+        };
+    }
+
+    /**
+     * Combine all user list filters into a single specification
+     */
+    public static Specification<User> filter(String search, String role, String status, String pincode,
+            LocalDate activeSince) {
+        return Specification.where(matchesSearch(search))
+                .and(hasRole(role))
+                .and(hasStatus(status, activeSince))
+                .and(hasPincode(pincode));
+    }
+
+    /**
+     * Map the sortBy parameter of the cursor endpoint to a database sort.
+     * email sorts ascending; anything else lists the newest registrations first.
+     */
+    public static Sort sortFor(String sortBy) {
+        if ("email".equals(sortBy)) {
+            return Sort.by(Sort.Order.asc("email"), Sort.Order.asc("id"));
+        }
+        return Sort.by(Sort.Order.desc("id"));
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                sb.append(LIKE_ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Computes a fixed set of dashboard metrics in a single pass over a collection or stream of rows.
+ *
+ * Metrics are declared once through the builder:
+ *   - metric: count, sum, min, max and average of a value over the rows matching a filter
+ *   - groupBy: count and sum of a value per key (status, category, day, ...)
+ *
+ * Accumulators are primitive arrays indexed by metric, so adding a row never boxes a counter.
+ * Large inputs are split across the common fork-join pool and the partial accumulators combined.
+ *
+ * Instances are immutable and thread-safe; build them once and reuse them.
+ */
+public final class AnalyticsAggregator<T> {
+
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+
+    private final String[] metricNames;
+    private final Predicate<? super T>[] metricFilters;
+    private final ToDoubleFunction<? super T>[] metricValues;
+
+    private final String[] groupNames;
+    private final Predicate<? super T>[] groupFilters;
+    private final Function<? super T, ?>[] groupKeys;
+    private final ToDoubleFunction<? super T>[] groupValues;
+
+    private final int parallelThreshold;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private AnalyticsAggregator(Builder<T> builder) {
+        this.metricNames = builder.metricNames.toArray(new String[0]);
+        this.metricFilters = builder.metricFilters.toArray(new Predicate[0]);
+        this.metricValues = builder.metricValues.toArray(new ToDoubleFunction[0]);
+        this.groupNames = builder.groupNames.toArray(new String[0]);
+        this.groupFilters = builder.groupFilters.toArray(new Predicate[0]);
+        this.groupKeys = builder.groupKeys.toArray(new Function[0]);
+        this.groupValues = builder.groupValues.toArray(new ToDoubleFunction[0]);
+        this.parallelThreshold = builder.parallelThreshold;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Aggregate a collection, in parallel when it is larger than the parallel threshold
+     */
+    public Result aggregate(Collection<? extends T> rows) {
+        if (rows.size() >= parallelThreshold) {
+            return aggregate(rows.stream().parallel());
+        }
+        Accumulator accumulator = new Accumulator();
+        for (T row : rows) {
+            accumulator.accept(row);
+        }
+        return new Result(accumulator);
+    }
+
+    /**
+     * Aggregate a stream (e.g. a repository cursor); parallel streams are combined per split
+     */
+    public Result aggregate(Stream<? extends T> rows) {
+        Accumulator accumulator = rows.collect(Accumulator::new, Accumulator::accept, Accumulator::combine);
+        return new Result(accumulator);
+    }
+
+    private final class Accumulator {
+
+        private final long[] counts = new long[metricNames.length];
+        private final double[] sums = new double[metricNames.length];
+        private final double[] mins = new double[metricNames.length];
+        private final double[] maxs = new double[metricNames.length];
+        private final List<Map<Object, GroupCell>> groups = new ArrayList<>(groupNames.length);
+
+        Accumulator() {
+            java.util.Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            java.util.Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+            for (int i = 0; i < groupNames.length; i++) {
+                groups.add(new HashMap<>());
+            }
+        }
+
+        void accept(T row) {
+            for (int i = 0; i < metricNames.length; i++) {
+                if (metricFilters[i] == null || metricFilters[i].test(row)) {
+                    counts[i]++;
+                    if (metricValues[i] != null) {
+                        double value = metricValues[i].applyAsDouble(row);
+                        sums[i] += value;
+                        if (value < mins[i]) mins[i] = value;
+                        if (value > maxs[i]) maxs[i] = value;
+                    }
+                }
+            }
+            for (int i = 0; i < groupNames.length; i++) {
+                if (groupFilters[i] == null || groupFilters[i].test(row)) {
+                    GroupCell cell = groups.get(i).computeIfAbsent(groupKeys[i].apply(row), k -> new GroupCell());
+                    cell.count++;
+                    if (groupValues[i] != null) {
+                        cell.sum += groupValues[i].applyAsDouble(row);
+                    }
+                }
+            }
+        }
+
+        void combine(Accumulator other) {
+            for (int i = 0; i < metricNames.length; i++) {
+                counts[i] += other.counts[i];
+                sums[i] += other.sums[i];
+                mins[i] = Math.min(mins[i], other.mins[i]);
+                maxs[i] = Math.max(maxs[i], other.maxs[i]);
+            }
+            for (int i = 0; i < groupNames.length; i++) {
+                Map<Object, GroupCell> target = groups.get(i);
+                other.groups.get(i).forEach((key, cell) -> {
+                    GroupCell merged = target.computeIfAbsent(key, k -> new GroupCell());
+                    merged.count += cell.count;
+                    merged.sum += cell.sum;
+                });
+            }
+        }
+    }
+
+    private static final class GroupCell {
+        long count;
+        double sum;
+    }
+
+    /**
+     * Aggregated metric values, looked up by the names given to the builder
+     */
+    public final class Result {
+
+        private final Accumulator accumulator;
+
+        private Result(Accumulator accumulator) {
+            this.accumulator = accumulator;
+        }
+
+        public long count(String metric) {
+            return accumulator.counts[metricIndex(metric)];
+        }
+
+        public double sum(String metric) {
+            return accumulator.sums[metricIndex(metric)];
+        }
+
+        public double average(String metric) {
+            int i = metricIndex(metric);
+            return accumulator.counts[i] == 0 ? 0.0 : accumulator.sums[i] / accumulator.counts[i];
+        }
+
+        public double min(String metric) {
+            int i = metricIndex(metric);
+            return accumulator.counts[i] == 0 ? 0.0 : accumulator.mins[i];
+        }
+
+        public double max(String metric) {
+            int i = metricIndex(metric);
+            return accumulator.counts[i] == 0 ? 0.0 : accumulator.maxs[i];
+        }
+
+        /**
+         * Row count per key for a groupBy metric
+         */
+        @SuppressWarnings("unchecked")
+        public <K> Map<K, Long> groupCounts(String group) {
+            Map<K, Long> result = new LinkedHashMap<>();
+            accumulator.groups.get(groupIndex(group)).forEach((key, cell) -> result.put((K) key, cell.count));
+            return result;
+        }
+
+        /**
+         * Value sum per key for a groupBy metric
+         */
+        @SuppressWarnings("unchecked")
+        public <K> Map<K, Double> groupSums(String group) {
+            Map<K, Double> result = new LinkedHashMap<>();
+            accumulator.groups.get(groupIndex(group)).forEach((key, cell) -> result.put((K) key, cell.sum));
+            return result;
+        }
+
+        /**
+         * Row count for a single key of a groupBy metric
+         */
+        public long groupCount(String group, Object key) {
+            GroupCell cell = accumulator.groups.get(groupIndex(group)).get(key);
+            return cell != null ? cell.count : 0L;
+        }
+
+        /**
+         * Value sum for a single key of a groupBy metric
+         */
+        public double groupSum(String group, Object key) {
+            GroupCell cell = accumulator.groups.get(groupIndex(group)).get(key);
+            return cell != null ? cell.sum : 0.0;
+        }
+    }
+
+    private int metricIndex(String name) {
+        for (int i = 0; i < metricNames.length; i++) {
+            if (metricNames[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown metric: " + name);
+    }
+
+    private int groupIndex(String name) {
+        for (int i = 0; i < groupNames.length; i++) {
+            if (groupNames[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown group: " + name);
+    }
+
+    public static final class Builder<T> {
+
+        private final List<String> metricNames = new ArrayList<>();
+        private final List<Predicate<? super T>> metricFilters = new ArrayList<>();
+        private final List<ToDoubleFunction<? super T>> metricValues = new ArrayList<>();
+
+        private final List<String> groupNames = new ArrayList<>();
+        private final List<Predicate<? super T>> groupFilters = new ArrayList<>();
+        private final List<Function<? super T, ?>> groupKeys = new ArrayList<>();
+        private final List<ToDoubleFunction<? super T>> groupValues = new ArrayList<>();
+
+        private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+        private Builder() {
+        }
+
+        /**
+         * Count the rows matching filter (null = all rows)
+         */
+        public Builder<T> count(String name, Predicate<? super T> filter) {
+            return metric(name, filter, null);
+        }
+
+        /**
+         * Count, sum, min, max and average value over the rows matching filter (null = all rows)
+         */
+        public Builder<T> metric(String name, Predicate<? super T> filter, ToDoubleFunction<? super T> value) {
+            metricNames.add(name);
+            metricFilters.add(filter);
+            metricValues.add(value);
+            return this;
+        }
+
+        /**
+         * Count rows and sum value (may be null) per key over the rows matching filter (null = all rows)
+         */
+        public Builder<T> groupBy(String name, Predicate<? super T> filter, Function<? super T, ?> key,
+                ToDoubleFunction<? super T> value) {
+            groupNames.add(name);
+            groupFilters.add(filter);
+            groupKeys.add(key);
+            groupValues.add(value);
+            return this;
+        }
+
+        /**
+         * Minimum collection size that is aggregated in parallel
+         */
+        public Builder<T> parallelThreshold(int parallelThreshold) {
+            this.parallelThreshold = parallelThreshold;
+            return this;
+        }
+
+        public AnalyticsAggregator<T> build() {
+            return new AnalyticsAggregator<>(this);
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package com.example.Grocito.Services;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.Repository.OrderRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Assigns waiting orders in batches instead of one at a time. Every grocito.dispatch.interval-ms,
+ * each pincode with PLACED orders gets a round, the pincodes in parallel on a fork-join pool of
+ * grocito.dispatch.parallelism threads:
+ *
+ *  - the grocito.dispatch.max-orders-per-round oldest PLACED orders of the pincode are matched
+ *    against its online partners (PartnerLocationIndex), each partner offering one slot per order
+ *    it can still take below PartnerRanker.MAX_ACTIVE_ORDERS;
+ *  - an order may only go to the best partners within grocito.assignment.max-distance-km of its
+ *    pickup point: grocito.dispatch.candidates-per-order of them, or more while they have fewer
+ *    free slots than the round has orders; the cost of a pair is
+ *    PartnerRanker.score with the slot's load, less grocito.dispatch.weight.waiting-minute for
+ *    every minute the order has waited, so scarce partners go to the older orders;
+ *  - the matching with the most pairs, and of those the cheapest, is applied through
+ *    OrderAssignmentService.offerOrderToPartner, which still checks the order is PLACED and the
+ *    partner below the limit, so a partner accepting meanwhile only costs the round that pair.
+ *
+ * The pickup point is the order's own, else the pincode's configured one; without either, partners
+ * are matched on load and rating alone. Round latencies are kept in getStats.
+ */
+@Component
+public class BatchDispatcher {
+
+    private static final Logger logger = LoggerConfig.getLogger(BatchDispatcher.class);
+
+    private static final String WAITING = "PLACED";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderAssignmentService orderAssignmentService;
+
+    @Autowired
+    private PartnerLocationIndex partnerLocationIndex;
+
+    @Autowired
+    private PartnerRanker partnerRanker;
+
+    @Value("${grocito.dispatch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${grocito.dispatch.parallelism:4}")
+    private int parallelism;
+
+    @Value("${grocito.dispatch.max-orders-per-round:200}")
+    private int maxOrdersPerRound;
+
+    @Value("${grocito.dispatch.candidates-per-order:16}")
+    private int candidatesPerOrder;
+
+    @Value("${grocito.dispatch.weight.waiting-minute:0.1}")
+    private double waitingWeight;
+
+    @Value("${grocito.dispatch.history:50}")
+    private int historySize;
+
+    @Value("${grocito.assignment.max-distance-km:10}")
+    private double maxDistanceKm;
+
+    private ForkJoinPool pool;
+
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+
+    private final Stats stats = new Stats();
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Periodic run of dispatchAll
+     */
+    @Scheduled(fixedDelayString = "${grocito.dispatch.interval-ms:5000}")
+    public void dispatchPeriodically() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            dispatchAll();
+        } catch (Exception e) {
+            logger.error("Batch dispatch failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One round for every pincode with waiting orders. Returns the rounds that had orders and
+     * partners to match; nothing while another dispatch is still running.
+     */
+    public List<Round> dispatchAll() {
+        if (!dispatching.compareAndSet(false, true)) {
+            logger.debug("Batch dispatch still running, skipping");
+            return List.of();
+        }
+        try {
+            long started = System.nanoTime();
+            List<Callable<Round>> tasks = new ArrayList<>();
+            for (String pincode : orderRepository.findDistinctPincodeByStatus(WAITING)) {
+                tasks.add(() -> dispatch(pincode));
+            }
+            List<Round> rounds = new ArrayList<>();
+            for (Future<Round> task : pool.invokeAll(tasks)) {
+                try {
+                    Round round = task.get();
+                    if (round != null) {
+                        rounds.add(round);
+                    }
+                } catch (ExecutionException e) {
+                    logger.error("Batch dispatch round failed: {}", e.getCause().getMessage(), e.getCause());
+                }
+            }
+            stats.recordDispatch(tasks.size(), (System.nanoTime() - started) / 1_000);
+            return rounds;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } finally {
+            dispatching.set(false);
+        }
+    }
+
+    /**
+     * Match and assign the oldest waiting orders of one pincode; null when it has no waiting
+     * orders or no partner with room
+     */
+    Round dispatch(String pincode) {
+        long started = System.nanoTime();
+        List<Object[]> rows = orderRepository.findPickupsByStatusAndPincode(WAITING, pincode, PageRequest.of(0, maxOrdersPerRound));
+        if (rows.isEmpty()) {
+            return null;
+        }
+        List<PartnerLocationIndex.Candidate> online = partnerLocationIndex.inPincode(pincode);
+        List<Long> partnerIds = new ArrayList<>(online.size());
+        online.forEach(candidate -> partnerIds.add(candidate.getPartnerId()));
+        Map<Long, Long> load = partnerRanker.activeOrders(partnerIds);
+        List<Available> partners = new ArrayList<>(online.size());
+        for (PartnerLocationIndex.Candidate candidate : online) {
+            long active = load.getOrDefault(candidate.getPartnerId(), 0L);
+            if (active < PartnerRanker.MAX_ACTIVE_ORDERS) {
+                partners.add(new Available(candidate.getPartnerId(), candidate.getLatitude(), candidate.getLongitude(), candidate.getRating(), active));
+            }
+        }
+        if (partners.isEmpty()) {
+            return null;
+        }
+
+        double[] pickupPoint = partnerRanker.pickupPoint(pincode);
+        LocalDateTime now = LocalDateTime.now();
+        List<Pending> orders = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            double latitude = row[2] != null ? ((BigDecimal) row[2]).doubleValue() : pickupPoint != null ? pickupPoint[0] : Double.NaN;
+            double longitude = row[3] != null ? ((BigDecimal) row[3]).doubleValue() : pickupPoint != null ? pickupPoint[1] : Double.NaN;
+            LocalDateTime orderTime = (LocalDateTime) row[1];
+            double waitingMinutes = orderTime == null ? 0 : Math.max(0, Duration.between(orderTime, now).toMillis() / 60_000.0);
+            orders.add(new Pending(((Number) row[0]).longValue(), latitude, longitude, waitingMinutes));
+        }
+
+        long planned = System.nanoTime();
+        Plan plan = plan(orders, partners);
+        long planMicros = (System.nanoTime() - planned) / 1_000;
+
+        int assigned = 0;
+        int missed = 0;
+        for (long[] pair : plan.getPairs()) {
+            try {
+                if (orderAssignmentService.offerOrderToPartner(pair[0], pair[1])) {
+                    assigned++;
+                } else {
+                    missed++;
+                }
+            } catch (RuntimeException e) {
+                // The partner took other orders since the round started
+                logger.debug("Dispatch of order {} to partner {} skipped: {}", pair[0], pair[1], e.getMessage());
+                missed++;
+            }
+        }
+
+        Round round = new Round(pincode, orders.size(), partners.size(), plan.getSlots(), assigned, missed, plan.getCost(),
+                planMicros, (System.nanoTime() - started) / 1_000);
+        stats.record(round, historySize);
+        if (assigned > 0 || missed > 0) {
+            logger.info("Dispatched {} of {} waiting orders in pincode {} to {} partners ({} missed), plan {} us, round {} ms",
+                    assigned, orders.size(), pincode, partners.size(), missed, planMicros, round.getElapsedMicros() / 1_000);
+        }
+        return round;
+    }
+
+    /**
+     * The cheapest matching of orders to the partners' free slots, as { orderId, partnerId } pairs
+     * oldest order first
+     */
+    public Plan plan(List<Pending> orders, List<Available> partners) {
+        // Orders from the same store share their candidates: the best partners by the cost of
+        // their first free slot, at least candidates-per-order of them and enough to have a slot
+        // for every order of the round, so however the others are matched one is always left
+        Map<List<Double>, List<Integer>> ordersByPickup = new LinkedHashMap<>();
+        for (int o = 0; o < orders.size(); o++) {
+            ordersByPickup.computeIfAbsent(List.of(orders.get(o).latitude, orders.get(o).longitude), key -> new ArrayList<>()).add(o);
+        }
+        int[][] candidates = new int[orders.size()][];
+        double[][] distances = new double[orders.size()][];
+        boolean[] wanted = new boolean[partners.size()];
+        for (List<Integer> group : ordersByPickup.values()) {
+            Pending order = orders.get(group.get(0));
+            boolean located = !Double.isNaN(order.latitude);
+            List<double[]> scored = new ArrayList<>();
+            for (int p = 0; p < partners.size(); p++) {
+                Available partner = partners.get(p);
+                double distance = Double.NaN;
+                if (located) {
+                    if (Double.isNaN(partner.latitude)) {
+                        continue;
+                    }
+                    distance = PartnerLocationIndex.distanceKm(order.latitude, order.longitude, partner.latitude, partner.longitude);
+                    if (distance > maxDistanceKm) {
+                        continue;
+                    }
+                }
+                scored.add(new double[] { p, partnerRanker.score(distance, partner.activeOrders, partner.rating), distance });
+            }
+            scored.sort((a, b) -> Double.compare(a[1], b[1]));
+            int taken = 0;
+            long slotsTaken = 0;
+            while (taken < scored.size() && (taken < candidatesPerOrder || slotsTaken < orders.size())) {
+                slotsTaken += PartnerRanker.MAX_ACTIVE_ORDERS - partners.get((int) scored.get(taken)[0]).activeOrders;
+                taken++;
+            }
+            int[] groupCandidates = new int[taken];
+            double[] groupDistances = new double[taken];
+            for (int i = 0; i < taken; i++) {
+                groupCandidates[i] = (int) scored.get(i)[0];
+                groupDistances[i] = scored.get(i)[2];
+                wanted[groupCandidates[i]] = true;
+            }
+            for (int o : group) {
+                candidates[o] = groupCandidates;
+                distances[o] = groupDistances;
+            }
+        }
+
+        // One column per free slot of a wanted partner; the n-th slot costs n active orders
+        List<int[]> slots = new ArrayList<>();
+        int[] firstSlot = new int[partners.size()];
+        for (int p = 0; p < partners.size(); p++) {
+            firstSlot[p] = slots.size();
+            if (wanted[p]) {
+                for (long active = partners.get(p).activeOrders; active < PartnerRanker.MAX_ACTIVE_ORDERS; active++) {
+                    slots.add(new int[] { p, (int) active });
+                }
+            }
+        }
+        if (slots.isEmpty()) {
+            return new Plan(List.of(), 0, 0);
+        }
+
+        double[][] cost = new double[orders.size()][slots.size()];
+        double worst = 0;
+        for (int o = 0; o < orders.size(); o++) {
+            Pending order = orders.get(o);
+            for (int i = 0; i < candidates[o].length; i++) {
+                Available partner = partners.get(candidates[o][i]);
+                for (int s = firstSlot[candidates[o][i]]; s < slots.size() && slots.get(s)[0] == candidates[o][i]; s++) {
+                    cost[o][s] = partnerRanker.score(distances[o][i], slots.get(s)[1], partner.rating) - order.waitingMinutes * waitingWeight;
+                    worst = Math.max(worst, Math.abs(cost[o][s]));
+                }
+            }
+        }
+        // Any one forbidden pair costs more than every allowed pair of a full matching together
+        double forbidden = (worst + 1) * (Math.min(orders.size(), slots.size()) + 1) * 2;
+        boolean[][] allowed = new boolean[orders.size()][slots.size()];
+        for (int o = 0; o < orders.size(); o++) {
+            for (int candidate : candidates[o]) {
+                for (int s = firstSlot[candidate]; s < slots.size() && slots.get(s)[0] == candidate; s++) {
+                    allowed[o][s] = true;
+                }
+            }
+            for (int s = 0; s < slots.size(); s++) {
+                if (!allowed[o][s]) {
+                    cost[o][s] = forbidden;
+                }
+            }
+        }
+
+        int[] match = MinCostMatching.solve(cost);
+        List<long[]> pairs = new ArrayList<>();
+        double total = 0;
+        for (int o = 0; o < orders.size(); o++) {
+            if (match[o] >= 0 && allowed[o][match[o]]) {
+                pairs.add(new long[] { orders.get(o).orderId, partners.get(slots.get(match[o])[0]).partnerId });
+                total += cost[o][match[o]];
+            }
+        }
+        return new Plan(pairs, slots.size(), total);
+    }
+
+    /**
+     * Round counts and latencies since startup, and the latest rounds
+     */
+    public Map<String, Object> getStats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * A waiting order; latitude and longitude NaN when it has no pickup point
+     */
+    public static final class Pending {
+
+        final long orderId;
+        final double latitude;
+        final double longitude;
+        final double waitingMinutes;
+
+        public Pending(long orderId, double latitude, double longitude, double waitingMinutes) {
+            this.orderId = orderId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.waitingMinutes = waitingMinutes;
+        }
+    }
+
+    /**
+     * An online partner below the active order limit; latitude and longitude NaN when not known
+     */
+    public static final class Available {
+
+        final long partnerId;
+        final double latitude;
+        final double longitude;
+        final double rating;
+        final long activeOrders;
+
+        public Available(long partnerId, double latitude, double longitude, double rating, long activeOrders) {
+            this.partnerId = partnerId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.rating = rating;
+            this.activeOrders = activeOrders;
+        }
+    }
+
+    /**
+     * The matching of one round
+     */
+    public static final class Plan {
+
+        private final List<long[]> pairs;
+        private final int slots;
+        private final double cost;
+
+        Plan(List<long[]> pairs, int slots, double cost) {
+            this.pairs = pairs;
+            this.slots = slots;
+            this.cost = cost;
+        }
+
+        public List<long[]> getPairs() {
+            return pairs;
+        }
+
+        public int getSlots() {
+            return slots;
+        }
+
+        public double getCost() {
+            return cost;
+        }
+    }
+
+    /**
+     * What one pincode's round did, and how long it took
+     */
+    public static class Round {
+
+        private final String pincode;
+        private final int orders;
+        private final int partners;
+        private final int slots;
+        private final int assigned;
+        private final int missed;
+        private final double cost;
+        private final long planMicros;
+        private final long elapsedMicros;
+
+        Round(String pincode, int orders, int partners, int slots, int assigned, int missed, double cost, long planMicros,
+                long elapsedMicros) {
+            this.pincode = pincode;
+            this.orders = orders;
+            this.partners = partners;
+            this.slots = slots;
+            this.assigned = assigned;
+            this.missed = missed;
+            this.cost = cost;
+            this.planMicros = planMicros;
+            this.elapsedMicros = elapsedMicros;
+        }
+
+        public String getPincode() {
+            return pincode;
+        }
+
+        public int getOrders() {
+            return orders;
+        }
+
+        public int getPartners() {
+            return partners;
+        }
+
+        public int getSlots() {
+            return slots;
+        }
+
+        public int getAssigned() {
+            return assigned;
+        }
+
+        public int getMissed() {
+            return missed;
+        }
+
+        public double getCost() {
+            return cost;
+        }
+
+        public long getPlanMicros() {
+            return planMicros;
+        }
+
+        public long getElapsedMicros() {
+            return elapsedMicros;
+        }
+    }
+
+    private static final class Stats {
+
+        private long dispatches;
+        private long lastDispatchMicros;
+        private long maxDispatchMicros;
+        private long totalDispatchMicros;
+        private long rounds;
+        private long assigned;
+        private long missed;
+        private long maxRoundMicros;
+        private long totalRoundMicros;
+        private final Deque<Round> recent = new ArrayDeque<>();
+
+        synchronized void recordDispatch(int pincodes, long micros) {
+            if (pincodes == 0) {
+                return;
+            }
+            dispatches++;
+            lastDispatchMicros = micros;
+            maxDispatchMicros = Math.max(maxDispatchMicros, micros);
+            totalDispatchMicros += micros;
+        }
+
+        synchronized void record(Round round, int historySize) {
+            rounds++;
+            assigned += round.assigned;
+            missed += round.missed;
+            maxRoundMicros = Math.max(maxRoundMicros, round.elapsedMicros);
+            totalRoundMicros += round.elapsedMicros;
+            recent.addFirst(round);
+            while (recent.size() > historySize) {
+                recent.removeLast();
+            }
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("dispatches", dispatches);
+            snapshot.put("lastDispatchMicros", lastDispatchMicros);
+            snapshot.put("maxDispatchMicros", maxDispatchMicros);
+            snapshot.put("meanDispatchMicros", dispatches == 0 ? 0 : totalDispatchMicros / dispatches);
+            snapshot.put("rounds", rounds);
+            snapshot.put("assigned", assigned);
+            snapshot.put("missed", missed);
+            snapshot.put("maxRoundMicros", maxRoundMicros);
+            snapshot.put("meanRoundMicros", rounds == 0 ? 0 : totalRoundMicros / rounds);
+            snapshot.put("recentRounds", new ArrayList<>(recent));
+            return snapshot;
+        }
+    }
+}
@@ -17,7 +17,6 @@ import com.example.Grocito.Entity.Product;
 import com.example.Grocito.Entity.User;
 import com.example.Grocito.Repository.CartItemRepository;
 import com.example.Grocito.Repository.CartRepository;
-import com.example.Grocito.Repository.ProductRepository;
 import com.example.Grocito.Repository.UserRepository;
 
 @Service
@@ -32,7 +31,10 @@ public class CartService {
     private CartItemRepository cartItemRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private ProductService productService;
+
+    @Autowired
+    private HotStockLedger hotStockLedger;
 
     @Autowired
     private UserRepository userRepository;
@@ -48,19 +50,19 @@ public class CartService {
                 });
         logger.debug("User found: {} (ID: {})", user.getEmail(), userId);
         
-        Product product = productRepository.findById(productId)
+        Product product = productService.getProductById(productId)
                 .orElseThrow(() -> {
                     logger.error("Failed to add to cart: Product not found with ID: {}", productId);
                     return new RuntimeException("Product not found with id: " + productId);
                 });
-        logger.debug("Product found: {} (ID: {}), available stock: {}", product.getName(), productId, product.getStock());
+        logger.debug("Product found: {} (ID: {}), available stock: {}", product.getName(), productId, availableStock(product));
         
         // Check if product is in stock
-        if (product.getStock() < quantity) {
+        if (availableStock(product) < quantity) {
             logger.warn("Insufficient stock for product: {} (ID: {}). Available: {}, Requested: {}", 
-                    product.getName(), productId, product.getStock(), quantity);
+                    product.getName(), productId, availableStock(product), quantity);
             throw new RuntimeException("Not enough stock available for product: " + product.getName() + 
-                    ". Available: " + product.getStock());
+                    ". Available: " + availableStock(product));
         }
 
         logger.debug("Checking if cart exists for user ID: {}", userId);
@@ -82,11 +84,11 @@ public class CartService {
                 logger.debug("Product already in cart, updating quantity. Current quantity: {}", item.getQuantity());
                 // Check if the updated quantity exceeds stock
                 int newQuantity = item.getQuantity() + quantity;
-                if (product.getStock() < newQuantity) {
+                if (availableStock(product) < newQuantity) {
                     logger.warn("Insufficient stock for product: {} (ID: {}). Available: {}, Requested: {}", 
-                            product.getName(), productId, product.getStock(), newQuantity);
+                            product.getName(), productId, availableStock(product), newQuantity);
                     throw new RuntimeException("Not enough stock available for product: " + product.getName() + 
-                            ". Available: " + product.getStock() + ", Requested: " + newQuantity);
+                            ". Available: " + availableStock(product) + ", Requested: " + newQuantity);
                 }
                 
                 logger.debug("Updating quantity from {} to {} for product ID: {} in cart", 
@@ -177,11 +179,11 @@ public class CartService {
                 product.getName(), product.getId(), item.getQuantity(), quantity);
         
         // Check if the requested quantity exceeds stock
-        if (product.getStock() < quantity) {
+        if (availableStock(product) < quantity) {
             logger.warn("Insufficient stock for product: {} (ID: {}). Available: {}, Requested: {}", 
-                    product.getName(), product.getId(), product.getStock(), quantity);
+                    product.getName(), product.getId(), availableStock(product), quantity);
             throw new RuntimeException("Not enough stock available for product: " + product.getName() + 
-                    ". Available: " + product.getStock() + ", Requested: " + quantity);
+                    ". Available: " + availableStock(product) + ", Requested: " + quantity);
         }
         
         logger.debug("Updating quantity from {} to {} for product: {} (ID: {})", 
@@ -203,19 +205,19 @@ public class CartService {
                 });
         logger.debug("Found cart for user ID: {}", userId);
         
-        Product product = productRepository.findById(productId)
+        Product product = productService.getProductById(productId)
                 .orElseThrow(() -> {
                     logger.error("Failed to update quantity: Product not found with ID: {}", productId);
                     return new RuntimeException("Product not found with id: " + productId);
                 });
-        logger.debug("Found product: {} (ID: {}), available stock: {}", product.getName(), productId, product.getStock());
+        logger.debug("Found product: {} (ID: {}), available stock: {}", product.getName(), productId, availableStock(product));
         
         // Check if the requested quantity exceeds stock
-        if (product.getStock() < quantity) {
+        if (availableStock(product) < quantity) {
             logger.warn("Insufficient stock for product: {} (ID: {}). Available: {}, Requested: {}", 
-                    product.getName(), productId, product.getStock(), quantity);
+                    product.getName(), productId, availableStock(product), quantity);
             throw new RuntimeException("Not enough stock available for product: " + product.getName() + 
-                    ". Available: " + product.getStock() + ", Requested: " + quantity);
+                    ". Available: " + availableStock(product) + ", Requested: " + quantity);
         }
         
         logger.debug("Searching for product ID: {} in user's cart", productId);
@@ -316,7 +318,7 @@ public class CartService {
             Map<String, Object> detail = new HashMap<>();
             Product product = item.getProduct();
             double subtotal = product.getPrice() * item.getQuantity();
-            boolean inStock = product.getStock() >= item.getQuantity();
+            boolean inStock = availableStock(product) >= item.getQuantity();
             
             detail.put("itemId", item.getId());
             detail.put("productId", product.getId());
@@ -335,7 +337,7 @@ public class CartService {
             
             if (!inStock) {
                 logger.warn("Insufficient stock for product in cart: {} (ID: {}). Available: {}, In cart: {}", 
-                        product.getName(), product.getId(), product.getStock(), item.getQuantity());
+                        product.getName(), product.getId(), availableStock(product), item.getQuantity());
             }
         }
         
@@ -362,14 +364,14 @@ public class CartService {
         
         for (CartItem item : items) {
             Product product = item.getProduct();
-            boolean isValid = product.getStock() >= item.getQuantity();
+            boolean isValid = availableStock(product) >= item.getQuantity();
             Map<String, Object> result = new HashMap<>();
             
             result.put("itemId", item.getId());
             result.put("productId", product.getId());
             result.put("productName", product.getName());
             result.put("requestedQuantity", item.getQuantity());
-            result.put("availableStock", product.getStock());
+            result.put("availableStock", availableStock(product));
             result.put("valid", isValid);
             
             validationResults.add(result);
@@ -377,10 +379,10 @@ public class CartService {
             if (!isValid) {
                 invalidItemsCount++;
                 logger.warn("Invalid item in cart: {} (ID: {}). Available stock: {}, Requested: {}", 
-                        product.getName(), product.getId(), product.getStock(), item.getQuantity());
+                        product.getName(), product.getId(), availableStock(product), item.getQuantity());
             } else {
                 logger.debug("Valid item in cart: {} (ID: {}). Available stock: {}, Requested: {}", 
-                        product.getName(), product.getId(), product.getStock(), item.getQuantity());
+                        product.getName(), product.getId(), availableStock(product), item.getQuantity());
             }
         }
         
@@ -388,4 +390,10 @@ public class CartService {
                 userId, (items.size() - invalidItemsCount), invalidItemsCount);
         return validationResults;
     }
+
+    // Hot products are served from the in-memory ledger, which is ahead of the products table
+    private int availableStock(Product product) {
+        long hot = hotStockLedger.available(product.getId());
+        return hot >= 0 ? (int) Math.min(hot, Integer.MAX_VALUE) : product.getStock();
+    }
 }
@@ -0,0 +1,275 @@
+package com.example.Grocito.Services;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Concurrent map of positive long keys to long values, kept in two flat long arrays (open
+ * addressing, linear probing) so nothing is boxed and a lookup touches one or two cache lines.
+ *
+ * get, containsKey and replace never lock: a key's slot never changes within a table, and
+ * replace is a CAS on the value. put and remove take the shared side of a lock that growing the
+ * table takes exclusively; growing marks every value it copies MOVED, so a concurrent replace
+ * cannot land in the old table unseen, and readers that meet MOVED wait for the new table.
+ * Removed keys leave a marker behind that is dropped when the table is next grown.
+ *
+ * A put reserves its slot against the table's threshold before claiming it, and grows the table
+ * first when none is left, so however many puts race the table never fills and probing always
+ * ends at an empty slot. Values start out NOT_READY and a new key is claimed before its value is
+ * stored; readers take a key whose value is not stored yet as not there. Values must not be
+ * MISSING, MOVED or NOT_READY.
+ */
+final class ConcurrentLongMap {
+
+    /**
+     * What get returns for a key that is not in the map
+     */
+    static final long MISSING = Long.MIN_VALUE;
+
+    private static final long EMPTY = 0;
+    private static final long REMOVED = -1;
+    private static final long MOVED = Long.MIN_VALUE + 1;
+    private static final long NOT_READY = Long.MIN_VALUE + 2;
+    private static final int MIN_CAPACITY = 16;
+
+    private volatile Table table;
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantReadWriteLock resizeLock = new ReentrantReadWriteLock();
+
+    private static final class Table {
+
+        final AtomicLongArray keys;
+        final AtomicLongArray values;
+        final int mask;
+        final int threshold;
+        // Slots ever taken or reserved by a put about to take one, removed keys included
+        final AtomicInteger used = new AtomicInteger();
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicLongArray(capacity);
+            for (int slot = 0; slot < capacity; slot++) {
+                values.set(slot, NOT_READY);
+            }
+            mask = capacity - 1;
+            threshold = capacity / 4 * 3;
+        }
+
+        // Take one of the slots left below the threshold; false when there is none
+        boolean reserve() {
+            int taken = used.get();
+            while (taken < threshold) {
+                if (used.compareAndSet(taken, taken + 1)) {
+                    return true;
+                }
+                taken = used.get();
+            }
+            return false;
+        }
+    }
+
+    ConcurrentLongMap() {
+        this(MIN_CAPACITY);
+    }
+
+    ConcurrentLongMap(int expectedSize) {
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    /**
+     * Value of key, or MISSING
+     */
+    long get(long key) {
+        while (true) {
+            Table current = table;
+            int slot = find(current, key);
+            if (slot < 0) {
+                return MISSING;
+            }
+            long value = current.values.get(slot);
+            if (value == NOT_READY) {
+                return MISSING;
+            }
+            if (value != MOVED) {
+                return value;
+            }
+            awaitResize(current);
+        }
+    }
+
+    boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    /**
+     * Set key to value; returns the previous value or MISSING
+     */
+    long put(long key, long value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+        while (true) {
+            resizeLock.readLock().lock();
+            try {
+                Table current = table;
+                int slot = spread(key) & current.mask;
+                while (true) {
+                    long found = current.keys.get(slot);
+                    if (found == key) {
+                        long previous = swap(current, slot, value);
+                        if (current.keys.get(slot) == key) {
+                            return previous;
+                        }
+                        // Removed meanwhile; insert it afresh further on
+                    } else if (found == EMPTY) {
+                        if (!current.reserve()) {
+                            break;
+                        }
+                        if (current.keys.compareAndSet(slot, EMPTY, key)) {
+                            current.values.set(slot, value);
+                            size.incrementAndGet();
+                            return MISSING;
+                        }
+                        // Taken meanwhile, perhaps by this key; look at the slot again
+                        current.used.decrementAndGet();
+                        continue;
+                    }
+                    slot = (slot + 1) & current.mask;
+                }
+            } finally {
+                resizeLock.readLock().unlock();
+            }
+            // No slot left below the threshold: grow, then try again in the new table
+            grow();
+        }
+    }
+
+    // Store value over a key's current one once a put inserting the key has stored its own
+    private static long swap(Table table, int slot, long value) {
+        while (true) {
+            long previous = table.values.get(slot);
+            if (previous == NOT_READY) {
+                Thread.onSpinWait();
+            } else if (table.values.compareAndSet(slot, previous, value)) {
+                return previous;
+            }
+        }
+    }
+
+    /**
+     * Set key to value only if it is currently expected
+     */
+    boolean replace(long key, long expected, long value) {
+        while (true) {
+            Table current = table;
+            int slot = find(current, key);
+            if (slot < 0) {
+                return false;
+            }
+            long found = current.values.get(slot);
+            if (found == MOVED) {
+                awaitResize(current);
+            } else if (found == NOT_READY || found != expected) {
+                return false;
+            } else if (current.values.compareAndSet(slot, expected, value)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Remove key; returns whether it was there
+     */
+    boolean remove(long key) {
+        resizeLock.readLock().lock();
+        try {
+            Table current = table;
+            int slot = find(current, key);
+            if (slot >= 0 && current.keys.compareAndSet(slot, key, REMOVED)) {
+                size.decrementAndGet();
+                return true;
+            }
+            return false;
+        } finally {
+            resizeLock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Every key, as of some moment during the call
+     */
+    void forEachKey(LongConsumer action) {
+        Table current = table;
+        for (int slot = 0; slot <= current.mask; slot++) {
+            long key = current.keys.get(slot);
+            if (key > 0 && current.values.get(slot) != NOT_READY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    private static int find(Table table, long key) {
+        int slot = spread(key) & table.mask;
+        while (true) {
+            long found = table.keys.get(slot);
+            if (found == key) {
+                return slot;
+            }
+            if (found == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & table.mask;
+        }
+    }
+
+    private void grow() {
+        resizeLock.writeLock().lock();
+        try {
+            Table current = table;
+            if (current.used.get() < current.threshold) {
+                return;
+            }
+            Table next = new Table(capacityFor(size.get()));
+            for (int slot = 0; slot <= current.mask; slot++) {
+                long key = current.keys.get(slot);
+                if (key <= 0) {
+                    continue;
+                }
+                long value = current.values.getAndSet(slot, MOVED);
+                int target = spread(key) & next.mask;
+                while (next.keys.get(target) != EMPTY) {
+                    target = (target + 1) & next.mask;
+                }
+                next.keys.set(target, key);
+                next.values.set(target, value);
+                next.used.incrementAndGet();
+            }
+            table = next;
+        } finally {
+            resizeLock.writeLock().unlock();
+        }
+    }
+
+    private void awaitResize(Table old) {
+        while (table == old) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // At most half full after growing, so there is room before the next time
+    private static int capacityFor(int expectedSize) {
+        int wanted = Math.max(MIN_CAPACITY, expectedSize * 2);
+        return Integer.highestOneBit(wanted - 1) << 1;
+    }
+
+    private static int spread(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -1,4 +1,4 @@
-﻿package com.example.Grocito.Services;
+package com.example.Grocito.Services;
 
 import com.example.Grocito.Entity.DeliveryPartner;
 import com.example.Grocito.Repository.DeliveryPartnerRepository;
@@ -14,48 +14,43 @@ import java.util.Optional;
 @Service
 public class DeliveryPartnerService {
     private final Logger logger = LoggerFactory.getLogger(DeliveryPartnerService.class);
-<<<<<<< HEAD
+
+    // Partner counts for getDeliveryPartnerAnalytics, computed together in one pass
+    private static final AnalyticsAggregator<DeliveryPartner> PARTNER_ANALYTICS = AnalyticsAggregator.<DeliveryPartner>builder()
+            .groupBy("verification", null, DeliveryPartner::getVerificationStatus, null)
+            .groupBy("availability", null, DeliveryPartner::getAvailabilityStatus, null)
+            .build();
 
     @Autowired
     private DeliveryPartnerRepository deliveryPartnerRepository;
 
-    public DeliveryPartner registerPartner(DeliveryPartner partner) {
-        logger.info("Registering new delivery partner: {}", partner.getFullName());
+    @Autowired
+    private PartnerLocationIndex partnerLocationIndex;
 
-=======
-    
     @Autowired
-    private DeliveryPartnerRepository deliveryPartnerRepository;
-    
+    private PartnerLocationIngest partnerLocationIngest;
+
     public DeliveryPartner registerPartner(DeliveryPartner partner) {
         logger.info("Registering new delivery partner: {}", partner.getFullName());
-        
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
+
         partner.setVerificationStatus("PENDING");
         partner.setAccountStatus("ACTIVE");
         partner.setAvailabilityStatus("OFFLINE");
         partner.setIsAvailable(false);
         partner.setTotalDeliveries(0);
         partner.setSuccessfulDeliveries(0);
-<<<<<<< HEAD
         partner.setAverageRating(java.math.BigDecimal.ZERO);
         partner.setTotalEarnings(java.math.BigDecimal.ZERO);
         partner.setCreatedAt(LocalDateTime.now());
         partner.setUpdatedAt(LocalDateTime.now());
 
-        return deliveryPartnerRepository.save(partner);
+        DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
+        // Replaces a lookup of the new id that found no partner
+        partnerLocationIngest.linkAuth(savedPartner.getId(),
+                savedPartner.getAuthRecord() == null ? null : savedPartner.getAuthRecord().getId());
+        return savedPartner;
     }
 
-=======
-        partner.setAverageRating(0.0);
-        partner.setTotalEarnings(0.0);
-        partner.setCreatedAt(LocalDateTime.now());
-        partner.setUpdatedAt(LocalDateTime.now());
-        
-        return deliveryPartnerRepository.save(partner);
-    }
-    
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
     public List<DeliveryPartner> getAllDeliveryPartners(String userRole, String userPincode) {
         if ("ADMIN".equals(userRole) && userPincode != null) {
             return deliveryPartnerRepository.findByAssignedPincode(userPincode);
@@ -63,52 +58,35 @@ public class DeliveryPartnerService {
             return deliveryPartnerRepository.findAll();
         }
     }
-<<<<<<< HEAD
 
     public Optional<DeliveryPartner> getDeliveryPartnerById(Long id, String userRole, String userPincode) {
         Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(id);
 
-=======
-    
-    public Optional<DeliveryPartner> getDeliveryPartnerById(Long id, String userRole, String userPincode) {
-        Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(id);
-        
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
         if (partnerOpt.isPresent() && "ADMIN".equals(userRole) && userPincode != null) {
             DeliveryPartner partner = partnerOpt.get();
             if (!userPincode.equals(partner.getAssignedPincode())) {
                 return Optional.empty();
             }
         }
-<<<<<<< HEAD
 
         return partnerOpt;
     }
 
-=======
-        
-        return partnerOpt;
-    }
-    
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
     public DeliveryPartner updateAvailability(Long partnerId, boolean isAvailable, String availabilityStatus) {
         Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
         if (!partnerOpt.isPresent()) {
             throw new RuntimeException("Delivery partner not found with ID: " + partnerId);
         }
-<<<<<<< HEAD
 
-=======
-        
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
         DeliveryPartner partner = partnerOpt.get();
         partner.setIsAvailable(isAvailable);
         partner.setAvailabilityStatus(availabilityStatus);
         partner.setLastActiveAt(LocalDateTime.now());
         partner.setUpdatedAt(LocalDateTime.now());
-<<<<<<< HEAD
 
-        return deliveryPartnerRepository.save(partner);
+        DeliveryPartner savedPartner = deliveryPartnerRepository.save(partner);
+        trackLocation(savedPartner);
+        return savedPartner;
     }
 
     public List<DeliveryPartner> getAvailablePartnersForPincode(String pincode) {
@@ -185,19 +163,34 @@ public class DeliveryPartnerService {
         return deliveryPartnerRepository.save(existing);
     }
 
-    public DeliveryPartner updateLocation(Long partnerId, Double latitude, Double longitude) {
-        Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
-        if (!partnerOpt.isPresent()) {
-            throw new RuntimeException("Delivery partner not found with ID: " + partnerId);
-        }
-
-        DeliveryPartner partner = partnerOpt.get();
-        partner.setCurrentLatitude(java.math.BigDecimal.valueOf(latitude));
-        partner.setCurrentLongitude(java.math.BigDecimal.valueOf(longitude));
-        partner.setLastActiveAt(LocalDateTime.now());
-        partner.setUpdatedAt(LocalDateTime.now());
+    /**
+     * Record where the partner is now. Taken in memory and written to delivery_partners with the
+     * next flush of the location ingest, so nothing is saved here; the partner's auth link is read
+     * on its first ping and kept, as is the absence of one. Returns false, recording nothing, when
+     * there is no such partner.
+     */
+    public boolean updateLocation(Long partnerId, Double latitude, Double longitude) {
+        return partnerLocationIngest.record(partnerId, latitude, longitude);
+    }
 
-        return deliveryPartnerRepository.save(partner);
+    // Keeps the partner's entry in the location index in step with its availability and position.
+    // The index, like assignment, knows partners by auth id, so one without a login is left out.
+    private void trackLocation(DeliveryPartner partner) {
+        Long authId = partner.getAuthRecord() == null ? null : partner.getAuthRecord().getId();
+        partnerLocationIngest.linkAuth(partner.getId(), authId);
+        if (authId == null) {
+            return;
+        }
+        if (!Boolean.TRUE.equals(partner.getIsAvailable()) || !"VERIFIED".equals(partner.getVerificationStatus())) {
+            partnerLocationIndex.offline(authId);
+            return;
+        }
+        Double rating = partner.getAverageRating() == null ? null : partner.getAverageRating().doubleValue();
+        partnerLocationIndex.online(authId, partner.getAssignedPincode(), rating);
+        if (partner.getCurrentLatitude() != null && partner.getCurrentLongitude() != null) {
+            partnerLocationIndex.moveTo(authId, partner.getCurrentLatitude().doubleValue(),
+                    partner.getCurrentLongitude().doubleValue());
+        }
     }
 
     public DeliveryPartner updateVerificationStatus(Long partnerId, String verificationStatus) {
@@ -220,11 +213,13 @@ public class DeliveryPartnerService {
 
         java.util.Map<String, Object> analytics = new java.util.HashMap<>();
 
+        AnalyticsAggregator<DeliveryPartner>.Result result = PARTNER_ANALYTICS.aggregate(partners);
+
         long totalPartners = partners.size();
-        long verifiedPartners = partners.stream().filter(p -> "VERIFIED".equals(p.getVerificationStatus())).count();
-        long pendingPartners = partners.stream().filter(p -> "PENDING".equals(p.getVerificationStatus())).count();
-        long onlinePartners = partners.stream().filter(p -> "ONLINE".equals(p.getAvailabilityStatus())).count();
-        long busyPartners = partners.stream().filter(p -> "BUSY".equals(p.getAvailabilityStatus())).count();
+        long verifiedPartners = result.groupCount("verification", "VERIFIED");
+        long pendingPartners = result.groupCount("verification", "PENDING");
+        long onlinePartners = result.groupCount("availability", "ONLINE");
+        long busyPartners = result.groupCount("availability", "BUSY");
 
         analytics.put("totalPartners", totalPartners);
         analytics.put("verifiedPartners", verifiedPartners);
@@ -278,15 +273,3 @@ public class DeliveryPartnerService {
                 .findFirst();
     }
 }
-=======
-        
-        return deliveryPartnerRepository.save(partner);
-    }
-    
-    public List<DeliveryPartner> getAvailablePartnersForPincode(String pincode) {
-        return deliveryPartnerRepository
-                .findByAssignedPincodeAndIsAvailableTrueAndVerificationStatusAndAccountStatus(
-                        pincode, "VERIFIED", "ACTIVE");
-    }
-}
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
@@ -0,0 +1,300 @@
+package com.example.Grocito.Services;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.Entity.OutboxEmail;
+import com.example.Grocito.Repository.OutboxEmailRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Persistent outbox for outgoing mail, so no request waits on (or fails because of) the SMTP
+ * server.
+ *
+ * enqueue only inserts an email_outbox row. A dispatcher thread claims due rows with one
+ * conditional UPDATE (so several app instances never send the same row) and hands them in
+ * batches to a bounded pool of grocito.mail.outbox.workers senders; each batch goes out over a
+ * single SMTP connection. A failed message is retried with exponential backoff and marked DEAD
+ * after grocito.mail.outbox.max-attempts. Rows left SENDING by a crashed instance are released
+ * again once their lease expires; that counts as a failed attempt, so a message that keeps
+ * taking its sender down ends DEAD too.
+ */
+@Component
+public class EmailOutbox {
+
+    private static final Logger logger = LoggerConfig.getLogger(EmailOutbox.class);
+
+    private static final String FROM = "codercompete@gmail.com";
+
+    private static final String DUE_SQL = "SELECT id FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= ?"
+            + " ORDER BY next_attempt_at LIMIT ?";
+    private static final String CLAIM_SQL = "UPDATE email_outbox SET status = 'SENDING', claim_token = ?, claimed_at = ?"
+            + " WHERE status = 'PENDING' AND id IN (%s)";
+    private static final String EXPIRED_SQL = "SELECT id, recipient, attempts, claim_token FROM email_outbox"
+            + " WHERE status = 'SENDING' AND claimed_at < ?";
+    private static final String SENT_SQL = "UPDATE email_outbox SET status = 'SENT', attempts = attempts + 1, sent_at = ?,"
+            + " last_error = NULL, claim_token = NULL WHERE id = ? AND claim_token = ?";
+    private static final String FAILED_SQL = "UPDATE email_outbox SET status = ?, attempts = ?, next_attempt_at = ?,"
+            + " last_error = ?, claim_token = NULL WHERE id = ? AND claim_token = ?";
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private OutboxEmailRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${grocito.mail.outbox.workers:2}")
+    private int workerCount;
+
+    @Value("${grocito.mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${grocito.mail.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${grocito.mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${grocito.mail.outbox.initial-backoff-ms:30000}")
+    private long initialBackoffMs;
+
+    @Value("${grocito.mail.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${grocito.mail.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private ThreadPoolExecutor workers;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Never more batches than workers, so the queue cannot grow
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerCount), runnable -> {
+                    Thread thread = new Thread(runnable, "email-outbox-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "email-outbox-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        logger.info("Email outbox started with {} workers", workerCount);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        workers.shutdown();
+        // Batches cut short here stay SENDING and are picked up again after the lease expires
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue an email for sending and return immediately. Inside a transaction the email is only
+     * picked up once that transaction commits.
+     */
+    public OutboxEmail enqueue(String to, String subject, String text) {
+        OutboxEmail email = outboxRepository.save(new OutboxEmail(to, subject, text));
+        logger.debug("Queued email {} to {}", email.getId(), to);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+        return email;
+    }
+
+    /**
+     * Make the dispatcher look for due emails now rather than at its next poll
+     */
+    public void wakeUp() {
+        if (wakeUps.availablePermits() == 0) {
+            wakeUps.release();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                dispatch();
+            } catch (RuntimeException e) {
+                logger.error("Email outbox dispatch failed: {}", e.getMessage(), e);
+            }
+            try {
+                wakeUps.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claim as many due emails as the idle workers can take and start sending them
+     */
+    int dispatch() {
+        int idle = workerCount - busyWorkers.get();
+        if (idle <= 0) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        releaseExpired(now);
+
+        List<Long> due = jdbcTemplate.queryForList(DUE_SQL, Long.class, Timestamp.valueOf(now), idle * batchSize);
+        if (due.isEmpty()) {
+            return 0;
+        }
+        String token = UUID.randomUUID().toString();
+        List<Object> args = new ArrayList<>(due.size() + 2);
+        args.add(token);
+        args.add(Timestamp.valueOf(now));
+        args.addAll(due);
+        String placeholders = String.join(",", Collections.nCopies(due.size(), "?"));
+        if (jdbcTemplate.update(String.format(CLAIM_SQL, placeholders), args.toArray()) == 0) {
+            return 0;
+        }
+
+        // Another instance may have claimed some of them first
+        List<OutboxEmail> claimed = outboxRepository.findByClaimToken(token);
+        for (int from = 0; from < claimed.size(); from += batchSize) {
+            List<OutboxEmail> batch = claimed.subList(from, Math.min(from + batchSize, claimed.size()));
+            busyWorkers.incrementAndGet();
+            workers.execute(() -> {
+                try {
+                    send(batch, token);
+                } finally {
+                    busyWorkers.decrementAndGet();
+                    // There may be more due emails waiting for a free worker
+                    wakeUp();
+                }
+            });
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Send one batch over a single SMTP connection and record each email's outcome
+     */
+    private void send(List<OutboxEmail> batch, String token) {
+        List<SimpleMailMessage> messages = new ArrayList<>(batch.size());
+        Map<Object, OutboxEmail> emails = new IdentityHashMap<>();
+        for (OutboxEmail email : batch) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(FROM);
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages.add(message);
+            emails.put(message, email);
+        }
+
+        Map<OutboxEmail, Exception> failed = new IdentityHashMap<>();
+        try {
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                batch.forEach(email -> failed.put(email, e));
+            }
+            e.getFailedMessages().forEach((message, error) -> failed.put(emails.get(message), error));
+        } catch (RuntimeException e) {
+            // Authentication or other failures before anything was sent
+            batch.forEach(email -> failed.put(email, e));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> sent = new ArrayList<>();
+        List<Object[]> retried = new ArrayList<>();
+        for (OutboxEmail email : batch) {
+            Exception error = failed.get(email);
+            if (error == null) {
+                sent.add(new Object[] { Timestamp.valueOf(now), email.getId(), token });
+                continue;
+            }
+            retried.add(failure(email.getId(), email.getRecipient(), email.getAttempts(), String.valueOf(error.getMessage()), token, now));
+        }
+        if (!sent.isEmpty()) {
+            jdbcTemplate.batchUpdate(SENT_SQL, sent);
+        }
+        if (!retried.isEmpty()) {
+            jdbcTemplate.batchUpdate(FAILED_SQL, retried);
+        }
+        logger.info("Email outbox batch: {} sent, {} failed", sent.size(), retried.size());
+    }
+
+    /**
+     * Take back the rows whose lease ran out as failed attempts, each under the token it was
+     * claimed with so that two instances releasing at once count it once
+     */
+    private void releaseExpired(LocalDateTime now) {
+        List<Object[]> released = jdbcTemplate.query(EXPIRED_SQL, (rs, row) -> failure(rs.getLong("id"), rs.getString("recipient"),
+                rs.getInt("attempts"), "Lease expired while sending", rs.getString("claim_token"), now),
+                Timestamp.valueOf(now.minusSeconds(leaseSeconds)));
+        if (!released.isEmpty()) {
+            jdbcTemplate.batchUpdate(FAILED_SQL, released);
+        }
+    }
+
+    // FAILED_SQL arguments for one more failed attempt: retried after a backoff, or DEAD
+    private Object[] failure(long id, String recipient, int previousAttempts, String error, String token, LocalDateTime now) {
+        int attempts = previousAttempts + 1;
+        boolean dead = attempts >= maxAttempts;
+        if (dead) {
+            logger.error("Giving up on email {} to {} after {} attempts: {}", id, recipient, attempts, error);
+        } else {
+            logger.warn("Email {} to {} failed (attempt {}), will retry: {}", id, recipient, attempts, error);
+        }
+        return new Object[] { dead ? "DEAD" : "PENDING", attempts, Timestamp.valueOf(now.plusNanos(backoffMs(attempts) * 1_000_000)),
+                truncate(error), id, token };
+    }
+
+    // initial * 2^(attempts - 1), capped
+    private long backoffMs(int attempts) {
+        long backoff = initialBackoffMs << Math.min(attempts - 1, 30);
+        return backoff <= 0 ? maxBackoffMs : Math.min(backoff, maxBackoffMs);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
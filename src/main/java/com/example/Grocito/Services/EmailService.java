@@ -2,8 +2,6 @@ package com.example.Grocito.Services;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import com.example.Grocito.config.LoggerConfig;
@@ -14,30 +12,24 @@ public class EmailService {
     private static final Logger logger = LoggerConfig.getLogger(EmailService.class);
 
     @Autowired
-    private JavaMailSender emailSender;
+    private EmailOutbox emailOutbox;
 
     /**
-     * Send a simple email message
+     * Queue a simple email message. It is sent in the background by the EmailOutbox (with
+     * retries), so this returns without waiting for the mail server.
      * 
      * @param to      Recipient email address
      * @param subject Email subject
      * @param text    Email body text
      */
     public void sendSimpleMessage(String to, String subject, String text) {
-        logger.info("Sending email to: {}", to);
+        logger.info("Queueing email to: {}", to);
         logger.debug("Email subject: {}", subject);
         
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom("codercompete@gmail.com");
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-            
-            emailSender.send(message);
-            logger.info("Email sent successfully to: {}", to);
+            emailOutbox.enqueue(to, subject, text);
         } catch (Exception e) {
-            logger.error("Failed to send email to: {}, error: {}", to, e.getMessage());
+            logger.error("Failed to queue email to: {}, error: {}", to, e.getMessage());
             throw new RuntimeException("Failed to send email: " + e.getMessage());
         }
     }
@@ -0,0 +1,308 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Repository.ProductRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory stock for designated hot products (grocito.stock.hot-skus), so flash-sale checkouts
+ * do not serialize on one products row.
+ *
+ * Each hot product's available stock is split across per-core stripes, each a padded slot of an
+ * AtomicLongArray that is only ever decremented by CAS while it stays non-negative. A buyer
+ * takes from the stripe picked by its thread and only looks at other stripes when that one runs
+ * dry, so buyers on different cores rarely touch the same cache line and stock never goes below
+ * zero. A buyer no single stripe can serve gathers its quantity piece by piece under a per-product
+ * lock, so it is only turned away when the stripes together hold too little.
+ *
+ * The products table lags behind: every grocito.stock.flush-interval-ms the net change since the
+ * last flush is written with one JDBC batch. Stock is loaded from the database on startup (before
+ * requests are served) and flushed on shutdown; changes not yet flushed when the process dies
+ * are lost, so the flush interval bounds that window.
+ */
+@Component
+public class HotStockLedger {
+
+    private static final Logger logger = LoggerConfig.getLogger(HotStockLedger.class);
+
+    // Slots per stripe, so neighbouring stripes sit on different cache lines
+    private static final int PAD = 16;
+
+    private static final String FLUSH_SQL = "UPDATE products SET stock = stock - ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${grocito.stock.hot-skus:}")
+    private String hotSkus;
+
+    private final int stripes;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // Serializes flushes with absolute stock overwrites of hot products
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public HotStockLedger() {
+        this(Math.min(64, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1));
+    }
+
+    /**
+     * A ledger on the given number of stripes, a power of two, whatever the core count; for tests
+     */
+    HotStockLedger(int stripes) {
+        this.stripes = stripes;
+    }
+
+    @PostConstruct
+    void loadHotProducts() {
+        for (String id : hotSkus.split(",")) {
+            if (!id.trim().isEmpty()) {
+                Long productId = Long.valueOf(id.trim());
+                Optional<Product> product = productRepository.findById(productId);
+                if (product.isPresent()) {
+                    designate(productId, product.get().getStock());
+                } else {
+                    logger.warn("Hot SKU {} not found, keeping it on the database path", productId);
+                }
+            }
+        }
+        if (!entries.isEmpty()) {
+            logger.info("Hot stock ledger tracking products {} on {} stripes", entries.keySet(), stripes);
+        }
+    }
+
+    /**
+     * Start serving productId from the ledger with the given stock as both available and flushed
+     */
+    public void designate(Long productId, long stock) {
+        Entry entry = new Entry(stripes);
+        entry.set(stock);
+        entry.flushed = stock;
+        entries.put(productId, entry);
+    }
+
+    public boolean isHot(Long productId) {
+        return entries.containsKey(productId);
+    }
+
+    /**
+     * Current available stock of a hot product, or -1 when productId is not hot
+     */
+    public long available(Long productId) {
+        Entry entry = entries.get(productId);
+        return entry != null ? entry.total() : -1;
+    }
+
+    /**
+     * Take quantity of a hot product; false when not enough is left
+     */
+    public boolean reserve(Long productId, int quantity) {
+        Entry entry = entries.get(productId);
+        if (entry == null) {
+            throw new IllegalArgumentException("Product " + productId + " is not tracked by the hot stock ledger");
+        }
+        return entry.take(quantity);
+    }
+
+    /**
+     * Give back quantity of a hot product, e.g. for a cancelled or rolled back order
+     */
+    public void release(Long productId, int quantity) {
+        Entry entry = entries.get(productId);
+        if (entry != null) {
+            entry.give(quantity);
+        }
+    }
+
+    /**
+     * Replace the stock of a hot product with an absolute value (an admin stock update); persist
+     * writes it to the database. Sales not yet flushed are superseded by the new value, and no
+     * flush can run between the database write and the ledger reset.
+     */
+    public <T> T overwrite(Long productId, long stock, Supplier<T> persist) {
+        flushLock.lock();
+        try {
+            T persisted = persist.get();
+            Entry entry = entries.get(productId);
+            if (entry != null) {
+                entry.set(stock);
+                entry.flushed = stock;
+            }
+            return persisted;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Write the net stock change of every hot product since the last flush in one JDBC batch
+     */
+    @Scheduled(fixedDelayString = "${grocito.stock.flush-interval-ms:200}")
+    public void flush() {
+        if (entries.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<Object[]> batch = new ArrayList<>();
+            List<Entry> flushed = new ArrayList<>();
+            List<Long> observed = new ArrayList<>();
+            for (Map.Entry<Long, Entry> hot : entries.entrySet()) {
+                Entry entry = hot.getValue();
+                long available = entry.total();
+                if (available != entry.flushed) {
+                    batch.add(new Object[] { entry.flushed - available, hot.getKey() });
+                    flushed.add(entry);
+                    observed.add(available);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).flushed = observed.get(i);
+            }
+            logger.debug("Flushed hot stock for {} products", batch.size());
+        } catch (RuntimeException e) {
+            // Nothing is marked flushed, so the same deltas are retried next time
+            logger.error("Hot stock flush failed: {}", e.getMessage(), e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Striped counter for one product; the sum of all stripes is the available stock
+     */
+    private static final class Entry {
+
+        private final AtomicLongArray slots;
+        private final int mask;
+
+        // One gathering buyer at a time, so no other holds stock taken out of the stripes
+        private final ReentrantLock gatherLock = new ReentrantLock();
+
+        // Total available as of the last successful flush; guarded by flushLock
+        long flushed;
+
+        Entry(int stripes) {
+            this.slots = new AtomicLongArray(stripes * PAD);
+            this.mask = stripes - 1;
+        }
+
+        long total() {
+            long total = 0;
+            for (int i = 0; i <= mask; i++) {
+                total += slots.get(i * PAD);
+            }
+            return total;
+        }
+
+        void set(long stock) {
+            long[] shares = new long[mask + 1];
+            Arrays.fill(shares, stock / shares.length);
+            shares[0] += stock % shares.length;
+            for (int i = 0; i <= mask; i++) {
+                slots.set(i * PAD, shares[i]);
+            }
+        }
+
+        boolean take(int quantity) {
+            int home = home();
+            // Home stripe first, then the others
+            for (int n = 0; n <= mask; n++) {
+                if (takeFrom((home + n) & mask, quantity)) {
+                    return true;
+                }
+            }
+            // Enough may be left in total but fragmented across stripes
+            return gather(home, quantity);
+        }
+
+        void give(int quantity) {
+            slots.addAndGet(home() * PAD, quantity);
+        }
+
+        // Drain the stripes until quantity is in hand, or hand it back when they hold too little
+        private boolean gather(int home, int quantity) {
+            gatherLock.lock();
+            try {
+                long gathered = 0;
+                while (true) {
+                    for (int n = 0; n <= mask && gathered < quantity; n++) {
+                        gathered += drain((home + n) & mask, quantity - gathered);
+                    }
+                    if (gathered == quantity) {
+                        return true;
+                    }
+                    // Stock given back meanwhile to a stripe already passed is picked up by another pass
+                    if (gathered + total() < quantity) {
+                        slots.addAndGet(home * PAD, gathered);
+                        return false;
+                    }
+                }
+            } finally {
+                gatherLock.unlock();
+            }
+        }
+
+        private boolean takeFrom(int stripe, int quantity) {
+            int slot = stripe * PAD;
+            long current = slots.get(slot);
+            while (current >= quantity) {
+                if (slots.compareAndSet(slot, current, current - quantity)) {
+                    return true;
+                }
+                current = slots.get(slot);
+            }
+            return false;
+        }
+
+        private long drain(int stripe, long wanted) {
+            int slot = stripe * PAD;
+            long current = slots.get(slot);
+            while (current > 0) {
+                long taken = Math.min(current, wanted);
+                if (slots.compareAndSet(slot, current, current - taken)) {
+                    return taken;
+                }
+                current = slots.get(slot);
+            }
+            return 0;
+        }
+
+        private int home() {
+            long id = Thread.currentThread().getId();
+            return (int) (id ^ (id >>> 16)) * 0x9E3779B9 >>> 16 & mask;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.Grocito.Services;
+
+import java.util.Arrays;
+
+/**
+ * Minimum cost assignment on a rectangular cost matrix (the Hungarian method, in its shortest
+ * augmenting path form): every row of the smaller side is matched to a distinct column of the
+ * other, minimizing the total cost. O(n^2 m) for n rows and m columns, n <= m; a matrix with more
+ * rows than columns is solved transposed.
+ *
+ * Pairs that must not be matched are given a cost larger than any full matching of allowed ones
+ * (see BatchDispatcher), so the result has as many allowed pairs as possible and drops the rest.
+ */
+final class MinCostMatching {
+
+    private MinCostMatching() {
+    }
+
+    /**
+     * Column matched to each row of cost[rows][columns], or -1 for rows left over when there are
+     * more rows than columns
+     */
+    static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+        int columns = cost[0].length;
+        int[] match = new int[rows];
+        Arrays.fill(match, -1);
+        if (columns == 0) {
+            return match;
+        }
+        if (rows <= columns) {
+            int[] columnOfRow = solveWide(cost, rows, columns);
+            System.arraycopy(columnOfRow, 0, match, 0, rows);
+        } else {
+            // Copied over rather than read across, so the inner loop walks along a row
+            double[][] transposed = new double[columns][rows];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    transposed[j][i] = cost[i][j];
+                }
+            }
+            int[] rowOfColumn = solveWide(transposed, columns, rows);
+            for (int column = 0; column < columns; column++) {
+                match[rowOfColumn[column]] = column;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * cost[n][m], n <= m. Returns the column of each of the n rows.
+     */
+    private static int[] solveWide(double[][] cost, int n, int m) {
+        // 1-based; column 0 is the free end of the augmenting path
+        double[] rowPotential = new double[n + 1];
+        double[] columnPotential = new double[m + 1];
+        int[] rowOfColumn = new int[m + 1];
+        int[] previous = new int[m + 1];
+        double[] slack = new double[m + 1];
+        boolean[] visited = new boolean[m + 1];
+
+        for (int row = 1; row <= n; row++) {
+            rowOfColumn[0] = row;
+            int column = 0;
+            Arrays.fill(slack, Double.POSITIVE_INFINITY);
+            Arrays.fill(visited, false);
+            do {
+                visited[column] = true;
+                int current = rowOfColumn[column];
+                double[] costRow = cost[current - 1];
+                double delta = Double.POSITIVE_INFINITY;
+                int next = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (visited[j]) {
+                        continue;
+                    }
+                    double reduced = costRow[j - 1] - rowPotential[current] - columnPotential[j];
+                    if (reduced < slack[j]) {
+                        slack[j] = reduced;
+                        previous[j] = column;
+                    }
+                    if (slack[j] < delta) {
+                        delta = slack[j];
+                        next = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (visited[j]) {
+                        rowPotential[rowOfColumn[j]] += delta;
+                        columnPotential[j] -= delta;
+                    } else {
+                        slack[j] -= delta;
+                    }
+                }
+                column = next;
+            } while (rowOfColumn[column] != 0);
+            // Flip the path back to the start
+            do {
+                int before = previous[column];
+                rowOfColumn[column] = rowOfColumn[before];
+                column = before;
+            } while (column != 0);
+        }
+
+        int[] columnOfRow = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (rowOfColumn[j] != 0) {
+                columnOfRow[rowOfColumn[j] - 1] = j - 1;
+            }
+        }
+        return columnOfRow;
+    }
+}
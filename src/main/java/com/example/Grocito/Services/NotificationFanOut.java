@@ -0,0 +1,246 @@
+package com.example.Grocito.Services;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.dto.NotificationAudience;
+import com.example.Grocito.dto.NotificationFanOutStatus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sends one notification to a whole audience (a list of users, a role in a pincode, or the
+ * delivery partners of a pincode) without a save per recipient.
+ *
+ * submit returns straight away with a NotificationFanOutStatus; a bounded pool of
+ * grocito.notifications.fan-out.threads workers resolves the recipient IDs with one query and
+ * inserts their rows with JDBC batches of grocito.notifications.fan-out.chunk-size, one
+ * transaction per chunk. After each chunk commits, recipients with an open stream get the
+ * notification and loaded unread counters move (NotificationService.afterBulkInsert).
+ * A chunk that fails leaves the earlier ones in place and marks the fan-out FAILED.
+ */
+@Service
+public class NotificationFanOut {
+
+    private static final Logger logger = LoggerConfig.getLogger(NotificationFanOut.class);
+
+    private static final String INSERT_SQL = "INSERT INTO notifications (user_id, recipient_type, message, type, read_status, created_at, link)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String USERS_BY_ROLE_SQL = "SELECT id FROM users WHERE role = ? ORDER BY id";
+    private static final String USERS_BY_ROLE_AND_PINCODE_SQL = "SELECT id FROM users WHERE role = ? AND pincode = ? ORDER BY id";
+    private static final String PARTNERS_BY_PINCODE_SQL = "SELECT id FROM delivery_partner_auth"
+            + " WHERE pincode = ? AND verification_status = 'VERIFIED' AND is_active = true ORDER BY id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Value("${grocito.notifications.fan-out.threads:2}")
+    private int threadCount;
+
+    @Value("${grocito.notifications.fan-out.queue-size:50}")
+    private int queueSize;
+
+    @Value("${grocito.notifications.fan-out.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${grocito.notifications.fan-out.history:100}")
+    private int historySize;
+
+    private final Map<String, NotificationFanOutStatus> recent = new LinkedHashMap<>();
+    private final AtomicLong totalFanOuts = new AtomicLong();
+    private final AtomicLong failedFanOuts = new AtomicLong();
+    private final AtomicLong totalInserted = new AtomicLong();
+    private final AtomicLong totalInsertNanos = new AtomicLong();
+    private ThreadPoolExecutor workers;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "notification-fan-out-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue a notification for every member of audience and return its status at once.
+     * Throws IllegalArgumentException for an incomplete audience, and RejectedExecutionException
+     * when grocito.notifications.fan-out.queue-size fan-outs are already waiting.
+     */
+    public NotificationFanOutStatus submit(NotificationAudience audience, String message, String type, String link) {
+        validate(audience, message);
+        NotificationFanOutStatus status = new NotificationFanOutStatus(UUID.randomUUID().toString(), audience.toString());
+        workers.execute(() -> run(status, audience, message, type, link));
+        synchronized (recent) {
+            recent.put(status.getId(), status);
+            if (recent.size() > historySize) {
+                recent.remove(recent.keySet().iterator().next());
+            }
+        }
+        logger.info("Queued notification fan-out {} to {}", status.getId(), status.getAudience());
+        return status;
+    }
+
+    /**
+     * Status of one of the last grocito.notifications.fan-out.history fan-outs, or null
+     */
+    public NotificationFanOutStatus getStatus(String id) {
+        synchronized (recent) {
+            return recent.get(id);
+        }
+    }
+
+    /**
+     * The last grocito.notifications.fan-out.history fan-outs, oldest first
+     */
+    public List<NotificationFanOutStatus> getRecent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent.values());
+        }
+    }
+
+    /**
+     * Totals since startup, with the insert rate over all chunks
+     */
+    public Map<String, Object> getTotals() {
+        long nanos = totalInsertNanos.get();
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("fanOuts", totalFanOuts.get());
+        totals.put("failed", failedFanOuts.get());
+        totals.put("inserted", totalInserted.get());
+        totals.put("rowsPerSecond", nanos == 0 ? 0 : totalInserted.get() * 1_000_000_000L / nanos);
+        totals.put("queued", workers.getQueue().size());
+        return totals;
+    }
+
+    private void run(NotificationFanOutStatus status, NotificationAudience audience, String message, String type, String link) {
+        status.setStatus("RUNNING");
+        status.setStartedAt(LocalDateTime.now());
+        long started = System.nanoTime();
+        try {
+            String recipientType = "PARTNERS".equals(audience.getType()) ? "PARTNER" : "USER";
+            List<Long> recipients = resolve(audience);
+            status.setRecipients(recipients.size());
+
+            LocalDateTime createdAt = LocalDateTime.now();
+            Timestamp createdAtValue = Timestamp.valueOf(createdAt);
+            // Shared by every recipient, so it carries no notification or user ID
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("fanOutId", status.getId());
+            event.put("type", type);
+            event.put("message", message);
+            event.put("link", link);
+            event.put("createdAt", createdAt);
+
+            for (int from = 0; from < recipients.size(); from += chunkSize) {
+                List<Long> chunk = recipients.subList(from, Math.min(from + chunkSize, recipients.size()));
+                long chunkStarted = System.nanoTime();
+                transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, recipientId) -> {
+                    ps.setLong(1, recipientId);
+                    ps.setString(2, recipientType);
+                    ps.setString(3, message);
+                    ps.setString(4, type);
+                    ps.setBoolean(5, false);
+                    ps.setTimestamp(6, createdAtValue);
+                    ps.setString(7, link);
+                }));
+                totalInsertNanos.addAndGet(System.nanoTime() - chunkStarted);
+                totalInserted.addAndGet(chunk.size());
+                status.setInserted(status.getInserted() + chunk.size());
+                status.setChunks(status.getChunks() + 1);
+                status.setElapsedMs((System.nanoTime() - started) / 1_000_000);
+                notificationService.afterBulkInsert(recipientType, chunk, event, chunkStarted);
+            }
+            status.setStatus("DONE");
+        } catch (RuntimeException e) {
+            failedFanOuts.incrementAndGet();
+            status.setError(e.getMessage());
+            status.setStatus("FAILED");
+            logger.error("Notification fan-out {} failed after {} rows: {}", status.getId(), status.getInserted(), e.getMessage(), e);
+        } finally {
+            totalFanOuts.incrementAndGet();
+            status.setElapsedMs((System.nanoTime() - started) / 1_000_000);
+            status.setFinishedAt(LocalDateTime.now());
+            logger.info("Notification fan-out {} to {}: {} of {} rows in {} chunks, {} ms ({} rows/s)", status.getId(), status.getAudience(),
+                    status.getInserted(), status.getRecipients(), status.getChunks(), status.getElapsedMs(), status.getRowsPerSecond());
+        }
+    }
+
+    private List<Long> resolve(NotificationAudience audience) {
+        switch (audience.getType()) {
+            case "USERS":
+                // Once per user, even if listed twice
+                return new ArrayList<>(new LinkedHashSet<>(audience.getUserIds().stream().filter(Objects::nonNull).toList()));
+            case "ROLE":
+                if (audience.getPincode() == null || audience.getPincode().isEmpty()) {
+                    return jdbcTemplate.queryForList(USERS_BY_ROLE_SQL, Long.class, audience.getRole());
+                }
+                return jdbcTemplate.queryForList(USERS_BY_ROLE_AND_PINCODE_SQL, Long.class, audience.getRole(), audience.getPincode());
+            default:
+                return jdbcTemplate.queryForList(PARTNERS_BY_PINCODE_SQL, Long.class, audience.getPincode());
+        }
+    }
+
+    private static void validate(NotificationAudience audience, String message) {
+        if (message == null || message.isEmpty()) {
+            throw new IllegalArgumentException("Message is required");
+        }
+        if (audience == null || audience.getType() == null) {
+            throw new IllegalArgumentException("Audience type is required (USERS, ROLE or PARTNERS)");
+        }
+        switch (audience.getType()) {
+            case "USERS":
+                if (audience.getUserIds() == null || audience.getUserIds().isEmpty()) {
+                    throw new IllegalArgumentException("USERS audience needs userIds");
+                }
+                break;
+            case "ROLE":
+                if (audience.getRole() == null || audience.getRole().isEmpty()) {
+                    throw new IllegalArgumentException("ROLE audience needs a role");
+                }
+                break;
+            case "PARTNERS":
+                if (audience.getPincode() == null || audience.getPincode().isEmpty()) {
+                    throw new IllegalArgumentException("PARTNERS audience needs a pincode");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown audience type: " + audience.getType());
+        }
+    }
+}
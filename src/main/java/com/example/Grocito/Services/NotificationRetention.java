@@ -0,0 +1,236 @@
+package com.example.Grocito.Services;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.Grocito.config.LoggerConfig;
+
+/**
+ * Keeps the notifications table from growing forever: read notifications older than
+ * grocito.notifications.retention.read-days are rolled up into notification_summaries (how many
+ * of each type a recipient had, and when) and deleted.
+ *
+ * The job works oldest first in batches of grocito.notifications.retention.batch-size rows, each
+ * in its own short transaction, pausing grocito.notifications.retention.pause-ms between batches
+ * so user traffic is never stuck behind it. Unread rows are never touched, so unread counters
+ * stay valid. A batch that loses a row to a concurrent delete is rolled back whole and retried,
+ * so a summary never counts a row twice or one the user deleted.
+ */
+@Component
+public class NotificationRetention {
+
+    private static final Logger logger = LoggerConfig.getLogger(NotificationRetention.class);
+
+    /**
+     * Summary type of notifications that had none
+     */
+    static final String NO_TYPE = "NONE";
+
+    private static final int MAX_RETRIES = 3;
+
+    private static final String EXPIRED_SQL = "SELECT id, user_id, recipient_type, type, created_at FROM notifications"
+            + " WHERE read_status = true AND created_at < ? ORDER BY created_at LIMIT ?";
+    private static final String DELETE_SQL = "DELETE FROM notifications WHERE read_status = true AND id IN (%s)";
+    private static final String UPDATE_SUMMARY_SQL = "UPDATE notification_summaries SET notification_count = notification_count + ?,"
+            + " first_created_at = LEAST(first_created_at, ?), last_created_at = GREATEST(last_created_at, ?), updated_at = ?"
+            + " WHERE user_id = ? AND recipient_type = ? AND type = ?";
+    private static final String INSERT_SUMMARY_SQL = "INSERT INTO notification_summaries"
+            + " (user_id, recipient_type, type, notification_count, first_created_at, last_created_at, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${grocito.notifications.retention.read-days:30}")
+    private int readDays;
+
+    @Value("${grocito.notifications.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${grocito.notifications.retention.pause-ms:50}")
+    private long pauseMs;
+
+    /**
+     * Nightly run of compact
+     */
+    @Scheduled(cron = "${grocito.notifications.retention.cron:0 15 3 * * *}")
+    public void compactNightly() {
+        try {
+            compact();
+        } catch (Exception e) {
+            logger.error("Notification retention failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Summarize and delete every read notification past the retention age, a batch at a time
+     */
+    public Result compact() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(readDays);
+        long started = System.nanoTime();
+        Result result = new Result();
+        int retries = 0;
+        while (true) {
+            int deleted;
+            try {
+                deleted = transactionTemplate.execute(tx -> compactBatch(cutoff));
+            } catch (ConcurrentChangeException | DataAccessException e) {
+                // Nothing of the batch was kept; a later look sees the rows as they are now
+                if (++retries > MAX_RETRIES) {
+                    throw e;
+                }
+                logger.debug("Notification retention batch rolled back, retrying: {}", e.getMessage());
+                continue;
+            }
+            if (deleted == 0) {
+                break;
+            }
+            retries = 0;
+            result.batches++;
+            result.deleted += deleted;
+            if (deleted < batchSize || !pause()) {
+                break;
+            }
+        }
+        result.elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        logger.info("Notification retention removed {} read notifications older than {} in {} batches, {} ms",
+                result.deleted, cutoff, result.batches, result.elapsedMs);
+        return result;
+    }
+
+    private int compactBatch(LocalDateTime cutoff) {
+        List<Expired> rows = jdbcTemplate.query(EXPIRED_SQL, (rs, rowNum) -> new Expired(rs.getLong("id"), rs.getLong("user_id"),
+                rs.getString("recipient_type"), rs.getString("type"), rs.getTimestamp("created_at")),
+                Timestamp.valueOf(cutoff), batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        int deleted = jdbcTemplate.update(String.format(DELETE_SQL, String.join(",", Collections.nCopies(rows.size(), "?"))),
+                rows.stream().map(row -> (Object) row.id).toArray());
+        if (deleted != rows.size()) {
+            throw new ConcurrentChangeException((rows.size() - deleted) + " notifications were deleted meanwhile");
+        }
+
+        Map<List<Object>, Summary> summaries = new LinkedHashMap<>();
+        for (Expired row : rows) {
+            String type = row.type == null ? NO_TYPE : row.type;
+            summaries.computeIfAbsent(List.of(row.userId, row.recipientType, type), key -> new Summary(row.userId, row.recipientType, type))
+                    .add(row.createdAt);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Summary summary : summaries.values()) {
+            int updated = jdbcTemplate.update(UPDATE_SUMMARY_SQL, summary.count, summary.first, summary.last, now,
+                    summary.userId, summary.recipientType, summary.type);
+            if (updated == 0) {
+                // Another instance inserting the same summary fails this batch on the unique key, to be retried
+                jdbcTemplate.update(INSERT_SUMMARY_SQL, summary.userId, summary.recipientType, summary.type, summary.count,
+                        summary.first, summary.last, now);
+            }
+        }
+        return deleted;
+    }
+
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * What one run removed
+     */
+    public static class Result {
+
+        private long deleted;
+        private int batches;
+        private long elapsedMs;
+
+        public long getDeleted() {
+            return deleted;
+        }
+
+        public int getBatches() {
+            return batches;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+    }
+
+    private static final class Expired {
+
+        final long id;
+        final long userId;
+        final String recipientType;
+        final String type;
+        final Timestamp createdAt;
+
+        Expired(long id, long userId, String recipientType, String type, Timestamp createdAt) {
+            this.id = id;
+            this.userId = userId;
+            this.recipientType = recipientType;
+            this.type = type;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final class Summary {
+
+        final long userId;
+        final String recipientType;
+        final String type;
+        long count;
+        Timestamp first;
+        Timestamp last;
+
+        Summary(long userId, String recipientType, String type) {
+            this.userId = userId;
+            this.recipientType = recipientType;
+            this.type = type;
+        }
+
+        void add(Timestamp createdAt) {
+            count++;
+            if (first == null || createdAt.before(first)) {
+                first = createdAt;
+            }
+            if (last == null || createdAt.after(last)) {
+                last = createdAt;
+            }
+        }
+    }
+
+    private static final class ConcurrentChangeException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ConcurrentChangeException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,23 +1,105 @@
 package com.example.Grocito.Services;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.Grocito.config.LoggerConfig;
 import com.example.Grocito.Entity.Notification;
+import com.example.Grocito.Entity.NotificationSummary;
+import com.example.Grocito.Repository.Keyset;
 import com.example.Grocito.Repository.NotificationRepository;
+import com.example.Grocito.Repository.NotificationSpecifications;
+import com.example.Grocito.Repository.NotificationSummaryRepository;
+import com.example.Grocito.dto.CursorPage;
 
+/**
+ * Notifications, with a per-user unread counter kept in memory and new notifications pushed to
+ * the user's open streams ("user:{id}" on the PushChannel).
+ *
+ * A user's counter is loaded with one count query the first time it is asked for, then moved by
+ * createNotification, markAsRead and deleteNotification once their change commits. Each change
+ * is counted once: reads and deletes of unread rows are conditional statements, so only the call
+ * that actually changed a row adjusts the counter. A change that started before the count query
+ * returned may or may not be in the count, so it drops the counter instead, to be reloaded, and
+ * a load that a change committed during is returned but not kept. The query runs outside the
+ * map's locks. Counters are kept for grocito.notifications.unread-count.ttl-ms after loading, at
+ * most grocito.notifications.unread-count.max-size of them; past that, counts are read but not
+ * kept until expired ones are swept.
+ *
+ * The plain lists are capped at grocito.notifications.list-limit newest items; older ones are
+ * reached through getNotificationsAfter, until NotificationRetention rolls them up.
+ */
 @Service
 public class NotificationService {
 
     private static final Logger logger = LoggerConfig.getLogger(NotificationService.class);
 
+    private static final String HISTORY = "newest";
+
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationSummaryRepository notificationSummaryRepository;
+
+    @Autowired
+    private PushChannel pushChannel;
+
+    @Value("${grocito.notifications.list-limit:100}")
+    private int listLimit;
+
+    @Value("${grocito.notifications.unread-count.max-size:100000}")
+    private int unreadCountMaxSize;
+
+    @Value("${grocito.notifications.unread-count.ttl-ms:600000}")
+    private long unreadCountTtlMs;
+
+    // Wall clock for counter expiry; change order is told by System.nanoTime
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final Map<Long, UnreadCount> unreadCounts = new ConcurrentHashMap<>();
+    // Count queries in flight, marked stale by a change to their user committing meanwhile
+    private final Map<Long, UnreadLoad> unreadLoads = new ConcurrentHashMap<>();
+
+    /**
+     * A loaded counter, when its count query returned and when it is dropped
+     */
+    private static final class UnreadCount {
+
+        final long loadedNanos;
+        final long expiresAtMillis;
+        final long value;
+
+        UnreadCount(long loadedNanos, long expiresAtMillis, long value) {
+            this.loadedNanos = loadedNanos;
+            this.expiresAtMillis = expiresAtMillis;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Count queries of one user in flight. loaders only changes under the map's lock for the user.
+     */
+    private static final class UnreadLoad {
+
+        int loaders;
+        volatile boolean stale;
+    }
+
     /**
      * Create a new notification
      * 
@@ -28,62 +110,181 @@ public class NotificationService {
         logger.info("Creating notification for user ID: {}", notification.getUserId());
         logger.debug("Notification details: type={}, message={}", notification.getType(), notification.getMessage());
         
+        long started = System.nanoTime();
+        if (notification.getCreatedAt() == null) {
+            notification.setCreatedAt(LocalDateTime.now());
+        }
+        if (notification.getRecipientType() == null) {
+            notification.setRecipientType("USER");
+        }
         Notification savedNotification = notificationRepository.save(notification);
         logger.info("Notification created successfully with ID: {}", savedNotification.getId());
         
+        pushChannel.publish(List.of(recipientTopic(savedNotification.getRecipientType(), savedNotification.getUserId())),
+                "notification", savedNotification);
+        if (countsAsUnread(savedNotification)) {
+            adjustUnreadCount(savedNotification.getUserId(), 1, started);
+        }
         return savedNotification;
     }
 
     /**
-     * Get all notifications for a user
+     * Get the most recent notifications for a user, newest first
      * 
      * @param userId The user ID
-     * @return List of notifications
+     * @return Up to grocito.notifications.list-limit notifications
      */
     public List<Notification> getUserNotifications(Long userId) {
         logger.info("Fetching notifications for user ID: {}", userId);
         
-        List<Notification> notifications = notificationRepository.findByUserId(userId);
+        List<Notification> notifications = notificationRepository.findAfter(NotificationSpecifications.filter(userId, false),
+                NotificationSpecifications.HISTORY_SORT, null, listLimit);
         logger.info("Found {} notifications for user ID: {}", notifications.size(), userId);
         
         return notifications;
     }
 
     /**
-     * Get unread notifications for a user
+     * Get the most recent unread notifications for a user, newest first
      * 
      * @param userId The user ID
-     * @return List of unread notifications
+     * @return Up to grocito.notifications.list-limit unread notifications
      */
     public List<Notification> getUnreadNotifications(Long userId) {
         logger.info("Fetching unread notifications for user ID: {}", userId);
         
-        List<Notification> notifications = notificationRepository.findByUserIdAndReadStatus(userId, false);
+        List<Notification> notifications = notificationRepository.findAfter(NotificationSpecifications.filter(userId, true),
+                NotificationSpecifications.HISTORY_SORT, null, listLimit);
         logger.info("Found {} unread notifications for user ID: {}", notifications.size(), userId);
         
         return notifications;
     }
 
+    /**
+     * Number of unread notifications of a user, from memory once loaded
+     * 
+     * @param userId The user ID
+     * @return The unread count
+     */
+    public long getUnreadCount(Long userId) {
+        UnreadCount cached = unreadCounts.get(userId);
+        if (cached != null && cached.expiresAtMillis > clock.getAsLong()) {
+            return cached.value;
+        }
+        UnreadLoad load = unreadLoads.compute(userId, (id, current) -> {
+            UnreadLoad joined = current != null ? current : new UnreadLoad();
+            joined.loaders++;
+            return joined;
+        });
+        try {
+            long count = notificationRepository.countByUserIdAndRecipientTypeAndReadStatus(userId, "USER", false);
+            long loaded = System.nanoTime();
+            long now = clock.getAsLong();
+            // Kept unless a change committed while the query ran, under the same lock adjustments take
+            unreadCounts.compute(userId, (id, current) -> {
+                if (load.stale || (current == null && unreadCounts.size() >= unreadCountMaxSize)) {
+                    return current != null && current.expiresAtMillis > now ? current : null;
+                }
+                return new UnreadCount(loaded, now + unreadCountTtlMs, count);
+            });
+            return count;
+        } finally {
+            unreadLoads.computeIfPresent(userId, (id, current) -> current == load && --current.loaders == 0 ? null : current);
+        }
+    }
+
+    /**
+     * Drop counters loaded more than the time-to-live ago
+     */
+    @Scheduled(fixedDelayString = "${grocito.notifications.unread-count.sweep-interval-ms:60000}")
+    public void sweepUnreadCounts() {
+        long now = clock.getAsLong();
+        unreadCounts.values().removeIf(count -> count.expiresAtMillis <= now);
+    }
+
+    /**
+     * Read the time for counter expiry from clock, for tests
+     */
+    void useClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Get a page of a user's notifications, newest first, after a cursor (keyset pagination)
+     * 
+     * @param userId The user ID
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param size Page size
+     * @param unreadOnly Whether to list unread notifications only
+     * @return The page
+     */
+    public CursorPage<Notification> getNotificationsAfter(Long userId, String cursor, int size, boolean unreadOnly) {
+        logger.debug("Fetching notifications after cursor - userId: {}, size: {}, unreadOnly: {}", userId, size, unreadOnly);
+        if (size < 1) {
+            throw new RuntimeException("Page size must be at least 1");
+        }
+        List<Object> after = Keyset.decode(cursor, HISTORY, NotificationSpecifications.HISTORY_SORT, Notification.class);
+        
+        // One row more than requested tells whether there is a next page
+        List<Notification> rows = notificationRepository.findAfter(NotificationSpecifications.filter(userId, unreadOnly),
+                NotificationSpecifications.HISTORY_SORT, after, size + 1);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = Keyset.encode(HISTORY, NotificationSpecifications.HISTORY_SORT, rows.get(size - 1));
+        }
+        return new CursorPage<>(rows, size, nextCursor);
+    }
+
+    /**
+     * Per-type totals of a user's notifications removed by retention, most recent first
+     * 
+     * @param userId The user ID
+     * @return The summaries
+     */
+    public List<NotificationSummary> getSummaries(Long userId) {
+        logger.debug("Fetching notification summaries for user ID: {}", userId);
+        return notificationSummaryRepository.findByUserIdAndRecipientTypeOrderByLastCreatedAtDesc(userId, "USER");
+    }
+
+    /**
+     * Open a server-sent event stream of a user's new notifications ("notification") and unread
+     * count changes ("unread-count"). The current unread count is sent straight away.
+     * 
+     * @param userId The user ID
+     * @return The event stream
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = pushChannel.subscribe(List.of(userTopic(userId)));
+        publishUnreadCount(userId, getUnreadCount(userId));
+        return emitter;
+    }
+
     /**
      * Mark a notification as read
      * 
      * @param notificationId The notification ID
      * @return The updated notification
      */
+    @Transactional
     public Notification markAsRead(Long notificationId) {
         logger.info("Marking notification as read: ID={}", notificationId);
         
+        long started = System.nanoTime();
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> {
                     logger.error("Notification not found with ID: {}", notificationId);
                     return new RuntimeException("Notification not found with ID: " + notificationId);
                 });
         
+        // Marking twice (or from two tabs at once) only counts once
+        if (notificationRepository.markReadIfUnread(notificationId) == 1 && countsAsUnread(notification)) {
+            adjustUnreadCount(notification.getUserId(), -1, started);
+        }
         notification.setReadStatus(true);
-        Notification updatedNotification = notificationRepository.save(notification);
         logger.info("Notification marked as read: ID={}", notificationId);
         
-        return updatedNotification;
+        return notification;
     }
 
     /**
@@ -91,14 +292,101 @@ public class NotificationService {
      * 
      * @param notificationId The notification ID
      */
+    @Transactional
     public void deleteNotification(Long notificationId) {
         logger.info("Deleting notification: ID={}", notificationId);
         
-        if (notificationRepository.existsById(notificationId)) {
+        long started = System.nanoTime();
+        Notification notification = notificationRepository.findById(notificationId).orElse(null);
+        if (notification == null) {
+            logger.warn("Attempted to delete non-existent notification: ID={}", notificationId);
+            return;
+        }
+        if (notificationRepository.deleteIfUnread(notificationId) == 1) {
+            if (countsAsUnread(notification)) {
+                adjustUnreadCount(notification.getUserId(), -1, started);
+            }
+        } else {
             notificationRepository.deleteById(notificationId);
-            logger.info("Notification deleted: ID={}", notificationId);
+        }
+        logger.info("Notification deleted: ID={}", notificationId);
+    }
+
+    /**
+     * Push and count notifications a fan-out has just committed: one shared "notification"
+     * event for every recipient with an open stream, and unread counts for users.
+     * started is taken before the rows were inserted.
+     */
+    void afterBulkInsert(String recipientType, List<Long> recipientIds, Object event, long started) {
+        List<String> listening = new ArrayList<>();
+        for (Long recipientId : recipientIds) {
+            String topic = recipientTopic(recipientType, recipientId);
+            if (pushChannel.subscriberCount(topic) > 0) {
+                listening.add(topic);
+            }
+        }
+        if (!listening.isEmpty()) {
+            pushChannel.publish(listening, "notification", event);
+        }
+        if ("USER".equals(recipientType)) {
+            for (Long userId : recipientIds) {
+                adjustUnreadCount(userId, 1, started);
+            }
+        }
+    }
+
+    static String userTopic(Long userId) {
+        return "user:" + userId;
+    }
+
+    static String recipientTopic(String recipientType, Long recipientId) {
+        return "PARTNER".equals(recipientType) ? OrderPushService.partnerTopic(recipientId) : userTopic(recipientId);
+    }
+
+    // Only users' unread notifications are counted; rows with no read status never were
+    private static boolean countsAsUnread(Notification notification) {
+        return "USER".equals(notification.getRecipientType()) && Boolean.FALSE.equals(notification.getReadStatus());
+    }
+
+    /**
+     * Move a loaded counter by delta once the current transaction commits. started is taken
+     * before the change's statement ran.
+     */
+    private void adjustUnreadCount(Long userId, long delta, long started) {
+        Runnable adjust = () -> {
+            UnreadCount count = unreadCounts.compute(userId, (id, current) -> {
+                // Loads joining after this start afresh
+                UnreadLoad load = unreadLoads.remove(id);
+                if (load != null) {
+                    load.stale = true;
+                }
+                // Counted before the change ran, so the count cannot include it
+                return current != null && current.loadedNanos - started < 0 && current.expiresAtMillis > clock.getAsLong()
+                        ? new UnreadCount(current.loadedNanos, current.expiresAtMillis, Math.max(0, current.value + delta))
+                        : null;
+            });
+            if (count != null) {
+                publishUnreadCount(userId, count.value);
+            } else if (pushChannel.subscriberCount(userTopic(userId)) > 0) {
+                publishUnreadCount(userId, getUnreadCount(userId));
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // Synchronization is over by afterCompletion, so anything published from here goes out directly
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        adjust.run();
+                    }
+                }
+            });
         } else {
-            logger.warn("Attempted to delete non-existent notification: ID={}", notificationId);
+            adjust.run();
         }
     }
+
+    private void publishUnreadCount(Long userId, long count) {
+        pushChannel.publish(List.of(userTopic(userId)), "unread-count", Map.of("userId", userId, "unreadCount", count));
+    }
 }
\ No newline at end of file
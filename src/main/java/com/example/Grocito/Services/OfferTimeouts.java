@@ -0,0 +1,220 @@
+package com.example.Grocito.Services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.Repository.OrderRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Deadlines of the automatic assignments (offers) that partners have not accepted yet.
+ *
+ * An offer is kept by order id, with the partner it went to and the partners that let it time
+ * out before, and its order id is put in a TimingWheel of grocito.assignment.offer.tick-ms
+ * buckets covering grocito.assignment.offer.timeout-ms. Offering and settling are O(1) however
+ * many are outstanding; due hands back the offers whose deadline has passed. The orders table
+ * is the record: its offer_expires_at column is what OrderAssignmentService checks before taking
+ * an offer back, and what the offers are recovered from on startup.
+ */
+@Component
+public class OfferTimeouts {
+
+    private static final Logger logger = LoggerConfig.getLogger(OfferTimeouts.class);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${grocito.assignment.offer.timeout-ms:60000}")
+    private long timeoutMs = 60_000;
+
+    @Value("${grocito.assignment.offer.tick-ms:1000}")
+    private long tickMs = 1_000;
+
+    private final Map<Long, Offer> outstanding = new ConcurrentHashMap<>();
+    private TimingWheel wheel;
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong settled = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    /**
+     * An order offered to a partner until deadlineMillis. Replaced, never changed.
+     */
+    public static final class Offer {
+
+        private final long orderId;
+        private final long partnerId;
+        private final long deadlineMillis;
+        private final List<Long> declined;
+
+        Offer(long orderId, long partnerId, long deadlineMillis, List<Long> declined) {
+            this.orderId = orderId;
+            this.partnerId = partnerId;
+            this.deadlineMillis = deadlineMillis;
+            this.declined = declined;
+        }
+
+        public long getOrderId() {
+            return orderId;
+        }
+
+        public long getPartnerId() {
+            return partnerId;
+        }
+
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * Partners the order was offered to before, which let it time out
+         */
+        public List<Long> getDeclined() {
+            return declined;
+        }
+
+        /**
+         * The partners not to offer the order to again: the earlier ones and this one
+         */
+        public List<Long> getDeclinedWithThis() {
+            List<Long> all = new ArrayList<>(declined.size() + 1);
+            all.addAll(declined);
+            all.add(partnerId);
+            return all;
+        }
+    }
+
+    public OfferTimeouts() {
+    }
+
+    /**
+     * Timeouts outside Spring, for tests and benchmarks
+     */
+    public OfferTimeouts(long timeoutMs, long tickMs) {
+        this(timeoutMs, tickMs, System::currentTimeMillis);
+    }
+
+    /**
+     * Timeouts outside Spring, with the wheel starting at clock's time
+     */
+    OfferTimeouts(long timeoutMs, long tickMs, LongSupplier clock) {
+        this.timeoutMs = timeoutMs;
+        this.tickMs = tickMs;
+        this.clock = clock;
+        start();
+    }
+
+    @PostConstruct
+    void start() {
+        wheel = new TimingWheel(timeoutMs, tickMs, clock.getAsLong());
+    }
+
+    /**
+     * Deadline of an offer made now
+     */
+    public LocalDateTime deadlineFromNow() {
+        return LocalDateTime.now().plusNanos(timeoutMs * 1_000_000);
+    }
+
+    /**
+     * Start the clock on an order offered to partnerId until deadline
+     */
+    public void offered(long orderId, long partnerId, LocalDateTime deadline, List<Long> declined) {
+        offered(orderId, partnerId, deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), declined);
+    }
+
+    public void offered(long orderId, long partnerId, long deadlineMillis, List<Long> declined) {
+        outstanding.put(orderId, new Offer(orderId, partnerId, deadlineMillis, List.copyOf(declined)));
+        wheel.schedule(orderId, deadlineMillis);
+        offered.incrementAndGet();
+    }
+
+    /**
+     * The order's offer was accepted, or the order moved on; its wheel entry is ignored when it
+     * comes up
+     */
+    public void settled(long orderId) {
+        if (outstanding.remove(orderId) != null) {
+            settled.incrementAndGet();
+        }
+    }
+
+    public Offer get(long orderId) {
+        return outstanding.get(orderId);
+    }
+
+    public int outstandingCount() {
+        return outstanding.size();
+    }
+
+    /**
+     * Take the offers whose deadline has passed by now; they are no longer outstanding
+     */
+    public List<Offer> due(long now) {
+        List<Offer> due = new ArrayList<>();
+        wheel.advance(now, orderId -> {
+            Offer offer = outstanding.get(orderId);
+            if (offer == null) {
+                return;
+            }
+            if (offer.deadlineMillis > now) {
+                // Offered again since, or further out than the wheel reaches
+                wheel.schedule(orderId, offer.deadlineMillis);
+            } else if (outstanding.remove(orderId, offer)) {
+                due.add(offer);
+            }
+        });
+        expired.addAndGet(due.size());
+        return due;
+    }
+
+    /**
+     * Pick up the offers that were outstanding when the application last stopped; those past
+     * their deadline come up on the next tick
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int recover() {
+        if (orderRepository == null) {
+            return 0;
+        }
+        int recovered = 0;
+        for (Object[] row : orderRepository.findOutstandingOffers()) {
+            if (row[1] == null) {
+                continue;
+            }
+            offered(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), (LocalDateTime) row[2], List.of());
+            recovered++;
+        }
+        if (recovered > 0) {
+            logger.info("Recovered {} outstanding assignment offers", recovered);
+        }
+        return recovered;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("outstanding", outstanding.size());
+        stats.put("offered", offered.get());
+        stats.put("settled", settled.get());
+        stats.put("expired", expired.get());
+        stats.put("timeoutMs", timeoutMs);
+        return stats;
+    }
+}
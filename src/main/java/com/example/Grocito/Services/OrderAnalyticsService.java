@@ -0,0 +1,495 @@
+package com.example.Grocito.Services;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Repository.OrderDailyStatsRepository;
+import com.example.Grocito.Repository.OrderRepository;
+
+/**
+ * Maintains the per-pincode, per-day, per-status order rollup (order_daily_stats)
+ * and answers analytics queries from it instead of scanning the orders table.
+ *
+ * Every order state transition records +1/-1 deltas for the affected rollup rows in the
+ * order_stats_deltas journal inside the caller's transaction, so they commit or roll back
+ * together with the order. Writers only insert there: an UPDATE of the shared rollup row would
+ * hold its lock until the order commits, making every order of a pincode and day wait on the
+ * one before it, and two orders moving in opposite directions could deadlock on a pair of rows.
+ * Every grocito.analytics.fold-interval-ms the journal is folded into the rollup rows, in key
+ * order and batches of grocito.analytics.fold-batch-size, by one fold at a time; reads add the
+ * deltas not folded yet, so they see every committed order either way.
+ *
+ * A rebuild job corrects the rollup from the orders table, both as a one-time backfill
+ * and as a periodic reconciliation of recent days for writers that bypass the hooks.
+ */
+@Service
+public class OrderAnalyticsService {
+
+    private static final Logger logger = LoggerConfig.getLogger(OrderAnalyticsService.class);
+
+    // Bounds used when a date range is open on one side
+    public static final LocalDate MIN_DATE = LocalDate.of(1970, 1, 1);
+    public static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    // Rollup keys for orders without a pincode or status
+    private static final String NO_PINCODE = "";
+    private static final String NO_STATUS = "UNKNOWN";
+
+    private static final int MAX_KNOWN_ROWS = 50_000;
+
+    private static final String INSERT_ROW_SQL =
+            "INSERT INTO order_daily_stats (pincode, stats_date, status, order_count, revenue) VALUES (?, ?, ?, 0, 0)";
+
+    private static final String INSERT_DELTA_SQL =
+            "INSERT INTO order_stats_deltas (pincode, stats_date, status, order_count, revenue) VALUES (?, ?, ?, ?, ?)";
+
+    // Oldest journal rows first, locked so that a concurrent fold skips them rather than folding them twice
+    private static final String JOURNAL_SQL =
+            "SELECT id, pincode, stats_date, status, order_count, revenue FROM order_stats_deltas ORDER BY id LIMIT ? FOR UPDATE";
+
+    private static final String DELETE_DELTA_SQL = "DELETE FROM order_stats_deltas WHERE id = ?";
+
+    // Rollup rows plus the deltas not folded into them yet, summed by the given columns
+    private static final String TOTALS_SQL =
+            "SELECT %1$s, SUM(order_count), SUM(revenue) FROM ("
+            + "SELECT stats_date, status, order_count, revenue FROM order_daily_stats WHERE stats_date BETWEEN ? AND ?%2$s "
+            + "UNION ALL SELECT stats_date, status, order_count, revenue FROM order_stats_deltas WHERE stats_date BETWEEN ? AND ?%2$s"
+            + ") t GROUP BY %1$s";
+
+    // Orders table totals minus rollup and journal totals per pincode, day and status, for the rows that differ
+    private static final String DRIFT_SQL =
+            "SELECT d.pincode, d.stats_date, d.status, SUM(d.order_count), SUM(d.revenue) FROM ("
+            + "SELECT COALESCE(o.pincode, '" + NO_PINCODE + "') AS pincode, CAST(o.order_time AS DATE) AS stats_date, "
+            + "COALESCE(o.status, '" + NO_STATUS + "') AS status, COUNT(*) AS order_count, SUM(o.total_amount) AS revenue "
+            + "FROM orders o WHERE o.order_time >= ? AND o.order_time < ? "
+            + "GROUP BY COALESCE(o.pincode, '" + NO_PINCODE + "'), CAST(o.order_time AS DATE), COALESCE(o.status, '" + NO_STATUS + "') "
+            + "UNION ALL SELECT s.pincode, s.stats_date, s.status, -s.order_count, -s.revenue "
+            + "FROM order_daily_stats s WHERE s.stats_date BETWEEN ? AND ? "
+            + "UNION ALL SELECT j.pincode, j.stats_date, j.status, -j.order_count, -j.revenue "
+            + "FROM order_stats_deltas j WHERE j.stats_date BETWEEN ? AND ?) d "
+            + "GROUP BY d.pincode, d.stats_date, d.status "
+            + "HAVING SUM(d.order_count) <> 0 OR ABS(SUM(d.revenue)) >= 0.005";
+
+    @Autowired
+    private OrderDailyStatsRepository orderDailyStatsRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${grocito.analytics.reconcile-days:3}")
+    private int reconcileDays;
+
+    @Value("${grocito.analytics.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Value("${grocito.analytics.fold-batch-size:1000}")
+    private int foldBatchSize;
+
+    // Rollup rows known to exist, so folding a delta is a single UPDATE
+    private final Set<String> knownRows = ConcurrentHashMap.newKeySet();
+
+    // One fold at a time in this process; the row locks keep folds of other processes apart
+    private final ReentrantLock foldLock = new ReentrantLock();
+
+    /**
+     * Count a newly placed order in the rollup
+     */
+    @Transactional
+    public void recordOrderPlaced(Order order) {
+        if (!hasOrderTime(order)) {
+            return;
+        }
+        Map<List<Object>, double[]> deltas = new LinkedHashMap<>();
+        addDelta(deltas, order, order.getStatus(), 1);
+        journal(deltas);
+    }
+
+    /**
+     * Move an order from oldStatus to its current status in the rollup
+     */
+    @Transactional
+    public void recordStatusChange(Order order, String oldStatus) {
+        recordStatusChanges(List.of(order), Collections.singletonMap(order.getId(), oldStatus));
+    }
+
+    /**
+     * recordStatusChange for many orders at once, e.g. a bulk update: orders sharing a pincode,
+     * day and status are summed into one delta per rollup row. oldStatuses by order id.
+     */
+    @Transactional
+    public void recordStatusChanges(List<Order> orders, Map<Long, String> oldStatuses) {
+        // (pincode, day, status) -> count and revenue deltas
+        Map<List<Object>, double[]> deltas = new LinkedHashMap<>();
+        for (Order order : orders) {
+            String oldStatus = oldStatuses.get(order.getId());
+            String newStatus = order.getStatus();
+            if (oldStatus == null ? newStatus == null : oldStatus.equals(newStatus)) {
+                continue;
+            }
+            if (!hasOrderTime(order)) {
+                continue;
+            }
+            addDelta(deltas, order, oldStatus, -1);
+            addDelta(deltas, order, newStatus, 1);
+        }
+        journal(deltas);
+    }
+
+    private static boolean hasOrderTime(Order order) {
+        if (order.getOrderTime() == null) {
+            logger.warn("Skipping analytics rollup for order ID: {} without order time", order.getId());
+            return false;
+        }
+        return true;
+    }
+
+    private static void addDelta(Map<List<Object>, double[]> deltas, Order order, String status, int sign) {
+        String pincode = order.getPincode() != null ? order.getPincode() : NO_PINCODE;
+        List<Object> row = List.of(pincode, order.getOrderTime().toLocalDate(), status != null ? status : NO_STATUS);
+        double[] delta = deltas.computeIfAbsent(row, key -> new double[2]);
+        delta[0] += sign;
+        delta[1] += sign * order.getTotalAmount();
+    }
+
+    // Insert the deltas into the journal, in the caller's transaction
+    private void journal(Map<List<Object>, double[]> deltas) {
+        List<Object[]> rows = new ArrayList<>();
+        deltas.forEach((row, delta) -> {
+            if (delta[0] != 0 || Math.abs(delta[1]) >= 0.005) {
+                rows.add(new Object[] { row.get(0), row.get(1), row.get(2), (long) delta[0], delta[1] });
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DELTA_SQL, rows);
+            logger.debug("Journaled {} analytics deltas", rows.size());
+        }
+    }
+
+    /**
+     * Fold the journal into the rollup rows, oldest deltas first, one transaction per
+     * grocito.analytics.fold-batch-size journal rows. Totals read from the rollup are the same
+     * before and after.
+     *
+     * @return number of journal rows folded
+     */
+    @Scheduled(fixedDelayString = "${grocito.analytics.fold-interval-ms:5000}")
+    public int fold() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        int folded = 0;
+        foldLock.lock();
+        try {
+            int chunk;
+            do {
+                chunk = template.execute(tx -> foldChunk());
+                folded += chunk;
+            } while (chunk == foldBatchSize);
+        } catch (RuntimeException e) {
+            // The failed chunk rolled back whole, so its deltas are folded next time
+            logger.error("Order analytics fold failed: {}", e.getMessage(), e);
+        } finally {
+            foldLock.unlock();
+        }
+        return folded;
+    }
+
+    private int foldChunk() {
+        List<Long> ids = new ArrayList<>();
+        // Summed per rollup row and applied in key order, so concurrent folds lock rows in the same order
+        Map<String, Object[]> sums = new TreeMap<>();
+        jdbcTemplate.query(JOURNAL_SQL, rs -> {
+            ids.add(rs.getLong(1));
+            String pincode = rs.getString(2);
+            LocalDate date = rs.getObject(3, LocalDate.class);
+            String status = rs.getString(4);
+            Object[] sum = sums.computeIfAbsent(rowKey(pincode, date, status),
+                    key -> new Object[] { pincode, date, status, 0L, 0.0 });
+            sum[3] = (long) sum[3] + rs.getLong(5);
+            sum[4] = (double) sum[4] + rs.getDouble(6);
+        }, foldBatchSize);
+        for (Object[] sum : sums.values()) {
+            applyDelta((String) sum[0], (LocalDate) sum[1], (String) sum[2], (long) sum[3], (double) sum[4]);
+        }
+        List<Object[]> deletes = new ArrayList<>();
+        for (Long id : ids) {
+            deletes.add(new Object[] { id });
+        }
+        jdbcTemplate.batchUpdate(DELETE_DELTA_SQL, deletes);
+        logger.debug("Folded {} analytics deltas into {} rollup rows", ids.size(), sums.size());
+        return ids.size();
+    }
+
+    /**
+     * Journal rows not folded into the rollup yet
+     */
+    public long pendingDeltas() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_stats_deltas", Long.class);
+    }
+
+    private void applyDelta(String pincode, LocalDate date, String rowStatus, long countDelta, double revenueDelta) {
+        ensureRow(pincode, date, rowStatus);
+        int updated = orderDailyStatsRepository.applyDelta(pincode, date, rowStatus, countDelta, revenueDelta);
+        if (updated == 0) {
+            // Row was deleted behind our back since we cached it
+            knownRows.remove(rowKey(pincode, date, rowStatus));
+            ensureRow(pincode, date, rowStatus);
+            orderDailyStatsRepository.applyDelta(pincode, date, rowStatus, countDelta, revenueDelta);
+        }
+        logger.debug("Folded analytics delta {} for pincode: {}, date: {}, status: {}", countDelta, pincode, date, rowStatus);
+    }
+
+    /**
+     * Create the rollup row before the fold's UPDATE. The INSERT runs under a savepoint of the
+     * fold's transaction and connection (a separate transaction would need a second pooled
+     * connection and can starve the pool under load); when a concurrent fold created the row
+     * first, only the savepoint is rolled back.
+     */
+    private void ensureRow(String pincode, LocalDate date, String status) {
+        String key = rowKey(pincode, date, status);
+        if (knownRows.contains(key)) {
+            return;
+        }
+
+        try {
+            if (!orderDailyStatsRepository.existsByPincodeAndStatsDateAndStatus(pincode, date, status)) {
+                // Plain JDBC: a failed Hibernate statement would mark the caller's transaction rollback-only
+                jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                    Savepoint savepoint = connection.setSavepoint();
+                    try (PreparedStatement insert = connection.prepareStatement(INSERT_ROW_SQL)) {
+                        insert.setString(1, pincode);
+                        insert.setObject(2, date);
+                        insert.setString(3, status);
+                        insert.executeUpdate();
+                    } catch (SQLException e) {
+                        connection.rollback(savepoint);
+                        throw e;
+                    }
+                    connection.releaseSavepoint(savepoint);
+                    return null;
+                });
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Analytics rollup row already created concurrently: {}", key);
+        }
+
+        if (knownRows.size() >= MAX_KNOWN_ROWS) {
+            knownRows.clear();
+        }
+        knownRows.add(key);
+    }
+
+    private static String rowKey(String pincode, LocalDate date, String status) {
+        return pincode + "|" + date + "|" + status;
+    }
+
+    /**
+     * Order count and revenue per status for orders placed between fromDate and toDate (inclusive).
+     * A null pincode covers all regions.
+     */
+    public StatusTotals getStatusTotals(String pincode, LocalDate fromDate, LocalDate toDate) {
+        StatusTotals totals = new StatusTotals();
+        jdbcTemplate.query(totalsSql("status", pincode), rs -> {
+            totals.add(rs.getString(1), rs.getLong(2), rs.getDouble(3));
+        }, totalsArgs(pincode, fromDate, toDate));
+        return totals;
+    }
+
+    /**
+     * Order count and revenue per status for each day between fromDate and toDate (inclusive).
+     * A null pincode covers all regions.
+     */
+    public Map<LocalDate, StatusTotals> getDailyStatusTotals(String pincode, LocalDate fromDate, LocalDate toDate) {
+        Map<LocalDate, StatusTotals> daily = new HashMap<>();
+        if (fromDate.isAfter(toDate)) {
+            return daily;
+        }
+        jdbcTemplate.query(totalsSql("stats_date, status", pincode), rs -> {
+            daily.computeIfAbsent(rs.getObject(1, LocalDate.class), d -> new StatusTotals())
+                    .add(rs.getString(2), rs.getLong(3), rs.getDouble(4));
+        }, totalsArgs(pincode, fromDate, toDate));
+        return daily;
+    }
+
+    private static String totalsSql(String groupBy, String pincode) {
+        return String.format(TOTALS_SQL, groupBy, pincode == null ? "" : " AND pincode = ?");
+    }
+
+    private static Object[] totalsArgs(String pincode, LocalDate fromDate, LocalDate toDate) {
+        return pincode == null
+                ? new Object[] { fromDate, toDate, fromDate, toDate }
+                : new Object[] { fromDate, toDate, pincode, fromDate, toDate, pincode };
+    }
+
+    /**
+     * Recompute the rollup for orders placed between fromDate and toDate (inclusive), one month
+     * at a time. Each month's drift, the orders table's totals minus the rollup's, is read in one
+     * statement, so both sides reflect the same committed transactions, and is then journaled as
+     * deltas like any other. Deltas committed meanwhile by order writers, and folds of the
+     * journal, change neither side's difference, so a rebuild can run while orders change.
+     *
+     * @return number of rollup rows corrected
+     */
+    public int rebuild(LocalDate fromDate, LocalDate toDate) {
+        logger.info("Rebuilding order analytics rollup from {} to {}", fromDate, toDate);
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        int corrected = 0;
+
+        LocalDate chunkStart = fromDate;
+        while (!chunkStart.isAfter(toDate)) {
+            LocalDate chunkEnd = chunkStart.plusMonths(1).minusDays(1);
+            if (chunkEnd.isAfter(toDate)) {
+                chunkEnd = toDate;
+            }
+            corrected += rebuildChunk(chunkStart, chunkEnd, template);
+            chunkStart = chunkEnd.plusDays(1);
+        }
+
+        logger.info("Order analytics rollup rebuilt from {} to {}: {} rows corrected", fromDate, toDate, corrected);
+        return corrected;
+    }
+
+    private int rebuildChunk(LocalDate fromDate, LocalDate toDate, TransactionTemplate template) {
+        List<Object[]> drift = jdbcTemplate.query(DRIFT_SQL, (rs, rowNum) -> new Object[] {
+                rs.getString(1), rs.getObject(2, LocalDate.class), rs.getString(3), rs.getLong(4), rs.getDouble(5) },
+                fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay(), fromDate, toDate, fromDate, toDate);
+        // Journaled rather than applied, so the rebuild takes no lock a fold may need
+        Map<List<Object>, double[]> deltas = new LinkedHashMap<>();
+        for (Object[] row : drift) {
+            deltas.put(List.of(row[0], row[1], row[2]), new double[] { (long) row[3], (double) row[4] });
+        }
+        template.executeWithoutResult(tx -> journal(deltas));
+        return drift.size();
+    }
+
+    /**
+     * Recompute the rollup for the whole orders table
+     *
+     * @return number of rollup rows corrected
+     */
+    public int rebuildAll() {
+        LocalDateTime earliest = orderRepository.findEarliestOrderTime();
+        LocalDateTime latest = orderRepository.findLatestOrderTime();
+        if (earliest == null || latest == null) {
+            logger.info("No orders found, order analytics rollup is empty");
+            return 0;
+        }
+        return rebuild(earliest.toLocalDate(), latest.toLocalDate());
+    }
+
+    /**
+     * Backfill the rollup on first start after deployment
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        try {
+            if (orderDailyStatsRepository.count() == 0 && orderRepository.count() > 0) {
+                logger.info("Order analytics rollup is empty, backfilling from orders table");
+                rebuildAll();
+            }
+        } catch (Exception e) {
+            logger.error("Order analytics backfill failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Nightly reconciliation of recent days, correcting drift from status changes made
+     * outside OrderService (delivery partner flows, manual SQL)
+     */
+    @Scheduled(cron = "${grocito.analytics.reconcile-cron:0 30 2 * * *}")
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        try {
+            rebuild(today.minusDays(Math.max(reconcileDays - 1, 0)), today);
+        } catch (Exception e) {
+            logger.error("Order analytics reconciliation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Order count and revenue per status
+     */
+    public static class StatusTotals {
+
+        private final Map<String, Long> counts = new HashMap<>();
+        private final Map<String, Double> revenue = new HashMap<>();
+        private long totalCount;
+        private double totalRevenue;
+
+        public void add(String status, long count, double amount) {
+            counts.merge(status, count, Long::sum);
+            revenue.merge(status, amount, Double::sum);
+            totalCount += count;
+            totalRevenue += amount;
+        }
+
+        public void addAll(StatusTotals other) {
+            other.counts.forEach((status, count) -> add(status, count, other.revenue.get(status)));
+        }
+
+        public long getOrderCount() {
+            return totalCount;
+        }
+
+        public long getOrderCount(String status) {
+            return counts.getOrDefault(status, 0L);
+        }
+
+        public double getRevenue() {
+            return totalRevenue;
+        }
+
+        public double getRevenue(String status) {
+            return revenue.getOrDefault(status, 0.0);
+        }
+
+        /**
+         * Order count per status, omitting statuses with no orders
+         */
+        public Map<String, Long> getCountsByStatus() {
+            Map<String, Long> result = new HashMap<>();
+            counts.forEach((status, count) -> {
+                if (count > 0) {
+                    result.put(status, count);
+                }
+            });
+            return result;
+        }
+    }
+}
@@ -1,60 +1,65 @@
 package com.example.Grocito.Services;
 
-<<<<<<< HEAD
 import com.example.Grocito.Entity.Order;
 import com.example.Grocito.Entity.DeliveryPartnerAuth;
 import com.example.Grocito.Repository.OrderRepository;
 import com.example.Grocito.Repository.DeliveryPartnerAuthRepository;
-=======
-import com.example.Grocito.Entity.DeliveryPartner;
-import com.example.Grocito.Entity.Order;
-import com.example.Grocito.Entity.OrderAssignment;
-import com.example.Grocito.Repository.DeliveryPartnerRepository;
-import com.example.Grocito.Repository.OrderAssignmentRepository;
-import com.example.Grocito.Repository.OrderRepository;
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
+import com.example.Grocito.dto.OrderView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-<<<<<<< HEAD
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.annotation.Transactional;
-=======
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-<<<<<<< HEAD
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @Service
 public class OrderAssignmentService {
     private final Logger logger = LoggerFactory.getLogger(OrderAssignmentService.class);
-=======
-
-@Service
-public class OrderAssignmentService {
-    private final Logger logger;
     
-    @Autowired
-    private OrderAssignmentRepository orderAssignmentRepository;
+    // What a partner may move their own orders to
+    private static final List<String> PARTNER_STATUSES = List.of("PICKED_UP", "OUT_FOR_DELIVERY", "DELIVERED", "CANCELLED");
     
     @Autowired
-    private DeliveryPartnerRepository deliveryPartnerRepository;
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
+    private OrderRepository orderRepository;
     
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderAnalyticsService orderAnalyticsService;
     
     @Autowired
-<<<<<<< HEAD
     private DeliveryPartnerAuthRepository deliveryPartnerRepository;
     
-    // In-memory storage for real-time notifications (in production, use Redis or message queue)
-    private final ConcurrentHashMap<String, List<Long>> availablePartnersByPincode = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Long, LocalDateTime> partnerLastSeen = new ConcurrentHashMap<>();
+    @Autowired
+    private OrderPushService orderPushService;
+    
+    @Autowired
+    private PartnerLocationIndex partnerLocationIndex;
+    
+    @Autowired
+    private PartnerRanker partnerRanker;
+    
+    // Who is online and can take orders, per pincode
+    @Autowired
+    private PartnerAvailabilityRegistry partnerAvailability;
+
+    // Latest positions and last-seen times, written to delivery_partners in batches
+    @Autowired
+    private PartnerLocationIngest partnerLocationIngest;
+
+    // Automatic assignments partners have not accepted yet, taken back when they time out
+    @Autowired
+    private OfferTimeouts offerTimeouts;
+
+    // Status changes go through conditional transitions, so racing partners cannot both win
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
     
     /**
      * Update delivery partner availability status
@@ -82,15 +87,12 @@ public class OrderAssignmentService {
         // Update in-memory availability tracking
         String pincode = partner.getPincode();
         if (isAvailable) {
-            availablePartnersByPincode.computeIfAbsent(pincode, k -> new CopyOnWriteArrayList<>()).add(partnerId);
-            partnerLastSeen.put(partnerId, LocalDateTime.now());
+            partnerAvailability.online(partnerId, pincode);
+            partnerLocationIndex.online(partnerId, pincode, null);
             logger.info("Partner {} is now AVAILABLE in pincode {}", partnerId, pincode);
         } else {
-            List<Long> partners = availablePartnersByPincode.get(pincode);
-            if (partners != null) {
-                partners.remove(partnerId);
-            }
-            partnerLastSeen.remove(partnerId);
+            partnerAvailability.offline(partnerId);
+            partnerLocationIndex.offline(partnerId);
             logger.info("Partner {} is now OFFLINE in pincode {}", partnerId, pincode);
         }
         
@@ -98,102 +100,111 @@ public class OrderAssignmentService {
     }
     
     /**
-     * Get available delivery partners for a pincode
+     * Get available delivery partners for a pincode; partners without a heartbeat for the
+     * availability TTL have already been dropped
      */
     public List<Long> getAvailablePartners(String pincode) {
-        List<Long> partners = availablePartnersByPincode.getOrDefault(pincode, new CopyOnWriteArrayList<>());
-        
-        // Remove partners who haven't been seen in the last 5 minutes
-        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(5);
-        partners.removeIf(partnerId -> {
-            LocalDateTime lastSeen = partnerLastSeen.get(partnerId);
-            return lastSeen == null || lastSeen.isBefore(cutoff);
-        });
-        
-        return partners;
+        return partnerAvailability.available(pincode);
     }
     
     /**
-     * Assign order to the first available delivery partner in the same pincode
+     * Assign an order to the best placed available partner of its pincode (see PartnerRanker),
+     * from the pincode's configured pickup point
      */
     @Transactional
-    public boolean assignOrderToPartner(Long orderId, Long partnerId) {
-        logger.info("Attempting to assign order {} to partner {}", orderId, partnerId);
-        
-=======
-    private DeliveryPartnerService deliveryPartnerService;
-    
-    public OrderAssignmentService() {
-        this.logger = LoggerFactory.getLogger(OrderAssignmentService.class);
+    public Order assignOrderAutomatically(Long orderId) {
+        return assignOrderAutomatically(orderId, null, null);
     }
     
     /**
-     * Automatically assign order to the best available delivery partner
+     * Assign an order to the best placed available partner of its pincode: the nearest ones to
+     * the pickup point (given, else the order's own), weighed by their active orders and rating (see PartnerRanker)
      */
-    public OrderAssignment assignOrderAutomatically(Long orderId) {
+    @Transactional
+    public Order assignOrderAutomatically(Long orderId, Double pickupLatitude, Double pickupLongitude) {
+        return assignOrderAutomatically(orderId, pickupLatitude, pickupLongitude, List.of());
+    }
+    
+    // The order is offered to the best placed partner other than those that let it time out before
+    private Order assignOrderAutomatically(Long orderId, Double pickupLatitude, Double pickupLongitude, List<Long> declined) {
         logger.info("Auto-assigning order ID: {}", orderId);
         
-        // Get the order
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (!orderOpt.isPresent()) {
-            throw new RuntimeException("Order not found with ID: " + orderId);
-        }
-        
-<<<<<<< HEAD
-        Optional<DeliveryPartnerAuth> partnerOpt = deliveryPartnerRepository.findById(partnerId);
-=======
-        Order order = orderOpt.get();
-        String orderPincode = order.getPincode();
-        
-        if (orderPincode == null || orderPincode.trim().isEmpty()) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
+        String pincode = order.getPincode();
+        if (pincode == null || pincode.trim().isEmpty()) {
             throw new RuntimeException("Order pincode is required for assignment");
         }
         
-        // Find available delivery partners for this pincode
-        List<DeliveryPartner> availablePartners = deliveryPartnerService.getAvailablePartnersForPincode(orderPincode);
-        
-        if (availablePartners.isEmpty()) {
-            throw new RuntimeException("No available delivery partners found for pincode: " + orderPincode);
+        if ((pickupLatitude == null || pickupLongitude == null) && order.getPickupLatitude() != null && order.getPickupLongitude() != null) {
+            pickupLatitude = order.getPickupLatitude().doubleValue();
+            pickupLongitude = order.getPickupLongitude().doubleValue();
         }
         
-        // Select the best partner (for now, just pick the first available one)
-        // In a real implementation, you would consider factors like:
-        // - Distance from pickup location
-        // - Current workload
-        // - Performance rating
-        // - Delivery history
-        DeliveryPartner selectedPartner = availablePartners.get(0);
-        
-        return assignOrderToPartner(orderId, selectedPartner.getId());
+        for (PartnerRanker.RankedPartner candidate : partnerRanker.rank(pincode, pickupLatitude, pickupLongitude)) {
+            if (declined.contains(candidate.getPartnerId())) {
+                continue;
+            }
+            try {
+                if (assign(orderId, candidate.getPartnerId(), declined)) {
+                    logger.info("Order {} auto-assigned to partner {} ({} km, {} active orders, score {})", orderId,
+                            candidate.getPartnerId(), candidate.getDistanceKm(), candidate.getActiveOrders(), candidate.getScore());
+                    return orderRepository.findById(orderId).orElse(order);
+                }
+            } catch (RuntimeException e) {
+                // Reached the active order limit since it was ranked; try the next one
+                logger.debug("Partner {} skipped for order {}: {}", candidate.getPartnerId(), orderId, e.getMessage());
+            }
+            // Taken meanwhile, e.g. by a partner accepting it
+            if (!"PLACED".equals(orderRepository.findById(orderId).map(Order::getStatus).orElse(null))) {
+                throw new RuntimeException("Order " + orderId + " is no longer available for assignment");
+            }
+        }
+        throw new RuntimeException("No available delivery partners found for pincode: " + pincode);
     }
     
     /**
-     * Manually assign order to a specific delivery partner
+     * Assign order to the first available delivery partner in the same pincode
      */
-    public OrderAssignment assignOrderToPartner(Long orderId, Long partnerId) {
-        logger.info("Assigning order ID: {} to partner ID: {}", orderId, partnerId);
+    @Transactional
+    public boolean assignOrderToPartner(Long orderId, Long partnerId) {
+        return assign(orderId, partnerId, null);
+    }
+    
+    /**
+     * Offer an order to a partner on their behalf (automatic assignment): it is theirs until the
+     * offer times out unless they accept it or pick it up
+     */
+    @Transactional
+    public boolean offerOrderToPartner(Long orderId, Long partnerId) {
+        return assign(orderId, partnerId, List.of());
+    }
+    
+    // An offer when declined is given (the partners it timed out with before), else taken by the partner
+    private boolean assign(Long orderId, Long partnerId, List<Long> declined) {
+        logger.info("Attempting to assign order {} to partner {}", orderId, partnerId);
+        
+        // Claims for one partner take turns from here to commit, so the active order count read
+        // below already includes any other claim that got the partner first
+        deliveryPartnerRepository.findLockedById(partnerId);
         
-        // Validate order exists
         Optional<Order> orderOpt = orderRepository.findById(orderId);
         if (!orderOpt.isPresent()) {
             throw new RuntimeException("Order not found with ID: " + orderId);
         }
         
-        // Validate partner exists and is available
-        Optional<DeliveryPartner> partnerOpt = deliveryPartnerRepository.findById(partnerId);
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
+        Optional<DeliveryPartnerAuth> partnerOpt = deliveryPartnerRepository.findById(partnerId);
         if (!partnerOpt.isPresent()) {
             throw new RuntimeException("Delivery partner not found with ID: " + partnerId);
         }
         
-<<<<<<< HEAD
         Order order = orderOpt.get();
         DeliveryPartnerAuth partner = partnerOpt.get();
         
         // Check if order is still available for assignment
         if (!"PLACED".equals(order.getStatus())) {
             logger.warn("Order {} is no longer available for assignment. Current status: {}", orderId, order.getStatus());
+            orderStateMachine.lostClaim();
             return false;
         }
         
@@ -223,20 +234,24 @@ public class OrderAssignmentService {
         double deliveryFee = calculateDeliveryFee(order.getTotalAmount());
         double partnerEarning = calculatePartnerEarning(deliveryFee, order.getTotalAmount());
         
-        // Assign the order
-        order.setDeliveryPartner(partner);
-        order.setStatus("ASSIGNED");
-        order.setAssignedAt(LocalDateTime.now());
-        order.setDeliveryFee(deliveryFee);
-        order.setPartnerEarning(partnerEarning);
-        orderRepository.save(order);
+        // Assign the order, unless another partner took it since it was read
+        LocalDateTime offerExpiresAt = declined != null ? offerTimeouts.deadlineFromNow() : null;
+        if (!orderStateMachine.claim(orderId, partner, deliveryFee, partnerEarning, offerExpiresAt)) {
+            logger.warn("Order {} was taken by another partner before partner {}", orderId, partnerId);
+            return false;
+        }
+        order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
+        orderAnalyticsService.recordStatusChange(order, "PLACED");
+        orderPushService.statusChanged(order, "PLACED");
+        if (declined != null) {
+            // Should this roll back, the conditional withdrawal finds nothing to take back
+            offerTimeouts.offered(orderId, partnerId, offerExpiresAt, declined);
+        }
         
         // If partner now has 2 active orders, remove them from available list
         if (activeOrdersCount + 1 >= 2) {
-            List<Long> availablePartners = availablePartnersByPincode.get(partner.getPincode());
-            if (availablePartners != null) {
-                availablePartners.remove(partnerId);
-            }
+            partnerAvailability.busy(partnerId);
             logger.info("Partner {} removed from available list (reached 2 active orders limit)", partnerId);
         }
         
@@ -244,6 +259,65 @@ public class OrderAssignmentService {
         return true;
     }
     
+    /**
+     * Accept an order offered to the partner by automatic assignment. Returns false when there is
+     * no such offer, e.g. because it timed out and was taken back.
+     */
+    @Transactional
+    public boolean acceptOffer(Long orderId, Long partnerId) {
+        if (orderRepository.acceptOffer(orderId, partnerId) == 0) {
+            return false;
+        }
+        offerTimeouts.settled(orderId);
+        logger.info("Partner {} accepted offered order {}", partnerId, orderId);
+        return true;
+    }
+    
+    /**
+     * Take back the offers that timed out, and offer their orders to the next best partners
+     */
+    @Scheduled(fixedDelayString = "${grocito.assignment.offer.tick-ms:1000}")
+    public void expireOffers() {
+        try {
+            for (OfferTimeouts.Offer offer : offerTimeouts.due(System.currentTimeMillis())) {
+                try {
+                    transactionTemplate.executeWithoutResult(tx -> withdrawOffer(offer));
+                } catch (RuntimeException e) {
+                    logger.error("Taking back the offer of order {} failed: {}", offer.getOrderId(), e.getMessage(), e);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Assignment offer expiry failed: {}", e.getMessage(), e);
+        }
+    }
+    
+    private void withdrawOffer(OfferTimeouts.Offer offer) {
+        Long orderId = offer.getOrderId();
+        Long partnerId = offer.getPartnerId();
+        if (orderRepository.withdrawOffer(orderId, partnerId, LocalDateTime.now()) == 0) {
+            // Accepted, picked up or cancelled meanwhile
+            return;
+        }
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
+        orderAnalyticsService.recordStatusChange(order, "ASSIGNED");
+        orderPushService.statusChanged(order, "ASSIGNED");
+        logger.info("Offer of order {} to partner {} timed out", orderId, partnerId);
+        
+        long activeOrders = orderRepository.countByDeliveryPartnerIdAndStatusIn(partnerId,
+                List.of("ASSIGNED", "PICKED_UP", "OUT_FOR_DELIVERY"));
+        if (activeOrders < 2) {
+            partnerAvailability.free(partnerId);
+        }
+        
+        try {
+            assignOrderAutomatically(orderId, null, null, offer.getDeclinedWithThis());
+        } catch (RuntimeException e) {
+            // Left waiting for the batch dispatcher
+            logger.info("Order {} not offered again: {}", orderId, e.getMessage());
+        }
+    }
+    
     /**
      * Calculate delivery fee based on order amount
      */
@@ -274,24 +348,34 @@ public class OrderAssignmentService {
     /**
      * Get pending orders for a specific pincode
      */
-    public List<Order> getPendingOrdersForPincode(String pincode) {
-        return orderRepository.findByStatusAndPincodeOrderByOrderTimeAsc("PLACED", pincode);
+    public List<OrderView> getPendingOrdersForPincode(String pincode) {
+        return OrderView.fromAll(orderRepository.findWithDetailsByStatusAndPincodeOrderByOrderTimeAsc("PLACED", pincode));
     }
     
     /**
      * Get assigned orders for a delivery partner
      */
-    public List<Order> getAssignedOrdersForPartner(Long partnerId) {
-        return orderRepository.findByDeliveryPartnerIdAndStatusIn(partnerId, 
-                List.of("ASSIGNED", "PICKED_UP", "OUT_FOR_DELIVERY"));
+    public List<OrderView> getAssignedOrdersForPartner(Long partnerId) {
+        return OrderView.fromAll(orderRepository.findWithDetailsByDeliveryPartnerIdAndStatusIn(partnerId, 
+                List.of("ASSIGNED", "PICKED_UP", "OUT_FOR_DELIVERY")));
     }
     
     /**
      * Get completed orders for a delivery partner
      */
-    public List<Order> getCompletedOrdersForPartner(Long partnerId) {
-        return orderRepository.findByDeliveryPartnerIdAndStatusIn(partnerId, 
-                List.of("DELIVERED", "CANCELLED"));
+    public List<OrderView> getCompletedOrdersForPartner(Long partnerId) {
+        return OrderView.fromAll(orderRepository.findWithDetailsByDeliveryPartnerIdAndStatusIn(partnerId, 
+                List.of("DELIVERED", "CANCELLED")));
+    }
+    
+    /**
+     * The order with its assignment (partner, fee, earning and times), once it has a partner
+     */
+    public Optional<OrderView> getAssignmentByOrderId(Long orderId) {
+        return orderRepository.findWithDetailsByIdIn(List.of(orderId)).stream()
+                .filter(order -> order.getDeliveryPartner() != null)
+                .findFirst()
+                .map(OrderView::from);
     }
     
     /**
@@ -301,83 +385,76 @@ public class OrderAssignmentService {
     public Order updateOrderStatus(Long orderId, String newStatus, Long partnerId) {
         logger.info("Partner {} updating order {} status to {}", partnerId, orderId, newStatus);
         
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (!orderOpt.isPresent()) {
-            throw new RuntimeException("Order not found with ID: " + orderId);
+        if (!PARTNER_STATUSES.contains(newStatus)) {
+            throw new RuntimeException("Invalid status: " + newStatus);
         }
         
-        Order order = orderOpt.get();
-        
-        // Verify that this partner is assigned to this order
-        if (order.getDeliveryPartner() == null || !order.getDeliveryPartner().getId().equals(partnerId)) {
-            throw new RuntimeException("You are not assigned to this order");
-        }
-        
-        // Update status and timestamps
-        String oldStatus = order.getStatus();
-        order.setStatus(newStatus);
+        // Checked against the machine and applied only if the order is still this partner's and
+        // still in the status checked
+        String oldStatus = orderStateMachine.move(orderId, newStatus, partnerId);
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
         
         switch (newStatus) {
             case "PICKED_UP":
-                if (!"ASSIGNED".equals(oldStatus)) {
-                    throw new RuntimeException("Can only pick up assigned orders");
-                }
                 order.setPickedUpAt(LocalDateTime.now());
-                break;
-            case "OUT_FOR_DELIVERY":
-                if (!"PICKED_UP".equals(oldStatus)) {
-                    throw new RuntimeException("Can only mark as out for delivery after pickup");
-                }
+                // Picking up an offered order accepts it
+                order.setOfferExpiresAt(null);
+                offerTimeouts.settled(orderId);
                 break;
             case "DELIVERED":
-                if (!"OUT_FOR_DELIVERY".equals(oldStatus)) {
-                    throw new RuntimeException("Can only deliver orders that are out for delivery");
-                }
                 order.setDeliveredAt(LocalDateTime.now());
                 
                 // Check if partner now has less than 2 active orders, make them available again
-                DeliveryPartnerAuth partner = order.getDeliveryPartner();
                 long remainingActiveOrders = orderRepository.countByDeliveryPartnerIdAndStatusIn(partnerId, 
-                        List.of("ASSIGNED", "PICKED_UP", "OUT_FOR_DELIVERY")) - 1; // -1 because this order is being delivered
+                        List.of("ASSIGNED", "PICKED_UP", "OUT_FOR_DELIVERY"));
                 
                 if (remainingActiveOrders < 2) {
-                    String pincode = partner.getPincode();
-                    List<Long> availablePartners = availablePartnersByPincode.computeIfAbsent(pincode, k -> new CopyOnWriteArrayList<>());
-                    if (!availablePartners.contains(partnerId)) {
-                        availablePartners.add(partnerId);
-                        partnerLastSeen.put(partnerId, LocalDateTime.now());
+                    if (partnerAvailability.free(partnerId)) {
                         logger.info("Partner {} is now available again (has {} active orders)", partnerId, remainingActiveOrders);
                     }
                 }
                 break;
             case "CANCELLED":
                 order.setCancelledAt(LocalDateTime.now());
+                order.setOfferExpiresAt(null);
+                offerTimeouts.settled(orderId);
                 
                 // Check if partner now has less than 2 active orders, make them available again
-                DeliveryPartnerAuth cancelPartner = order.getDeliveryPartner();
                 long remainingActiveOrdersCancel = orderRepository.countByDeliveryPartnerIdAndStatusIn(partnerId, 
-                        List.of("ASSIGNED", "PICKED_UP", "OUT_FOR_DELIVERY")) - 1; // -1 because this order is being cancelled
+                        List.of("ASSIGNED", "PICKED_UP", "OUT_FOR_DELIVERY"));
                 
                 if (remainingActiveOrdersCancel < 2) {
-                    String cancelPincode = cancelPartner.getPincode();
-                    List<Long> availablePartners = availablePartnersByPincode.computeIfAbsent(cancelPincode, k -> new CopyOnWriteArrayList<>());
-                    if (!availablePartners.contains(partnerId)) {
-                        availablePartners.add(partnerId);
-                        partnerLastSeen.put(partnerId, LocalDateTime.now());
+                    if (partnerAvailability.free(partnerId)) {
                         logger.info("Partner {} is now available again after cancellation (has {} active orders)", partnerId, remainingActiveOrdersCancel);
                     }
                 }
                 break;
+            default:
+                break;
         }
-        
-        return orderRepository.save(order);
+
+        // The status row is already ours until commit, so saving the timestamps races with nobody
+        Order savedOrder = orderRepository.save(order);
+        orderAnalyticsService.recordStatusChange(savedOrder, oldStatus);
+        orderPushService.statusChanged(savedOrder, oldStatus);
+        return savedOrder;
     }
-    
+
     /**
      * Keep partner alive (heartbeat)
      */
     public void keepPartnerAlive(Long partnerId) {
-        partnerLastSeen.put(partnerId, LocalDateTime.now());
+        keepPartnerAlive(partnerId, null, null);
+    }
+    
+    /**
+     * Keep partner alive (heartbeat) and record where they are. partnerId is the auth id, as
+     * everywhere here. Nothing is written to the database here; the ingest flushes it later.
+     */
+    public void keepPartnerAlive(Long partnerId, Double latitude, Double longitude) {
+        partnerAvailability.heartbeat(partnerId);
+        partnerLocationIngest.recordForAuth(partnerId, latitude, longitude);
     }
     
     /**
@@ -480,30 +557,6 @@ public class OrderAssignmentService {
             int syncedCount = 0;
             for (DeliveryPartnerAuth authPartner : verifiedPartners) {
                 try {
-                    // Use native SQL to insert/update delivery_partners table
-                    // This ensures the foreign key constraint can be satisfied
-                    String sql = "INSERT INTO delivery_partners (id, full_name, email, phone_number, pincode, " +
-                               "vehicle_type, vehicle_number, driving_license, verification_status, account_status, " +
-                               "availability_status, is_available, total_deliveries, successful_deliveries, " +
-                               "average_rating, total_earnings, created_at, updated_at) " +
-                               "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 'ACTIVE', 'OFFLINE', false, 0, 0, 0.0, 0.0, ?, ?) " +
-                               "ON DUPLICATE KEY UPDATE " +
-                               "full_name = VALUES(full_name), email = VALUES(email), phone_number = VALUES(phone_number), " +
-                               "pincode = VALUES(pincode), vehicle_type = VALUES(vehicle_type), " +
-                               "vehicle_number = VALUES(vehicle_number), driving_license = VALUES(driving_license), " +
-                               "verification_status = VALUES(verification_status), updated_at = VALUES(updated_at)";
-                    
-                    // Execute the SQL using JPA EntityManager
-                    jakarta.persistence.EntityManager entityManager = 
-                        ((org.springframework.orm.jpa.JpaTransactionManager) 
-                         org.springframework.transaction.support.TransactionSynchronizationManager
-                         .getResource(org.springframework.orm.jpa.EntityManagerFactoryUtils
-                         .getTransactionalEntityManager(
-                             ((org.springframework.orm.jpa.JpaTransactionManager) 
-                              org.springframework.transaction.support.TransactionSynchronizationManager
-                              .getResource(orderRepository)).getEntityManagerFactory())))
-                        .getEntityManager();
-                    
                     // For now, just log the sync attempt
                     logger.info("Would sync partner {} (ID: {}) to delivery_partners table", 
                                authPartner.getFullName(), authPartner.getId());
@@ -548,236 +601,8 @@ public class OrderAssignmentService {
         dashboardData.put("availableOrders", getPendingOrdersForPincode(partner.getPincode()));
         
         // Availability status
-        List<Long> availablePartners = availablePartnersByPincode.get(partner.getPincode());
-        boolean isAvailable = availablePartners != null && availablePartners.contains(partnerId);
-        dashboardData.put("isAvailable", isAvailable);
+        dashboardData.put("isAvailable", partnerAvailability.isAvailable(partnerId));
         
         return dashboardData;
-=======
-        DeliveryPartner partner = partnerOpt.get();
-        Order order = orderOpt.get();
-        
-        // Check if partner is available and verified
-        if (!partner.getIsAvailable()) {
-            throw new RuntimeException("Delivery partner is not available");
-        }
-        
-        if (!"VERIFIED".equals(partner.getVerificationStatus())) {
-            throw new RuntimeException("Delivery partner is not verified");
-        }
-        
-        if (!"ACTIVE".equals(partner.getAccountStatus())) {
-            throw new RuntimeException("Delivery partner account is not active");
-        }
-        
-        // Check if partner's pincode matches order pincode
-        if (!partner.getAssignedPincode().equals(order.getPincode())) {
-            throw new RuntimeException("Delivery partner is not assigned to this pincode");
-        }
-        
-        // Check if order is already assigned
-        Optional<OrderAssignment> existingAssignment = orderAssignmentRepository.findByOrder_Id(orderId);
-        if (existingAssignment.isPresent() && "ASSIGNED".equals(existingAssignment.get().getStatus())) {
-            throw new RuntimeException("Order is already assigned to another partner");
-        }
-        
-        // Create new assignment
-        OrderAssignment assignment = new OrderAssignment();
-        assignment.setOrder(order);
-        assignment.setDeliveryPartner(partner);
-        assignment.setStatus("ASSIGNED");
-        assignment.setAssignedAt(LocalDateTime.now());
-        
-        OrderAssignment savedAssignment = orderAssignmentRepository.save(assignment);
-        
-        // Update order status
-        order.setStatus("ASSIGNED");
-        orderRepository.save(order);
-        
-        // Update partner availability (make them busy)
-        deliveryPartnerService.updateAvailability(partnerId, false, "BUSY");
-        
-        logger.info("Order assigned successfully - Assignment ID: {}", savedAssignment.getId());
-        return savedAssignment;
-    }
-    
-    /**
-     * Accept order assignment
-     */
-    public OrderAssignment acceptOrder(Long assignmentId, Long partnerId) {
-        logger.info("Partner ID: {} accepting assignment ID: {}", partnerId, assignmentId);
-        
-        Optional<OrderAssignment> assignmentOpt = orderAssignmentRepository.findById(assignmentId);
-        if (!assignmentOpt.isPresent()) {
-            throw new RuntimeException("Assignment not found with ID: " + assignmentId);
-        }
-        
-        OrderAssignment assignment = assignmentOpt.get();
-        
-        // Validate partner
-        if (!assignment.getPartnerId().equals(partnerId)) {
-            throw new RuntimeException("Assignment is not for this partner");
-        }
-        
-        if (!"ASSIGNED".equals(assignment.getStatus())) {
-            throw new RuntimeException("Assignment is not in ASSIGNED status");
-        }
-        
-        // Update assignment
-        assignment.setStatus("ACCEPTED");
-        assignment.setAcceptedAt(LocalDateTime.now());
-        
-        OrderAssignment updatedAssignment = orderAssignmentRepository.save(assignment);
-        
-        // Update order status
-        Optional<Order> orderOpt = orderRepository.findById(assignment.getOrderId());
-        if (orderOpt.isPresent()) {
-            Order order = orderOpt.get();
-            order.setStatus("ACCEPTED");
-            orderRepository.save(order);
-        }
-        
-        logger.info("Order accepted successfully");
-        return updatedAssignment;
-    }
-    
-    /**
-     * Reject order assignment
-     */
-    public void rejectOrder(Long assignmentId, Long partnerId, String rejectionReason) {
-        logger.info("Partner ID: {} rejecting assignment ID: {} with reason: {}", partnerId, assignmentId, rejectionReason);
-        
-        Optional<OrderAssignment> assignmentOpt = orderAssignmentRepository.findById(assignmentId);
-        if (!assignmentOpt.isPresent()) {
-            throw new RuntimeException("Assignment not found with ID: " + assignmentId);
-        }
-        
-        OrderAssignment assignment = assignmentOpt.get();
-        
-        // Validate partner
-        if (!assignment.getPartnerId().equals(partnerId)) {
-            throw new RuntimeException("Assignment is not for this partner");
-        }
-        
-        if (!"ASSIGNED".equals(assignment.getStatus())) {
-            throw new RuntimeException("Assignment is not in ASSIGNED status");
-        }
-        
-        // Update assignment
-        assignment.setStatus("REJECTED");
-        assignment.setRejectedAt(LocalDateTime.now());
-        assignment.setRejectionReason(rejectionReason);
-        
-        orderAssignmentRepository.save(assignment);
-        
-        // Make partner available again
-        deliveryPartnerService.updateAvailability(partnerId, true, "ONLINE");
-        
-        // Try to reassign the order to another partner
-        try {
-            assignOrderAutomatically(assignment.getOrderId());
-            logger.info("Order reassigned to another partner");
-        } catch (Exception e) {
-            logger.warn("Failed to reassign order: {}", e.getMessage());
-            // Update order status to indicate assignment failure
-            Optional<Order> orderOpt = orderRepository.findById(assignment.getOrderId());
-            if (orderOpt.isPresent()) {
-                Order order = orderOpt.get();
-                order.setStatus("ASSIGNMENT_FAILED");
-                orderRepository.save(order);
-            }
-        }
-        
-        logger.info("Order rejected successfully");
-    }
-    
-    /**
-     * Update order status during delivery
-     */
-    public OrderAssignment updateOrderStatus(Long assignmentId, Long partnerId, String newStatus) {
-        logger.info("Partner ID: {} updating assignment ID: {} to status: {}", partnerId, assignmentId, newStatus);
-        
-        Optional<OrderAssignment> assignmentOpt = orderAssignmentRepository.findById(assignmentId);
-        if (!assignmentOpt.isPresent()) {
-            throw new RuntimeException("Assignment not found with ID: " + assignmentId);
-        }
-        
-        OrderAssignment assignment = assignmentOpt.get();
-        
-        // Validate partner
-        if (!assignment.getPartnerId().equals(partnerId)) {
-            throw new RuntimeException("Assignment is not for this partner");
-        }
-        
-        // Update assignment status
-        assignment.setStatus(newStatus);
-        
-        // Set specific timestamps based on status
-        switch (newStatus) {
-            case "PICKED_UP":
-                assignment.setPickupTime(LocalDateTime.now());
-                break;
-            case "DELIVERED":
-                assignment.setDeliveryTime(LocalDateTime.now());
-                // Calculate delivery duration
-                if (assignment.getAcceptedAt() != null) {
-                    long durationMinutes = java.time.Duration.between(assignment.getAcceptedAt(), LocalDateTime.now()).toMinutes();
-                    assignment.setDeliveryDuration((int) durationMinutes);
-                }
-                // Make partner available again
-                deliveryPartnerService.updateAvailability(partnerId, true, "ONLINE");
-                break;
-            case "CANCELLED":
-                // Make partner available again
-                deliveryPartnerService.updateAvailability(partnerId, true, "ONLINE");
-                break;
-        }
-        
-        OrderAssignment updatedAssignment = orderAssignmentRepository.save(assignment);
-        
-        // Update order status
-        Optional<Order> orderOpt = orderRepository.findById(assignment.getOrderId());
-        if (orderOpt.isPresent()) {
-            Order order = orderOpt.get();
-            order.setStatus(newStatus);
-            orderRepository.save(order);
-        }
-        
-        logger.info("Order status updated successfully to: {}", newStatus);
-        return updatedAssignment;
-    }
-    
-    /**
-     * Get assignments for a delivery partner
-     */
-    public List<OrderAssignment> getPartnerAssignments(Long partnerId, String status) {
-        logger.debug("Fetching assignments for partner ID: {} with status: {}", partnerId, status);
-        
-        if (status != null && !status.isEmpty()) {
-            return orderAssignmentRepository.findByStatusAndDeliveryPartnerId(status, partnerId);
-        } else {
-            return orderAssignmentRepository.findByDeliveryPartnerId(partnerId);
-        }
-    }
-    
-    /**
-     * Get assignment by order ID
-     */
-    public Optional<OrderAssignment> getAssignmentByOrderId(Long orderId) {
-        return orderAssignmentRepository.findByOrder_Id(orderId);
-    }
-    
-    /**
-     * Get all assignments with filtering
-     */
-    public List<OrderAssignment> getAllAssignments(String status, String pincode) {
-        logger.debug("Fetching all assignments with status: {} and pincode: {}", status, pincode);
-        
-        if (status != null && !status.isEmpty()) {
-            return orderAssignmentRepository.findByStatus(status);
-        } else {
-            return orderAssignmentRepository.findAll();
-        }
->>>>>>> 2a68c785e9aa6a0fc145941030b4a641910832ec
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.dto.OrderStatusEvent;
+import com.example.Grocito.dto.OrderView;
+
+/**
+ * Pushes order events to delivery partner apps over the PushChannel, replacing their polling of
+ * the available-orders and dashboard endpoints.
+ *
+ * "order-placed" (an OrderView, as listed by available-orders) goes to the order's pincode.
+ * "order-status" (an OrderStatusEvent) goes to the order's pincode, so every partner there can
+ * drop an order once it is taken, and to its assigned partner.
+ */
+@Service
+public class OrderPushService {
+
+    @Autowired
+    private PushChannel pushChannel;
+
+    /**
+     * Event stream for one partner: their pincode's orders and their own assignments
+     */
+    public SseEmitter subscribePartner(Long partnerId, String pincode) {
+        return pushChannel.subscribe(List.of(pincodeTopic(pincode), partnerTopic(partnerId)));
+    }
+
+    /**
+     * A new order; call with the order's items and user loaded
+     */
+    public void orderPlaced(Order order) {
+        pushChannel.publish(topicsFor(order), "order-placed", OrderView.from(order));
+    }
+
+    public void statusChanged(Order order, String oldStatus) {
+        String newStatus = order.getStatus();
+        if (oldStatus == null ? newStatus == null : oldStatus.equals(newStatus)) {
+            return;
+        }
+        pushChannel.publish(topicsFor(order), "order-status", new OrderStatusEvent(order, oldStatus));
+    }
+
+    /**
+     * statusChanged for many orders at once, e.g. a bulk update; oldStatuses by order id
+     */
+    public void statusesChanged(List<Order> orders, Map<Long, String> oldStatuses) {
+        List<List<String>> topics = new ArrayList<>(orders.size());
+        List<OrderStatusEvent> events = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            String oldStatus = oldStatuses.get(order.getId());
+            if (oldStatus == null ? order.getStatus() != null : !oldStatus.equals(order.getStatus())) {
+                topics.add(topicsFor(order));
+                events.add(new OrderStatusEvent(order, oldStatus));
+            }
+        }
+        if (!events.isEmpty()) {
+            pushChannel.publishAll("order-status", topics, events);
+        }
+    }
+
+    static String pincodeTopic(String pincode) {
+        return "pincode:" + pincode;
+    }
+
+    static String partnerTopic(Long partnerId) {
+        return "partner:" + partnerId;
+    }
+
+    private static List<String> topicsFor(Order order) {
+        List<String> topics = new ArrayList<>(2);
+        topics.add(pincodeTopic(order.getPincode()));
+        if (order.getDeliveryPartner() != null) {
+            topics.add(partnerTopic(order.getDeliveryPartner().getId()));
+        }
+        return topics;
+    }
+}
@@ -3,12 +3,15 @@ package com.example.Grocito.Services;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,8 +24,11 @@ import com.example.Grocito.Entity.Product;
 import com.example.Grocito.Entity.User;
 import com.example.Grocito.Repository.OrderItemRepository;
 import com.example.Grocito.Repository.OrderRepository;
+import com.example.Grocito.Repository.OrderSpecifications;
 import com.example.Grocito.Repository.ProductRepository;
 import com.example.Grocito.Repository.UserRepository;
+import com.example.Grocito.dto.BulkStatusUpdate;
+import com.example.Grocito.dto.OrderView;
 
 @Service
 public class OrderService {
@@ -37,6 +43,9 @@ public class OrderService {
 
     @Autowired
     private ProductRepository productRepository;
+
+    @Autowired
+    private StockReservationService stockReservationService;
     
     @Autowired
     private UserRepository userRepository;
@@ -44,6 +53,18 @@ public class OrderService {
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private OrderAnalyticsService orderAnalyticsService;
+
+    @Autowired
+    private OrderPushService orderPushService;
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Value("${grocito.orders.bulk-chunk-size:1000}")
+    private int bulkChunkSize = 1_000;
+
     /**
      * Place an order with the provided order details
      */
@@ -66,27 +87,16 @@ public class OrderService {
         double orderTotal = 0.0;
         logger.debug("Processing {} items in order", order.getItems().size());
         
+        // Reserve stock for all items at once; any shortfall fails the whole order
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        Map<Long, Product> products = stockReservationService.reserve(quantities);
+        
         for (OrderItem item : order.getItems()) {
             logger.debug("Processing order item for product ID: {}, quantity: {}", item.getProduct().getId(), item.getQuantity());
-            Product product = productRepository.findById(item.getProduct().getId())
-                .orElseThrow(() -> {
-                    logger.error("Order placement failed: Product not found with ID: {}", item.getProduct().getId());
-                    return new RuntimeException("Product not found with id: " + item.getProduct().getId());
-                });
-            
-            // Check if product is in stock
-            if (product.getStock() < item.getQuantity()) {
-                logger.warn("Insufficient stock for product: {} (ID: {}). Available: {}, Requested: {}", 
-                        product.getName(), product.getId(), product.getStock(), item.getQuantity());
-                throw new RuntimeException("Not enough stock available for product: " + product.getName() + 
-                        ". Available: " + product.getStock() + ", Requested: " + item.getQuantity());
-            }
-            
-            // Update product stock
-            logger.debug("Updating stock for product: {} (ID: {}). Old stock: {}, New stock: {}", 
-                    product.getName(), product.getId(), product.getStock(), (product.getStock() - item.getQuantity()));
-            product.setStock(product.getStock() - item.getQuantity());
-            productRepository.save(product);
+            Product product = products.get(item.getProduct().getId());
             
             // Set product and order reference
             item.setProduct(product);
@@ -102,7 +112,10 @@ public class OrderService {
         }
         
         order.setTotalAmount(orderTotal);
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        orderAnalyticsService.recordOrderPlaced(savedOrder);
+        orderPushService.orderPlaced(savedOrder);
+        return savedOrder;
     }
     
     /**
@@ -151,6 +164,13 @@ public class OrderService {
         List<OrderItem> orderItems = new ArrayList<>();
         double orderTotal = 0.0;
         
+        // Reserve stock for the whole cart at once; any shortfall fails the whole order
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartItem cartItem : cartItems) {
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+        stockReservationService.reserve(quantities);
+        
         // Convert cart items to order items
         logger.debug("Converting {} cart items to order items", cartItems.size());
         for (CartItem cartItem : cartItems) {
@@ -158,20 +178,6 @@ public class OrderService {
             logger.debug("Processing cart item for product: {} (ID: {}), quantity: {}", 
                     product.getName(), product.getId(), cartItem.getQuantity());
             
-            // Check if product is in stock
-            if (product.getStock() < cartItem.getQuantity()) {
-                logger.warn("Insufficient stock for product: {} (ID: {}). Available: {}, Requested: {}", 
-                        product.getName(), product.getId(), product.getStock(), cartItem.getQuantity());
-                throw new RuntimeException("Not enough stock available for product: " + product.getName() + 
-                        ". Available: " + product.getStock() + ", Requested: " + cartItem.getQuantity());
-            }
-            
-            // Update product stock
-            logger.debug("Updating stock for product: {} (ID: {}). Old stock: {}, New stock: {}", 
-                    product.getName(), product.getId(), product.getStock(), (product.getStock() - cartItem.getQuantity()));
-            product.setStock(product.getStock() - cartItem.getQuantity());
-            productRepository.save(product);
-            
             // Create order item
             OrderItem orderItem = new OrderItem();
             orderItem.setProduct(product);
@@ -194,6 +200,8 @@ public class OrderService {
         // Save order
         logger.debug("Saving order to database");
         Order savedOrder = orderRepository.save(order);
+        orderAnalyticsService.recordOrderPlaced(savedOrder);
+        orderPushService.orderPlaced(savedOrder);
         logger.info("Order successfully placed with ID: {} for user ID: {}, total amount: ${}", 
                 savedOrder.getId(), userId, orderTotal);
         
@@ -207,11 +215,11 @@ public class OrderService {
     /**
      * Get all orders for a user
      */
-    public List<Order> getOrdersByUser(Long userId) {
+    public List<OrderView> getOrdersByUser(Long userId) {
         logger.info("Retrieving all orders for user ID: {}", userId);
-        List<Order> orders = orderRepository.findByUserId(userId);
+        List<Order> orders = orderRepository.findWithDetailsByUserId(userId);
         logger.debug("Found {} orders for user ID: {}", orders.size(), userId);
-        return orders;
+        return OrderView.fromAll(orders);
     }
     
     /**
@@ -242,8 +250,10 @@ public class OrderService {
         
         logger.debug("Changing order status from '{}' to '{}' for order ID: {}", 
                 order.getStatus(), status, orderId);
-        order.setStatus(status);
-        Order updatedOrder = orderRepository.save(order);
+        String oldStatus = orderStateMachine.move(orderId, status, null);
+        Order updatedOrder = orderRepository.findById(orderId).orElseThrow();
+        orderAnalyticsService.recordStatusChange(updatedOrder, oldStatus);
+        orderPushService.statusChanged(updatedOrder, oldStatus);
         logger.info("Order status successfully updated to '{}' for order ID: {}", status, orderId);
         return updatedOrder;
     }
@@ -266,19 +276,25 @@ public class OrderService {
             throw new RuntimeException("Cannot cancel an order that has been delivered");
         }
         
-        // Restore product stock
-        logger.debug("Restoring stock for {} items in cancelled order ID: {}", order.getItems().size(), orderId);
+        Map<Long, Integer> quantities = new HashMap<>();
         for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            logger.debug("Restoring stock for product: {} (ID: {}). Old stock: {}, New stock: {}", 
-                    product.getName(), product.getId(), product.getStock(), (product.getStock() + item.getQuantity()));
-            product.setStock(product.getStock() + item.getQuantity());
-            productRepository.save(product);
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
         }
         
+        // Only the cancellation that wins the transition gives the stock back, so cancelling
+        // twice cannot release it twice
         logger.debug("Setting order status to 'CANCELLED' for order ID: {}", orderId);
-        order.setStatus("CANCELLED");
-        Order cancelledOrder = orderRepository.save(order);
+        String oldStatus = orderStateMachine.move(orderId, "CANCELLED", null);
+        
+        // Restore product stock
+        logger.debug("Restoring stock for {} items in cancelled order ID: {}", quantities.size(), orderId);
+        stockReservationService.release(quantities);
+        
+        Order cancelledOrder = orderRepository.findById(orderId).orElseThrow();
+        cancelledOrder.setCancelledAt(LocalDateTime.now());
+        cancelledOrder = orderRepository.save(cancelledOrder);
+        orderAnalyticsService.recordStatusChange(cancelledOrder, oldStatus);
+        orderPushService.statusChanged(cancelledOrder, oldStatus);
         logger.info("Order successfully cancelled for order ID: {}", orderId);
         return cancelledOrder;
     }
@@ -326,242 +342,339 @@ public class OrderService {
     /**
      * Get all orders (admin function)
      */
-    public List<Order> getAllOrders() {
+    public List<OrderView> getAllOrders() {
         logger.info("Retrieving all orders (admin function)");
-        List<Order> orders = orderRepository.findAll();
+        List<Order> orders = orderRepository.findAllWithDetails();
         logger.debug("Found {} total orders in the system", orders.size());
-        return orders;
+        return OrderView.fromAll(orders);
     }
     
     /**
      * Get orders by pincode
      */
-    public List<Order> getOrdersByPincode(String pincode) {
+    public List<OrderView> getOrdersByPincode(String pincode) {
         logger.info("Retrieving orders for pincode: {}", pincode);
-        List<Order> orders = orderRepository.findByPincode(pincode);
+        List<Order> orders = orderRepository.findWithDetailsByPincode(pincode);
         logger.debug("Found {} orders for pincode: {}", orders.size(), pincode);
-        return orders;
+        return OrderView.fromAll(orders);
     }
     
     /**
      * Get filtered orders with pagination
      */
-    public org.springframework.data.domain.Page<Order> getFilteredOrders(
+    public org.springframework.data.domain.Page<OrderView> getFilteredOrders(
             int page, int size, String sortBy, String status, String pincode, 
             String search, String dateFrom, String dateTo) {
         
         logger.debug("Fetching filtered orders - page: {}, size: {}, sortBy: {}, status: {}, pincode: {}, search: {}", 
                 page, size, sortBy, status, pincode, search);
         
+        // Dates are inclusive calendar days: [dateFrom 00:00, dateTo + 1 day 00:00)
+        LocalDateTime from = startOfDay(dateFrom, "dateFrom", 0);
+        LocalDateTime before = startOfDay(dateTo, "dateTo", 1);
+
+        // Filtering, sorting and paging run in the database as one page query plus one count query
         org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(
-                page, size, org.springframework.data.domain.Sort.by(sortBy).descending());
-        
-        // For now, return all orders with basic filtering
-        // In a real implementation, you would create custom repository methods
-        List<Order> allOrders = orderRepository.findAll();
-        
-        // Apply filters
-        java.util.stream.Stream<Order> orderStream = allOrders.stream();
-        
-        if (status != null && !status.isEmpty()) {
-            orderStream = orderStream.filter(order -> status.equals(order.getStatus()));
-        }
-        
-        if (pincode != null && !pincode.isEmpty()) {
-            orderStream = orderStream.filter(order -> pincode.equals(order.getPincode()));
+                page, size, OrderSpecifications.sortFor(sortBy));
+
+        org.springframework.data.domain.Page<Order> ordersPage = orderRepository.findAll(
+                OrderSpecifications.filter(status, pincode, search, from, before), pageable);
+
+        logger.debug("Filtered orders query returned {} of {} matching orders",
+                ordersPage.getNumberOfElements(), ordersPage.getTotalElements());
+
+        List<OrderView> views = withDetails(ordersPage.getContent());
+        return new org.springframework.data.domain.PageImpl<>(views, pageable, ordersPage.getTotalElements());
+    }
+
+    /**
+     * Get filtered orders after a cursor (keyset pagination). The cost of a page does not depend
+     * on how far the caller has scrolled, and no count query is run.
+     */
+    public com.example.Grocito.dto.CursorPage<OrderView> getOrdersAfter(
+            String cursor, int size, String sortBy, String status, String pincode,
+            String search, String dateFrom, String dateTo) {
+        logger.debug("Fetching orders after cursor - size: {}, sortBy: {}, status: {}, pincode: {}, search: {}",
+                size, sortBy, status, pincode, search);
+        if (size < 1) {
+            throw new RuntimeException("Page size must be at least 1");
         }
-        
-        if (search != null && !search.isEmpty()) {
-            String searchLower = search.toLowerCase();
-            orderStream = orderStream.filter(order -> 
-                order.getId().toString().contains(searchLower) ||
-                (order.getUser() != null && order.getUser().getFullName() != null && 
-                 order.getUser().getFullName().toLowerCase().contains(searchLower)) ||
-                (order.getUser() != null && order.getUser().getEmail() != null && 
-                 order.getUser().getEmail().toLowerCase().contains(searchLower)) ||
-                (order.getDeliveryAddress() != null && 
-                 order.getDeliveryAddress().toLowerCase().contains(searchLower))
-            );
+
+        org.springframework.data.domain.Sort sort = OrderSpecifications.seekSortFor(sortBy);
+        List<Object> after = com.example.Grocito.Repository.Keyset.decode(cursor, sortBy, sort, Order.class);
+
+        // One row more than requested tells whether there is a next page
+        List<Order> rows = orderRepository.findAfter(
+                OrderSpecifications.filter(status, pincode, search,
+                        startOfDay(dateFrom, "dateFrom", 0), startOfDay(dateTo, "dateTo", 1)),
+                sort, after, size + 1, "user", "user.cart", "deliveryPartner");
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = com.example.Grocito.Repository.Keyset.encode(sortBy, sort, rows.get(size - 1));
         }
-        
-        if (dateFrom != null && !dateFrom.isEmpty()) {
-            try {
-                java.time.LocalDate fromDate = java.time.LocalDate.parse(dateFrom);
-                orderStream = orderStream.filter(order -> 
-                    order.getOrderTime().toLocalDate().isAfter(fromDate.minusDays(1)));
-            } catch (Exception e) {
-                logger.warn("Invalid dateFrom format: {}", dateFrom);
+        return new com.example.Grocito.dto.CursorPage<>(withDetails(rows), size, nextCursor);
+    }
+
+    /**
+     * Views of orders, with the items of all of them loaded in one more query and kept in order
+     */
+    private List<OrderView> withDetails(List<Order> orders) {
+        Map<Long, Order> detailed = new HashMap<>();
+        if (!orders.isEmpty()) {
+            List<Long> ids = orders.stream().map(Order::getId).collect(java.util.stream.Collectors.toList());
+            for (Order order : orderRepository.findWithDetailsByIdIn(ids)) {
+                detailed.put(order.getId(), order);
             }
         }
-        
-        if (dateTo != null && !dateTo.isEmpty()) {
-            try {
-                java.time.LocalDate toDate = java.time.LocalDate.parse(dateTo);
-                orderStream = orderStream.filter(order -> 
-                    order.getOrderTime().toLocalDate().isBefore(toDate.plusDays(1)));
-            } catch (Exception e) {
-                logger.warn("Invalid dateTo format: {}", dateTo);
-            }
+        List<OrderView> views = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            views.add(OrderView.from(detailed.getOrDefault(order.getId(), order)));
         }
-        
-        List<Order> filteredOrders = orderStream.collect(java.util.stream.Collectors.toList());
-        
-        // Sort orders
-        if ("orderTime".equals(sortBy)) {
-            filteredOrders.sort((a, b) -> b.getOrderTime().compareTo(a.getOrderTime()));
-        } else if ("totalAmount".equals(sortBy)) {
-            filteredOrders.sort((a, b) -> Double.compare(b.getTotalAmount(), a.getTotalAmount()));
+        return views;
+    }
+
+    /**
+     * Start of the given day plus plusDays, or null when date is missing or not yyyy-MM-dd
+     */
+    private LocalDateTime startOfDay(String date, String name, int plusDays) {
+        if (date == null || date.isEmpty()) {
+            return null;
+        }
+        try {
+            return java.time.LocalDate.parse(date).plusDays(plusDays).atStartOfDay();
+        } catch (Exception e) {
+            logger.warn("Invalid {} format: {}", name, date);
+            return null;
         }
-        
-        // Create page
-        int start = page * size;
-        int end = Math.min(start + size, filteredOrders.size());
-        List<Order> pageContent = start < filteredOrders.size() ? 
-                filteredOrders.subList(start, end) : new ArrayList<>();
-        
-        return new org.springframework.data.domain.PageImpl<>(
-                pageContent, pageable, filteredOrders.size());
     }
     
     /**
-     * Get order analytics
+     * Get order analytics, served from the order_daily_stats rollup
      */
     public Map<String, Object> getOrderAnalytics(String pincode, String dateFrom, String dateTo) {
         logger.debug("Calculating order analytics for pincode: {}", pincode);
         
-        List<Order> orders = pincode != null ? getOrdersByPincode(pincode) : getAllOrders();
-        
-        // Apply date filtering
-        if (dateFrom != null || dateTo != null) {
-            orders = orders.stream().filter(order -> {
-                java.time.LocalDate orderDate = order.getOrderTime().toLocalDate();
-                
-                if (dateFrom != null) {
-                    try {
-                        java.time.LocalDate fromDate = java.time.LocalDate.parse(dateFrom);
-                        if (orderDate.isBefore(fromDate)) return false;
-                    } catch (Exception e) {
-                        logger.warn("Invalid dateFrom format: {}", dateFrom);
-                    }
-                }
-                
-                if (dateTo != null) {
-                    try {
-                        java.time.LocalDate toDate = java.time.LocalDate.parse(dateTo);
-                        if (orderDate.isAfter(toDate)) return false;
-                    } catch (Exception e) {
-                        logger.warn("Invalid dateTo format: {}", dateTo);
-                    }
-                }
-                
-                return true;
-            }).collect(java.util.stream.Collectors.toList());
-        }
+        // Apply date filtering (inclusive calendar days, invalid formats are ignored)
+        java.time.LocalDate fromDate = parseAnalyticsDate(dateFrom, "dateFrom");
+        java.time.LocalDate toDate = parseAnalyticsDate(dateTo, "dateTo");
+        java.time.LocalDate rangeFrom = fromDate != null ? fromDate : OrderAnalyticsService.MIN_DATE;
+        java.time.LocalDate rangeTo = toDate != null ? toDate : OrderAnalyticsService.MAX_DATE;
+        
+        OrderAnalyticsService.StatusTotals totals = orderAnalyticsService.getStatusTotals(pincode, rangeFrom, rangeTo);
         
         Map<String, Object> analytics = new HashMap<>();
         
         // Basic metrics
-        analytics.put("totalOrders", orders.size());
-        analytics.put("totalRevenue", orders.stream().mapToDouble(Order::getTotalAmount).sum());
-        analytics.put("averageOrderValue", orders.isEmpty() ? 0 : 
-                orders.stream().mapToDouble(Order::getTotalAmount).average().orElse(0));
+        long totalOrders = totals.getOrderCount();
+        analytics.put("totalOrders", totalOrders);
+        analytics.put("totalRevenue", totals.getRevenue());
+        analytics.put("averageOrderValue", totalOrders == 0 ? 0 : totals.getRevenue() / totalOrders);
         
         // Status distribution
-        Map<String, Long> statusDistribution = orders.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                    Order::getStatus, 
-                    java.util.stream.Collectors.counting()
-                ));
-        analytics.put("statusDistribution", statusDistribution);
+        analytics.put("statusDistribution", totals.getCountsByStatus());
         
         // Time-based metrics
         java.time.LocalDate today = java.time.LocalDate.now();
         java.time.LocalDate weekAgo = today.minusDays(7);
         java.time.LocalDate monthAgo = today.minusMonths(1);
         
-        analytics.put("todayOrders", orders.stream()
-                .filter(order -> order.getOrderTime().toLocalDate().equals(today))
-                .count());
+        Map<java.time.LocalDate, OrderAnalyticsService.StatusTotals> daily = orderAnalyticsService.getDailyStatusTotals(
+                pincode, monthAgo.isAfter(rangeFrom) ? monthAgo : rangeFrom, rangeTo);
         
-        analytics.put("weekOrders", orders.stream()
-                .filter(order -> order.getOrderTime().toLocalDate().isAfter(weekAgo))
-                .count());
+        OrderAnalyticsService.StatusTotals todayTotals = new OrderAnalyticsService.StatusTotals();
+        OrderAnalyticsService.StatusTotals weekTotals = new OrderAnalyticsService.StatusTotals();
+        OrderAnalyticsService.StatusTotals monthTotals = new OrderAnalyticsService.StatusTotals();
+        daily.forEach((date, dayTotals) -> {
+            if (date.equals(today)) todayTotals.addAll(dayTotals);
+            if (date.isAfter(weekAgo)) weekTotals.addAll(dayTotals);
+            if (date.isAfter(monthAgo)) monthTotals.addAll(dayTotals);
+        });
         
-        analytics.put("monthOrders", orders.stream()
-                .filter(order -> order.getOrderTime().toLocalDate().isAfter(monthAgo))
-                .count());
+        analytics.put("todayOrders", todayTotals.getOrderCount());
+        analytics.put("weekOrders", weekTotals.getOrderCount());
+        analytics.put("monthOrders", monthTotals.getOrderCount());
         
         // Revenue metrics
-        analytics.put("todayRevenue", orders.stream()
-                .filter(order -> order.getOrderTime().toLocalDate().equals(today))
-                .mapToDouble(Order::getTotalAmount).sum());
+        analytics.put("todayRevenue", todayTotals.getRevenue());
+        analytics.put("weekRevenue", weekTotals.getRevenue());
+        analytics.put("monthRevenue", monthTotals.getRevenue());
+        
+        analytics.put("pincode", pincode != null ? pincode : "All Regions");
+        
+        // Daily trends (last 7 days)
+        List<Map<String, Object>> dailyTrends = new ArrayList<>();
+        for (int i = 6; i >= 0; i--) {
+            java.time.LocalDate date = today.minusDays(i);
+            OrderAnalyticsService.StatusTotals dayTotals = daily.getOrDefault(date, new OrderAnalyticsService.StatusTotals());
+            
+            Map<String, Object> dayData = new HashMap<>();
+            dayData.put("date", date.toString());
+            dayData.put("orders", dayTotals.getOrderCount());
+            dayData.put("revenue", dayTotals.getRevenue());
+            dailyTrends.add(dayData);
+        }
+        analytics.put("dailyTrends", dailyTrends);
         
-        analytics.put("weekRevenue", orders.stream()
-                .filter(order -> order.getOrderTime().toLocalDate().isAfter(weekAgo))
-                .mapToDouble(Order::getTotalAmount).sum());
+        logger.debug("Analytics calculated for {} orders", totalOrders);
+        return analytics;
+    }
+    
+    /**
+     * Get the admin order analytics overview, served from the order_daily_stats rollup.
+     * Revenue figures exclude cancelled orders.
+     */
+    public Map<String, Object> getOrderAnalyticsOverview(String pincode) {
+        logger.debug("Calculating order analytics overview for pincode: {}", pincode);
         
-        analytics.put("monthRevenue", orders.stream()
-                .filter(order -> order.getOrderTime().toLocalDate().isAfter(monthAgo))
-                .mapToDouble(Order::getTotalAmount).sum());
+        OrderAnalyticsService.StatusTotals totals = orderAnalyticsService.getStatusTotals(
+                pincode, OrderAnalyticsService.MIN_DATE, OrderAnalyticsService.MAX_DATE);
         
-        analytics.put("pincode", pincode != null ? pincode : "All Regions");
+        Map<String, Object> analytics = new HashMap<>();
+        
+        // Total orders
+        long totalOrders = totals.getOrderCount();
+        analytics.put("totalOrders", totalOrders);
+        
+        // Orders by status
+        Map<String, Long> ordersByStatus = new HashMap<>();
+        for (String status : new String[] { "PLACED", "PACKED", "ASSIGNED", "OUT_FOR_DELIVERY", "DELIVERED", "CANCELLED" }) {
+            ordersByStatus.put(status, totals.getOrderCount(status));
+        }
+        analytics.put("statusDistribution", ordersByStatus);
+        
+        // Total revenue and average order value
+        double totalRevenue = totals.getRevenue() - totals.getRevenue("CANCELLED");
+        analytics.put("totalRevenue", totalRevenue);
+        analytics.put("averageOrderValue", totalOrders == 0 ? 0 : totalRevenue / totalOrders);
+        
+        // Time-based calculations (week and month windows include their first day)
+        java.time.LocalDate today = java.time.LocalDate.now();
+        java.time.LocalDate weekAgo = today.minusDays(7);
+        java.time.LocalDate monthAgo = today.minusMonths(1);
+        
+        Map<java.time.LocalDate, OrderAnalyticsService.StatusTotals> daily = orderAnalyticsService.getDailyStatusTotals(
+                pincode, monthAgo, OrderAnalyticsService.MAX_DATE);
+        
+        OrderAnalyticsService.StatusTotals todayTotals = new OrderAnalyticsService.StatusTotals();
+        OrderAnalyticsService.StatusTotals weekTotals = new OrderAnalyticsService.StatusTotals();
+        OrderAnalyticsService.StatusTotals monthTotals = new OrderAnalyticsService.StatusTotals();
+        daily.forEach((date, dayTotals) -> {
+            if (date.equals(today)) todayTotals.addAll(dayTotals);
+            if (!date.isBefore(weekAgo)) weekTotals.addAll(dayTotals);
+            monthTotals.addAll(dayTotals);
+        });
+        
+        analytics.put("todayOrders", todayTotals.getOrderCount());
+        analytics.put("todayRevenue", todayTotals.getRevenue() - todayTotals.getRevenue("CANCELLED"));
+        analytics.put("weekOrders", weekTotals.getOrderCount());
+        analytics.put("weekRevenue", weekTotals.getRevenue() - weekTotals.getRevenue("CANCELLED"));
+        analytics.put("monthOrders", monthTotals.getOrderCount());
+        analytics.put("monthRevenue", monthTotals.getRevenue() - monthTotals.getRevenue("CANCELLED"));
         
         // Daily trends (last 7 days)
         List<Map<String, Object>> dailyTrends = new ArrayList<>();
         for (int i = 6; i >= 0; i--) {
             java.time.LocalDate date = today.minusDays(i);
-            List<Order> dayOrders = orders.stream()
-                    .filter(order -> order.getOrderTime().toLocalDate().equals(date))
-                    .collect(java.util.stream.Collectors.toList());
+            OrderAnalyticsService.StatusTotals dayTotals = daily.getOrDefault(date, new OrderAnalyticsService.StatusTotals());
             
             Map<String, Object> dayData = new HashMap<>();
             dayData.put("date", date.toString());
-            dayData.put("orders", dayOrders.size());
-            dayData.put("revenue", dayOrders.stream().mapToDouble(Order::getTotalAmount).sum());
+            dayData.put("orders", dayTotals.getOrderCount());
+            dayData.put("revenue", dayTotals.getRevenue() - dayTotals.getRevenue("CANCELLED"));
             dailyTrends.add(dayData);
         }
         analytics.put("dailyTrends", dailyTrends);
         
-        logger.debug("Analytics calculated for {} orders", orders.size());
+        // Recent orders (last 10)
+        List<Order> recentOrders = pincode != null ? 
+                orderRepository.findTop10ByPincodeOrderByOrderTimeDesc(pincode) : 
+                orderRepository.findTop10ByOrderByOrderTimeDesc();
+        analytics.put("recentOrders", recentOrders);
+        
+        logger.debug("Analytics overview calculated for {} orders", totalOrders);
         return analytics;
     }
     
     /**
-     * Bulk update order status with role-based access control
+     * Rebuild the order analytics rollup from the orders table.
+     * Rebuilds the whole table when no dates are given.
+     *
+     * @return number of rollup rows corrected
+     */
+    public int rebuildOrderAnalytics(String dateFrom, String dateTo) {
+        java.time.LocalDate fromDate = parseAnalyticsDate(dateFrom, "dateFrom");
+        java.time.LocalDate toDate = parseAnalyticsDate(dateTo, "dateTo");
+        if (fromDate == null && toDate == null) {
+            return orderAnalyticsService.rebuildAll();
+        }
+        return orderAnalyticsService.rebuild(
+                fromDate != null ? fromDate : OrderAnalyticsService.MIN_DATE,
+                toDate != null ? toDate : java.time.LocalDate.now());
+    }
+    
+    private java.time.LocalDate parseAnalyticsDate(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return java.time.LocalDate.parse(value);
+        } catch (Exception e) {
+            logger.warn("Invalid {} format: {}", name, value);
+            return null;
+        }
+    }
+    
+    /**
+     * Bulk update order status with role-based access control. Set-based: per chunk of
+     * grocito.orders.bulk-chunk-size ids, one query reads the orders to check their scope and
+     * status, and one conditional UPDATE per status they are in moves them (see
+     * OrderStateMachine.moveAll). The analytics deltas and push events of all of them go out
+     * together at the end. Every id gets its own outcome rather than one bad id failing the lot.
      */
     @Transactional
-    public List<Order> bulkUpdateStatus(List<Long> orderIds, String status, String userRole, String userPincode) {
+    public BulkStatusUpdate bulkUpdateStatus(List<Long> orderIds, String status, String userRole, String userPincode) {
         logger.info("Processing bulk status update for {} orders to status: {} by {} admin", 
                    orderIds.size(), status, userRole);
+        if ("ASSIGNED".equals(status)) {
+            throw new RuntimeException("Orders are assigned through partner assignment");
+        }
         
-        List<Order> updatedOrders = new ArrayList<>();
-        
-        for (Long orderId : orderIds) {
-            try {
-                Order order = orderRepository.findById(orderId)
-                        .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
-                
-                // Check access permissions
-                if ("ADMIN".equals(userRole) && !userPincode.equals(order.getPincode())) {
+        BulkStatusUpdate result = new BulkStatusUpdate(status);
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        List<Order> changed = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + bulkChunkSize, ids.size()));
+            Map<Long, Order> found = new HashMap<>();
+            for (Order order : orderRepository.findByIdIn(chunk)) {
+                found.put(order.getId(), order);
+            }
+            
+            List<Order> allowed = new ArrayList<>(chunk.size());
+            for (Long orderId : chunk) {
+                Order order = found.get(orderId);
+                if (order == null) {
+                    result.add(orderId, BulkStatusUpdate.NOT_FOUND, null);
+                } else if ("ADMIN".equals(userRole) && !Objects.equals(userPincode, order.getPincode())) {
                     logger.warn("Regional admin {} attempted to update unauthorized order ID: {} (pincode: {})", 
                                userPincode, orderId, order.getPincode());
-                    throw new RuntimeException("Access denied for order ID " + orderId + 
-                            ". You can only update orders from your assigned region.");
+                    result.add(orderId, BulkStatusUpdate.ACCESS_DENIED, order.getStatus());
+                } else {
+                    allowed.add(order);
                 }
-                
-                order.setStatus(status);
-                Order updatedOrder = orderRepository.save(order);
-                updatedOrders.add(updatedOrder);
-                
-                logger.debug("Updated order {} to status: {}", orderId, status);
-            } catch (Exception e) {
-                logger.error("Error updating order ID {}: {}", orderId, e.getMessage());
-                throw new RuntimeException("Failed to update order ID " + orderId + ": " + e.getMessage());
             }
+            orderStateMachine.moveAll(allowed, status, result, changed);
+        }
+        
+        if (!changed.isEmpty()) {
+            Map<Long, String> oldStatuses = result.getPreviousStatuses();
+            orderAnalyticsService.recordStatusChanges(changed, oldStatuses);
+            orderPushService.statusesChanged(changed, oldStatuses);
         }
         
-        logger.info("Successfully updated {} orders to status: {}", updatedOrders.size(), status);
-        return updatedOrders;
+        logger.info("Bulk status update to {}: {} of {} orders updated", status, result.getUpdated(), result.getOutcomes().size());
+        return result;
     }    
  
    /**
@@ -570,10 +683,8 @@ public class OrderService {
     public Map<String, Object> getDashboardAnalytics(String userRole, String userPincode) {
         logger.info("Calculating dashboard analytics for role: {}, pincode: {}", userRole, userPincode);
         
-        // Get orders based on role
-        List<Order> orders = "SUPER_ADMIN".equals(userRole) ? 
-                getAllOrders() : 
-                (userPincode != null ? getOrdersByPincode(userPincode) : getAllOrders());
+        // Scope based on role
+        String scopePincode = "SUPER_ADMIN".equals(userRole) ? null : userPincode;
         
         // Get all users count (this would need UserService in real implementation)
         // For now, we'll use a placeholder or get from UserRepository
@@ -594,24 +705,21 @@ public class OrderService {
             totalProducts = 0;
         }
         
-        // Calculate metrics
+        // Calculate metrics from the analytics rollup
         java.time.LocalDate today = java.time.LocalDate.now();
+        OrderAnalyticsService.StatusTotals totals = orderAnalyticsService.getStatusTotals(
+                scopePincode, OrderAnalyticsService.MIN_DATE, OrderAnalyticsService.MAX_DATE);
+        OrderAnalyticsService.StatusTotals todayTotals = orderAnalyticsService.getStatusTotals(scopePincode, today, today);
         
         // Active orders (not delivered or cancelled)
-        long activeOrders = orders.stream()
-                .filter(order -> !"DELIVERED".equals(order.getStatus()) && !"CANCELLED".equals(order.getStatus()))
-                .count();
+        long totalOrders = totals.getOrderCount();
+        long activeOrders = totalOrders - totals.getOrderCount("DELIVERED") - totals.getOrderCount("CANCELLED");
         
         // Today's revenue
-        double todayRevenue = orders.stream()
-                .filter(order -> order.getOrderTime().toLocalDate().equals(today))
-                .mapToDouble(Order::getTotalAmount)
-                .sum();
+        double todayRevenue = todayTotals.getRevenue();
         
         // Total revenue
-        double totalRevenue = orders.stream()
-                .mapToDouble(Order::getTotalAmount)
-                .sum();
+        double totalRevenue = totals.getRevenue();
         
         Map<String, Object> analytics = new HashMap<>();
         analytics.put("totalUsers", totalUsers);
@@ -619,28 +727,23 @@ public class OrderService {
         analytics.put("totalProducts", totalProducts);
         analytics.put("todayRevenue", todayRevenue);
         analytics.put("totalRevenue", totalRevenue);
-        analytics.put("totalOrders", orders.size());
+        analytics.put("totalOrders", totalOrders);
         
         // Additional metrics
-        analytics.put("averageOrderValue", orders.isEmpty() ? 0 : totalRevenue / orders.size());
+        analytics.put("averageOrderValue", totalOrders == 0 ? 0 : totalRevenue / totalOrders);
         
         // Orders by status
-        Map<String, Long> ordersByStatus = orders.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                    Order::getStatus, 
-                    java.util.stream.Collectors.counting()
-                ));
-        analytics.put("ordersByStatus", ordersByStatus);
+        analytics.put("ordersByStatus", totals.getCountsByStatus());
         
         // Recent orders count (last 24 hours)
         java.time.LocalDateTime yesterday = java.time.LocalDateTime.now().minusDays(1);
-        long recentOrdersCount = orders.stream()
-                .filter(order -> order.getOrderTime().isAfter(yesterday))
-                .count();
+        long recentOrdersCount = scopePincode != null ? 
+                orderRepository.countByPincodeAndOrderTimeAfter(scopePincode, yesterday) : 
+                orderRepository.countByOrderTimeAfter(yesterday);
         analytics.put("recentOrdersCount", recentOrdersCount);
         
         logger.info("Dashboard analytics calculated - Total orders: {}, Active orders: {}, Today's revenue: {}", 
-                   orders.size(), activeOrders, todayRevenue);
+                   totalOrders, activeOrders, todayRevenue);
         
         return analytics;
     }
@@ -651,16 +754,11 @@ public class OrderService {
     public List<Map<String, Object>> getRecentActivity(String userRole, String userPincode, int limit) {
         logger.info("Fetching recent activity for role: {}, pincode: {}, limit: {}", userRole, userPincode, limit);
         
-        // Get orders based on role
-        List<Order> orders = "SUPER_ADMIN".equals(userRole) ? 
-                getAllOrders() : 
-                (userPincode != null ? getOrdersByPincode(userPincode) : getAllOrders());
-        
-        // Sort by most recent first and limit
-        List<Order> recentOrders = orders.stream()
-                .sorted((a, b) -> b.getOrderTime().compareTo(a.getOrderTime()))
-                .limit(limit)
-                .collect(java.util.stream.Collectors.toList());
+        // Most recent orders based on role, with their customers, limited in the database
+        org.springframework.data.domain.Pageable latest = org.springframework.data.domain.PageRequest.of(0, Math.max(1, limit));
+        List<Order> recentOrders = !"SUPER_ADMIN".equals(userRole) && userPincode != null ?
+                orderRepository.findRecentWithUserByPincodeOrderByOrderTimeDesc(userPincode, latest) :
+                orderRepository.findRecentWithUserByOrderByOrderTimeDesc(latest);
         
         List<Map<String, Object>> activities = new ArrayList<>();
         
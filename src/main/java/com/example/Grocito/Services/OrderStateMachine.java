@@ -0,0 +1,221 @@
+package com.example.Grocito.Services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Repository.OrderRepository;
+import com.example.Grocito.dto.BulkStatusUpdate;
+
+/**
+ * The order lifecycle, and the only way order statuses change after placing.
+ *
+ * PLACED orders are packed by the store or assigned to a partner; an assigned order is picked up,
+ * taken out for delivery and delivered, or goes back to PLACED when its offer times out. Anything
+ * not yet delivered can be cancelled; DELIVERED and CANCELLED are final.
+ *
+ * Every change is a conditional UPDATE of the status the caller saw (WHERE status = :from), so
+ * nothing is locked and of two changes racing out of one status exactly one wins. move retries
+ * the loser against the status that beat it, as long as the machine still allows the change from
+ * there; claim does not retry, since an order taken by one partner is not there for the next.
+ * moveAll changes many orders with one UPDATE per status they are in, after locking them so it
+ * knows exactly which ones that UPDATE changed.
+ */
+@Component
+public class OrderStateMachine {
+
+    private static final Logger logger = LoggerConfig.getLogger(OrderStateMachine.class);
+
+    // Losing this many races in a row means something is flapping the order
+    private static final int MAX_ATTEMPTS = 8;
+
+    private static final Map<String, Set<String>> TRANSITIONS = Map.of(
+            "PLACED", Set.of("PACKED", "ASSIGNED", "CANCELLED"),
+            "PACKED", Set.of("OUT_FOR_DELIVERY", "CANCELLED"),
+            "ASSIGNED", Set.of("PLACED", "PICKED_UP", "CANCELLED"),
+            "PICKED_UP", Set.of("OUT_FOR_DELIVERY", "CANCELLED"),
+            "OUT_FOR_DELIVERY", Set.of("DELIVERED", "CANCELLED"),
+            "DELIVERED", Set.of(),
+            "CANCELLED", Set.of());
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private final AtomicLong moved = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong lostClaims = new AtomicLong();
+
+    /**
+     * Whether an order may go from one status to the other
+     */
+    public static boolean canMove(String from, String to) {
+        Set<String> next = TRANSITIONS.get(from);
+        return next != null && next.contains(to);
+    }
+
+    /**
+     * Whether a plain status change, one leaving the partner as it is, may take an order from one
+     * status to the other: assigning and unassigning go through claim and the offer withdrawal
+     */
+    public static boolean canSet(String from, String to) {
+        return canMove(from, to) && !"ASSIGNED".equals(to) && !("ASSIGNED".equals(from) && "PLACED".equals(to));
+    }
+
+    public static boolean isFinal(String status) {
+        Set<String> next = TRANSITIONS.get(status);
+        return next != null && next.isEmpty();
+    }
+
+    /**
+     * Move the order to status from whatever it is in now, retrying while other changes get in
+     * first. With a partnerId the order must be assigned to that partner. Returns the status it
+     * moved from; the persistence context is cleared, so the order is read again afterwards.
+     */
+    public String move(Long orderId, String status, Long partnerId) {
+        if ("ASSIGNED".equals(status)) {
+            throw new RuntimeException("Orders are assigned through partner assignment");
+        }
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+        for (int attempt = 1; ; attempt++) {
+            if (partnerId != null && (order.getDeliveryPartner() == null || !partnerId.equals(order.getDeliveryPartner().getId()))) {
+                refused.incrementAndGet();
+                throw new RuntimeException("You are not assigned to this order");
+            }
+            String from = order.getStatus();
+            if (!canSet(from, status)) {
+                refused.incrementAndGet();
+                throw new RuntimeException("Cannot change order status from " + from + " to " + status);
+            }
+            int updated = partnerId == null
+                    ? orderRepository.transition(orderId, from, status)
+                    : orderRepository.transitionForPartner(orderId, partnerId, from, status);
+            if (updated == 1) {
+                moved.incrementAndGet();
+                return from;
+            }
+            if (attempt == MAX_ATTEMPTS) {
+                throw new RuntimeException("Order " + orderId + " kept changing; status not updated to " + status);
+            }
+            retried.incrementAndGet();
+            logger.debug("Order {} changed from {} meanwhile, retrying move to {}", orderId, from, status);
+            // A locking read, so a transaction reading from a snapshot still sees what beat it
+            order = orderRepository.findCurrentById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+        }
+    }
+
+    /**
+     * move for many orders at once, as read by the caller: the orders read in the same status are
+     * locked and those still in it changed with one conditional UPDATE, two statements per status
+     * however many orders. Those that changed since they were read are moved one by
+     * one, like move does. Adds each order's outcome to result, and each order moved, now in
+     * status, to changed. Runs in the caller's transaction, which holds the locks until it ends.
+     */
+    public void moveAll(List<Order> orders, String status, BulkStatusUpdate result, List<Order> changed) {
+        Map<String, List<Order>> byStatus = new LinkedHashMap<>();
+        for (Order order : orders) {
+            if (canSet(order.getStatus(), status)) {
+                byStatus.computeIfAbsent(order.getStatus(), from -> new ArrayList<>()).add(order);
+            } else {
+                refused.incrementAndGet();
+                result.add(order.getId(), BulkStatusUpdate.NOT_ALLOWED, order.getStatus());
+            }
+        }
+        for (Map.Entry<String, List<Order>> group : byStatus.entrySet()) {
+            String from = group.getKey();
+            List<Long> ids = new ArrayList<>(group.getValue().size());
+            for (Order order : group.getValue()) {
+                ids.add(order.getId());
+            }
+            // Locked first, so no other change gets in between and exactly those still in from are updated
+            List<Order> ours = new ArrayList<>();
+            List<Order> stale = new ArrayList<>();
+            for (Order current : orderRepository.findLockedByIdIn(ids)) {
+                if (from.equals(current.getStatus())) {
+                    ours.add(current);
+                } else {
+                    stale.add(current);
+                }
+            }
+            if (!ours.isEmpty()) {
+                List<Long> ourIds = new ArrayList<>(ours.size());
+                for (Order order : ours) {
+                    ourIds.add(order.getId());
+                }
+                int updated = orderRepository.transitionAll(ourIds, from, status);
+                if (updated != ourIds.size()) {
+                    throw new IllegalStateException("Locked orders changed under a bulk update to " + status);
+                }
+                moved.addAndGet(updated);
+            }
+            for (Order order : ours) {
+                // The locked copy, which the UPDATE detached
+                order.setStatus(status);
+                result.add(order.getId(), BulkStatusUpdate.UPDATED, from);
+                changed.add(order);
+            }
+            // Changed since the caller read them; they go one by one
+            for (Order current : stale) {
+                retried.incrementAndGet();
+                try {
+                    String previous = move(current.getId(), status, null);
+                    result.add(current.getId(), BulkStatusUpdate.UPDATED, previous);
+                    changed.add(orderRepository.findById(current.getId()).orElseThrow());
+                } catch (RuntimeException e) {
+                    result.add(current.getId(), BulkStatusUpdate.NOT_ALLOWED, current.getStatus());
+                }
+            }
+        }
+    }
+
+    /**
+     * Assign a PLACED order to partner in a single conditional UPDATE. Of any number of partners
+     * claiming the same order exactly one gets true.
+     */
+    public boolean claim(Long orderId, DeliveryPartnerAuth partner, double deliveryFee, double partnerEarning,
+            LocalDateTime offerExpiresAt) {
+        if (orderRepository.claim(orderId, partner, LocalDateTime.now(), deliveryFee, partnerEarning, offerExpiresAt) == 1) {
+            claimed.incrementAndGet();
+            return true;
+        }
+        lostClaims.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Count a claim given up before its UPDATE because the order was read no longer PLACED, so
+     * lostClaims covers every partner that lost an order, whichever side of the UPDATE it lost on
+     */
+    public void lostClaim() {
+        lostClaims.incrementAndGet();
+    }
+
+    public Map<String, Object> getStats() {
+        long moves = moved.get();
+        long claims = claimed.get();
+        long lost = lostClaims.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("moved", moves);
+        stats.put("retried", retried.get());
+        stats.put("refused", refused.get());
+        stats.put("retryRate", moves == 0 ? 0.0 : (double) retried.get() / moves);
+        stats.put("claimed", claims);
+        stats.put("lostClaims", lost);
+        stats.put("lostClaimRate", claims + lost == 0 ? 0.0 : (double) lost / (claims + lost));
+        return stats;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.Grocito.config.LoggerConfig;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Which delivery partners are online, and which of them can take another order, per pincode.
+ *
+ * Partners are kept as primitive ids in ConcurrentLongMaps: when each was last seen, its pincode,
+ * and one set of available partners per pincode. A heartbeat is a single CAS on the last-seen
+ * time, and membership checks are one hash probe. Going online or offline, and filling up or
+ * freeing a slot, lock one of LOCK_STRIPES stripes picked by partner id, so changes to one
+ * partner are applied in order while other partners go ahead.
+ *
+ * Staleness is found by a timing wheel of grocito.partners.availability.tick-ms buckets covering
+ * grocito.partners.availability.ttl-ms, not by scanning on every read. A partner is put in the
+ * bucket of its deadline when it comes online; heartbeats only move its last-seen time. When the
+ * bucket comes up, a partner seen since is put back in the bucket of its new deadline, and one
+ * that was not is dropped. Each partner is looked at about once per TTL, however often it beats.
+ */
+@Component
+public class PartnerAvailabilityRegistry {
+
+    private static final Logger logger = LoggerConfig.getLogger(PartnerAvailabilityRegistry.class);
+
+    private static final long MISSING = ConcurrentLongMap.MISSING;
+    // Last-seen value of a partner that went offline while still in the wheel
+    private static final long OFFLINE = -2;
+    private static final long PRESENT = 1;
+    private static final int LOCK_STRIPES = 64;
+
+    @Value("${grocito.partners.availability.ttl-ms:300000}")
+    private long ttlMs = 300_000;
+
+    @Value("${grocito.partners.availability.tick-ms:1000}")
+    private long tickMs = 1_000;
+
+    private final ConcurrentLongMap lastSeen = new ConcurrentLongMap(1024);
+    // Partner to the index of its pincode in availableByPincode
+    private final ConcurrentLongMap homes = new ConcurrentLongMap(1024);
+    private final Map<String, Integer> pincodeIndexes = new ConcurrentHashMap<>();
+    private final List<ConcurrentLongMap> availableByPincode = new CopyOnWriteArrayList<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private LongSupplier clock = System::currentTimeMillis;
+    private TimingWheel wheel;
+
+    public PartnerAvailabilityRegistry() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * A registry outside Spring, for benchmarks
+     */
+    public PartnerAvailabilityRegistry(long ttlMs, long tickMs) {
+        this(ttlMs, tickMs, System::currentTimeMillis);
+    }
+
+    /**
+     * A registry outside Spring, reading the time from clock
+     */
+    PartnerAvailabilityRegistry(long ttlMs, long tickMs, LongSupplier clock) {
+        this();
+        this.ttlMs = ttlMs;
+        this.tickMs = tickMs;
+        this.clock = clock;
+        start();
+    }
+
+    @PostConstruct
+    void start() {
+        wheel = new TimingWheel(ttlMs, tickMs, clock.getAsLong());
+    }
+
+    /**
+     * Partner went online in pincode, and can take orders
+     */
+    public void online(long partnerId, String pincode) {
+        long now = clock.getAsLong();
+        int home = pincodeIndex(pincode);
+        synchronized (lockFor(partnerId)) {
+            long previousHome = homes.put(partnerId, home);
+            if (previousHome != MISSING && previousHome != home) {
+                availableByPincode.get((int) previousHome).remove(partnerId);
+            }
+            availableByPincode.get(home).put(partnerId, PRESENT);
+            if (lastSeen.put(partnerId, now) == MISSING) {
+                wheel.schedule(partnerId, now + ttlMs);
+            }
+        }
+    }
+
+    /**
+     * Partner went offline
+     */
+    public void offline(long partnerId) {
+        synchronized (lockFor(partnerId)) {
+            long home = homes.get(partnerId);
+            if (home != MISSING) {
+                availableByPincode.get((int) home).remove(partnerId);
+            }
+            if (lastSeen.get(partnerId) != MISSING) {
+                // Its wheel entry drops it when it comes up
+                lastSeen.put(partnerId, OFFLINE);
+            }
+        }
+    }
+
+    /**
+     * Partner is still there. Returns false for a partner that is not online.
+     */
+    public boolean heartbeat(long partnerId) {
+        long now = clock.getAsLong();
+        while (true) {
+            long seen = lastSeen.get(partnerId);
+            if (seen == MISSING || seen == OFFLINE) {
+                return false;
+            }
+            if (seen >= now || lastSeen.replace(partnerId, seen, now)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Partner cannot take more orders for now; it stays online
+     */
+    public void busy(long partnerId) {
+        synchronized (lockFor(partnerId)) {
+            long home = homes.get(partnerId);
+            if (home != MISSING) {
+                availableByPincode.get((int) home).remove(partnerId);
+            }
+        }
+    }
+
+    /**
+     * Partner can take orders again. Returns whether it was made available, which it is not
+     * when it has gone offline meanwhile.
+     */
+    public boolean free(long partnerId) {
+        synchronized (lockFor(partnerId)) {
+            long home = homes.get(partnerId);
+            if (home == MISSING || !isOnline(partnerId)) {
+                return false;
+            }
+            return availableByPincode.get((int) home).put(partnerId, PRESENT) == MISSING;
+        }
+    }
+
+    public boolean isOnline(long partnerId) {
+        long seen = lastSeen.get(partnerId);
+        return seen != MISSING && seen != OFFLINE;
+    }
+
+    /**
+     * Whether the partner is online and can take orders
+     */
+    public boolean isAvailable(long partnerId) {
+        long home = homes.get(partnerId);
+        return home != MISSING && availableByPincode.get((int) home).containsKey(partnerId);
+    }
+
+    /**
+     * Partners of pincode that can take orders
+     */
+    public List<Long> available(String pincode) {
+        Integer index = pincodeIndexes.get(pincode);
+        if (index == null) {
+            return List.of();
+        }
+        ConcurrentLongMap members = availableByPincode.get(index);
+        List<Long> partners = new ArrayList<>(members.size());
+        members.forEachKey(partners::add);
+        return partners;
+    }
+
+    public int availableCount(String pincode) {
+        Integer index = pincodeIndexes.get(pincode);
+        return index == null ? 0 : availableByPincode.get(index).size();
+    }
+
+    /**
+     * Turns the wheel to now
+     */
+    @Scheduled(fixedDelayString = "${grocito.partners.availability.tick-ms:1000}")
+    public void expireStale() {
+        try {
+            int expired = advance(clock.getAsLong());
+            if (expired > 0) {
+                logger.info("{} delivery partners went offline after no heartbeat for {} ms", expired, ttlMs);
+            }
+        } catch (Exception e) {
+            logger.error("Partner availability expiry failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Process the buckets of every tick up to now; returns how many partners were dropped
+     */
+    public int advance(long now) {
+        int[] expired = new int[1];
+        wheel.advance(now, partnerId -> {
+            if (check(partnerId, now)) {
+                expired[0]++;
+            }
+        });
+        return expired[0];
+    }
+
+    private boolean check(long partnerId, long now) {
+        synchronized (lockFor(partnerId)) {
+            long seen = lastSeen.get(partnerId);
+            if (seen == MISSING) {
+                return false;
+            }
+            if (seen != OFFLINE && seen + ttlMs > now) {
+                wheel.schedule(partnerId, seen + ttlMs);
+                return false;
+            }
+            long home = homes.get(partnerId);
+            if (home != MISSING) {
+                availableByPincode.get((int) home).remove(partnerId);
+            }
+            lastSeen.remove(partnerId);
+            homes.remove(partnerId);
+            return seen != OFFLINE;
+        }
+    }
+
+    private int pincodeIndex(String pincode) {
+        return pincodeIndexes.computeIfAbsent(pincode, key -> {
+            synchronized (availableByPincode) {
+                availableByPincode.add(new ConcurrentLongMap());
+                return availableByPincode.size() - 1;
+            }
+        });
+    }
+
+    private Object lockFor(long partnerId) {
+        return locks[(int) (partnerId & (LOCK_STRIPES - 1))];
+    }
+}
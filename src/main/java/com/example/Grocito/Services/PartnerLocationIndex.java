@@ -0,0 +1,351 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.Grocito.config.LoggerConfig;
+
+/**
+ * In-memory positions of online delivery partners, for nearest-partner lookups without touching
+ * the database. Partners are known by their delivery_partner_auth id, the one orders are
+ * assigned to, whichever endpoint they came in through.
+ *
+ * Partners are bucketed in a grid of grocito.partners.location.cell-degrees cells (about 1.1 km
+ * at the default 0.01). A move within a cell only replaces the partner's entry; a move across
+ * cells also moves it between two cell maps. nearest searches rings of cells outwards from the
+ * query point and stops as soon as no unvisited cell can hold anything closer than what it has.
+ * Partners not seen (moved, touched or brought online) for grocito.partners.location.ttl-ms are
+ * left out of lookups and swept away.
+ */
+@Component
+public class PartnerLocationIndex {
+
+    private static final Logger logger = LoggerConfig.getLogger(PartnerLocationIndex.class);
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final long NO_CELL = Long.MIN_VALUE;
+    private static final int MAX_RINGS = 1000;
+
+    @Value("${grocito.partners.location.cell-degrees:0.01}")
+    private double cellDegrees = 0.01;
+
+    @Value("${grocito.partners.location.ttl-ms:300000}")
+    private long ttlMs = 300_000;
+
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+    // The same entries again, by cell, so a lookup reads positions straight from the cells it visits
+    private final Map<Long, Map<Long, Position>> cells = new ConcurrentHashMap<>();
+
+    public PartnerLocationIndex() {
+    }
+
+    /**
+     * An index outside Spring, for benchmarks
+     */
+    public PartnerLocationIndex(double cellDegrees, long ttlMs) {
+        this.cellDegrees = cellDegrees;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Where a partner was last seen. Replaced, never changed, so readers need no lock.
+     */
+    private static final class Position {
+
+        final String pincode;
+        final double rating;
+        final double latitude;
+        final double longitude;
+        final long cell;
+        final long seenAtMillis;
+
+        Position(String pincode, double rating, double latitude, double longitude, long cell, long seenAtMillis) {
+            this.pincode = pincode;
+            this.rating = rating;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = cell;
+            this.seenAtMillis = seenAtMillis;
+        }
+    }
+
+    /**
+     * An online partner near a lookup point
+     */
+    public static final class Candidate {
+
+        private final long partnerId;
+        private final String pincode;
+        private final double latitude;
+        private final double longitude;
+        private final double rating;
+        private final double distanceKm;
+
+        Candidate(long partnerId, Position position, double distanceKm) {
+            this(partnerId, position.pincode, position.latitude, position.longitude, position.rating, distanceKm);
+        }
+
+        Candidate(long partnerId, String pincode, double latitude, double longitude, double rating, double distanceKm) {
+            this.partnerId = partnerId;
+            this.pincode = pincode;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.rating = rating;
+            this.distanceKm = distanceKm;
+        }
+
+        public long getPartnerId() {
+            return partnerId;
+        }
+
+        public String getPincode() {
+            return pincode;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        /**
+         * Average rating, or NaN when not known
+         */
+        public double getRating() {
+            return rating;
+        }
+
+        /**
+         * Distance from the lookup point, or NaN when the lookup had none
+         */
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    /**
+     * Start tracking a partner who went online in pincode. Its last known position, if any, is
+     * kept; rating may be null to keep the known one.
+     */
+    public void online(Long partnerId, String pincode, Double rating) {
+        long now = System.currentTimeMillis();
+        positions.compute(partnerId, (id, current) -> current == null
+                ? new Position(pincode, rating == null ? Double.NaN : rating, Double.NaN, Double.NaN, NO_CELL, now)
+                : place(id, current, new Position(pincode, rating == null ? current.rating : rating,
+                        current.latitude, current.longitude, current.cell, now)));
+    }
+
+    /**
+     * Stop tracking a partner
+     */
+    public void offline(Long partnerId) {
+        positions.computeIfPresent(partnerId, (id, current) -> {
+            leaveCell(id, current.cell);
+            return null;
+        });
+    }
+
+    /**
+     * Record where an online partner is now. Returns false, and records nothing, for a partner
+     * that is not online.
+     */
+    public boolean moveTo(Long partnerId, double latitude, double longitude) {
+        long cell = cellOf(latitude, longitude);
+        long now = System.currentTimeMillis();
+        return positions.computeIfPresent(partnerId, (id, current) ->
+                place(id, current, new Position(current.pincode, current.rating, latitude, longitude, cell, now))) != null;
+    }
+
+    /**
+     * Record that an online partner is still there, without a new position
+     */
+    public void touch(Long partnerId) {
+        long now = System.currentTimeMillis();
+        positions.computeIfPresent(partnerId, (id, current) ->
+                place(id, current, new Position(current.pincode, current.rating, current.latitude, current.longitude, current.cell, now)));
+    }
+
+    /**
+     * Up to k online partners of pincode (any pincode if null) within maxKm of a point, nearest
+     * first
+     */
+    public List<Candidate> nearest(double latitude, double longitude, int k, double maxKm, String pincode) {
+        if (k < 1) {
+            return List.of();
+        }
+        long oldest = System.currentTimeMillis() - ttlMs;
+        int latIndex = index(latitude);
+        int lonIndex = index(longitude);
+        // Cells are narrowest east to west, and narrower still towards the pole; no point r rings
+        // out is nearer than r - 1 of the narrowest widths within maxKm
+        double poleward = Math.min(Math.abs(latitude) + maxKm / KM_PER_DEGREE + cellDegrees, 90);
+        double cellKm = cellDegrees * KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(poleward)), 1e-6);
+        int maxRing = (int) Math.min(MAX_RINGS, Math.ceil(maxKm / cellKm) + 1);
+        // Ranked on the local flat-earth distance, off by well under a metre within a few km
+        double lonScale = Math.cos(Math.toRadians(latitude));
+
+        // Farthest of the best k on top
+        PriorityQueue<Candidate> best = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Candidate::getDistanceKm).reversed());
+        for (int ring = 0; ring <= maxRing; ring++) {
+            double ringKm = (ring - 1) * cellKm;
+            if (ringKm > maxKm || (best.size() == k && ringKm > best.peek().getDistanceKm())) {
+                break;
+            }
+            for (int dy = -ring; dy <= ring; dy++) {
+                // Inner rows of the ring have only its two edge cells
+                int step = Math.abs(dy) == ring ? 1 : 2 * ring;
+                for (int dx = -ring; dx <= ring; dx += step) {
+                    Map<Long, Position> partners = cells.get(cellKey(latIndex + dy, lonIndex + dx));
+                    if (partners == null) {
+                        continue;
+                    }
+                    for (Map.Entry<Long, Position> entry : partners.entrySet()) {
+                        Position position = entry.getValue();
+                        if (position.seenAtMillis < oldest || (pincode != null && !pincode.equals(position.pincode))) {
+                            continue;
+                        }
+                        double dLat = position.latitude - latitude;
+                        double dLon = (position.longitude - longitude) * lonScale;
+                        double distance = Math.sqrt(dLat * dLat + dLon * dLon) * KM_PER_DEGREE;
+                        if (distance > maxKm) {
+                            continue;
+                        }
+                        if (best.size() < k) {
+                            best.add(new Candidate(entry.getKey(), position, distance));
+                        } else if (distance < best.peek().getDistanceKm()) {
+                            best.poll();
+                            best.add(new Candidate(entry.getKey(), position, distance));
+                        }
+                    }
+                }
+            }
+        }
+        List<Candidate> nearest = new ArrayList<>(best.size());
+        for (Candidate candidate : best) {
+            nearest.add(new Candidate(candidate.partnerId, candidate.pincode, candidate.latitude, candidate.longitude, candidate.rating,
+                    distanceKm(latitude, longitude, candidate.latitude, candidate.longitude)));
+        }
+        nearest.sort(Comparator.comparingDouble(Candidate::getDistanceKm));
+        return nearest;
+    }
+
+    /**
+     * Every online partner of pincode, whether or not its position is known
+     */
+    public List<Candidate> inPincode(String pincode) {
+        long oldest = System.currentTimeMillis() - ttlMs;
+        List<Candidate> partners = new ArrayList<>();
+        positions.forEach((partnerId, position) -> {
+            if (position.seenAtMillis >= oldest && pincode.equals(position.pincode)) {
+                partners.add(new Candidate(partnerId, position, Double.NaN));
+            }
+        });
+        return partners;
+    }
+
+    /**
+     * Whether a partner is online and was seen within the TTL
+     */
+    public boolean isOnline(Long partnerId) {
+        Position position = positions.get(partnerId);
+        return position != null && position.seenAtMillis >= System.currentTimeMillis() - ttlMs;
+    }
+
+    /**
+     * Number of partners tracked
+     */
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Drops partners that went quiet without going offline
+     */
+    @Scheduled(fixedDelayString = "${grocito.partners.location.sweep-interval-ms:60000}")
+    public void evictStale() {
+        long oldest = System.currentTimeMillis() - ttlMs;
+        int before = positions.size();
+        for (Long partnerId : positions.keySet()) {
+            positions.computeIfPresent(partnerId, (id, current) -> {
+                if (current.seenAtMillis >= oldest) {
+                    return current;
+                }
+                leaveCell(id, current.cell);
+                return null;
+            });
+        }
+        int evicted = before - positions.size();
+        if (evicted > 0) {
+            logger.info("Dropped {} delivery partners not seen for {} ms", evicted, ttlMs);
+        }
+    }
+
+    /**
+     * Great-circle distance between two points in kilometres
+     */
+    static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLat = Math.toRadians(latitude2 - latitude1);
+        double dLon = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Mirror a partner's new entry in the cells; called under the partner's lock in positions,
+     * so its entry and its cell always agree
+     */
+    private Position place(Long partnerId, Position current, Position next) {
+        if (current.cell == next.cell) {
+            Map<Long, Position> members = next.cell == NO_CELL ? null : cells.get(next.cell);
+            if (members != null) {
+                members.put(partnerId, next);
+            }
+            return next;
+        }
+        if (next.cell != NO_CELL) {
+            // Added under the cell's lock, so a partner leaving it cannot drop the map meanwhile
+            cells.compute(next.cell, (key, partners) -> {
+                Map<Long, Position> members = partners == null ? new ConcurrentHashMap<>() : partners;
+                members.put(partnerId, next);
+                return members;
+            });
+        }
+        leaveCell(partnerId, current.cell);
+        return next;
+    }
+
+    private void leaveCell(Long partnerId, long cell) {
+        if (cell == NO_CELL) {
+            return;
+        }
+        cells.computeIfPresent(cell, (key, partners) -> {
+            partners.remove(partnerId);
+            return partners.isEmpty() ? null : partners;
+        });
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return cellKey(index(latitude), index(longitude));
+    }
+
+    private int index(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xffffffffL);
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.Grocito.Services;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.Grocito.config.LoggerConfig;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Heartbeats and location updates of delivery partners, taken in memory and written to
+ * delivery_partners later.
+ *
+ * Pings come under two ids: record takes the delivery_partners id, as the admin and partner
+ * profile endpoints know it, and recordForAuth the delivery_partner_auth id the dashboard token
+ * carries. They are kept apart and written by id and by auth_id respectively, so neither is
+ * ever taken for the other. Either keeps the partner's latest position and last-seen time and
+ * marks it dirty; nothing is written then, so a partner pinging every few seconds costs a map
+ * update. Every grocito.partners.location.flush-interval-ms the dirty partners are written with
+ * narrow UPDATEs of the location and last-active columns, in JDBC batches of
+ * grocito.partners.location.batch-size. However many pings a partner sent since the last flush,
+ * only the latest is written, and not over a row seen more recently, which a ping under the
+ * partner's other id may have done. Online partners are moved in the PartnerLocationIndex,
+ * which knows them by auth id, as pings come in.
+ *
+ * A failed flush marks its partners dirty again, so they are retried with whatever is latest by
+ * then. Pings not yet flushed when the process dies are lost, so the flush interval bounds that
+ * window; they are flushed on shutdown.
+ */
+@Component
+public class PartnerLocationIngest {
+
+    private static final Logger logger = LoggerConfig.getLogger(PartnerLocationIngest.class);
+
+    private static final String LOCATION_SQL = "UPDATE delivery_partners SET current_latitude = ?, current_longitude = ?, "
+            + "last_active_at = ?, updated_at = ? WHERE %s = ? AND (last_active_at IS NULL OR last_active_at <= ?)";
+    private static final String SEEN_SQL = "UPDATE delivery_partners SET last_active_at = ?, updated_at = ? "
+            + "WHERE %s = ? AND (last_active_at IS NULL OR last_active_at <= ?)";
+    private static final String AUTH_ID_SQL = "SELECT auth_id FROM delivery_partners WHERE id = ?";
+    // What authIdOf gives for a partner without a login, and for an id with no partner
+    private static final long NO_AUTH = 0L;
+    private static final long NO_PARTNER = -1L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PartnerLocationIndex partnerLocationIndex;
+
+    @Value("${grocito.partners.location.batch-size:500}")
+    private int batchSize;
+
+    private final Pings byPartner = new Pings("id");
+    private final Pings byAuth = new Pings("auth_id");
+    // Auth id of each delivery_partners id pinged or brought online, for the location index, or
+    // NO_AUTH or NO_PARTNER, so a partner without a login or an unknown id is not read per ping
+    private final Map<Long, Long> authIds = new ConcurrentHashMap<>();
+
+    // One flush at a time, so a slow flush is not overtaken by the next with older pings
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final LongAdder pings = new LongAdder();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+
+    /**
+     * A partner's latest ping. Replaced, never changed, so readers need no lock.
+     */
+    public static final class Ping {
+
+        private final double latitude;
+        private final double longitude;
+        private final long seenAtMillis;
+
+        Ping(double latitude, double longitude, long seenAtMillis) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.seenAtMillis = seenAtMillis;
+        }
+
+        /**
+         * Whether a position is known; a bare heartbeat after one keeps it
+         */
+        public boolean hasPosition() {
+            return !Double.isNaN(latitude);
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public long getSeenAtMillis() {
+            return seenAtMillis;
+        }
+
+        // This ping coming after previous
+        Ping after(Ping previous) {
+            return hasPosition() ? this : new Ping(previous.latitude, previous.longitude, seenAtMillis);
+        }
+    }
+
+    /**
+     * Latest pings under one kind of id, and which of them are not written yet
+     */
+    private static final class Pings {
+
+        final String locationSql;
+        final String seenSql;
+        final Map<Long, Ping> latest = new ConcurrentHashMap<>();
+        final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+        Pings(String idColumn) {
+            this.locationSql = String.format(LOCATION_SQL, idColumn);
+            this.seenSql = String.format(SEEN_SQL, idColumn);
+        }
+
+        void record(Long id, Double latitude, Double longitude, long now) {
+            Ping ping = latitude != null && longitude != null
+                    ? new Ping(latitude, longitude, now)
+                    : new Ping(Double.NaN, Double.NaN, now);
+            latest.merge(id, ping, (previous, next) -> next.after(previous));
+            dirty.add(id);
+        }
+    }
+
+    /**
+     * Partner, by delivery_partners id, is still there, at latitude and longitude when both are
+     * given; false, and nothing recorded, when there is no such partner
+     */
+    public boolean record(Long partnerId, Double latitude, Double longitude) {
+        long authId = authIdOf(partnerId);
+        if (authId == NO_PARTNER) {
+            return false;
+        }
+        byPartner.record(partnerId, latitude, longitude, clock.getAsLong());
+        pings.increment();
+        if (authId != NO_AUTH) {
+            index(authId, latitude, longitude);
+        }
+        return true;
+    }
+
+    /**
+     * Partner, by delivery_partner_auth id, is still there, at latitude and longitude when both
+     * are given
+     */
+    public void recordForAuth(Long authId, Double latitude, Double longitude) {
+        byAuth.record(authId, latitude, longitude, clock.getAsLong());
+        pings.increment();
+        index(authId, latitude, longitude);
+    }
+
+    /**
+     * The delivery_partners row partnerId logs in as authId, or has no login when it is null, as
+     * read when it was saved
+     */
+    public void linkAuth(Long partnerId, Long authId) {
+        authIds.put(partnerId, authId == null ? NO_AUTH : authId);
+    }
+
+    /**
+     * The latest ping since startup under the partner's delivery_partners id, flushed or not, or
+     * null
+     */
+    public Ping latest(Long partnerId) {
+        return byPartner.latest.get(partnerId);
+    }
+
+    /**
+     * The latest ping since startup under the partner's auth id, flushed or not, or null
+     */
+    public Ping latestForAuth(Long authId) {
+        return byAuth.latest.get(authId);
+    }
+
+    /**
+     * Partners with pings not yet written
+     */
+    public int pending() {
+        return byPartner.dirty.size() + byAuth.dirty.size();
+    }
+
+    /**
+     * Read the time pings are seen at from clock, for tests
+     */
+    void useClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Write the latest ping of every dirty partner; returns how many partners were written
+     */
+    @Scheduled(fixedDelayString = "${grocito.partners.location.flush-interval-ms:1000}")
+    public int flush() {
+        if (byPartner.dirty.isEmpty() && byAuth.dirty.isEmpty()) {
+            return 0;
+        }
+        flushLock.lock();
+        try {
+            long started = System.nanoTime();
+            int written = flush(byPartner) + flush(byAuth);
+            flushes.incrementAndGet();
+            rowsWritten.addAndGet(written);
+            totalFlushNanos.addAndGet(System.nanoTime() - started);
+            logger.debug("Flushed pings of delivery partners, {} rows written", written);
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    public Map<String, Object> getStats() {
+        long nanos = totalFlushNanos.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pings", pings.sum());
+        stats.put("flushes", flushes.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("rowsWritten", rowsWritten.get());
+        stats.put("pending", pending());
+        stats.put("rowsPerSecond", nanos == 0 ? 0 : rowsWritten.get() * 1_000_000_000L / nanos);
+        return stats;
+    }
+
+    private int flush(Pings pending) {
+        List<Long> taken = new ArrayList<>();
+        try {
+            List<Long> located = new ArrayList<>();
+            List<Object[]> locationBatch = new ArrayList<>();
+            List<Long> seen = new ArrayList<>();
+            List<Object[]> seenBatch = new ArrayList<>();
+            for (Long id : pending.dirty) {
+                // Taken off before reading, so a ping recorded meanwhile marks the partner again
+                if (!pending.dirty.remove(id)) {
+                    continue;
+                }
+                taken.add(id);
+                Ping ping = pending.latest.get(id);
+                Timestamp seenAt = new Timestamp(ping.seenAtMillis);
+                if (ping.hasPosition()) {
+                    located.add(id);
+                    locationBatch.add(new Object[] { ping.latitude, ping.longitude, seenAt, seenAt, id, seenAt });
+                } else {
+                    seen.add(id);
+                    seenBatch.add(new Object[] { seenAt, seenAt, id, seenAt });
+                }
+            }
+            return write(pending, pending.locationSql, locationBatch, located)
+                    + write(pending, pending.seenSql, seenBatch, seen);
+        } catch (RuntimeException e) {
+            // Retried next time with whatever is latest by then
+            pending.dirty.addAll(taken);
+            failedFlushes.incrementAndGet();
+            logger.error("Partner location flush failed: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    private int write(Pings pending, String sql, List<Object[]> rows, List<Long> ids) {
+        int written = 0;
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, rows.size());
+            int[] counts = jdbcTemplate.batchUpdate(sql, rows.subList(from, to));
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    // No such row, or one seen more recently; forget the ping unless another came meanwhile
+                    Long id = ids.get(from + i);
+                    pending.latest.computeIfPresent(id, (key, ping) -> pending.dirty.contains(key) ? ping : null);
+                } else {
+                    written++;
+                }
+            }
+        }
+        return written;
+    }
+
+    private void index(Long authId, Double latitude, Double longitude) {
+        if (latitude != null && longitude != null) {
+            partnerLocationIndex.moveTo(authId, latitude, longitude);
+        } else {
+            partnerLocationIndex.touch(authId);
+        }
+    }
+
+    // Read once per id, found or not; linkAuth replaces it when the partner is saved
+    private long authIdOf(Long partnerId) {
+        Long authId = authIds.get(partnerId);
+        if (authId == null) {
+            List<Long> found = jdbcTemplate.queryForList(AUTH_ID_SQL, Long.class, partnerId);
+            authId = found.isEmpty() ? NO_PARTNER : found.get(0) == null ? NO_AUTH : found.get(0);
+            authIds.putIfAbsent(partnerId, authId);
+        }
+        return authId;
+    }
+}
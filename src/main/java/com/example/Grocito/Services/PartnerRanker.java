@@ -0,0 +1,195 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.Repository.OrderRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Ranks the online partners of a pincode for an order: the grocito.assignment.candidates nearest
+ * to the pickup point (from the PartnerLocationIndex), scored by
+ *
+ *   distance in km * weight.distance-km + active orders * weight.active-order
+ *     + (5 - rating) * weight.rating
+ *
+ * lowest first. Partners already at MAX_ACTIVE_ORDERS are left out. The pickup point is given by
+ * the caller or configured per pincode in grocito.assignment.pickup-points
+ * ("411001=18.5204:73.8567,..."); without one, every online partner of the pincode is ranked on
+ * load and rating alone.
+ */
+@Component
+public class PartnerRanker {
+
+    private static final Logger logger = LoggerConfig.getLogger(PartnerRanker.class);
+
+    /**
+     * Orders a partner may carry at once
+     */
+    static final int MAX_ACTIVE_ORDERS = 2;
+
+    static final List<String> ACTIVE_STATUSES = List.of("ASSIGNED", "PICKED_UP", "OUT_FOR_DELIVERY");
+
+    // New partners start at 0.0; score them as a typical partner until they have ratings
+    private static final double UNRATED = 4.0;
+
+    @Autowired
+    private PartnerLocationIndex partnerLocationIndex;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${grocito.assignment.candidates:8}")
+    private int candidateCount;
+
+    @Value("${grocito.assignment.max-distance-km:10}")
+    private double maxDistanceKm;
+
+    @Value("${grocito.assignment.weight.distance-km:1.0}")
+    private double distanceWeight;
+
+    @Value("${grocito.assignment.weight.active-order:2.0}")
+    private double loadWeight;
+
+    @Value("${grocito.assignment.weight.rating:0.5}")
+    private double ratingWeight;
+
+    @Value("${grocito.assignment.pickup-points:}")
+    private String pickupPointsSpec;
+
+    private final Map<String, double[]> pickupPoints = new HashMap<>();
+
+    /**
+     * A partner that could take the order, lowest score first
+     */
+    public static final class RankedPartner {
+
+        private final long partnerId;
+        private final double distanceKm;
+        private final long activeOrders;
+        private final double rating;
+        private final double score;
+
+        RankedPartner(long partnerId, double distanceKm, long activeOrders, double rating, double score) {
+            this.partnerId = partnerId;
+            this.distanceKm = distanceKm;
+            this.activeOrders = activeOrders;
+            this.rating = rating;
+            this.score = score;
+        }
+
+        public long getPartnerId() {
+            return partnerId;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+
+        public long getActiveOrders() {
+            return activeOrders;
+        }
+
+        public double getRating() {
+            return rating;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    @PostConstruct
+    void parsePickupPoints() {
+        for (String entry : pickupPointsSpec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            try {
+                String[] pincodeAndPoint = entry.trim().split("=");
+                String[] point = pincodeAndPoint[1].split(":");
+                pickupPoints.put(pincodeAndPoint[0].trim(), new double[] { Double.parseDouble(point[0]), Double.parseDouble(point[1]) });
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring pickup point '{}', expected pincode=latitude:longitude", entry);
+            }
+        }
+    }
+
+    /**
+     * Configured pickup point of a pincode as { latitude, longitude }, or null
+     */
+    public double[] pickupPoint(String pincode) {
+        return pickupPoints.get(pincode);
+    }
+
+    /**
+     * Online partners of pincode below the active order limit, best first. latitude and
+     * longitude are the pickup point, or null for the pincode's configured one.
+     */
+    public List<RankedPartner> rank(String pincode, Double latitude, Double longitude) {
+        double[] point = latitude != null && longitude != null ? new double[] { latitude, longitude } : pickupPoint(pincode);
+        if (point == null) {
+            return rank(partnerLocationIndex.inPincode(pincode));
+        }
+        List<PartnerLocationIndex.Candidate> nearest = partnerLocationIndex.nearest(point[0], point[1], candidateCount, maxDistanceKm, pincode);
+        List<RankedPartner> ranked = rank(nearest);
+        if (ranked.isEmpty() && nearest.size() == candidateCount) {
+            // All of the nearest are busy; look a little further out once
+            ranked = rank(partnerLocationIndex.nearest(point[0], point[1], candidateCount * 4, maxDistanceKm, pincode));
+        }
+        return ranked;
+    }
+
+    /**
+     * Active orders of each partner, with one query. Partners without any are left out.
+     */
+    public Map<Long, Long> activeOrders(Collection<Long> partnerIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (partnerIds.isEmpty()) {
+            return counts;
+        }
+        for (Object[] row : orderRepository.countActiveByDeliveryPartnerIdIn(partnerIds, ACTIVE_STATUSES)) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Cost of giving an order to a partner; distanceKm may be NaN when there is no pickup point
+     * and rating NaN or 0 when the partner has none
+     */
+    public double score(double distanceKm, long activeOrders, double rating) {
+        double knownRating = Double.isNaN(rating) || rating <= 0 ? UNRATED : Math.min(rating, 5);
+        return (Double.isNaN(distanceKm) ? 0 : distanceKm * distanceWeight) + activeOrders * loadWeight
+                + (5 - knownRating) * ratingWeight;
+    }
+
+    private List<RankedPartner> rank(List<PartnerLocationIndex.Candidate> candidates) {
+        List<Long> ids = new ArrayList<>(candidates.size());
+        candidates.forEach(candidate -> ids.add(candidate.getPartnerId()));
+        Map<Long, Long> load = activeOrders(ids);
+
+        List<RankedPartner> ranked = new ArrayList<>(candidates.size());
+        for (PartnerLocationIndex.Candidate candidate : candidates) {
+            long active = load.getOrDefault(candidate.getPartnerId(), 0L);
+            if (active >= MAX_ACTIVE_ORDERS) {
+                continue;
+            }
+            ranked.add(new RankedPartner(candidate.getPartnerId(), candidate.getDistanceKm(), active, candidate.getRating(),
+                    score(candidate.getDistanceKm(), active, candidate.getRating())));
+        }
+        ranked.sort(Comparator.comparingDouble(RankedPartner::getScore).thenComparingLong(RankedPartner::getPartnerId));
+        return ranked;
+    }
+}
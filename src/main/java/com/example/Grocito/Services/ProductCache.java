@@ -0,0 +1,322 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.Grocito.Entity.Product;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Bounded in-process read-through cache for products by ID and for per-pincode listings.
+ *
+ * Both regions are LRU maps with a maximum size and a time-to-live. Entries hold detached
+ * snapshots: single products are copied on every read because callers modify them, listings are
+ * shared read-only lists. Writers evict through evictStock, evictProduct, evictProductAndListings
+ * and evictPincode; inside a transaction the eviction is repeated after commit, so a read racing
+ * the write cannot re-cache the old row. A load that overlaps an eviction of its own key is
+ * returned but not cached; loads of other keys are not affected.
+ */
+@Component
+public class ProductCache {
+
+    @Value("${grocito.cache.products.max-size:10000}")
+    private int productMaxSize;
+
+    @Value("${grocito.cache.products.ttl-seconds:300}")
+    private long productTtlSeconds;
+
+    @Value("${grocito.cache.listings.max-size:500}")
+    private int listingMaxSize;
+
+    @Value("${grocito.cache.listings.ttl-seconds:60}")
+    private long listingTtlSeconds;
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private Region<Long, Product> products;
+    private Region<String, List<Product>> listings;
+
+    public ProductCache() {
+    }
+
+    /**
+     * A cache outside Spring, reading the time from clock
+     */
+    ProductCache(int productMaxSize, long productTtlSeconds, int listingMaxSize, long listingTtlSeconds, LongSupplier clock) {
+        this.productMaxSize = productMaxSize;
+        this.productTtlSeconds = productTtlSeconds;
+        this.listingMaxSize = listingMaxSize;
+        this.listingTtlSeconds = listingTtlSeconds;
+        this.clock = clock;
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        products = new Region<>(productMaxSize, productTtlSeconds * 1000, clock);
+        listings = new Region<>(listingMaxSize, listingTtlSeconds * 1000, clock);
+    }
+
+    /**
+     * A copy of the cached product, loading it on a miss
+     */
+    public Optional<Product> getProduct(Long id, Supplier<Optional<Product>> loader) {
+        Product cached = products.get(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        Load load = products.startLoad(id);
+        Optional<Product> loaded = Optional.empty();
+        try {
+            loaded = loader.get();
+        } finally {
+            products.finishLoad(id, load, loaded.map(ProductCache::copy).orElse(null));
+        }
+        return loaded;
+    }
+
+    /**
+     * The cached read-only listing for pincode (and category, may be null), loading it on a miss
+     */
+    public List<Product> getListing(String pincode, String category, Supplier<List<Product>> loader) {
+        String key = listingKey(pincode, category);
+        List<Product> cached = listings.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Load load = listings.startLoad(key);
+        List<Product> snapshot = null;
+        try {
+            List<Product> copies = new ArrayList<>();
+            for (Product product : loader.get()) {
+                copies.add(copy(product));
+            }
+            snapshot = Collections.unmodifiableList(copies);
+        } finally {
+            listings.finishLoad(key, load, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Evict a product after checkout changed its stock. Listings keep the stock they were loaded
+     * with until they expire, rather than every order emptying its pincode's listings.
+     */
+    public void evictStock(Long id) {
+        afterCommitToo(() -> products.remove(id));
+    }
+
+    /**
+     * Evict a product and the listings of its pincode, e.g. after an admin changed its stock
+     */
+    public void evictProduct(Product product) {
+        afterCommitToo(() -> {
+            products.remove(product.getId());
+            listings.removeIf(key -> key.startsWith(listingKey(product.getPincode(), null)));
+        });
+    }
+
+    /**
+     * Evict a product by ID together with every listing, for changes that may move it between pincodes
+     */
+    public void evictProductAndListings(Long id) {
+        afterCommitToo(() -> {
+            products.remove(id);
+            listings.clear();
+        });
+    }
+
+    /**
+     * Evict the listings of one pincode, e.g. after a product was added to it
+     */
+    public void evictPincode(String pincode) {
+        afterCommitToo(() -> listings.removeIf(key -> key.startsWith(listingKey(pincode, null))));
+    }
+
+    /**
+     * Hit, miss, eviction and size counters per region
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", products.stats());
+        stats.put("listings", listings.stats());
+        return stats;
+    }
+
+    private static void afterCommitToo(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private static String listingKey(String pincode, String category) {
+        // pincode first so one pincode's listings share a key prefix
+        return pincode + "|" + (category != null ? category : "");
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getCategory(), product.getImageUrl(), product.getPincode(), product.getStock());
+    }
+
+    /**
+     * A load in progress of one key, marked stale by an eviction of that key meanwhile
+     */
+    private static final class Load {
+
+        int loaders;
+        boolean stale;
+    }
+
+    /**
+     * LRU map with per-entry expiry and counters
+     */
+    private static final class Region<K, V> {
+
+        private final int maxSize;
+        private final long ttlMillis;
+        private final LongSupplier clock;
+        private final LinkedHashMap<K, Entry<V>> entries;
+        // Keys being loaded; an eviction marks their load stale so its result is not cached
+        private final Map<K, Load> loading = new HashMap<>();
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder expirations = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+
+        Region(int maxSize, long ttlMillis, LongSupplier clock) {
+            this.maxSize = maxSize;
+            this.ttlMillis = ttlMillis;
+            this.clock = clock;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    if (size() > Region.this.maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.expiresAt <= clock.getAsLong()) {
+                entries.remove(key);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+
+        synchronized Load startLoad(K key) {
+            Load load = loading.computeIfAbsent(key, k -> new Load());
+            load.loaders++;
+            return load;
+        }
+
+        /**
+         * Cache what load read, null if nothing, unless its key was evicted since it started
+         */
+        synchronized void finishLoad(K key, Load load, V value) {
+            if (value != null && !load.stale && maxSize > 0) {
+                entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMillis));
+            }
+            if (--load.loaders == 0 && loading.get(key) == load) {
+                loading.remove(key);
+            }
+        }
+
+        synchronized void remove(K key) {
+            stale(loading.remove(key));
+            if (entries.remove(key) != null) {
+                invalidations.increment();
+            }
+        }
+
+        synchronized void removeIf(Predicate<K> matches) {
+            for (Iterator<Map.Entry<K, Load>> loads = loading.entrySet().iterator(); loads.hasNext();) {
+                Map.Entry<K, Load> load = loads.next();
+                if (matches.test(load.getKey())) {
+                    stale(load.getValue());
+                    loads.remove();
+                }
+            }
+            for (Iterator<K> keys = entries.keySet().iterator(); keys.hasNext();) {
+                if (matches.test(keys.next())) {
+                    keys.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+
+        synchronized void clear() {
+            loading.values().forEach(Region::stale);
+            loading.clear();
+            invalidations.add(entries.size());
+            entries.clear();
+        }
+
+        Map<String, Long> stats() {
+            Map<String, Long> stats = new HashMap<>();
+            stats.put("hits", hits.sum());
+            stats.put("misses", misses.sum());
+            stats.put("evictions", evictions.sum());
+            stats.put("expirations", expirations.sum());
+            stats.put("invalidations", invalidations.sum());
+            synchronized (this) {
+                stats.put("size", (long) entries.size());
+            }
+            stats.put("maxSize", (long) maxSize);
+            return stats;
+        }
+
+        private static void stale(Load load) {
+            if (load != null) {
+                load.stale = true;
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Repository.ProductRepository;
+
+/**
+ * In-process inverted index over product name, category and description.
+ *
+ * Text is lowercased and split on anything that is not a letter or digit. Every query token
+ * must match (AND); a token matches an indexed term equal to it or starting with it, so
+ * "org mil" finds "Organic Milk". Matches are ranked by field (name over category over
+ * description), exact over prefix matches, and term rarity.
+ *
+ * Documents get a dense ordinal in insertion order, so posting lists are append-only sorted
+ * int arrays. Updates tombstone the old ordinal and append a new one; a rebuild from the
+ * database compacts tombstones away. Each application instance keeps its own index, kept
+ * current by ProductService and refreshed from the database periodically.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerConfig.getLogger(ProductSearchIndex.class);
+
+    private static final byte NAME = 1;
+    private static final byte CATEGORY = 2;
+    private static final byte DESCRIPTION = 4;
+
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final int LOAD_BATCH_SIZE = 5_000;
+
+    public enum Order {
+        RELEVANCE, NAME, PRICE, ID
+    }
+
+    /**
+     * One page of ranked product IDs and the total number of matches
+     */
+    public static class Hits {
+
+        private final long[] productIds;
+        private final int totalMatches;
+
+        Hits(long[] productIds, int totalMatches) {
+            this.productIds = productIds;
+            this.totalMatches = totalMatches;
+        }
+
+        public List<Long> getProductIds() {
+            List<Long> ids = new ArrayList<>(productIds.length);
+            for (long id : productIds) {
+                ids.add(id);
+            }
+            return ids;
+        }
+
+        public int getTotalMatches() {
+            return totalMatches;
+        }
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    private volatile Segment segment = new Segment();
+    private volatile boolean ready;
+
+    // Changes made while a rebuild is loading, replayed onto the rebuilt segment
+    private List<Object> pendingChanges;
+
+    /**
+     * Whether the initial load has finished; callers fall back to the database until then
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Add or replace a product in the index
+     */
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            segment.remove(product.getId());
+            segment.add(product);
+            if (pendingChanges != null) {
+                pendingChanges.add(snapshot(product));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a product from the index
+     */
+    public void remove(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            segment.remove(productId);
+            if (pendingChanges != null) {
+                pendingChanges.add(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search for products matching every token of query, optionally restricted to a pincode and category.
+     * Returns the IDs at [offset, offset + limit) in the requested order.
+     */
+    public Hits search(String query, String pincode, String category, Order order, int offset, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0) {
+            return new Hits(new long[0], 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            Segment current = segment;
+            Scratch work = scratch.get();
+            work.ensureCapacity(current.docCount);
+            try {
+                int matches = current.match(tokens, pincode, category, work);
+                int from = Math.min(Math.max(offset, 0), matches);
+                int to = (int) Math.min((long) from + Math.max(limit, 0), matches);
+                return new Hits(current.sorted(work, matches, order, from, to), matches);
+            } finally {
+                work.reset();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the whole index from the products table and swap it in.
+     * Changes made while loading are replayed onto the new index.
+     */
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment rebuilt = new Segment();
+        try {
+            Long lastId = 0L;
+            List<Product> batch;
+            do {
+                batch = productRepository.findTop5000ByIdGreaterThanOrderByIdAsc(lastId);
+                for (Product product : batch) {
+                    rebuilt.add(product);
+                    lastId = product.getId();
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Object change : pendingChanges) {
+                if (change instanceof Product) {
+                    rebuilt.remove(((Product) change).getId());
+                    rebuilt.add((Product) change);
+                } else {
+                    rebuilt.remove((Long) change);
+                }
+            }
+            pendingChanges = null;
+            segment = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product search index rebuilt: {} products, {} terms in {} ms",
+                rebuilt.liveCount, rebuilt.terms.size(), System.currentTimeMillis() - started);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Initial product search index load failed, search falls back to the database: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Periodic refresh: picks up writes that bypassed ProductService and drops tombstones
+     */
+    @Scheduled(fixedDelayString = "${grocito.search.reindex-interval-ms:3600000}",
+            initialDelayString = "${grocito.search.reindex-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Scheduled product search index rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compact early when updates have left more tombstones than live documents
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void compactIfNeeded() {
+        Segment current = segment;
+        int dead = current.docCount - current.liveCount;
+        if (ready && dead > 10_000 && dead > current.liveCount) {
+            logger.info("Compacting product search index ({} tombstones, {} live)", dead, current.liveCount);
+            scheduledRebuild();
+        }
+    }
+
+    /**
+     * Lowercase and split on anything that is not a letter or digit
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static Product snapshot(Product product) {
+        Product copy = new Product();
+        copy.setId(product.getId());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setCategory(product.getCategory());
+        copy.setPincode(product.getPincode());
+        copy.setPrice(product.getPrice());
+        return copy;
+    }
+
+    /**
+     * Sorted posting list of document ordinals with the fields each term occurs in
+     */
+    private static final class Postings {
+
+        int[] docs = new int[4];
+        byte[] fields = new byte[4];
+        int size;
+
+        void add(int doc, byte field) {
+            if (size > 0 && docs[size - 1] == doc) {
+                fields[size - 1] |= field;
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            docs[size] = doc;
+            fields[size] = field;
+            size++;
+        }
+    }
+
+    /**
+     * Per-thread buffers reused across searches, so a query allocates only its result
+     */
+    private static final class Scratch {
+
+        float[] scores = new float[0];
+        int[] matched = new int[0];
+        int[] candidates = new int[64];
+        int candidateCount;
+
+        void ensureCapacity(int docs) {
+            if (scores.length < docs) {
+                int capacity = Math.max(docs, scores.length * 2);
+                scores = new float[capacity];
+                matched = new int[capacity];
+            }
+        }
+
+        void addCandidate(int doc) {
+            if (candidateCount == candidates.length) {
+                candidates = Arrays.copyOf(candidates, candidateCount * 2);
+            }
+            candidates[candidateCount++] = doc;
+        }
+
+        void reset() {
+            for (int i = 0; i < candidateCount; i++) {
+                scores[candidates[i]] = 0f;
+                matched[candidates[i]] = 0;
+            }
+            candidateCount = 0;
+        }
+    }
+
+    private static final class Segment {
+
+        final NavigableMap<String, Postings> terms = new TreeMap<>();
+        final Map<Long, Integer> ordinals = new HashMap<>();
+        final BitSet live = new BitSet();
+
+        // Pincodes and categories are filtered on as small int codes
+        final Map<String, Integer> pincodeCodes = new HashMap<>();
+        final Map<String, Integer> categoryCodes = new HashMap<>();
+
+        long[] productIds = new long[1024];
+        String[] names = new String[1024];
+        int[] pincodes = new int[1024];
+        int[] categories = new int[1024];
+        double[] prices = new double[1024];
+        int docCount;
+        int liveCount;
+
+        void add(Product product) {
+            int doc = docCount++;
+            if (doc == productIds.length) {
+                int capacity = doc * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                pincodes = Arrays.copyOf(pincodes, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+            }
+            productIds[doc] = product.getId();
+            names[doc] = product.getName() != null ? product.getName() : "";
+            pincodes[doc] = code(pincodeCodes, product.getPincode());
+            categories[doc] = code(categoryCodes, product.getCategory());
+            prices[doc] = product.getPrice();
+            ordinals.put(product.getId(), doc);
+            live.set(doc);
+            liveCount++;
+
+            addTerms(doc, product.getName(), NAME);
+            addTerms(doc, product.getCategory(), CATEGORY);
+            addTerms(doc, product.getDescription(), DESCRIPTION);
+        }
+
+        private static int code(Map<String, Integer> codes, String value) {
+            return value == null ? -1 : codes.computeIfAbsent(value, v -> codes.size());
+        }
+
+        private void addTerms(int doc, String text, byte field) {
+            for (String token : tokenize(text)) {
+                terms.computeIfAbsent(token, t -> new Postings()).add(doc, field);
+            }
+        }
+
+        void remove(Long productId) {
+            Integer doc = ordinals.remove(productId);
+            if (doc != null && live.get(doc)) {
+                live.clear(doc);
+                liveCount--;
+            }
+        }
+
+        /**
+         * Score every live document matching all tokens into work; returns the match count
+         * and leaves the matching ordinals at the front of work.candidates
+         */
+        int match(String[] tokens, String pincode, String category, Scratch work) {
+            int pincodeCode = pincode == null ? -1 : pincodeCodes.getOrDefault(pincode, -2);
+            int categoryCode = category == null ? -1 : categoryCodes.getOrDefault(category, -2);
+            if (pincodeCode == -2 || categoryCode == -2) {
+                return 0;
+            }
+
+            // Start from the most selective token so later tokens only probe candidates
+            String[] ordered = tokens.clone();
+            long[] frequency = new long[ordered.length];
+            for (int i = 0; i < ordered.length; i++) {
+                frequency[i] = documentFrequency(ordered[i]);
+                if (frequency[i] == 0) {
+                    return 0;
+                }
+            }
+            sortByFrequency(ordered, frequency);
+
+            for (int round = 0; round < ordered.length; round++) {
+                String token = ordered[round];
+                Postings exact = terms.get(token);
+                if (exact != null) {
+                    scorePostings(exact, 1.0f, round, pincodeCode, categoryCode, work);
+                }
+                for (Map.Entry<String, Postings> entry : terms.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                    scorePostings(entry.getValue(), PREFIX_FACTOR, round, pincodeCode, categoryCode, work);
+                }
+            }
+
+            // Compact candidates to the documents that matched every token
+            int required = ordered.length;
+            int matches = 0;
+            for (int i = 0; i < work.candidateCount; i++) {
+                int doc = work.candidates[i];
+                if (work.matched[doc] == required) {
+                    work.candidates[i] = work.candidates[matches];
+                    work.candidates[matches++] = doc;
+                }
+            }
+            return matches;
+        }
+
+        private long documentFrequency(String token) {
+            long frequency = 0;
+            Postings exact = terms.get(token);
+            if (exact != null) {
+                frequency += exact.size;
+            }
+            for (Postings postings : terms.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                frequency += postings.size;
+            }
+            return frequency;
+        }
+
+        private void scorePostings(Postings postings, float matchFactor, int round, int pincodeCode, int categoryCode, Scratch work) {
+            float idf = (float) Math.log(1.0 + (double) Math.max(liveCount, 1) / postings.size);
+            for (int i = 0; i < postings.size; i++) {
+                int doc = postings.docs[i];
+                // First hit of this token for a document that matched every earlier token
+                if (work.matched[doc] != round || !live.get(doc)) {
+                    continue;
+                }
+                if (round == 0) {
+                    if ((pincodeCode != -1 && pincodes[doc] != pincodeCode)
+                            || (categoryCode != -1 && categories[doc] != categoryCode)) {
+                        continue;
+                    }
+                    work.addCandidate(doc);
+                }
+                work.matched[doc] = round + 1;
+                work.scores[doc] += fieldWeight(postings.fields[i]) * matchFactor * idf;
+            }
+        }
+
+        private static float fieldWeight(byte fields) {
+            if ((fields & NAME) != 0) return 3.0f;
+            if ((fields & CATEGORY) != 0) return 2.0f;
+            return 1.0f;
+        }
+
+        private static void sortByFrequency(String[] tokens, long[] frequency) {
+            for (int i = 1; i < tokens.length; i++) {
+                for (int j = i; j > 0 && frequency[j] < frequency[j - 1]; j--) {
+                    long f = frequency[j]; frequency[j] = frequency[j - 1]; frequency[j - 1] = f;
+                    String t = tokens[j]; tokens[j] = tokens[j - 1]; tokens[j - 1] = t;
+                }
+            }
+        }
+
+        /**
+         * The k best relevance keys in ascending order, selected with a bounded max-heap
+         */
+        private static long[] topKeys(Scratch work, int matches, int k) {
+            long[] heap = new long[k];
+            int size = 0;
+            for (int i = 0; i < matches; i++) {
+                int doc = work.candidates[i];
+                long key = ((long) (Integer.MAX_VALUE - Float.floatToIntBits(work.scores[doc])) << 32) | doc;
+                if (size < k) {
+                    // Sift up
+                    int child = size++;
+                    while (child > 0 && heap[(child - 1) >> 1] < key) {
+                        heap[child] = heap[(child - 1) >> 1];
+                        child = (child - 1) >> 1;
+                    }
+                    heap[child] = key;
+                } else if (key < heap[0]) {
+                    // Replace the worst kept key and sift down
+                    int parent = 0;
+                    while (true) {
+                        int child = 2 * parent + 1;
+                        if (child >= k) break;
+                        if (child + 1 < k && heap[child + 1] > heap[child]) child++;
+                        if (heap[child] <= key) break;
+                        heap[parent] = heap[child];
+                        parent = child;
+                    }
+                    heap[parent] = key;
+                }
+            }
+            Arrays.sort(heap, 0, size);
+            return heap;
+        }
+
+        /**
+         * Product IDs of the matches at [from, to) in the requested order
+         */
+        long[] sorted(Scratch work, int matches, Order order, int from, int to) {
+            long[] result = new long[to - from];
+            if (result.length == 0) {
+                return result;
+            }
+
+            if (order == Order.RELEVANCE || order == null) {
+                // Pack (descending score, ascending ordinal) into one primitive key; smaller is better
+                long[] best = topKeys(work, matches, to);
+                for (int i = from; i < to; i++) {
+                    result[i - from] = productIds[(int) best[i]];
+                }
+                return result;
+            }
+
+            Integer[] docs = new Integer[matches];
+            for (int i = 0; i < matches; i++) {
+                docs[i] = work.candidates[i];
+            }
+            Comparator<Integer> comparator;
+            switch (order) {
+                case NAME:
+                    comparator = Comparator.comparing((Integer doc) -> names[doc], String.CASE_INSENSITIVE_ORDER);
+                    break;
+                case PRICE:
+                    comparator = Comparator.comparingDouble((Integer doc) -> prices[doc]);
+                    break;
+                default:
+                    comparator = Comparator.comparingLong((Integer doc) -> productIds[doc]);
+                    break;
+            }
+            Arrays.sort(docs, comparator.thenComparingLong(doc -> productIds[doc]));
+            for (int i = from; i < to; i++) {
+                result[i - from] = productIds[docs[i]];
+            }
+            return result;
+        }
+    }
+}
@@ -13,20 +13,47 @@ import org.springframework.stereotype.Service;
 
 import com.example.Grocito.config.LoggerConfig;
 import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Repository.Keyset;
 import com.example.Grocito.Repository.ProductRepository;
+import com.example.Grocito.Repository.ProductSpecifications;
+import com.example.Grocito.dto.CursorPage;
 
 @Service
 public class ProductService {
 
     private static final Logger logger = LoggerConfig.getLogger(ProductService.class);
 
+    // Largest page of keyword search results loaded at once
+    static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+    // Metrics for getProductAnalytics, computed together in one pass
+    private static final AnalyticsAggregator<Product> PRODUCT_ANALYTICS = AnalyticsAggregator.<Product>builder()
+            .count("inStock", p -> p.getStock() > 10)
+            .count("lowStock", p -> p.getStock() > 0 && p.getStock() <= 10)
+            .count("outOfStock", p -> p.getStock() == 0)
+            .metric("price", null, Product::getPrice)
+            .groupBy("category", null, Product::getCategory, null)
+            .build();
+
     @Autowired
     private ProductRepository productRepo;
 
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductSuggester suggester;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private HotStockLedger hotStockLedger;
+
     // Get products by pincode
     public List<Product> getProductsByPincode(String pincode) {
         logger.debug("Fetching products for pincode: {}", pincode);
-        List<Product> products = productRepo.findByPincode(pincode);
+        List<Product> products = productCache.getListing(pincode, null, () -> productRepo.findByPincode(pincode));
         logger.debug("Found {} products for pincode: {}", products.size(), pincode);
         return products;
     }
@@ -42,7 +69,7 @@ public class ProductService {
     // Get product by ID
     public Optional<Product> getProductById(Long id) {
         logger.debug("Fetching product with ID: {}", id);
-        Optional<Product> product = productRepo.findById(id);
+        Optional<Product> product = productCache.getProduct(id, () -> productRepo.findById(id));
         if (product.isPresent()) {
             logger.debug("Found product: {} (ID: {})", product.get().getName(), id);
         } else {
@@ -55,6 +82,9 @@ public class ProductService {
     public Product createProduct(Product product) {
         logger.info("Creating new product: {}", product.getName());
         Product savedProduct = productRepo.save(product);
+        searchIndex.index(savedProduct);
+        suggester.index(savedProduct);
+        productCache.evictPincode(savedProduct.getPincode());
         logger.info("Product created successfully with ID: {}", savedProduct.getId());
         return savedProduct;
     }
@@ -62,7 +92,10 @@ public class ProductService {
     // Update existing product
     public Product updateProduct(Product product) {
         logger.info("Updating product with ID: {}", product.getId());
-        Product updatedProduct = productRepo.save(product);
+        Product updatedProduct = saveWithStock(product);
+        searchIndex.index(updatedProduct);
+        suggester.index(updatedProduct);
+        productCache.evictProductAndListings(updatedProduct.getId());
         logger.info("Product updated successfully: {} (ID: {})", updatedProduct.getName(), updatedProduct.getId());
         return updatedProduct;
     }
@@ -71,6 +104,9 @@ public class ProductService {
     public void deleteProduct(Long id) {
         logger.info("Deleting product with ID: {}", id);
         productRepo.deleteById(id);
+        searchIndex.remove(id);
+        suggester.remove(id);
+        productCache.evictProductAndListings(id);
         logger.info("Product deleted successfully: ID {}", id);
     }
     
@@ -85,7 +121,8 @@ public class ProductService {
     // Get products by category and pincode
     public List<Product> getProductsByCategoryAndPincode(String category, String pincode) {
         logger.debug("Fetching products for category: {} and pincode: {}", category, pincode);
-        List<Product> products = productRepo.findByCategoryAndPincode(category, pincode);
+        List<Product> products = productCache.getListing(pincode, category, 
+                () -> productRepo.findByCategoryAndPincode(category, pincode));
         logger.debug("Found {} products for category: {} and pincode: {}", products.size(), category, pincode);
         return products;
     }
@@ -116,14 +153,112 @@ public class ProductService {
         return productRepo.findByCategoryAndPincode(category, pincode, pageable);
     }
     
-    // Search products by keyword
-    public List<Product> searchProducts(String keyword) {
-        return productRepo.searchProducts(keyword);
+    // Get products after a cursor (keyset pagination), so deep pages cost the same as the first
+    public CursorPage<Product> getProductsAfter(String cursor, int size, String sortBy, String category, String pincode) {
+        logger.debug("Fetching products after cursor - size: {}, sortBy: {}, category: {}, pincode: {}", size, sortBy, category, pincode);
+        if (size < 1) {
+            throw new RuntimeException("Page size must be at least 1");
+        }
+        Sort sort = ProductSpecifications.sortFor(sortBy);
+        List<Object> after = Keyset.decode(cursor, sortBy, sort, Product.class);
+        
+        // One row more than requested tells whether there is a next page
+        List<Product> rows = productRepo.findAfter(ProductSpecifications.filter(category, pincode), sort, after, size + 1);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = Keyset.encode(sortBy, sort, rows.get(size - 1));
+        }
+        return new CursorPage<>(rows, size, nextCursor);
+    }
+    
+    // Search products by keyword, best matches first; only the requested page is loaded
+    public List<Product> searchProducts(String keyword, int page, int size) {
+        size = searchPageSize(page, size);
+        if (!searchIndex.isReady()) {
+            return productRepo.findBySearch(keyword, PageRequest.of(page, size)).getContent();
+        }
+        ProductSearchIndex.Hits hits = searchIndex.search(keyword, null, null,
+                ProductSearchIndex.Order.RELEVANCE, page * size, size);
+        return loadInOrder(hits.getProductIds());
+    }
+    
+    // Search products by keyword and pincode, best matches first; only the requested page is loaded
+    public List<Product> searchProductsByPincode(String keyword, String pincode, int page, int size) {
+        size = searchPageSize(page, size);
+        if (!searchIndex.isReady()) {
+            return productRepo.findByPincodeAndSearch(pincode, keyword, PageRequest.of(page, size)).getContent();
+        }
+        ProductSearchIndex.Hits hits = searchIndex.search(keyword, pincode, null,
+                ProductSearchIndex.Order.RELEVANCE, page * size, size);
+        return loadInOrder(hits.getProductIds());
+    }
+    
+    // Keyword search pages are at most MAX_SEARCH_PAGE_SIZE products
+    private static int searchPageSize(int page, int size) {
+        if (page < 0) {
+            throw new RuntimeException("Page number must not be negative");
+        }
+        if (size < 1) {
+            throw new RuntimeException("Page size must be at least 1");
+        }
+        return Math.min(size, MAX_SEARCH_PAGE_SIZE);
+    }
+    
+    // Load products by ID, keeping the order of the given IDs
+    private List<Product> loadInOrder(List<Long> ids) {
+        java.util.Map<Long, Product> byId = new java.util.HashMap<>();
+        for (Product product : productRepo.findAllById(ids)) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> products = new java.util.ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+    
+    // Search through the index; sorts the index can do itself only load the requested page
+    private Page<Product> searchPage(int page, int size, String sortBy, String category, String pincode, String search) {
+        ProductSearchIndex.Order order;
+        switch (sortBy) {
+            case "relevance": order = ProductSearchIndex.Order.RELEVANCE; break;
+            case "name": order = ProductSearchIndex.Order.NAME; break;
+            case "price": order = ProductSearchIndex.Order.PRICE; break;
+            case "id": order = ProductSearchIndex.Order.ID; break;
+            default: order = null; break;
+        }
+        
+        if (order == null) {
+            // Other sort fields are not kept in the index: let the database sort the matching IDs
+            ProductSearchIndex.Hits hits = searchIndex.search(search, pincode, category,
+                    ProductSearchIndex.Order.ID, 0, Integer.MAX_VALUE);
+            return productRepo.findByIdIn(hits.getProductIds(), PageRequest.of(page, size, Sort.by(sortBy)));
+        }
+        
+        ProductSearchIndex.Hits hits = searchIndex.search(search, pincode, category, order, page * size, size);
+        return new org.springframework.data.domain.PageImpl<>(loadInOrder(hits.getProductIds()),
+                PageRequest.of(page, size), hits.getTotalMatches());
     }
     
-    // Search products by keyword and pincode
-    public List<Product> searchProductsByPincode(String keyword, String pincode) {
-        return productRepo.searchProductsByPincode(keyword, pincode);
+    // Product cache counters
+    public java.util.Map<String, Object> getCacheStats() {
+        return productCache.getStats();
+    }
+    
+    // Autocomplete suggestions for product names in a pincode
+    public List<ProductSuggester.Suggestion> suggestProducts(String prefix, String pincode, int limit) {
+        if (suggester.isReady()) {
+            return suggester.suggest(prefix, pincode, limit);
+        }
+        logger.debug("Suggestions not loaded yet, falling back to database search for: {}", prefix);
+        return productRepo.findByPincodeAndSearch(pincode, prefix, 
+                PageRequest.of(0, Math.min(Math.max(limit, 1), ProductSuggester.MAX_SUGGESTIONS), Sort.by("name")))
+                .map(product -> new ProductSuggester.Suggestion(product.getId(), product.getName(), 0))
+                .getContent();
     }
     
     // Update product stock
@@ -131,7 +266,9 @@ public class ProductService {
         Product product = productRepo.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
         product.setStock(newStock);
-        return productRepo.save(product);
+        Product savedProduct = saveWithStock(product);
+        productCache.evictProduct(savedProduct);
+        return savedProduct;
     }
     
     // Get filtered products with pagination
@@ -139,6 +276,14 @@ public class ProductService {
         logger.debug("Fetching filtered products - page: {}, size: {}, sortBy: {}, category: {}, pincode: {}, search: {}", 
                 page, size, sortBy, category, pincode, search);
         
+        // Keyword searches go through the in-memory search index once it is loaded
+        if (search != null && !search.isEmpty() && searchIndex.isReady()) {
+            return searchPage(page, size, sortBy, 
+                    category != null && !category.isEmpty() ? category : null, 
+                    pincode != null && !pincode.isEmpty() ? pincode : null, 
+                    search);
+        }
+        
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy));
         
         // If we have both category and pincode filters
@@ -198,32 +343,27 @@ public class ProductService {
         
         java.util.Map<String, Object> analytics = new java.util.HashMap<>();
         
+        // All metrics in one pass over the product list
+        AnalyticsAggregator<Product>.Result result = PRODUCT_ANALYTICS.aggregate(allProducts);
+        
         // Basic counts
         analytics.put("totalProducts", allProducts.size());
-        analytics.put("lowStockCount", allProducts.stream().mapToInt(p -> p.getStock() <= 10 && p.getStock() > 0 ? 1 : 0).sum());
-        analytics.put("outOfStockCount", allProducts.stream().mapToInt(p -> p.getStock() == 0 ? 1 : 0).sum());
+        analytics.put("lowStockCount", (int) result.count("lowStock"));
+        analytics.put("outOfStockCount", (int) result.count("outOfStock"));
         
         // Category distribution
-        java.util.Map<String, Long> categoryDistribution = allProducts.stream()
-                .collect(java.util.stream.Collectors.groupingBy(
-                    Product::getCategory, 
-                    java.util.stream.Collectors.counting()
-                ));
+        java.util.Map<String, Long> categoryDistribution = result.groupCounts("category");
         analytics.put("categoryDistribution", categoryDistribution);
         analytics.put("totalCategories", categoryDistribution.size());
         
         // Average price
-        double averagePrice = allProducts.stream()
-                .mapToDouble(Product::getPrice)
-                .average()
-                .orElse(0.0);
-        analytics.put("averagePrice", averagePrice);
+        analytics.put("averagePrice", result.average("price"));
         
         // Stock distribution
         java.util.Map<String, Long> stockDistribution = new java.util.HashMap<>();
-        stockDistribution.put("inStock", allProducts.stream().filter(p -> p.getStock() > 10).count());
-        stockDistribution.put("lowStock", allProducts.stream().filter(p -> p.getStock() > 0 && p.getStock() <= 10).count());
-        stockDistribution.put("outOfStock", allProducts.stream().filter(p -> p.getStock() == 0).count());
+        stockDistribution.put("inStock", result.count("inStock"));
+        stockDistribution.put("lowStock", result.count("lowStock"));
+        stockDistribution.put("outOfStock", result.count("outOfStock"));
         analytics.put("stockDistribution", stockDistribution);
         
         logger.debug("Analytics calculated for {} products", allProducts.size());
@@ -240,7 +380,8 @@ public class ProductService {
                 Product product = productRepo.findById(update.getId())
                         .orElseThrow(() -> new RuntimeException("Product not found with id: " + update.getId()));
                 product.setStock(update.getStock());
-                Product savedProduct = productRepo.save(product);
+                Product savedProduct = saveWithStock(product);
+                productCache.evictProduct(savedProduct);
                 updatedProducts.add(savedProduct);
                 logger.debug("Updated stock for product {} to {}", product.getName(), update.getStock());
             } catch (Exception e) {
@@ -252,5 +393,12 @@ public class ProductService {
         logger.info("Successfully updated stock for {} products", updatedProducts.size());
         return updatedProducts;
     }
+    
+    // Save a product whose stock is an absolute value; hot products reset their ledger stock with it
+    private Product saveWithStock(Product product) {
+        if (product.getId() == null || !hotStockLedger.isHot(product.getId())) {
+            return productRepo.save(product);
+        }
+        return hotStockLedger.overwrite(product.getId(), product.getStock(), () -> productRepo.save(product));
+    }
 }
-
@@ -0,0 +1,548 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Repository.ProductRepository;
+
+/**
+ * Suggest-as-you-type over product names, one compact trie per pincode.
+ *
+ * Every word start of a name is a key ("amul taaza milk", "taaza milk", "milk"), so typing any
+ * word of a name finds it. Matching is by prefix within a bounded edit distance (insertions,
+ * deletions, substitutions and adjacent transpositions): exact up to 2 characters, 1 edit up
+ * to 5 and 2 edits beyond. Suggestions are ordered by edit distance, then shorter names first.
+ *
+ * Each trie node stores the best MAX_SUGGESTIONS products below it, so a lookup only walks the
+ * nodes within the edit bound and never enumerates whole subtrees. Tries are immutable arrays;
+ * a product change marks its pincode dirty and only that pincode's trie is rebuilt and swapped.
+ */
+@Component
+public class ProductSuggester {
+
+    private static final Logger logger = LoggerConfig.getLogger(ProductSuggester.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final int LOAD_BATCH_SIZE = 5_000;
+    private static final int MAX_KEY_WORDS = 6;
+    private static final int MAX_QUERY_LENGTH = 64;
+
+    /**
+     * One suggested product
+     */
+    public static class Suggestion {
+
+        private final Long id;
+        private final String name;
+        private final int distance;
+
+        Suggestion(Long id, String name, int distance) {
+            this.id = id;
+            this.name = name;
+            this.distance = distance;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    // Current names per pincode (source of truth for rebuilds) and the tries built from them
+    private final Map<String, Map<Long, String>> names = new HashMap<>();
+    private final Map<Long, String> productPincodes = new HashMap<>();
+    private final Set<String> dirty = new HashSet<>();
+    private final Map<String, Dictionary> dictionaries = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+    private volatile boolean loading;
+
+    /**
+     * Whether the initial load has finished; callers fall back to the database until then
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Add or replace a product; its pincode is rebuilt on the next refresh
+     */
+    public synchronized void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        remove(product.getId());
+        if (product.getPincode() == null || product.getName() == null) {
+            return;
+        }
+        names.computeIfAbsent(product.getPincode(), p -> new HashMap<>()).put(product.getId(), product.getName());
+        productPincodes.put(product.getId(), product.getPincode());
+        dirty.add(product.getPincode());
+    }
+
+    /**
+     * Remove a product; its pincode is rebuilt on the next refresh
+     */
+    public synchronized void remove(Long productId) {
+        String pincode = productPincodes.remove(productId);
+        if (pincode != null) {
+            names.get(pincode).remove(productId);
+            dirty.add(pincode);
+        }
+    }
+
+    /**
+     * Up to limit products in pincode whose name has a word starting with (a near miss of) prefix
+     */
+    public List<Suggestion> suggest(String prefix, String pincode, int limit) {
+        String query = normalize(prefix);
+        if (query.length() > MAX_QUERY_LENGTH) {
+            query = query.substring(0, MAX_QUERY_LENGTH);
+        }
+        Dictionary dictionary = pincode != null ? dictionaries.get(pincode) : null;
+        if (query.isEmpty() || dictionary == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        return dictionary.suggest(query, maxEdits(query), Math.min(limit, MAX_SUGGESTIONS), scratch.get());
+    }
+
+    /**
+     * Rebuild the tries of pincodes changed since the last refresh
+     */
+    @Scheduled(fixedDelayString = "${grocito.suggest.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (!ready || loading) {
+            return;
+        }
+        Map<String, Map<Long, String>> changed = new HashMap<>();
+        synchronized (this) {
+            for (String pincode : dirty) {
+                changed.put(pincode, new HashMap<>(names.getOrDefault(pincode, Collections.emptyMap())));
+            }
+            dirty.clear();
+        }
+        for (Map.Entry<String, Map<Long, String>> entry : changed.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                dictionaries.remove(entry.getKey());
+            } else {
+                dictionaries.put(entry.getKey(), Dictionary.build(entry.getValue()));
+            }
+        }
+        if (!changed.isEmpty()) {
+            logger.debug("Rebuilt product suggestions for pincodes {}", changed.keySet());
+        }
+    }
+
+    /**
+     * Load every product from the database and build all tries
+     */
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        loading = true;
+        synchronized (this) {
+            names.clear();
+            productPincodes.clear();
+            dirty.clear();
+        }
+        try {
+            Long lastId = 0L;
+            List<Product> batch;
+            do {
+                batch = productRepository.findTop5000ByIdGreaterThanOrderByIdAsc(lastId);
+                synchronized (this) {
+                    for (Product product : batch) {
+                        index(product);
+                        lastId = product.getId();
+                    }
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+        } finally {
+            loading = false;
+        }
+
+        ready = true;
+        refresh();
+        synchronized (this) {
+            dictionaries.keySet().retainAll(names.keySet());
+        }
+        logger.info("Product suggestions built: {} products in {} pincodes in {} ms",
+                productPincodes.size(), dictionaries.size(), System.currentTimeMillis() - started);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Initial product suggestion load failed, suggestions fall back to the database: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Periodic full reload: picks up writes that bypassed ProductService
+     */
+    @Scheduled(fixedDelayString = "${grocito.search.reindex-interval-ms:3600000}",
+            initialDelayString = "${grocito.search.reindex-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Scheduled product suggestion rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lowercased words joined by single spaces
+     */
+    static String normalize(String text) {
+        return String.join(" ", ProductSearchIndex.tokenize(text));
+    }
+
+    static int maxEdits(String query) {
+        if (query.length() <= 2) return 0;
+        if (query.length() <= 5) return 1;
+        return 2;
+    }
+
+    /**
+     * Per-thread buffers reused across lookups
+     */
+    private static final class Scratch {
+
+        int[][] rows = new int[0][];
+        char[] path = new char[0];
+        int[] stackNodes = new int[64];
+        int[] stackDepths = new int[64];
+
+        // Best distance seen per product ordinal in this lookup, valid where stamp == generation
+        int[] stamp = new int[0];
+        byte[] distance = new byte[0];
+        int generation;
+        long[] candidates = new long[64];
+        int candidateCount;
+
+        void prepare(int queryLength, int maxDepth, int products) {
+            if (rows.length < maxDepth + 1 || (rows.length > 0 && rows[0].length < queryLength + 1)) {
+                int width = Math.max(queryLength + 1, rows.length > 0 ? rows[0].length : 0);
+                rows = new int[Math.max(maxDepth + 1, rows.length)][width];
+                path = new char[rows.length];
+            }
+            if (stamp.length < products) {
+                stamp = new int[Math.max(products, stamp.length * 2)];
+                distance = new byte[stamp.length];
+                generation = 0;
+            }
+            if (++generation == 0) {
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+            candidateCount = 0;
+        }
+
+        void push(int node, int depth, int top) {
+            if (top == stackNodes.length) {
+                stackNodes = Arrays.copyOf(stackNodes, top * 2);
+                stackDepths = Arrays.copyOf(stackDepths, top * 2);
+            }
+            stackNodes[top] = node;
+            stackDepths[top] = depth;
+        }
+
+        void offer(int ordinal, int editDistance) {
+            if (stamp[ordinal] == generation) {
+                if (editDistance < distance[ordinal]) {
+                    distance[ordinal] = (byte) editDistance;
+                }
+                return;
+            }
+            stamp[ordinal] = generation;
+            distance[ordinal] = (byte) editDistance;
+            if (candidateCount == candidates.length) {
+                candidates = Arrays.copyOf(candidates, candidateCount * 2);
+            }
+            candidates[candidateCount++] = ordinal;
+        }
+    }
+
+    /**
+     * Immutable trie over the name keys of one pincode.
+     *
+     * Nodes are laid out breadth-first so the children of a node are contiguous and sorted by
+     * label. Product ordinals are assigned in ranking order, so "better" is simply "smaller".
+     */
+    static final class Dictionary {
+
+        final long[] productIds;
+        final String[] productNames;
+
+        final char[] labels;
+        final int[] firstChild;
+        final int[] childCount;
+        final int[] topStart;
+        final byte[] topCount;
+        final int[] top;
+
+        private Dictionary(long[] productIds, String[] productNames, char[] labels, int[] firstChild,
+                int[] childCount, int[] topStart, byte[] topCount, int[] top) {
+            this.productIds = productIds;
+            this.productNames = productNames;
+            this.labels = labels;
+            this.firstChild = firstChild;
+            this.childCount = childCount;
+            this.topStart = topStart;
+            this.topCount = topCount;
+            this.top = top;
+        }
+
+        static Dictionary build(Map<Long, String> products) {
+            // Rank: shorter names first, then alphabetical, then by id
+            List<Map.Entry<Long, String>> ranked = new ArrayList<>(products.entrySet());
+            ranked.sort((a, b) -> {
+                int byLength = Integer.compare(a.getValue().length(), b.getValue().length());
+                if (byLength != 0) return byLength;
+                int byName = a.getValue().compareToIgnoreCase(b.getValue());
+                return byName != 0 ? byName : Long.compare(a.getKey(), b.getKey());
+            });
+            long[] productIds = new long[ranked.size()];
+            String[] productNames = new String[ranked.size()];
+            List<String> keys = new ArrayList<>();
+            List<Integer> keyOwners = new ArrayList<>();
+            for (int ordinal = 0; ordinal < ranked.size(); ordinal++) {
+                productIds[ordinal] = ranked.get(ordinal).getKey();
+                productNames[ordinal] = ranked.get(ordinal).getValue();
+                String[] words = ProductSearchIndex.tokenize(productNames[ordinal]);
+                for (int w = 0; w < Math.min(words.length, MAX_KEY_WORDS); w++) {
+                    keys.add(String.join(" ", Arrays.asList(words).subList(w, words.length)));
+                    keyOwners.add(ordinal);
+                }
+            }
+
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int byKey = keys.get(a).compareTo(keys.get(b));
+                return byKey != 0 ? byKey : Integer.compare(keyOwners.get(a), keyOwners.get(b));
+            });
+            String[] sortedKeys = new String[order.length];
+            int[] owners = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedKeys[i] = keys.get(order[i]);
+                owners[i] = keyOwners.get(order[i]);
+            }
+            return new Builder(sortedKeys, owners).build(productIds, productNames);
+        }
+
+        /**
+         * Walk the trie with one edit-distance row per depth, collecting the stored best products
+         * of every node whose prefix is within maxEdits of the query
+         */
+        List<Suggestion> suggest(String query, int maxEdits, int limit, Scratch work) {
+            int m = query.length();
+            work.prepare(m, m + maxEdits, productIds.length);
+            int[][] rows = work.rows;
+            for (int j = 0; j <= m; j++) {
+                rows[0][j] = j;
+            }
+
+            int stack = 0;
+            for (int c = childCount[0] - 1; c >= 0; c--) {
+                work.push(firstChild[0] + c, 1, stack++);
+            }
+            while (stack > 0) {
+                stack--;
+                int node = work.stackNodes[stack];
+                int depth = work.stackDepths[stack];
+                char label = labels[node];
+                work.path[depth] = label;
+
+                int[] row = rows[depth];
+                int[] previous = rows[depth - 1];
+                row[0] = depth;
+                int rowMin = depth;
+                for (int j = 1; j <= m; j++) {
+                    char q = query.charAt(j - 1);
+                    int cost = q == label ? 0 : 1;
+                    int value = Math.min(Math.min(previous[j] + 1, row[j - 1] + 1), previous[j - 1] + cost);
+                    if (j > 1 && depth > 1 && q == work.path[depth - 1] && query.charAt(j - 2) == label) {
+                        value = Math.min(value, rows[depth - 2][j - 2] + 1);
+                    }
+                    row[j] = value;
+                    rowMin = Math.min(rowMin, value);
+                }
+
+                int distance = row[m];
+                if (distance <= maxEdits) {
+                    for (int t = topStart[node], end = t + topCount[node]; t < end; t++) {
+                        work.offer(top[t], distance);
+                    }
+                }
+                // Descendants can only improve on this node while some cell is still below it
+                if (rowMin < Math.min(distance, maxEdits + 1) && depth < m + maxEdits) {
+                    for (int c = childCount[node] - 1; c >= 0; c--) {
+                        work.push(firstChild[node] + c, depth + 1, stack++);
+                    }
+                }
+            }
+
+            // Order by (distance, rank) packed into one primitive key
+            long[] candidates = work.candidates;
+            int count = work.candidateCount;
+            for (int i = 0; i < count; i++) {
+                int ordinal = (int) candidates[i];
+                candidates[i] = ((long) work.distance[ordinal] << 32) | ordinal;
+            }
+            Arrays.sort(candidates, 0, count);
+            List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, count));
+            for (int i = 0; i < Math.min(limit, count); i++) {
+                int ordinal = (int) candidates[i];
+                suggestions.add(new Suggestion(productIds[ordinal], productNames[ordinal], (int) (candidates[i] >>> 32)));
+            }
+            return suggestions;
+        }
+    }
+
+    /**
+     * Builds the breadth-first node arrays from sorted keys, then fills each node's best products
+     * bottom-up by merging its children's lists
+     */
+    private static final class Builder {
+
+        private final String[] keys;
+        private final int[] owners;
+
+        private char[] labels = new char[1024];
+        private int[] firstChild = new int[1024];
+        private int[] childCount = new int[1024];
+        private int[] rangeStart = new int[1024];
+        private int[] rangeEnd = new int[1024];
+        private int[] depths = new int[1024];
+        private int nodeCount;
+
+        Builder(String[] keys, int[] owners) {
+            this.keys = keys;
+            this.owners = owners;
+        }
+
+        Dictionary build(long[] productIds, String[] productNames) {
+            addNode('\0', 0, keys.length, 0);
+            for (int node = 0; node < nodeCount; node++) {
+                int depth = depths[node];
+                firstChild[node] = nodeCount;
+                int i = rangeStart[node];
+                int end = rangeEnd[node];
+                // Keys ending here sort first within the range
+                while (i < end && keys[i].length() == depth) {
+                    i++;
+                }
+                while (i < end) {
+                    char label = keys[i].charAt(depth);
+                    int start = i;
+                    while (i < end && keys[i].charAt(depth) == label) {
+                        i++;
+                    }
+                    addNode(label, start, i, depth + 1);
+                }
+                childCount[node] = nodeCount - firstChild[node];
+            }
+
+            int[] topStart = new int[nodeCount];
+            byte[] topCount = new byte[nodeCount];
+            int[] top = new int[Math.max(nodeCount, 16)];
+            int topSize = 0;
+            int[] merged = new int[MAX_SUGGESTIONS];
+            int[] next = new int[MAX_SUGGESTIONS];
+            // Children come after their parent, so a reverse pass sees every child first
+            for (int node = nodeCount - 1; node >= 0; node--) {
+                int size = 0;
+                for (int i = rangeStart[node]; i < rangeEnd[node] && keys[i].length() == depths[node]; i++) {
+                    size = mergeInto(merged, size, owners, i, i + 1, next);
+                }
+                for (int c = 0; c < childCount[node]; c++) {
+                    int child = firstChild[node] + c;
+                    size = mergeInto(merged, size, top, topStart[child], topStart[child] + topCount[child], next);
+                }
+                if (topSize + size > top.length) {
+                    top = Arrays.copyOf(top, Math.max(top.length * 2, topSize + size));
+                }
+                System.arraycopy(merged, 0, top, topSize, size);
+                topStart[node] = topSize;
+                topCount[node] = (byte) size;
+                topSize += size;
+            }
+
+            return new Dictionary(productIds, productNames,
+                    Arrays.copyOf(labels, nodeCount), Arrays.copyOf(firstChild, nodeCount),
+                    Arrays.copyOf(childCount, nodeCount), topStart, topCount, Arrays.copyOf(top, topSize));
+        }
+
+        private void addNode(char label, int start, int end, int depth) {
+            if (nodeCount == labels.length) {
+                int capacity = nodeCount * 2;
+                labels = Arrays.copyOf(labels, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                childCount = Arrays.copyOf(childCount, capacity);
+                rangeStart = Arrays.copyOf(rangeStart, capacity);
+                rangeEnd = Arrays.copyOf(rangeEnd, capacity);
+                depths = Arrays.copyOf(depths, capacity);
+            }
+            labels[nodeCount] = label;
+            rangeStart[nodeCount] = start;
+            rangeEnd[nodeCount] = end;
+            depths[nodeCount] = depth;
+            nodeCount++;
+        }
+
+        /**
+         * Merge the sorted ordinals source[from, to) into the sorted, distinct best list
+         */
+        private static int mergeInto(int[] best, int size, int[] source, int from, int to, int[] buffer) {
+            int a = 0;
+            int b = from;
+            int out = 0;
+            while (out < MAX_SUGGESTIONS && (a < size || b < to)) {
+                int value;
+                if (b >= to || (a < size && best[a] <= source[b])) {
+                    value = best[a++];
+                } else {
+                    value = source[b++];
+                }
+                if (out == 0 || buffer[out - 1] != value) {
+                    buffer[out++] = value;
+                }
+            }
+            System.arraycopy(buffer, 0, best, 0, out);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.Grocito.Services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-sent event fan-out to clients subscribed to topics (e.g. "pincode:411001",
+ * "partner:42").
+ *
+ * An event is serialized to JSON and framed once, however many clients receive it. Every client
+ * has its own bounded buffer drained by a small pool of sender threads, so publishing never waits
+ * on a socket. When a client falls more than grocito.push.buffer-size events behind, its backlog
+ * is dropped and it gets a single "resync" event instead, telling it to reload its lists once.
+ * Events published inside a transaction go out after it commits.
+ */
+@Component
+public class PushChannel {
+
+    private static final Logger logger = LoggerConfig.getLogger(PushChannel.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${grocito.push.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${grocito.push.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${grocito.push.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    private final Map<String, Set<Subscriber>> subscribersByTopic = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private ExecutorService senders;
+
+    private final Frame resync = frame(0, "resync", "{}");
+    private final Frame heartbeat = new Frame(0, null, null, SseEmitter.event().comment("keepalive").build());
+
+    /**
+     * Receives the frames of one client, one at a time
+     */
+    interface Sink {
+
+        void send(Frame frame) throws IOException;
+
+        void close();
+    }
+
+    /**
+     * One framed event, shared by every client that receives it
+     */
+    static final class Frame {
+
+        final long id;
+        final String name;
+        final String data;
+        final Set<DataWithMediaType> sse;
+
+        Frame(long id, String name, String data, Set<DataWithMediaType> sse) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+            this.sse = sse;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "push-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        senders.shutdownNow();
+        senders.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Open a server-sent event stream receiving every event published to any of topics
+     */
+    public SseEmitter subscribe(Collection<String> topics) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = subscribe(topics, new Sink() {
+            @Override
+            public void send(Frame frame) throws IOException {
+                emitter.send(frame.sse);
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        // Flushes the response headers so the client sees the stream open straight away
+        subscriber.offer(heartbeat);
+        return emitter;
+    }
+
+    Subscriber subscribe(Collection<String> topics, Sink sink) {
+        Subscriber subscriber = new Subscriber(List.copyOf(topics), sink, bufferSize);
+        for (String topic : subscriber.topics) {
+            subscribersByTopic.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        logger.debug("Push subscriber added for {}", subscriber.topics);
+        return subscriber;
+    }
+
+    void unsubscribe(Subscriber subscriber) {
+        subscriber.closed = true;
+        for (String topic : subscriber.topics) {
+            subscribersByTopic.computeIfPresent(topic, (key, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    /**
+     * Send an event to every client subscribed to at least one of topics (once per client).
+     * Inside a transaction it is sent after commit, and dropped on rollback.
+     */
+    public void publish(Collection<String> topics, String name, Object payload) {
+        Frame frame;
+        try {
+            frame = frame(sequence.incrementAndGet(), name, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize {} push event: {}", name, e.getMessage());
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // Synchronization is over by afterCompletion, so anything published from here goes out directly
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        fanOut(topics, frame);
+                    }
+                }
+            });
+        } else {
+            fanOut(topics, frame);
+        }
+    }
+
+    /**
+     * publish for many events of one name at once, payloads.get(i) going to topics.get(i). Inside
+     * a transaction they share one after-commit hook instead of one each.
+     */
+    public void publishAll(String name, List<? extends Collection<String>> topics, List<?> payloads) {
+        List<Frame> frames = new ArrayList<>(payloads.size());
+        for (Object payload : payloads) {
+            try {
+                frames.add(frame(sequence.incrementAndGet(), name, objectMapper.writeValueAsString(payload)));
+            } catch (JsonProcessingException e) {
+                logger.error("Could not serialize {} push event: {}", name, e.getMessage());
+                frames.add(null);
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        fanOutAll(topics, frames);
+                    }
+                }
+            });
+        } else {
+            fanOutAll(topics, frames);
+        }
+    }
+
+    /**
+     * Number of clients currently subscribed to topic
+     */
+    public int subscriberCount(String topic) {
+        Set<Subscriber> subscribers = subscribersByTopic.get(topic);
+        return subscribers == null ? 0 : subscribers.size();
+    }
+
+    /**
+     * Keeps idle streams open through proxies and finds clients that went away
+     */
+    @Scheduled(fixedDelayString = "${grocito.push.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        Set<Subscriber> all = Collections.newSetFromMap(new IdentityHashMap<>());
+        subscribersByTopic.values().forEach(all::addAll);
+        for (Subscriber subscriber : all) {
+            // A client that is behind will hear from us soon enough
+            if (subscriber.buffer.isEmpty()) {
+                subscriber.offer(heartbeat);
+            }
+        }
+    }
+
+    private void fanOut(Collection<String> topics, Frame frame) {
+        if (topics.size() == 1) {
+            Set<Subscriber> subscribers = subscribersByTopic.get(topics.iterator().next());
+            if (subscribers != null) {
+                subscribers.forEach(subscriber -> subscriber.offer(frame));
+            }
+            return;
+        }
+        // A client on several of the topics still gets the event once
+        Set<Subscriber> recipients = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String topic : topics) {
+            Set<Subscriber> subscribers = subscribersByTopic.get(topic);
+            if (subscribers != null) {
+                recipients.addAll(subscribers);
+            }
+        }
+        recipients.forEach(subscriber -> subscriber.offer(frame));
+    }
+
+    private void fanOutAll(List<? extends Collection<String>> topics, List<Frame> frames) {
+        for (int i = 0; i < frames.size(); i++) {
+            if (frames.get(i) != null) {
+                fanOut(topics.get(i), frames.get(i));
+            }
+        }
+    }
+
+    private static Frame frame(long id, String name, String json) {
+        SseEmitter.SseEventBuilder event = SseEmitter.event().name(name).data(json);
+        if (id > 0) {
+            event.id(String.valueOf(id));
+        }
+        return new Frame(id, name, json, event.build());
+    }
+
+    /**
+     * One connected client: its topics and its bounded backlog
+     */
+    final class Subscriber {
+
+        final List<String> topics;
+        final Sink sink;
+        final ArrayBlockingQueue<Frame> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(List<String> topics, Sink sink, int capacity) {
+            this.topics = topics;
+            this.sink = sink;
+            this.buffer = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(Frame frame) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(frame)) {
+                // Too far behind: replace the backlog with one resync
+                buffer.clear();
+                overflowed.set(true);
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    while (!closed) {
+                        // Checked before every frame, so the resync goes ahead of what came after the overflow
+                        if (overflowed.getAndSet(false)) {
+                            sink.send(resync);
+                            continue;
+                        }
+                        Frame frame = buffer.poll();
+                        if (frame == null) {
+                            break;
+                        }
+                        sink.send(frame);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    logger.debug("Dropping push subscriber for {}: {}", topics, e.getMessage());
+                    unsubscribe(this);
+                    buffer.clear();
+                    sink.close();
+                    return;
+                } finally {
+                    draining.set(false);
+                }
+                // Frames offered while we were finishing up
+            } while (!closed && (!buffer.isEmpty() || overflowed.get()) && draining.compareAndSet(false, true));
+        }
+    }
+}
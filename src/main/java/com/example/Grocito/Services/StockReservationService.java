@@ -0,0 +1,170 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.Grocito.config.LoggerConfig;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Repository.ProductRepository;
+
+/**
+ * Atomic stock reservation for checkout.
+ *
+ * Every product of an order is decremented with a conditional
+ * UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?
+ * sent as one JDBC batch, so the database arbitrates concurrent buyers and stock never goes
+ * negative. A statement that updates no row is a shortfall; the exception rolls back the
+ * caller's transaction, which undoes the rest of the batch.
+ *
+ * Products designated hot are taken from the HotStockLedger instead and given back if the
+ * transaction rolls back.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerConfig.getLogger(StockReservationService.class);
+
+    private static final String RESERVE_SQL = "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String RELEASE_SQL = "UPDATE products SET stock = stock + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private HotStockLedger hotStockLedger;
+
+    /**
+     * Take stock for every product in quantities (product ID to total quantity), or throw without
+     * taking any. Must run inside the order's transaction. Returns the reserved products by ID,
+     * loaded in one query.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Product> reserve(Map<Long, Integer> quantities) {
+        // Ascending IDs, so concurrent orders lock rows in the same order
+        quantities = new TreeMap<>(quantities);
+        Map<Long, Integer> hot = new TreeMap<>();
+        Map<Long, Integer> cold = new TreeMap<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            if (line.getValue() <= 0) {
+                throw new RuntimeException("Invalid quantity " + line.getValue() + " for product id: " + line.getKey());
+            }
+            (hotStockLedger.isHot(line.getKey()) ? hot : cold).put(line.getKey(), line.getValue());
+        }
+
+        if (!hot.isEmpty()) {
+            reserveHot(hot);
+        }
+        if (!cold.isEmpty()) {
+            List<Object[]> batch = new ArrayList<>(cold.size());
+            for (Map.Entry<Long, Integer> line : cold.entrySet()) {
+                batch.add(new Object[] { line.getValue(), line.getKey(), line.getValue() });
+            }
+            int[] updated = jdbcTemplate.batchUpdate(RESERVE_SQL, batch);
+            int line = 0;
+            for (Map.Entry<Long, Integer> entry : cold.entrySet()) {
+                if (updated[line++] == 0) {
+                    throw shortfall(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        Map<Long, Product> products = loadAndEvict(quantities);
+        logger.debug("Reserved stock for {} products", products.size());
+        return products;
+    }
+
+    /**
+     * Return stock for every product in quantities, e.g. when an order is cancelled
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Map<Long, Integer> quantities) {
+        quantities = new TreeMap<>(quantities);
+        Map<Long, Integer> hot = new TreeMap<>();
+        List<Object[]> batch = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            if (hotStockLedger.isHot(line.getKey())) {
+                hot.put(line.getKey(), line.getValue());
+            } else {
+                batch.add(new Object[] { line.getValue(), line.getKey() });
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(RELEASE_SQL, batch);
+        }
+        if (!hot.isEmpty()) {
+            // Only hand hot stock back once the cancellation is committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    hot.forEach(hotStockLedger::release);
+                }
+            });
+        }
+        loadAndEvict(quantities);
+        logger.debug("Released stock for {} products", quantities.size());
+    }
+
+    /**
+     * Take every hot line from the ledger or none of them; taken stock is returned on rollback
+     */
+    private void reserveHot(Map<Long, Integer> hot) {
+        Map<Long, Integer> taken = new TreeMap<>();
+        for (Map.Entry<Long, Integer> line : hot.entrySet()) {
+            if (!hotStockLedger.reserve(line.getKey(), line.getValue())) {
+                taken.forEach(hotStockLedger::release);
+                throw shortfall(line.getKey(), line.getValue());
+            }
+            taken.put(line.getKey(), line.getValue());
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    taken.forEach(hotStockLedger::release);
+                }
+            }
+        });
+    }
+
+    private RuntimeException shortfall(Long productId, int requested) {
+        return productRepository.findById(productId)
+                .map(product -> {
+                    long hotStock = hotStockLedger.available(productId);
+                    int available = hotStock >= 0 ? (int) hotStock : product.getStock();
+                    logger.warn("Insufficient stock for product: {} (ID: {}). Available: {}, Requested: {}",
+                            product.getName(), productId, available, requested);
+                    return new RuntimeException("Not enough stock available for product: " + product.getName() +
+                            ". Available: " + available + ", Requested: " + requested);
+                })
+                .orElseGet(() -> {
+                    logger.error("Order placement failed: Product not found with ID: {}", productId);
+                    return new RuntimeException("Product not found with id: " + productId);
+                });
+    }
+
+    private Map<Long, Product> loadAndEvict(Map<Long, Integer> quantities) {
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getId(), product);
+            productCache.evictStock(product.getId());
+        }
+        return products;
+    }
+}
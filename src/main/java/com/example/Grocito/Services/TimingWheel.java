@@ -0,0 +1,66 @@
+package com.example.Grocito.Services;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashed timing wheel of positive long keys: one bucket per tick, enough buckets to cover a span
+ * of deadlines ahead. Scheduling puts a key in the bucket of its deadline, and advancing takes the
+ * buckets of every tick up to now, so both are O(1) per key however many are waiting.
+ *
+ * A key may be scheduled more than once and is never taken out early; whoever handles a due key
+ * looks up whether it still matters, and schedules it again if its deadline has moved on.
+ * Deadlines further out than the span land in the last bucket and come up early for the same
+ * reason.
+ */
+final class TimingWheel {
+
+    private static final long PRESENT = 1;
+
+    private final long tickMs;
+    private final AtomicReferenceArray<ConcurrentLongMap> buckets;
+    // Last tick whose bucket was taken; only advance moves it
+    private volatile long processedTick;
+
+    TimingWheel(long spanMs, long tickMs, long now) {
+        this.tickMs = tickMs;
+        // Every deadline from now to a span and a tick ahead has a bucket of its own
+        int count = (int) (spanMs / tickMs) + 3;
+        buckets = new AtomicReferenceArray<>(count);
+        for (int i = 0; i < count; i++) {
+            buckets.set(i, new ConcurrentLongMap());
+        }
+        processedTick = now / tickMs;
+    }
+
+    /**
+     * Put key in the first bucket to come up at or after deadline
+     */
+    void schedule(long key, long deadline) {
+        while (true) {
+            long processed = processedTick;
+            long tick = Math.min(Math.max(deadline / tickMs + 1, processed + 1), processed + buckets.length() - 1);
+            int index = (int) (tick % buckets.length());
+            ConcurrentLongMap bucket = buckets.get(index);
+            bucket.put(key, PRESENT);
+            if (buckets.get(index) == bucket) {
+                return;
+            }
+            // Taken for processing meanwhile, perhaps before this key was in it
+        }
+    }
+
+    /**
+     * Hand every key in the buckets of the ticks up to now to due. due may schedule keys again.
+     */
+    synchronized void advance(long now, LongConsumer due) {
+        long tick = now / tickMs;
+        // Far behind, one turn of the wheel still looks at everything
+        long from = Math.max(processedTick + 1, tick - buckets.length() + 1);
+        for (long t = from; t <= tick; t++) {
+            ConcurrentLongMap bucket = buckets.getAndSet((int) (t % buckets.length()), new ConcurrentLongMap());
+            processedTick = t;
+            bucket.forEachKey(due);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Random;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
@@ -18,7 +19,10 @@ import com.example.Grocito.config.LoggerConfig;
 import com.example.Grocito.Entity.User;
 import com.example.Grocito.Entity.Cart;
 import com.example.Grocito.Entity.Notification;
+import com.example.Grocito.Repository.Keyset;
 import com.example.Grocito.Repository.UserRepository;
+import com.example.Grocito.Repository.UserSpecifications;
+import com.example.Grocito.dto.CursorPage;
 import com.example.Grocito.Repository.CartRepository;
 import com.example.Grocito.Repository.NotificationRepository;
 
@@ -41,6 +45,12 @@ public class UserService {
     
     @PersistenceContext
     private EntityManager entityManager;
+    
+    @Value("${grocito.users.stats-cache-seconds:30}")
+    private long statsCacheSeconds;
+    
+    // Last admin user stats; dropped when users are added, deleted or change role
+    private volatile StatsSnapshot statsSnapshot;
 
     // Register a new user
     public User register(User user) {
@@ -60,6 +70,7 @@ public class UserService {
         
         user.setRegisteredDate(LocalDate.now());
         User savedUser = userRepo.save(user);
+        statsSnapshot = null;
         logger.info("User registered successfully with ID: {}", savedUser.getId());
         return savedUser;
     }
@@ -170,7 +181,9 @@ public class UserService {
         }
         
         user.setRole(newRole);
-        return userRepo.save(user);
+        User savedUser = userRepo.save(user);
+        statsSnapshot = null;
+        return savedUser;
     }
     
     // Get all users (admin function)
@@ -183,112 +196,83 @@ public class UserService {
         logger.info("Fetching users with filters - page: {}, limit: {}, search: {}, role: {}, status: {}, pincode: {}", 
                    page, limit, search, role, status, pincode);
         
-        // Get all users first
-        List<User> allUsers = userRepo.findAll();
-        logger.debug("Total users found: {}", allUsers.size());
-        
-        // Apply filters
-        List<User> filteredUsers = allUsers;
-        
-        // Filter by search term (name or email)
-        if (search != null && !search.trim().isEmpty()) {
-            String searchTerm = search.trim().toLowerCase();
-            filteredUsers = filteredUsers.stream()
-                .filter(user -> 
-                    (user.getFullName() != null && user.getFullName().toLowerCase().contains(searchTerm)) ||
-                    (user.getEmail() != null && user.getEmail().toLowerCase().contains(searchTerm))
-                )
-                .collect(java.util.stream.Collectors.toList());
-            logger.debug("After search filter: {} users", filteredUsers.size());
-        }
+        // Filtering and paging run in the database as one page query plus one count query
+        // (active = registered or logged in within the last 3 months)
+        org.springframework.data.domain.Page<User> usersPage = userRepo.findAll(
+                UserSpecifications.filter(search, role, status, pincode, LocalDate.now().minusMonths(3)),
+                org.springframework.data.domain.PageRequest.of(page - 1, limit, org.springframework.data.domain.Sort.by("id")));
+        logger.debug("Filtered users query returned {} of {} matching users", 
+                   usersPage.getNumberOfElements(), usersPage.getTotalElements());
         
-        // Filter by role
-        if (role != null && !role.trim().isEmpty()) {
-            filteredUsers = filteredUsers.stream()
-                .filter(user -> role.equals(user.getRole()))
-                .collect(java.util.stream.Collectors.toList());
-            logger.debug("After role filter: {} users", filteredUsers.size());
-        }
-        
-        // Filter by status (active/inactive based on last login)
-        if (status != null && !status.trim().isEmpty()) {
-            boolean isActive = "active".equalsIgnoreCase(status);
-            LocalDate threeMonthsAgo = LocalDate.now().minusMonths(3);
-            
-            filteredUsers = filteredUsers.stream()
-                .filter(user -> {
-                    // Consider a user active if they've registered or logged in within the last 3 months
-                    LocalDate lastActivity = user.getLastLogin() != null ? 
-                        user.getLastLogin() : user.getRegisteredDate();
-                    boolean userIsActive = lastActivity.isAfter(threeMonthsAgo);
-                    return userIsActive == isActive;
-                })
-                .collect(java.util.stream.Collectors.toList());
-            logger.debug("After status filter: {} users", filteredUsers.size());
-        }
+        // Create response
+        Map<String, Object> response = new HashMap<>();
+        response.put("users", usersPage.getContent());
+        response.put("currentPage", page);
+        response.put("totalPages", usersPage.getTotalPages());
+        response.put("totalUsers", usersPage.getTotalElements());
+        response.put("stats", getUserStats());
         
-        // Filter by pincode
-        if (pincode != null && !pincode.trim().isEmpty()) {
-            filteredUsers = filteredUsers.stream()
-                .filter(user -> pincode.equals(user.getPincode()))
-                .collect(java.util.stream.Collectors.toList());
-            logger.debug("After pincode filter: {} users", filteredUsers.size());
+        return response;
+    }
+    
+    // User totals for the admin user list from one grouped count query, cached for
+    // grocito.users.stats-cache-seconds (0 disables the cache)
+    public Map<String, Object> getUserStats() {
+        StatsSnapshot snapshot = statsSnapshot;
+        if (snapshot != null && snapshot.expiresAt > System.currentTimeMillis()) {
+            return snapshot.stats;
         }
         
-        // Calculate total filtered count
-        int totalFilteredUsers = filteredUsers.size();
-        
-        // Apply pagination
-        int startIndex = (page - 1) * limit;
-        int endIndex = Math.min(startIndex + limit, totalFilteredUsers);
-        
-        List<User> paginatedUsers;
-        if (startIndex < totalFilteredUsers) {
-            paginatedUsers = filteredUsers.subList(startIndex, endIndex);
-        } else {
-            paginatedUsers = new java.util.ArrayList<>();
+        long totalUsers = 0;
+        long activeUsers = 0;
+        long adminUsers = 0;
+        long deliveryPartners = 0;
+        for (Object[] row : userRepo.countByRoleAndActivity(LocalDate.now().minusMonths(3))) {
+            String userRole = (String) row[0];
+            long count = ((Number) row[1]).longValue();
+            totalUsers += count;
+            activeUsers += row[2] != null ? ((Number) row[2]).longValue() : 0;
+            if ("ADMIN".equals(userRole) || "SUPER_ADMIN".equals(userRole)) {
+                adminUsers += count;
+            } else if ("DELIVERY_PARTNER".equals(userRole)) {
+                deliveryPartners += count;
+            }
         }
         
-        // Calculate stats
-        int totalUsers = allUsers.size();
-        LocalDate threeMonthsAgo = LocalDate.now().minusMonths(3);
-        
-        long activeUsers = allUsers.stream()
-            .filter(user -> {
-                LocalDate lastActivity = user.getLastLogin() != null ? 
-                    user.getLastLogin() : user.getRegisteredDate();
-                return lastActivity.isAfter(threeMonthsAgo);
-            })
-            .count();
-        
-        long inactiveUsers = totalUsers - activeUsers;
-        
-        long adminUsers = allUsers.stream()
-            .filter(user -> "ADMIN".equals(user.getRole()) || "SUPER_ADMIN".equals(user.getRole()))
-            .count();
-        
-        long deliveryPartners = allUsers.stream()
-            .filter(user -> "DELIVERY_PARTNER".equals(user.getRole()))
-            .count();
-        
-        // Create response
-        Map<String, Object> response = new HashMap<>();
-        response.put("users", paginatedUsers);
-        response.put("currentPage", page);
-        response.put("totalPages", (int) Math.ceil((double) totalFilteredUsers / limit));
-        response.put("totalUsers", totalFilteredUsers);
-        
-        // Add stats
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalUsers", totalUsers);
         stats.put("activeUsers", activeUsers);
-        stats.put("inactiveUsers", inactiveUsers);
+        stats.put("inactiveUsers", totalUsers - activeUsers);
         stats.put("adminUsers", adminUsers);
         stats.put("deliveryPartners", deliveryPartners);
+        stats = java.util.Collections.unmodifiableMap(stats);
         
-        response.put("stats", stats);
-        
-        return response;
+        if (statsCacheSeconds > 0) {
+            statsSnapshot = new StatsSnapshot(stats, System.currentTimeMillis() + statsCacheSeconds * 1000);
+        }
+        return stats;
+    }
+    
+    // Admin: users after a cursor (keyset pagination), filtered in the database
+    public CursorPage<User> getUsersAfter(String cursor, int limit, String sortBy, String search, String role, String status, String pincode) {
+        logger.info("Fetching users after cursor - limit: {}, sortBy: {}, search: {}, role: {}, status: {}, pincode: {}", 
+                   limit, sortBy, search, role, status, pincode);
+        if (limit < 1) {
+            throw new RuntimeException("Page size must be at least 1");
+        }
+        org.springframework.data.domain.Sort sort = UserSpecifications.sortFor(sortBy);
+        List<Object> after = Keyset.decode(cursor, sortBy, sort, User.class);
+        
+        // One row more than requested tells whether there is a next page
+        List<User> rows = userRepo.findAfter(
+                UserSpecifications.filter(search, role, status, pincode, LocalDate.now().minusMonths(3)),
+                sort, after, limit + 1, "cart");
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = Keyset.encode(sortBy, sort, rows.get(limit - 1));
+        }
+        return new CursorPage<>(rows, limit, nextCursor);
     }
     
     // Delete user (admin function or account deletion)
@@ -377,6 +361,7 @@ public class UserService {
             
             // Flush all changes
             entityManager.flush();
+            statsSnapshot = null;
             
             logger.info("User deletion completed successfully for: {}", user.getEmail());
             
@@ -435,4 +420,15 @@ public class UserService {
         
         logger.info("Password reset successful for user: {}", email);
     }
+
+    private static final class StatsSnapshot {
+        
+        final Map<String, Object> stats;
+        final long expiresAt;
+        
+        StatsSnapshot(Map<String, Object> stats, long expiresAt) {
+            this.stats = stats;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
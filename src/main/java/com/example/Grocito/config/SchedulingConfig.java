@@ -0,0 +1,12 @@
+package com.example.Grocito.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (analytics reconciliation, etc.)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
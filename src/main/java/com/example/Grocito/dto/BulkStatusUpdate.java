@@ -0,0 +1,57 @@
+package com.example.Grocito.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk status update, per order id in the order requested: UPDATED, NOT_FOUND,
+ * ACCESS_DENIED (outside the admin's pincode) or NOT_ALLOWED (the state machine has no move
+ * from the order's current status, which previousStatuses then holds).
+ */
+public class BulkStatusUpdate {
+
+    public static final String UPDATED = "UPDATED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String ACCESS_DENIED = "ACCESS_DENIED";
+    public static final String NOT_ALLOWED = "NOT_ALLOWED";
+
+    private final String status;
+    private final Map<Long, String> outcomes = new LinkedHashMap<>();
+    private final Map<Long, String> previousStatuses = new LinkedHashMap<>();
+    private int updated;
+
+    public BulkStatusUpdate(String status) {
+        this.status = status;
+    }
+
+    public void add(Long orderId, String outcome, String previousStatus) {
+        if (UPDATED.equals(outcome) && !UPDATED.equals(outcomes.get(orderId))) {
+            updated++;
+        }
+        outcomes.put(orderId, outcome);
+        previousStatuses.put(orderId, previousStatus);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Map<Long, String> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * Status each order was in before the update, or is still in when it was not updated
+     */
+    public Map<Long, String> getPreviousStatuses() {
+        return previousStatuses;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getFailed() {
+        return outcomes.size() - updated;
+    }
+}
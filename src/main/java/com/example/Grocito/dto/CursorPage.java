@@ -0,0 +1,36 @@
+package com.example.Grocito.dto;
+
+import java.util.List;
+
+/**
+ * One page of a cursor (keyset) paginated list. Pass nextCursor back as the cursor parameter to
+ * get the following page; it is null on the last page.
+ */
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final int size;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
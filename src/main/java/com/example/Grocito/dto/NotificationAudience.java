@@ -0,0 +1,86 @@
+package com.example.Grocito.dto;
+
+import java.util.List;
+
+/**
+ * Who a notification fan-out goes to:
+ * USERS - the users in userIds;
+ * ROLE - every user with role, only those in pincode when one is given (e.g. a region's admins);
+ * PARTNERS - every verified, active delivery partner of pincode.
+ */
+public class NotificationAudience {
+
+    private String type; // USERS, ROLE, PARTNERS
+    private List<Long> userIds;
+    private String role;
+    private String pincode;
+
+    public NotificationAudience() {
+        super();
+    }
+
+    public static NotificationAudience users(List<Long> userIds) {
+        NotificationAudience audience = new NotificationAudience();
+        audience.setType("USERS");
+        audience.setUserIds(userIds);
+        return audience;
+    }
+
+    public static NotificationAudience role(String role, String pincode) {
+        NotificationAudience audience = new NotificationAudience();
+        audience.setType("ROLE");
+        audience.setRole(role);
+        audience.setPincode(pincode);
+        return audience;
+    }
+
+    public static NotificationAudience partners(String pincode) {
+        NotificationAudience audience = new NotificationAudience();
+        audience.setType("PARTNERS");
+        audience.setPincode(pincode);
+        return audience;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public String getPincode() {
+        return pincode;
+    }
+
+    public void setPincode(String pincode) {
+        this.pincode = pincode;
+    }
+
+    @Override
+    public String toString() {
+        if ("USERS".equals(type)) {
+            return "USERS(" + (userIds == null ? 0 : userIds.size()) + ")";
+        }
+        if ("ROLE".equals(type)) {
+            return "ROLE(" + role + (pincode == null ? "" : ", " + pincode) + ")";
+        }
+        return type + "(" + pincode + ")";
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.Grocito.dto;
+
+/**
+ * Body of POST /api/notifications/fan-out: one notification for every member of audience
+ */
+public class NotificationFanOutRequest {
+
+    private NotificationAudience audience;
+    private String message;
+    private String type;
+    private String link;
+
+    public NotificationFanOutRequest() {
+        super();
+    }
+
+    public NotificationAudience getAudience() {
+        return audience;
+    }
+
+    public void setAudience(NotificationAudience audience) {
+        this.audience = audience;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getLink() {
+        return link;
+    }
+
+    public void setLink(String link) {
+        this.link = link;
+    }
+}
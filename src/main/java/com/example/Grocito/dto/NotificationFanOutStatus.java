@@ -0,0 +1,114 @@
+package com.example.Grocito.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress and throughput of one notification fan-out. Updated by the worker running it, so
+ * polling it shows rows inserted so far.
+ */
+public class NotificationFanOutStatus {
+
+    private final String id;
+    private final String audience;
+    private final LocalDateTime queuedAt = LocalDateTime.now();
+    private volatile String status = "QUEUED"; // QUEUED, RUNNING, DONE, FAILED
+    private volatile int recipients;
+    private volatile int inserted;
+    private volatile int chunks;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long elapsedMs;
+    private volatile String error;
+
+    public NotificationFanOutStatus(String id, String audience) {
+        this.id = id;
+        this.audience = audience;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getAudience() {
+        return audience;
+    }
+
+    public LocalDateTime getQueuedAt() {
+        return queuedAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getRecipients() {
+        return recipients;
+    }
+
+    public void setRecipients(int recipients) {
+        this.recipients = recipients;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Rows inserted per second so far
+     */
+    public long getRowsPerSecond() {
+        return elapsedMs == 0 ? 0 : inserted * 1000L / elapsedMs;
+    }
+
+    public boolean isFinished() {
+        return "DONE".equals(status) || "FAILED".equals(status);
+    }
+}
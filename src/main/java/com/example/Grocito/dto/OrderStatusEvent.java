@@ -0,0 +1,58 @@
+package com.example.Grocito.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.Grocito.Entity.Order;
+
+/**
+ * Pushed to partner apps when an order changes status: enough to move the order between the
+ * available, my-orders and completed lists without reloading them.
+ */
+public class OrderStatusEvent {
+
+    private final Long orderId;
+    private final String status;
+    private final String previousStatus;
+    private final String pincode;
+    private final Long deliveryPartnerId;
+    private final double partnerEarning;
+    private final LocalDateTime changedAt;
+
+    public OrderStatusEvent(Order order, String previousStatus) {
+        this.orderId = order.getId();
+        this.status = order.getStatus();
+        this.previousStatus = previousStatus;
+        this.pincode = order.getPincode();
+        this.deliveryPartnerId = order.getDeliveryPartner() != null ? order.getDeliveryPartner().getId() : null;
+        this.partnerEarning = order.getPartnerEarning();
+        this.changedAt = LocalDateTime.now();
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public String getPincode() {
+        return pincode;
+    }
+
+    public Long getDeliveryPartnerId() {
+        return deliveryPartnerId;
+    }
+
+    public double getPartnerEarning() {
+        return partnerEarning;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.Grocito.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.OrderItem;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+
+/**
+ * Read-only view of an order for the order list endpoints.
+ *
+ * Keeps the JSON shape of the Order entity the frontends read (user.fullName, items[].product.name,
+ * ...) but only copies the fields they need, so customer and partner credentials are not exposed
+ * and serialization never triggers a lazy load. Build it from orders loaded with one of the
+ * OrderRepository *WithDetails queries.
+ */
+public class OrderView {
+
+    private final Long id;
+    private final String status;
+    private final LocalDateTime orderTime;
+    private final String deliveryAddress;
+    private final String pincode;
+    private final double totalAmount;
+    private final double deliveryFee;
+    private final double partnerEarning;
+    private final LocalDateTime assignedAt;
+    private final LocalDateTime pickedUpAt;
+    private final LocalDateTime deliveredAt;
+    private final LocalDateTime cancelledAt;
+    private final Customer user;
+    private final Partner deliveryPartner;
+    private final List<Line> items;
+
+    private OrderView(Order order) {
+        this.id = order.getId();
+        this.status = order.getStatus();
+        this.orderTime = order.getOrderTime();
+        this.deliveryAddress = order.getDeliveryAddress();
+        this.pincode = order.getPincode();
+        this.totalAmount = order.getTotalAmount();
+        this.deliveryFee = order.getDeliveryFee();
+        this.partnerEarning = order.getPartnerEarning();
+        this.assignedAt = order.getAssignedAt();
+        this.pickedUpAt = order.getPickedUpAt();
+        this.deliveredAt = order.getDeliveredAt();
+        this.cancelledAt = order.getCancelledAt();
+        this.user = order.getUser() != null ? new Customer(order.getUser()) : null;
+        this.deliveryPartner = order.getDeliveryPartner() != null ? new Partner(order.getDeliveryPartner()) : null;
+        List<Line> lines = new ArrayList<>();
+        if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                lines.add(new Line(item));
+            }
+        }
+        this.items = Collections.unmodifiableList(lines);
+    }
+
+    public static OrderView from(Order order) {
+        return new OrderView(order);
+    }
+
+    public static List<OrderView> fromAll(List<Order> orders) {
+        List<OrderView> views = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            views.add(new OrderView(order));
+        }
+        return views;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getOrderTime() {
+        return orderTime;
+    }
+
+    public String getDeliveryAddress() {
+        return deliveryAddress;
+    }
+
+    public String getPincode() {
+        return pincode;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public double getDeliveryFee() {
+        return deliveryFee;
+    }
+
+    public double getPartnerEarning() {
+        return partnerEarning;
+    }
+
+    public LocalDateTime getAssignedAt() {
+        return assignedAt;
+    }
+
+    public LocalDateTime getPickedUpAt() {
+        return pickedUpAt;
+    }
+
+    public LocalDateTime getDeliveredAt() {
+        return deliveredAt;
+    }
+
+    public LocalDateTime getCancelledAt() {
+        return cancelledAt;
+    }
+
+    public Customer getUser() {
+        return user;
+    }
+
+    public Partner getDeliveryPartner() {
+        return deliveryPartner;
+    }
+
+    public List<Line> getItems() {
+        return items;
+    }
+
+    public static class Customer {
+
+        private final Long id;
+        private final String fullName;
+        private final String email;
+        private final String contactNumber;
+        private final String address;
+        private final String pincode;
+
+        Customer(User user) {
+            this.id = user.getId();
+            this.fullName = user.getFullName();
+            this.email = user.getEmail();
+            this.contactNumber = user.getContactNumber();
+            this.address = user.getAddress();
+            this.pincode = user.getPincode();
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getContactNumber() {
+            return contactNumber;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public String getPincode() {
+            return pincode;
+        }
+    }
+
+    public static class Partner {
+
+        private final Long id;
+        private final String fullName;
+        private final String phoneNumber;
+        private final String vehicleType;
+        private final String vehicleNumber;
+
+        Partner(DeliveryPartnerAuth partner) {
+            this.id = partner.getId();
+            this.fullName = partner.getFullName();
+            this.phoneNumber = partner.getPhoneNumber();
+            this.vehicleType = partner.getVehicleType();
+            this.vehicleNumber = partner.getVehicleNumber();
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+
+        public String getPhoneNumber() {
+            return phoneNumber;
+        }
+
+        public String getVehicleType() {
+            return vehicleType;
+        }
+
+        public String getVehicleNumber() {
+            return vehicleNumber;
+        }
+    }
+
+    public static class Line {
+
+        private final Long id;
+        private final int quantity;
+        private final double price;
+        private final double totalPrice;
+        private final ProductRef product;
+
+        Line(OrderItem item) {
+            this.id = item.getId();
+            this.quantity = item.getQuantity();
+            this.price = item.getPrice();
+            this.totalPrice = item.getTotalPrice();
+            this.product = item.getProduct() != null ? new ProductRef(item.getProduct()) : null;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public double getTotalPrice() {
+            return totalPrice;
+        }
+
+        public ProductRef getProduct() {
+            return product;
+        }
+    }
+
+    public static class ProductRef {
+
+        private final Long id;
+        private final String name;
+        private final String category;
+        private final String imageUrl;
+        private final double price;
+
+        ProductRef(Product product) {
+            this.id = product.getId();
+            this.name = product.getName();
+            this.category = product.getCategory();
+            this.imageUrl = product.getImageUrl();
+            this.price = product.getPrice();
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getImageUrl() {
+            return imageUrl;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+-- Order rollup deltas not yet folded into order_daily_stats. Order writers only insert here, so
+-- no order waits on another's lock of a shared rollup row; OrderAnalyticsService folds the rows in.
+
+create table order_stats_deltas (
+    id bigint not null auto_increment,
+    pincode varchar(10) not null,
+    stats_date date not null,
+    status varchar(30) not null,
+    order_count bigint not null,
+    revenue float(53) not null,
+    primary key (id)
+);
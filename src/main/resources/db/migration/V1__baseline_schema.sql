@@ -0,0 +1,181 @@
+-- Baseline: the schema as spring.jpa.hibernate.ddl-auto=update left it before migrations were
+-- introduced. Databases that already have these tables are baselined at version 1 and skip this
+-- script (spring.flyway.baseline-on-migrate).
+
+create table users (
+    id bigint not null auto_increment,
+    full_name varchar(255),
+    email varchar(255),
+    password varchar(255),
+    role varchar(255),
+    address varchar(255),
+    pincode varchar(255),
+    contact_number varchar(255),
+    registered_date date,
+    last_login date,
+    primary key (id),
+    constraint uk_users_email unique (email)
+);
+
+create table products (
+    id bigint not null auto_increment,
+    name varchar(255),
+    description varchar(255),
+    price float(53) not null,
+    category varchar(255),
+    image_url varchar(255),
+    pincode varchar(255),
+    stock integer not null,
+    primary key (id)
+);
+
+create table cart (
+    id bigint not null auto_increment,
+    user_id bigint,
+    primary key (id),
+    constraint uk_cart_user unique (user_id),
+    constraint fk_cart_user foreign key (user_id) references users (id)
+);
+
+create table cart_item (
+    id bigint not null auto_increment,
+    product_id bigint,
+    quantity integer not null,
+    cart_id bigint,
+    primary key (id),
+    constraint fk_cart_item_cart foreign key (cart_id) references cart (id),
+    constraint fk_cart_item_product foreign key (product_id) references products (id)
+);
+
+create table delivery_partner_auth (
+    id bigint not null auto_increment,
+    email varchar(100) not null,
+    password varchar(255) not null,
+    phone_number varchar(15) not null,
+    full_name varchar(100) not null,
+    pincode varchar(10) not null,
+    vehicle_type varchar(50) not null,
+    vehicle_number varchar(20) not null,
+    license_number varchar(50) not null,
+    verification_status varchar(20) not null,
+    is_active bit not null,
+    reset_token varchar(255),
+    reset_token_expiry datetime(6),
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    last_login datetime(6),
+    primary key (id),
+    constraint uk_delivery_partner_auth_email unique (email),
+    constraint uk_delivery_partner_auth_phone unique (phone_number)
+);
+
+create table delivery_partners (
+    id bigint not null auto_increment,
+    full_name varchar(100) not null,
+    phone_number varchar(15) not null,
+    email varchar(100),
+    profile_image_url varchar(500),
+    vehicle_type varchar(50) not null,
+    vehicle_number varchar(20) not null,
+    driving_license varchar(50) not null,
+    assigned_pincode varchar(10) not null,
+    current_latitude decimal(10,8),
+    current_longitude decimal(11,8),
+    is_available bit not null,
+    availability_status varchar(20),
+    total_deliveries integer,
+    successful_deliveries integer,
+    average_rating decimal(3,2),
+    total_earnings decimal(10,2),
+    verification_status varchar(20),
+    account_status varchar(20),
+    bank_account_number varchar(20),
+    bank_ifsc_code varchar(15),
+    bank_account_holder_name varchar(100),
+    auth_id bigint,
+    created_at datetime(6),
+    updated_at datetime(6),
+    last_active_at datetime(6),
+    primary key (id),
+    constraint uk_delivery_partners_phone unique (phone_number),
+    constraint uk_delivery_partners_auth unique (auth_id),
+    constraint fk_delivery_partners_auth foreign key (auth_id) references delivery_partner_auth (id)
+);
+
+create table orders (
+    id bigint not null auto_increment,
+    status varchar(255),
+    order_time datetime(6),
+    delivery_address varchar(255),
+    pincode varchar(255),
+    total_amount float(53) not null,
+    delivery_fee float(53) not null,
+    partner_earning float(53) not null,
+    assigned_at datetime(6),
+    picked_up_at datetime(6),
+    delivered_at datetime(6),
+    cancelled_at datetime(6),
+    user_id bigint,
+    delivery_partner_auth_id bigint,
+    primary key (id),
+    constraint fk_orders_user foreign key (user_id) references users (id),
+    constraint fk_orders_partner_auth foreign key (delivery_partner_auth_id) references delivery_partner_auth (id)
+);
+
+create table order_items (
+    id bigint not null auto_increment,
+    quantity integer not null,
+    total_price float(53) not null,
+    price float(53) not null,
+    order_id bigint,
+    product_id bigint,
+    primary key (id),
+    constraint fk_order_items_order foreign key (order_id) references orders (id),
+    constraint fk_order_items_product foreign key (product_id) references products (id)
+);
+
+create table order_assignments (
+    id bigint not null auto_increment,
+    order_id bigint not null,
+    partner_id bigint not null,
+    assigned_at datetime(6) not null,
+    accepted_at datetime(6),
+    rejected_at datetime(6),
+    rejection_reason varchar(200),
+    status varchar(20) not null,
+    pickup_time datetime(6),
+    delivery_time datetime(6),
+    pickup_latitude decimal(10,8),
+    pickup_longitude decimal(11,8),
+    delivery_latitude decimal(10,8),
+    delivery_longitude decimal(11,8),
+    total_distance decimal(8,2),
+    delivery_duration integer,
+    pickup_duration integer,
+    base_fee decimal(8,2),
+    distance_bonus decimal(8,2),
+    time_bonus decimal(8,2),
+    total_earnings decimal(8,2),
+    special_instructions varchar(500),
+    customer_rating integer,
+    customer_feedback varchar(1000),
+    proof_of_delivery_url varchar(500),
+    delivery_otp varchar(10),
+    signature_url varchar(500),
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id),
+    constraint fk_order_assignments_order foreign key (order_id) references orders (id),
+    constraint fk_order_assignments_partner foreign key (partner_id) references delivery_partners (id)
+);
+
+create table notifications (
+    id bigint not null auto_increment,
+    user_id bigint,
+    message varchar(255),
+    type varchar(255),
+    read_status bit,
+    created_at datetime(6),
+    link varchar(255),
+    primary key (id)
+);
@@ -0,0 +1,23 @@
+-- Composite indexes for the hot lookups: equality columns first, then the range or sort column,
+-- so each query reads only its own slice of the index in order.
+
+-- Pending orders per pincode, oldest first (partner dashboard)
+create index idx_orders_pincode_status_time on orders (pincode, status, order_time);
+
+-- A partner's orders by status, and deliveries completed since a date (partner earnings/stats)
+create index idx_orders_partner_status_delivered on orders (delivery_partner_auth_id, status, delivered_at);
+
+-- Catalog browsing by pincode and category
+create index idx_products_pincode_category on products (pincode, category);
+
+-- A user's (unread) notifications, newest first
+create index idx_notifications_user_read_created on notifications (user_id, read_status, created_at);
+
+-- Pending/expired assignment sweeps
+create index idx_order_assignments_status_assigned on order_assignments (status, assigned_at);
+
+-- Active assignment counts per partner
+create index idx_order_assignments_partner_status on order_assignments (partner_id, status);
+
+-- Online partners in a pincode
+create index idx_delivery_partners_pincode_availability on delivery_partners (assigned_pincode, availability_status);
@@ -0,0 +1,20 @@
+-- Outgoing mail is stored here and sent by background workers (EmailOutbox)
+create table email_outbox (
+    id bigint not null auto_increment,
+    recipient varchar(255) not null,
+    subject varchar(255) not null,
+    body text not null,
+    status varchar(20) not null,
+    attempts integer not null,
+    next_attempt_at datetime(6) not null,
+    claim_token varchar(36),
+    claimed_at datetime(6),
+    last_error varchar(1000),
+    created_at datetime(6) not null,
+    sent_at datetime(6),
+    primary key (id)
+);
+
+-- Due rows in send order, and the rows of one claimed batch
+create index idx_email_outbox_status_next_attempt on email_outbox (status, next_attempt_at);
+create index idx_email_outbox_claim_token on email_outbox (claim_token);
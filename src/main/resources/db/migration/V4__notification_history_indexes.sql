@@ -0,0 +1,3 @@
+-- A user's notification history by cursor, newest first, all or unread only
+create index idx_notifications_user_id on notifications (user_id, id);
+create index idx_notifications_user_read_id on notifications (user_id, read_status, id);
@@ -0,0 +1,5 @@
+-- Notifications can also go to delivery partners; user_id then holds a delivery_partner_auth id
+alter table notifications add column recipient_type varchar(20) default 'USER' not null;
+
+-- Verified partners of a pincode, the audience of partner fan-outs
+create index idx_delivery_partner_auth_pincode_status on delivery_partner_auth (pincode, verification_status);
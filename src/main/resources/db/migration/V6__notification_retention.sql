@@ -0,0 +1,16 @@
+-- Read notifications past the retention age, oldest first (NotificationRetention)
+create index idx_notifications_read_created on notifications (read_status, created_at);
+
+-- What the retention job removed, per recipient and notification type
+create table notification_summaries (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    recipient_type varchar(20) not null,
+    type varchar(255) not null,
+    notification_count bigint not null,
+    first_created_at datetime(6) not null,
+    last_created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id),
+    constraint uk_notification_summaries unique (user_id, recipient_type, type)
+);
@@ -0,0 +1,3 @@
+-- Store an order is picked up from, when the pincode has more than one (BatchDispatcher)
+alter table orders add column pickup_latitude decimal(10,8);
+alter table orders add column pickup_longitude decimal(11,8);
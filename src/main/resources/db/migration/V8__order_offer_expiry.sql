@@ -0,0 +1,2 @@
+-- Deadline of an automatic assignment the partner has not accepted yet (OfferTimeouts)
+alter table orders add column offer_expires_at datetime(6);
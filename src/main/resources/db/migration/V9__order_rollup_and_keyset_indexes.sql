@@ -0,0 +1,24 @@
+-- The order analytics rollup and the keyset pagination indexes, which came in with the entities
+-- before migrations did. Databases baselined at version 1 never ran the baseline script, so they
+-- are created here; the table only if an earlier ddl-auto=update already made it.
+
+create table if not exists order_daily_stats (
+    id bigint not null auto_increment,
+    pincode varchar(10) not null,
+    stats_date date not null,
+    status varchar(30) not null,
+    order_count bigint not null,
+    revenue float(53) not null,
+    primary key (id),
+    constraint uk_order_daily_stats unique (pincode, stats_date, status)
+);
+
+-- Keyset pagination: (sort key, id), optionally behind an equality filter
+create index idx_orders_time_id on orders (order_time, id);
+create index idx_orders_amount_id on orders (total_amount, id);
+create index idx_orders_pincode_time_id on orders (pincode, order_time, id);
+create index idx_orders_status_time_id on orders (status, order_time, id);
+create index idx_products_pincode_name_id on products (pincode, name, id);
+create index idx_products_pincode_price_id on products (pincode, price, id);
+create index idx_users_role_id on users (role, id);
+create index idx_users_pincode_id on users (pincode, id);
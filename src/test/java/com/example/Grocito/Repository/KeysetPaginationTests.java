@@ -0,0 +1,172 @@
+package com.example.Grocito.Repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Walks order, product and user lists page by page through opaque cursors and checks that the
+ * pages add up to exactly the sorted, filtered table (ties on the sort key included), and that
+ * every page, however deep, is a single statement loading at most size + 1 rows.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO"
+})
+class KeysetPaginationTests {
+
+	private static final String[] PINCODES = { "110001", "412105" };
+	private static final String[] STATUSES = { "PLACED", "DELIVERED", "CANCELLED" };
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void seed() {
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			User user = new User();
+			user.setFullName("Customer " + i);
+			// E-mail order differs from ID order
+			user.setEmail("c" + (i * 37 % 120) + "@grocito.test");
+			user.setPassword("secret");
+			user.setRole(i % 4 == 0 ? "ADMIN" : "USER");
+			user.setPincode(PINCODES[i % 2]);
+			user.setRegisteredDate(LocalDate.of(2025, 1, 1).plusDays(i));
+			entityManager.persist(user);
+			users.add(user);
+		}
+		for (int i = 0; i < 300; i++) {
+			Order order = new Order();
+			order.setStatus(STATUSES[i % STATUSES.length]);
+			order.setPincode(PINCODES[i % 2]);
+			// Many orders share an order time and an amount, so the ID tie-break matters
+			order.setOrderTime(LocalDateTime.of(2025, 3, 1, 9, 0).plusMinutes(i / 4));
+			order.setTotalAmount((i * 7919L) % 13 * 10.0);
+			order.setDeliveryAddress("House " + i);
+			order.setUser(users.get(i % users.size()));
+			entityManager.persist(order);
+		}
+		for (int i = 0; i < 150; i++) {
+			entityManager.persist(new Product(null, "Product " + (i % 25), "Test", (i * 31) % 17 + 0.5, i % 3 == 0 ? "Dairy" : "Snacks",
+					null, PINCODES[i % 2], 10));
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void orderPagesCoverTheSortedTable() {
+		for (String sortBy : new String[] { "orderTime", "totalAmount", "id" }) {
+			Sort sort = OrderSpecifications.seekSortFor(sortBy);
+			Specification<Order> filter = OrderSpecifications.filter(null, "110001", null, null, null);
+			List<Long> expected = orderRepository.findAll(filter, sort).stream().map(Order::getId).collect(Collectors.toList());
+
+			List<Long> walked = walk(sortBy, sort, Order.class, 7, Order::getId,
+					after -> orderRepository.findAfter(filter, sort, after, 8, "user", "user.cart", "deliveryPartner"));
+			assertEquals(expected, walked, "Orders sorted by " + sortBy);
+		}
+	}
+
+	@Test
+	void productPagesCoverTheSortedTable() {
+		for (String sortBy : new String[] { "name", "price", "id" }) {
+			Sort sort = ProductSpecifications.sortFor(sortBy);
+			Specification<Product> filter = ProductSpecifications.filter("Snacks", "412105");
+			List<Long> expected = productRepository.findAll(filter, sort).stream().map(Product::getId).collect(Collectors.toList());
+
+			List<Long> walked = walk(sortBy, sort, Product.class, 6, Product::getId,
+					after -> productRepository.findAfter(filter, sort, after, 7));
+			assertEquals(expected, walked, "Products sorted by " + sortBy);
+		}
+	}
+
+	@Test
+	void userPagesCoverTheSortedTable() {
+		for (String sortBy : new String[] { "newest", "email" }) {
+			Sort sort = UserSpecifications.sortFor(sortBy);
+			Specification<User> filter = UserSpecifications.filter("customer", "USER", null, null, LocalDate.of(2025, 1, 1));
+			List<Long> expected = userRepository.findAll(filter, sort).stream().map(User::getId).collect(Collectors.toList());
+			assertTrue(expected.size() > 50);
+
+			List<Long> walked = walk(sortBy, sort, User.class, 9, User::getId,
+					after -> userRepository.findAfter(filter, sort, after, 10, "cart"));
+			assertEquals(expected, walked, "Users sorted by " + sortBy);
+		}
+	}
+
+	@Test
+	void cursorForAnotherSortIsRejected() {
+		Sort byTime = OrderSpecifications.seekSortFor("orderTime");
+		Order first = orderRepository.findAll(byTime).get(0);
+		String cursor = Keyset.encode("orderTime", byTime, first);
+
+		assertNotNull(Keyset.decode(cursor, "orderTime", byTime, Order.class));
+		assertThrows(IllegalArgumentException.class,
+				() -> Keyset.decode(cursor, "totalAmount", OrderSpecifications.seekSortFor("totalAmount"), Order.class));
+		assertThrows(IllegalArgumentException.class, () -> Keyset.decode("not-a-cursor", "orderTime", byTime, Order.class));
+	}
+
+	/**
+	 * All IDs reached by following cursors from the first page, checking each page is one statement
+	 */
+	private <T> List<Long> walk(String sortBy, Sort sort, Class<T> type, int size, Function<T, Long> id,
+			Function<List<Object>, List<T>> page) {
+		List<Long> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			entityManager.clear();
+			statistics.clear();
+			List<T> rows = page.apply(Keyset.decode(cursor, sortBy, sort, type));
+			assertEquals(1, statistics.getPrepareStatementCount(), "Statements for one page");
+			assertTrue(statistics.getEntityLoadCount() <= 2L * (size + 1), "Entities loaded for one page");
+
+			cursor = null;
+			if (rows.size() > size) {
+				rows = rows.subList(0, size);
+				cursor = Keyset.encode(sortBy, sort, rows.get(size - 1));
+			}
+			rows.stream().map(id).forEach(ids::add);
+		} while (cursor != null);
+
+		assertEquals(ids.size(), ids.stream().distinct().count(), "No row on two pages");
+		return ids;
+	}
+}
@@ -0,0 +1,182 @@
+package com.example.Grocito.Repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.Grocito.Entity.Cart;
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.OrderItem;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.dto.OrderView;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Builds OrderViews from the *WithDetails order queries and checks with Hibernate statistics that
+ * the number of SQL statements stays fixed however many orders, customers, partners and products
+ * are involved, where the plain derived queries grow with every distinct association.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO"
+})
+class OrderFetchQueriesTests {
+
+	private static final String PINCODE = "411001";
+	private static final int ITEMS_PER_ORDER = 3;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private Statistics statistics;
+	private final List<User> users = new ArrayList<>();
+	private final List<DeliveryPartnerAuth> partners = new ArrayList<>();
+	private final List<Product> products = new ArrayList<>();
+	private int seeded;
+
+	@BeforeEach
+	void seedCatalog() {
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		for (int i = 0; i < 40; i++) {
+			Product product = new Product(null, "Product " + i, "Test", 10 + i, "Staples", null, PINCODE, 100);
+			entityManager.persist(product);
+			products.add(product);
+		}
+		for (int i = 0; i < 8; i++) {
+			DeliveryPartnerAuth partner = new DeliveryPartnerAuth("partner" + i + "@grocito.test", "secret",
+					"98000000" + i, "Partner " + i, PINCODE, "BIKE", "MH12-" + i, "DL-" + i);
+			entityManager.persist(partner);
+			partners.add(partner);
+		}
+		entityManager.flush();
+	}
+
+	@Test
+	void detailQueriesUseOneStatementRegardlessOfOrderCount() {
+		seedOrders(5);
+		assertStatements(1, 5, () -> orderRepository.findWithDetailsByPincode(PINCODE));
+		assertStatements(1, 5, () -> orderRepository.findAllWithDetails());
+
+		seedOrders(60);
+		assertStatements(1, 60, () -> orderRepository.findWithDetailsByPincode(PINCODE));
+		assertStatements(1, 60, () -> orderRepository.findAllWithDetails());
+		List<Long> ids = orderRepository.findAll().stream().map(Order::getId).collect(Collectors.toList());
+		assertStatements(1, 60, () -> orderRepository.findWithDetailsByIdIn(ids));
+		assertStatements(1, 20, () -> orderRepository.findWithDetailsByStatusAndPincodeOrderByOrderTimeAsc("PLACED", PINCODE));
+		assertStatements(1, 5, () -> orderRepository.findWithDetailsByDeliveryPartnerIdAndStatusIn(
+				partners.get(1).getId(), List.of("ASSIGNED", "DELIVERED")));
+
+		Long userId = users.get(0).getId();
+		int ordersOfUser = (int) orderRepository.findAll().stream().filter(o -> o.getUser().getId().equals(userId)).count();
+		assertStatements(1, ordersOfUser, () -> orderRepository.findWithDetailsByUserId(userId));
+	}
+
+	@Test
+	void filteredPageUsesFixedStatementCount() {
+		seedOrders(60);
+		for (int size : new int[] { 5, 25 }) {
+			entityManager.clear();
+			statistics.clear();
+			Page<Order> page = orderRepository.findAll(OrderSpecifications.filter(null, PINCODE, null, null, null),
+					PageRequest.of(0, size, OrderSpecifications.sortFor("orderTime")));
+			List<OrderView> views = OrderView.fromAll(orderRepository.findWithDetailsByIdIn(
+					page.getContent().stream().map(Order::getId).collect(Collectors.toList())));
+			touch(views);
+
+			assertEquals(size, views.size());
+			// Page, count and the details of the page
+			assertEquals(3, statistics.getPrepareStatementCount(), "Statements for a page of " + size);
+		}
+	}
+
+	@Test
+	void plainQueriesGrowWithAssociations() {
+		seedOrders(60);
+		entityManager.clear();
+		statistics.clear();
+		touch(OrderView.fromAll(orderRepository.findByPincode(PINCODE)));
+
+		assertTrue(statistics.getPrepareStatementCount() > 60,
+				"Expected N+1 selects without a fetch graph, saw " + statistics.getPrepareStatementCount());
+	}
+
+	private void assertStatements(long expected, int orders, Supplier<List<Order>> query) {
+		entityManager.clear();
+		statistics.clear();
+		List<OrderView> views = OrderView.fromAll(query.get());
+		touch(views);
+
+		assertEquals(orders, views.size());
+		assertEquals(expected, statistics.getPrepareStatementCount(),
+				"Statements for " + orders + " orders: " + statistics.getPrepareStatementCount());
+	}
+
+	private static void touch(List<OrderView> views) {
+		for (OrderView view : views) {
+			assertEquals(ITEMS_PER_ORDER, view.getItems().size());
+			assertTrue(view.getUser().getFullName().startsWith("Customer"));
+			view.getItems().forEach(line -> assertTrue(line.getProduct().getName().startsWith("Product")));
+		}
+	}
+
+	private void seedOrders(int total) {
+		for (; seeded < total; seeded++) {
+			User user = new User();
+			user.setFullName("Customer " + seeded);
+			user.setEmail("customer" + seeded + "@grocito.test");
+			user.setPassword("secret");
+			user.setRole("USER");
+			user.setPincode(PINCODE);
+			entityManager.persist(user);
+			users.add(user);
+			if (seeded % 2 == 0) {
+				Cart cart = new Cart();
+				cart.setUser(user);
+				entityManager.persist(cart);
+			}
+
+			Order order = new Order();
+			order.setStatus(seeded % 3 == 0 ? "PLACED" : seeded % 3 == 1 ? "ASSIGNED" : "DELIVERED");
+			order.setPincode(PINCODE);
+			order.setOrderTime(LocalDateTime.of(2025, 1, 1, 8, 0).plusMinutes(seeded));
+			order.setDeliveryAddress("House " + seeded);
+			// Every third customer orders again, so customers repeat across orders
+			order.setUser(users.get(seeded % 3 == 2 ? 0 : seeded));
+			if (seeded % 3 != 0) {
+				order.setDeliveryPartner(partners.get(seeded % partners.size()));
+			}
+			List<OrderItem> items = new ArrayList<>();
+			for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+				Product product = products.get((seeded * ITEMS_PER_ORDER + i) % products.size());
+				items.add(new OrderItem(null, 1, product.getPrice(), product.getPrice(), order, product));
+			}
+			order.setItems(items);
+			order.setTotalAmount(items.stream().mapToDouble(OrderItem::getTotalPrice).sum());
+			entityManager.persist(order);
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+}
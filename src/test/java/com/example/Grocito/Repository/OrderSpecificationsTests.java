@@ -0,0 +1,176 @@
+package com.example.Grocito.Repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.User;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Seeds a synthetic order table and checks that the Specification based order filter
+ * returns the same pages as the previous in-memory implementation, while the number of
+ * entities Hibernate materialises stays bounded by the page size as the table grows.
+ *
+ * Table size can be raised with -Dgrocito.test.orders=2000000 for a full-size run.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO"
+})
+class OrderSpecificationsTests {
+
+	private static final int ORDERS = Integer.getInteger("grocito.test.orders", 20_000);
+	private static final int USERS = 200;
+	private static final String[] STATUSES = { "PLACED", "ASSIGNED", "OUT_FOR_DELIVERY", "DELIVERED", "CANCELLED" };
+	private static final String[] PINCODES = { "110001", "110002", "412105", "441904" };
+	private static final LocalDate BASE_DATE = LocalDate.of(2025, 1, 1);
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private final List<User> users = new ArrayList<>();
+	private int seeded;
+
+	@BeforeEach
+	void seedUsers() {
+		for (int i = 0; i < USERS; i++) {
+			User user = new User();
+			user.setFullName("Customer " + i);
+			user.setEmail("customer" + i + "@grocito.test");
+			user.setPassword("secret");
+			user.setRole("USER");
+			user.setPincode(PINCODES[i % PINCODES.length]);
+			entityManager.persist(user);
+			users.add(user);
+		}
+		entityManager.flush();
+	}
+
+	@Test
+	void filteredPagesMatchInMemoryReference() {
+		seedOrders(ORDERS / 4);
+
+		assertSamePage(0, 20, "orderTime", null, null, null, null, null);
+		assertSamePage(3, 25, "totalAmount", "DELIVERED", "110001", null, null, null);
+		assertSamePage(0, 10, "orderTime", null, null, "customer1", null, null);
+		assertSamePage(1, 15, "orderTime", "PLACED", null, "street 4", "2025-01-10", "2025-02-15");
+		assertSamePage(0, 50, "unknown", null, "412105", null, "2025-03-01", null);
+		assertSamePage(0, 10, "orderTime", null, null, "100%", null, null);
+	}
+
+	@Test
+	void loadedEntitiesDoNotGrowWithTableSize() {
+		Statistics statistics = entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+
+		seedOrders(ORDERS / 10);
+		long smallTableLoads = countLoads(statistics);
+
+		seedOrders(ORDERS);
+		long largeTableLoads = countLoads(statistics);
+
+		// One page of orders plus at most one customer per order, regardless of table size
+		assertTrue(smallTableLoads <= 40, "Loaded " + smallTableLoads + " entities for a page of 20");
+		assertTrue(largeTableLoads <= 40, "Loaded " + largeTableLoads + " entities for a page of 20");
+	}
+
+	private long countLoads(Statistics statistics) {
+		entityManager.clear();
+		statistics.clear();
+		Page<Order> page = orderRepository.findAll(
+				OrderSpecifications.filter("DELIVERED", null, null, null, null),
+				PageRequest.of(2, 20, OrderSpecifications.sortFor("orderTime")));
+		assertEquals(20, page.getNumberOfElements());
+		return statistics.getEntityLoadCount();
+	}
+
+	private void assertSamePage(int page, int size, String sortBy, String status, String pincode,
+			String search, String dateFrom, String dateTo) {
+		LocalDateTime from = dateFrom != null ? LocalDate.parse(dateFrom).atStartOfDay() : null;
+		LocalDateTime before = dateTo != null ? LocalDate.parse(dateTo).plusDays(1).atStartOfDay() : null;
+
+		entityManager.clear();
+		Page<Order> actual = orderRepository.findAll(
+				OrderSpecifications.filter(status, pincode, search, from, before),
+				PageRequest.of(page, size, OrderSpecifications.sortFor(sortBy)));
+
+		List<Order> expected = referenceFilter(sortBy, status, pincode, search, dateFrom, dateTo);
+		int start = Math.min(page * size, expected.size());
+		List<Long> expectedIds = expected.subList(start, Math.min(start + size, expected.size())).stream()
+				.map(Order::getId).collect(Collectors.toList());
+
+		assertEquals(expected.size(), actual.getTotalElements());
+		assertEquals(expectedIds, actual.getContent().stream().map(Order::getId).collect(Collectors.toList()));
+	}
+
+	/**
+	 * The in-memory filter that OrderService.getFilteredOrders used before the query moved into the database
+	 */
+	private List<Order> referenceFilter(String sortBy, String status, String pincode, String search,
+			String dateFrom, String dateTo) {
+		entityManager.clear();
+		List<Order> orders = orderRepository.findAll().stream()
+				.sorted(Comparator.comparing(Order::getId))
+				.filter(o -> status == null || status.equals(o.getStatus()))
+				.filter(o -> pincode == null || pincode.equals(o.getPincode()))
+				.filter(o -> search == null || o.getId().toString().contains(search.toLowerCase())
+						|| o.getUser().getFullName().toLowerCase().contains(search.toLowerCase())
+						|| o.getUser().getEmail().toLowerCase().contains(search.toLowerCase())
+						|| o.getDeliveryAddress().toLowerCase().contains(search.toLowerCase()))
+				.filter(o -> dateFrom == null
+						|| o.getOrderTime().toLocalDate().isAfter(LocalDate.parse(dateFrom).minusDays(1)))
+				.filter(o -> dateTo == null
+						|| o.getOrderTime().toLocalDate().isBefore(LocalDate.parse(dateTo).plusDays(1)))
+				.collect(Collectors.toCollection(ArrayList::new));
+
+		if ("orderTime".equals(sortBy)) {
+			orders.sort((a, b) -> b.getOrderTime().compareTo(a.getOrderTime()));
+		} else if ("totalAmount".equals(sortBy)) {
+			orders.sort((a, b) -> Double.compare(b.getTotalAmount(), a.getTotalAmount()));
+		}
+		return orders;
+	}
+
+	private void seedOrders(int total) {
+		for (; seeded < total; seeded++) {
+			Order order = new Order();
+			order.setStatus(STATUSES[seeded % STATUSES.length]);
+			order.setPincode(PINCODES[(seeded / 3) % PINCODES.length]);
+			order.setOrderTime(BASE_DATE.atStartOfDay().plusMinutes(seeded * 37L % (120 * 24 * 60)));
+			order.setDeliveryAddress("House " + seeded + ", street " + (seeded % 50));
+			order.setTotalAmount((seeded * 7919L) % 5000 / 10.0);
+			order.setUser(entityManager.getReference(User.class, users.get(seeded % USERS).getId()));
+			entityManager.persist(order);
+
+			if (seeded % 1000 == 999) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+}
@@ -0,0 +1,160 @@
+package com.example.Grocito.Repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Builds the schema from the Flyway migrations alone on an H2 database in MySQL mode (the local
+ * stand-in for production), lets Hibernate validate the entity mappings against it, and checks
+ * with EXPLAIN that the hot lookups are answered from their composite indexes rather than scans.
+ * A database from before migrations, baselined at version 1, must end up with the same schema.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchemaMigrationTests {
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void seed() {
+		jdbcTemplate.update("insert into users (full_name, email, role, pincode) values ('Asha', 'asha@grocito.test', 'USER', '110001')");
+		jdbcTemplate.update("insert into delivery_partner_auth (email, password, phone_number, full_name, pincode, vehicle_type,"
+				+ " vehicle_number, license_number, verification_status, is_active, created_at, updated_at)"
+				+ " values ('ravi@grocito.test', 'x', '9000000001', 'Ravi', '110001', 'BIKE', 'MH12', 'DL1', 'VERIFIED', true,"
+				+ " current_timestamp, current_timestamp)");
+		Long userId = jdbcTemplate.queryForObject("select max(id) from users", Long.class);
+		Long partnerId = jdbcTemplate.queryForObject("select max(id) from delivery_partner_auth", Long.class);
+		for (int i = 0; i < 200; i++) {
+			String pincode = i % 2 == 0 ? "110001" : "412105";
+			jdbcTemplate.update("insert into orders (status, order_time, pincode, total_amount, delivery_fee, partner_earning,"
+					+ " user_id, delivery_partner_auth_id, delivered_at) values (?, dateadd('MINUTE', ?, current_timestamp), ?,"
+					+ " 100, 20, 15, ?, ?, current_timestamp)", i % 3 == 0 ? "PLACED" : "DELIVERED", i, pincode, userId, partnerId);
+			jdbcTemplate.update("insert into products (name, price, category, pincode, stock) values (?, 10, ?, ?, 5)",
+					"Product " + i, i % 4 == 0 ? "Dairy" : "Snacks", pincode);
+			jdbcTemplate.update("insert into notifications (user_id, message, read_status, created_at) values (?, 'Hi', ?, current_timestamp)",
+					i % 20, i % 5 == 0);
+		}
+	}
+
+	@Test
+	void migrationsBuildTheMappedSchema() {
+		// Hibernate has already validated every entity against the migrated tables to get here
+		List<String> applied = Arrays.stream(flyway.info().applied())
+				.filter(m -> m.getState().isApplied() && !m.getState().isFailed())
+				.map(MigrationInfo::getVersion).map(Object::toString).collect(Collectors.toList());
+		assertTrue(applied.containsAll(List.of("1", "2")), "Applied " + applied);
+		assertEquals(0, flyway.info().pending().length);
+	}
+
+	@Test
+	void databasesBaselinedAtTheFirstVersionGetEverythingSince() {
+		// A database ddl-auto=update built before migrations: the baseline's tables, no history
+		DriverManagerDataSource existing = new DriverManagerDataSource(
+				"jdbc:h2:mem:baselined;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure().dataSource(existing).target("1").load().migrate();
+		JdbcTemplate database = new JdbcTemplate(existing);
+		database.execute("drop table \"flyway_schema_history\"");
+		assertEquals(0, database.queryForObject("select count(*) from information_schema.tables"
+				+ " where lower(table_name) = 'order_daily_stats'", Integer.class));
+
+		Flyway.configure().dataSource(existing).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+		assertEquals(1, database.queryForObject("select count(*) from information_schema.tables"
+				+ " where lower(table_name) = 'order_daily_stats'", Integer.class));
+		for (String index : List.of("idx_orders_time_id", "idx_orders_status_time_id", "idx_products_pincode_name_id", "idx_users_role_id")) {
+			assertTrue(database.queryForObject("select count(*) from information_schema.indexes"
+					+ " where lower(index_name) = ?", Integer.class, index) > 0, index);
+		}
+		assertEquals(flyway.info().current().getVersion(), Flyway.configure().dataSource(existing).load().info().current().getVersion());
+	}
+
+	@Test
+	void pendingOrdersPerPincodeUseTheirIndex() {
+		assertUsesIndex("idx_orders_pincode_status_time", "select id from orders"
+				+ " where status = 'PLACED' and pincode = '110001' order by order_time");
+	}
+
+	@Test
+	void partnerDeliveriesUseTheirIndex() {
+		assertUsesIndex("idx_orders_partner_status_delivered", "select count(*) from orders"
+				+ " where delivery_partner_auth_id = 1 and status = 'DELIVERED' and delivered_at > dateadd('DAY', -1, current_timestamp)");
+	}
+
+	@Test
+	void productsByPincodeAndCategoryUseTheirIndex() {
+		assertUsesIndex("idx_products_pincode_category", "select id from products where category = 'Dairy' and pincode = '412105'");
+	}
+
+	@Test
+	void unreadNotificationsUseTheirIndex() {
+		assertUsesIndex("idx_notifications_user_read_created", "select id from notifications"
+				+ " where user_id = 3 and read_status = false order by created_at desc");
+	}
+
+	@Test
+	void notificationHistoryPagesUseTheirIndexes() {
+		assertUsesIndex("idx_notifications_user_id", "select id from notifications"
+				+ " where user_id = 3 and id < 1000 order by id desc limit 21");
+		assertUsesIndex("idx_notifications_user_read_id", "select id from notifications"
+				+ " where user_id = 3 and read_status = false and id < 1000 order by id desc limit 21");
+	}
+
+	@Test
+	void retentionScanUsesItsIndex() {
+		assertUsesIndex("idx_notifications_read_created", "select id, user_id, recipient_type, type, created_at from notifications"
+				+ " where read_status = true and created_at < dateadd('DAY', -30, current_timestamp) order by created_at limit 1000");
+	}
+
+	@Test
+	void assignmentSweepsAndPartnerCountsUseTheirIndexes() {
+		assertUsesIndex("idx_order_assignments_status_assigned", "select id from order_assignments"
+				+ " where status = 'ASSIGNED' and assigned_at < current_timestamp");
+		assertUsesIndex("idx_order_assignments_partner_status", "select count(*) from order_assignments"
+				+ " where partner_id = 1 and status in ('ACCEPTED', 'PICKED_UP', 'OUT_FOR_DELIVERY')");
+	}
+
+	@Test
+	void dueOutboxEmailsUseTheirIndex() {
+		assertUsesIndex("idx_email_outbox_status_next_attempt", "select id from email_outbox"
+				+ " where status = 'PENDING' and next_attempt_at <= current_timestamp order by next_attempt_at limit 40");
+	}
+
+	@Test
+	void onlinePartnersPerPincodeUseTheirIndex() {
+		assertUsesIndex("idx_delivery_partners_pincode_availability", "select id from delivery_partners"
+				+ " where assigned_pincode = '110001' and availability_status = 'ONLINE' and is_available = true");
+	}
+
+	private void assertUsesIndex(String index, String sql) {
+		String plan = jdbcTemplate.queryForObject("explain " + sql, String.class).toLowerCase();
+		assertTrue(plan.contains(index), "Expected " + index + " in plan:\n" + plan);
+		assertFalse(plan.contains("tablescan"), "Unexpected scan in plan:\n" + plan);
+	}
+}
@@ -0,0 +1,156 @@
+package com.example.Grocito.Repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.example.Grocito.Entity.Cart;
+import com.example.Grocito.Entity.User;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Seeds a synthetic user table and checks that the Specification based admin user filter and the
+ * grouped role/activity count return what the previous in-memory implementation of
+ * UserService.getAllUsersWithFilters did, while a page only materialises its own users.
+ *
+ * Table size can be raised with -Dgrocito.test.users=1000000 for a full-size run.
+ */
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.show-sql=false",
+		"logging.level.org.hibernate.SQL=INFO"
+})
+class UserSpecificationsTests {
+
+	private static final int USERS = Integer.getInteger("grocito.test.users", 20_000);
+	private static final String[] ROLES = { "USER", "USER", "USER", "ADMIN", "DELIVERY_PARTNER", "SUPER_ADMIN" };
+	private static final String[] PINCODES = { "110001", "110002", "412105", "441904" };
+	private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+	private static final LocalDate ACTIVE_SINCE = TODAY.minusMonths(3);
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@BeforeEach
+	void seedUsers() {
+		for (int i = 0; i < USERS; i++) {
+			User user = new User();
+			user.setFullName((i % 7 == 0 ? "Asha " : "Ravi ") + "Customer " + i);
+			user.setEmail("user" + i + "@grocito.test");
+			user.setPassword("secret");
+			user.setRole(ROLES[i % ROLES.length]);
+			user.setPincode(PINCODES[(i / 5) % PINCODES.length]);
+			user.setRegisteredDate(TODAY.minusDays(i * 13L % 400));
+			if (i % 3 == 0) {
+				user.setLastLogin(TODAY.minusDays(i % 120));
+			}
+			entityManager.persist(user);
+			if (i % 4 == 0) {
+				Cart cart = new Cart();
+				cart.setUser(user);
+				entityManager.persist(cart);
+			}
+			if (i % 1000 == 999) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void filteredPagesMatchInMemoryReference() {
+		assertSamePage(1, 10, null, null, null, null);
+		assertSamePage(3, 25, "asha", null, null, null);
+		assertSamePage(2, 20, null, "ADMIN", "active", "110001");
+		assertSamePage(1, 50, "Customer 1", "USER", "inactive", null);
+		assertSamePage(4, 10, "@GROCITO", "DELIVERY_PARTNER", null, "441904");
+		assertSamePage(1, 10, "50%", null, null, null);
+	}
+
+	@Test
+	void groupedCountMatchesInMemoryStats() {
+		List<User> all = reference();
+		long active = all.stream().filter(this::isActive).count();
+		long admins = all.stream().filter(u -> "ADMIN".equals(u.getRole()) || "SUPER_ADMIN".equals(u.getRole())).count();
+		long partners = all.stream().filter(u -> "DELIVERY_PARTNER".equals(u.getRole())).count();
+
+		Map<String, long[]> byRole = userRepository.countByRoleAndActivity(ACTIVE_SINCE).stream()
+				.collect(Collectors.toMap(row -> (String) row[0],
+						row -> new long[] { ((Number) row[1]).longValue(), ((Number) row[2]).longValue() }));
+
+		assertEquals(all.size(), byRole.values().stream().mapToLong(c -> c[0]).sum());
+		assertEquals(active, byRole.values().stream().mapToLong(c -> c[1]).sum());
+		assertEquals(admins, byRole.get("ADMIN")[0] + byRole.get("SUPER_ADMIN")[0]);
+		assertEquals(partners, byRole.get("DELIVERY_PARTNER")[0]);
+	}
+
+	@Test
+	void pageLoadsOnlyItsOwnUsers() {
+		Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		entityManager.clear();
+		statistics.clear();
+
+		Page<User> page = userRepository.findAll(UserSpecifications.filter(null, "USER", "active", null, ACTIVE_SINCE),
+				PageRequest.of(5, 20, Sort.by("id")));
+
+		assertEquals(20, page.getNumberOfElements());
+		// Page and count query; each user plus at most its cart
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertTrue(statistics.getEntityLoadCount() <= 40, "Loaded " + statistics.getEntityLoadCount() + " entities");
+	}
+
+	private void assertSamePage(int page, int limit, String search, String role, String status, String pincode) {
+		entityManager.clear();
+		Page<User> actual = userRepository.findAll(UserSpecifications.filter(search, role, status, pincode, ACTIVE_SINCE),
+				PageRequest.of(page - 1, limit, Sort.by("id")));
+
+		List<User> expected = reference().stream()
+				.filter(u -> search == null || u.getFullName().toLowerCase().contains(search.toLowerCase())
+						|| u.getEmail().toLowerCase().contains(search.toLowerCase()))
+				.filter(u -> role == null || role.equals(u.getRole()))
+				.filter(u -> status == null || isActive(u) == "active".equalsIgnoreCase(status))
+				.filter(u -> pincode == null || pincode.equals(u.getPincode()))
+				.collect(Collectors.toList());
+		int start = Math.min((page - 1) * limit, expected.size());
+		List<Long> expectedIds = expected.subList(start, Math.min(start + limit, expected.size())).stream()
+				.map(User::getId).collect(Collectors.toList());
+
+		assertEquals(expected.size(), actual.getTotalElements());
+		assertEquals(expectedIds, actual.getContent().stream().map(User::getId).collect(Collectors.toList()));
+	}
+
+	/**
+	 * Every user in ID order, as the previous implementation loaded them
+	 */
+	private List<User> reference() {
+		entityManager.clear();
+		return userRepository.findAll().stream().sorted(Comparator.comparing(User::getId)).collect(Collectors.toList());
+	}
+
+	private boolean isActive(User user) {
+		LocalDate lastActivity = user.getLastLogin() != null ? user.getLastLogin() : user.getRegisteredDate();
+		return lastActivity.isAfter(ACTIVE_SINCE);
+	}
+}
@@ -0,0 +1,138 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.Grocito.Entity.Product;
+
+/**
+ * Every metric and groupBy cell must equal the same figure computed with a plain stream, and
+ * sequential and parallel runs must give identical results. Prices are whole quarters of a
+ * rupee, so every sum is exact whatever order the partial sums are combined in.
+ */
+class AnalyticsAggregatorTests {
+
+	private static final String[] CATEGORIES = { "Dairy", "Staples", "Produce", "Bakery", "Snacks", null };
+	private static final String[] PINCODES = { "411001", "411002", "411003", "560001" };
+
+	private static final Predicate<Product> IN_STOCK = p -> p.getStock() > 10;
+	private static final Predicate<Product> LOW_STOCK = p -> p.getStock() > 0 && p.getStock() <= 10;
+	private static final Predicate<Product> OUT_OF_STOCK = p -> p.getStock() == 0;
+	private static final Predicate<Product> DAIRY = p -> "Dairy".equals(p.getCategory());
+
+	private static AnalyticsAggregator.Builder<Product> metrics() {
+		return AnalyticsAggregator.<Product>builder()
+				.count("inStock", IN_STOCK)
+				.count("lowStock", LOW_STOCK)
+				.count("outOfStock", OUT_OF_STOCK)
+				.metric("price", null, Product::getPrice)
+				.metric("dairyPrice", DAIRY, Product::getPrice)
+				.metric("stock", IN_STOCK, Product::getStock)
+				.groupBy("category", null, Product::getCategory, null)
+				.groupBy("pincodeValue", p -> p.getStock() > 0, Product::getPincode, p -> p.getPrice() * p.getStock());
+	}
+
+	@Test
+	void metricsAndGroupCellsMatchAStreamComputation() {
+		List<Product> products = catalogue(120_000, 11);
+		AnalyticsAggregator<Product>.Result result = metrics().build().aggregate(products);
+
+		assertEquals(products.stream().filter(IN_STOCK).count(), result.count("inStock"));
+		assertEquals(products.stream().filter(LOW_STOCK).count(), result.count("lowStock"));
+		assertEquals(products.stream().filter(OUT_OF_STOCK).count(), result.count("outOfStock"));
+
+		assertEquals(products.size(), result.count("price"));
+		assertEquals(products.stream().mapToDouble(Product::getPrice).sum(), result.sum("price"));
+		assertEquals(products.stream().mapToDouble(Product::getPrice).min().getAsDouble(), result.min("price"));
+		assertEquals(products.stream().mapToDouble(Product::getPrice).max().getAsDouble(), result.max("price"));
+		assertEquals(products.stream().mapToDouble(Product::getPrice).average().getAsDouble(), result.average("price"));
+
+		assertEquals(products.stream().filter(DAIRY).count(), result.count("dairyPrice"));
+		assertEquals(products.stream().filter(DAIRY).mapToDouble(Product::getPrice).sum(), result.sum("dairyPrice"));
+		assertEquals(products.stream().filter(DAIRY).mapToDouble(Product::getPrice).average().getAsDouble(), result.average("dairyPrice"));
+		assertEquals(products.stream().filter(IN_STOCK).mapToInt(Product::getStock).min().getAsInt(), result.min("stock"));
+		assertEquals(products.stream().filter(IN_STOCK).mapToInt(Product::getStock).max().getAsInt(), result.max("stock"));
+
+		// groupingBy cannot take null keys: uncategorised products are counted separately
+		Map<String, Long> byCategory = products.stream().filter(p -> p.getCategory() != null)
+				.collect(Collectors.groupingBy(Product::getCategory, Collectors.counting()));
+		byCategory.put(null, products.stream().filter(p -> p.getCategory() == null).count());
+		assertEquals(byCategory, result.groupCounts("category"));
+		assertEquals(byCategory.get("Staples"), result.groupCount("category", "Staples"));
+		assertEquals(0.0, result.groupSum("category", "Dairy"));
+
+		List<Product> stocked = products.stream().filter(p -> p.getStock() > 0).collect(Collectors.toList());
+		assertEquals(stocked.stream().collect(Collectors.groupingBy(Product::getPincode, Collectors.counting())),
+				result.groupCounts("pincodeValue"));
+		assertEquals(stocked.stream().collect(Collectors.groupingBy(Product::getPincode,
+				Collectors.summingDouble(p -> p.getPrice() * p.getStock()))), result.groupSums("pincodeValue"));
+		assertEquals(0L, result.groupCount("pincodeValue", "999999"));
+	}
+
+	@Test
+	void sequentialAndParallelRunsGiveIdenticalResults() {
+		List<Product> products = catalogue(200_000, 23);
+		Map<String, Object> sequential = snapshot(metrics().parallelThreshold(Integer.MAX_VALUE).build().aggregate(products));
+
+		// The collection overload above and below the threshold, and streams either way
+		assertEquals(sequential, snapshot(metrics().parallelThreshold(1).build().aggregate(products)));
+		assertEquals(sequential, snapshot(metrics().build().aggregate(products.stream())));
+		assertEquals(sequential, snapshot(metrics().build().aggregate(products.parallelStream())));
+
+		// Rows in another order split differently and still combine to the same figures
+		List<Product> shuffled = new ArrayList<>(products);
+		Collections.shuffle(shuffled, new Random(5));
+		assertEquals(sequential, snapshot(metrics().build().aggregate(shuffled.parallelStream())));
+	}
+
+	@Test
+	void emptyInputAndUnknownNamesAreHandled() {
+		AnalyticsAggregator<Product>.Result empty = metrics().build().aggregate(List.of());
+		assertEquals(0L, empty.count("price"));
+		assertEquals(0.0, empty.sum("price"));
+		assertEquals(0.0, empty.min("price"));
+		assertEquals(0.0, empty.max("price"));
+		assertEquals(0.0, empty.average("price"));
+		assertEquals(Map.of(), empty.groupCounts("category"));
+		assertEquals(empty.count("price"), metrics().build().aggregate(List.<Product>of().parallelStream()).count("price"));
+
+		assertThrows(IllegalArgumentException.class, () -> empty.count("revenue"));
+		assertThrows(IllegalArgumentException.class, () -> empty.groupCounts("status"));
+	}
+
+	private static Map<String, Object> snapshot(AnalyticsAggregator<Product>.Result result) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		for (String metric : new String[] { "inStock", "lowStock", "outOfStock", "price", "dairyPrice", "stock" }) {
+			values.put(metric, Arrays.asList(result.count(metric), result.sum(metric), result.min(metric),
+					result.max(metric), result.average(metric)));
+		}
+		for (String group : new String[] { "category", "pincodeValue" }) {
+			values.put(group + ".counts", result.groupCounts(group));
+			values.put(group + ".sums", result.groupSums(group));
+		}
+		return values;
+	}
+
+	private static List<Product> catalogue(int size, long seed) {
+		Random random = new Random(seed);
+		List<Product> products = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			products.add(new Product((long) i + 1, "Product " + i, "", 5 + random.nextInt(4_000) / 4.0,
+					CATEGORIES[random.nextInt(CATEGORIES.length)], null, PINCODES[random.nextInt(PINCODES.length)],
+					random.nextInt(4) == 0 ? 0 : random.nextInt(60)));
+		}
+		return products;
+	}
+}
@@ -0,0 +1,377 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.OrderItem;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Repository.DeliveryPartnerAuthRepository;
+import com.example.Grocito.Repository.OrderRepository;
+import com.example.Grocito.Repository.ProductRepository;
+import com.example.Grocito.Repository.UserRepository;
+
+/**
+ * The matching must be the cheapest one (checked against every permutation on small matrices),
+ * plan 5k waiting orders against 2k partners within the 2-order limit and never do worse than
+ * assigning oldest first to the cheapest partner. A dispatch round assigns through the normal
+ * path, so partners stay within the limit across rounds and when offers to one partner race.
+ * BatchDispatchBenchmark times the plans.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-dispatch;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class BatchDispatchTests {
+
+	private static final double BASE_LATITUDE = 18.5204;
+	private static final double BASE_LONGITUDE = 73.8567;
+	// About a kilometre north
+	private static final double KM = 0.009;
+	private static final int ROUND_SIZE = 200;
+
+	@Autowired
+	private BatchDispatcher batchDispatcher;
+
+	@Autowired
+	private PartnerRanker partnerRanker;
+
+	@Autowired
+	private OrderAssignmentService orderAssignmentService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private DeliveryPartnerAuthRepository partnerRepository;
+
+	@Test
+	void matchingIsCheapestOverAllPermutations() {
+		Random random = new Random(20);
+		for (int trial = 0; trial < 300; trial++) {
+			int rows = 1 + random.nextInt(6);
+			int columns = 1 + random.nextInt(6);
+			double[][] cost = new double[rows][columns];
+			for (double[] row : cost) {
+				for (int j = 0; j < columns; j++) {
+					row[j] = random.nextInt(4) == 0 ? random.nextInt(5) : random.nextDouble() * 20 - 5;
+				}
+			}
+			int[] match = MinCostMatching.solve(cost);
+			assertEquals(Math.min(rows, columns), Arrays.stream(match).filter(column -> column >= 0).count());
+			assertEquals(Math.min(rows, columns), Arrays.stream(match).filter(column -> column >= 0).distinct().count());
+			double total = 0;
+			for (int i = 0; i < rows; i++) {
+				total += match[i] >= 0 ? cost[i][match[i]] : 0;
+			}
+			assertEquals(cheapest(cost, 0, new boolean[columns], Math.min(rows, columns)), total, 1e-9, "trial " + trial);
+		}
+	}
+
+	@Test
+	void plans5kOrdersAgainst2kPartnersBetterThanFirstFit() {
+		Random random = new Random(5);
+
+		// A city: 25 pincodes of 200 waiting orders and 80 partners, three stores each, all pincodes at once
+		Map<String, List<BatchDispatcher.Pending>> ordersByPincode = new HashMap<>();
+		Map<String, List<BatchDispatcher.Available>> partnersByPincode = new HashMap<>();
+		long nextId = 1;
+		for (int pincode = 0; pincode < 25; pincode++) {
+			double latitude = BASE_LATITUDE + (pincode / 5) * 6 * KM;
+			double longitude = BASE_LONGITUDE + (pincode % 5) * 6 * KM;
+			ordersByPincode.put("4110" + pincode, orders(random, nextId, 200, latitude, longitude));
+			partnersByPincode.put("4110" + pincode, partners(random, nextId, 80, latitude, longitude));
+			nextId += 1000;
+		}
+		Map<String, BatchDispatcher.Plan> plans = new HashMap<>();
+		for (String pincode : ordersByPincode.keySet()) {
+			plans.put(pincode, batchDispatcher.plan(ordersByPincode.get(pincode), partnersByPincode.get(pincode)));
+		}
+		int cityAssigned = 0;
+		double cityCost = 0;
+		double cityFirstFitCost = 0;
+		for (String pincode : ordersByPincode.keySet()) {
+			List<BatchDispatcher.Pending> orders = ordersByPincode.get(pincode);
+			List<BatchDispatcher.Available> partners = partnersByPincode.get(pincode);
+			BatchDispatcher.Plan plan = plans.get(pincode);
+			double[] firstFit = firstFit(orders, partners);
+			assertWithinLimit(plan, partners);
+			assertTrue(plan.getPairs().size() >= firstFit[0], pincode + ": " + plan.getPairs().size() + " vs first-fit " + firstFit[0]);
+			assertEquals(plan.getCost(), cost(plan, orders, partners), 1e-6);
+			cityAssigned += plan.getPairs().size();
+			cityCost += plan.getCost();
+			cityFirstFitCost += firstFit[1];
+		}
+		// Every partner is near enough to every store of its pincode, and orders outnumber slots
+		assertEquals(partnersByPincode.values().stream().flatMap(List::stream)
+				.mapToLong(partner -> PartnerRanker.MAX_ACTIVE_ORDERS - partner.activeOrders).sum(), cityAssigned);
+		assertTrue(cityCost < cityFirstFitCost, cityCost + " vs " + cityFirstFitCost);
+
+		// One crowded pincode of the same size, matched ROUND_SIZE oldest orders at a time as the dispatcher does
+		List<BatchDispatcher.Pending> backlog = orders(random, 100_000, 5000, BASE_LATITUDE, BASE_LONGITUDE);
+		List<BatchDispatcher.Available> partners = partners(random, 200_000, 2000, BASE_LATITUDE, BASE_LONGITUDE);
+		Map<Long, Long> load = new HashMap<>();
+		partners.forEach(partner -> load.put(partner.partnerId, partner.activeOrders));
+		int assigned = 0;
+		while (!backlog.isEmpty()) {
+			List<BatchDispatcher.Available> free = new ArrayList<>();
+			for (BatchDispatcher.Available partner : partners) {
+				long active = load.get(partner.partnerId);
+				if (active < PartnerRanker.MAX_ACTIVE_ORDERS) {
+					free.add(new BatchDispatcher.Available(partner.partnerId, partner.latitude, partner.longitude, partner.rating, active));
+				}
+			}
+			List<BatchDispatcher.Pending> round = new ArrayList<>(backlog.subList(0, Math.min(ROUND_SIZE, backlog.size())));
+			BatchDispatcher.Plan plan = batchDispatcher.plan(round, free);
+			assertWithinLimit(plan, free);
+			if (plan.getPairs().isEmpty()) {
+				break;
+			}
+			for (long[] pair : plan.getPairs()) {
+				load.merge(pair[1], 1L, Long::sum);
+				backlog.removeIf(order -> order.orderId == pair[0]);
+			}
+			assigned += plan.getPairs().size();
+		}
+		assertTrue(load.values().stream().allMatch(active -> active <= PartnerRanker.MAX_ACTIVE_ORDERS));
+		assertEquals(load.values().stream().mapToLong(Long::longValue).sum(),
+				partners.stream().mapToLong(partner -> partner.activeOrders).sum() + assigned);
+		// Slots run out before orders do, and every one is filled
+		assertEquals(partners.stream().mapToLong(partner -> PartnerRanker.MAX_ACTIVE_ORDERS - partner.activeOrders).sum(), assigned);
+	}
+
+	@Test
+	void dispatchAssignsCheapestPairsWithinLimit() {
+		DeliveryPartnerAuth north = partner("411070", "north");
+		DeliveryPartnerAuth south = partner("411070", "south");
+		goOnline(north, 1);
+		goOnline(south, -1.5);
+		// Both already carry an order, so each takes one more
+		assertTrue(orderAssignmentService.assignOrderToPartner(placeOrder("411070", "busy-north", null).getId(), north.getId()));
+		assertTrue(orderAssignmentService.assignOrderToPartner(placeOrder("411070", "busy-south", null).getId(), south.getId()));
+
+		// Oldest first would give the first order the north partner (1 km) and leave the second
+		// 5.5 km for the south one; the batch gives it the south one (1.5 km) and the second the
+		// north one (3 km)
+		Order first = placeOrder("411070", "store-a", 0.0);
+		Order second = placeOrder("411070", "store-b", 4.0);
+		Order elsewhere = placeOrder("411071", "no-partners", 0.0);
+
+		List<BatchDispatcher.Round> rounds = batchDispatcher.dispatchAll();
+
+		assertEquals(1, rounds.size());
+		assertEquals("411070", rounds.get(0).getPincode());
+		assertEquals(2, rounds.get(0).getAssigned());
+		assertEquals(south.getId(), orderRepository.findById(first.getId()).orElseThrow().getDeliveryPartner().getId());
+		assertEquals(north.getId(), orderRepository.findById(second.getId()).orElseThrow().getDeliveryPartner().getId());
+		assertEquals("PLACED", orderRepository.findById(elsewhere.getId()).orElseThrow().getStatus());
+
+		// Both partners are now at the limit
+		Order later = placeOrder("411070", "later", 0.0);
+		assertTrue(batchDispatcher.dispatchAll().isEmpty());
+		assertEquals("PLACED", orderRepository.findById(later.getId()).orElseThrow().getStatus());
+		assertTrue((Long) batchDispatcher.getStats().get("rounds") >= 1);
+		assertTrue((Long) batchDispatcher.getStats().get("dispatches") >= 2);
+	}
+
+	@Test
+	void concurrentOffersLeaveAPartnerAtTwoOrders() throws Exception {
+		DeliveryPartnerAuth partner = partner("411072", "contended");
+		goOnline(partner, 0);
+		List<Long> orderIds = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			orderIds.add(placeOrder("411072", "contended-" + i, 0.0).getId());
+		}
+
+		// Every order offered to the one partner at once: two claims win, the rest see them
+		ExecutorService pool = Executors.newFixedThreadPool(orderIds.size());
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> offers = new ArrayList<>();
+		for (Long orderId : orderIds) {
+			offers.add(pool.submit(() -> {
+				start.await();
+				try {
+					return orderAssignmentService.offerOrderToPartner(orderId, partner.getId());
+				} catch (RuntimeException e) {
+					return false;
+				}
+			}));
+		}
+		start.countDown();
+		int claimed = 0;
+		for (Future<Boolean> offer : offers) {
+			claimed += offer.get() ? 1 : 0;
+		}
+		pool.shutdown();
+
+		assertEquals(PartnerRanker.MAX_ACTIVE_ORDERS, claimed);
+		assertEquals(PartnerRanker.MAX_ACTIVE_ORDERS, orderRepository.countByDeliveryPartnerIdAndStatusIn(partner.getId(),
+				List.of("ASSIGNED", "PICKED_UP", "OUT_FOR_DELIVERY")));
+		assertEquals(orderIds.size() - PartnerRanker.MAX_ACTIVE_ORDERS,
+				orderIds.stream().filter(id -> "PLACED".equals(orderRepository.findById(id).orElseThrow().getStatus())).count());
+	}
+
+	private static double cheapest(double[][] cost, int row, boolean[] used, int left) {
+		if (left == 0) {
+			return 0;
+		}
+		if (cost.length - row < left) {
+			return Double.POSITIVE_INFINITY;
+		}
+		// This row unmatched, or matched to each free column
+		double best = cheapest(cost, row + 1, used, left);
+		for (int j = 0; j < used.length; j++) {
+			if (!used[j]) {
+				used[j] = true;
+				best = Math.min(best, cost[row][j] + cheapest(cost, row + 1, used, left - 1));
+				used[j] = false;
+			}
+		}
+		return best;
+	}
+
+	private static List<BatchDispatcher.Pending> orders(Random random, long firstId, int count, double latitude, double longitude) {
+		double[][] stores = { { latitude, longitude }, { latitude + 2 * KM, longitude + KM }, { latitude - KM, longitude + 2 * KM } };
+		List<BatchDispatcher.Pending> orders = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			double[] store = stores[random.nextInt(stores.length)];
+			// Oldest first, as they are read
+			orders.add(new BatchDispatcher.Pending(firstId + i, store[0], store[1], 30.0 * (count - i) / count));
+		}
+		return orders;
+	}
+
+	private static List<BatchDispatcher.Available> partners(Random random, long firstId, int count, double latitude, double longitude) {
+		List<BatchDispatcher.Available> partners = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			partners.add(new BatchDispatcher.Available(firstId + i, latitude + (random.nextDouble() * 6 - 2) * KM,
+					longitude + (random.nextDouble() * 6 - 2) * KM, 3.5 + random.nextDouble() * 1.5, random.nextInt(10) < 7 ? 0 : 1));
+		}
+		return partners;
+	}
+
+	/**
+	 * Oldest order first, each to the partner slot it costs least on: { assigned, cost }
+	 */
+	private double[] firstFit(List<BatchDispatcher.Pending> orders, List<BatchDispatcher.Available> partners) {
+		Map<Long, Long> load = new HashMap<>();
+		partners.forEach(partner -> load.put(partner.partnerId, partner.activeOrders));
+		double assigned = 0;
+		double total = 0;
+		for (BatchDispatcher.Pending order : orders) {
+			BatchDispatcher.Available best = null;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for (BatchDispatcher.Available partner : partners) {
+				long active = load.get(partner.partnerId);
+				if (active >= PartnerRanker.MAX_ACTIVE_ORDERS) {
+					continue;
+				}
+				double cost = cost(order, partner, active);
+				if (cost < bestCost) {
+					bestCost = cost;
+					best = partner;
+				}
+			}
+			if (best != null) {
+				load.merge(best.partnerId, 1L, Long::sum);
+				assigned++;
+				total += bestCost;
+			}
+		}
+		return new double[] { assigned, total };
+	}
+
+	private double cost(BatchDispatcher.Plan plan, List<BatchDispatcher.Pending> orders, List<BatchDispatcher.Available> partners) {
+		Map<Long, BatchDispatcher.Pending> byOrder = new HashMap<>();
+		orders.forEach(order -> byOrder.put(order.orderId, order));
+		Map<Long, BatchDispatcher.Available> byPartner = new HashMap<>();
+		partners.forEach(partner -> byPartner.put(partner.partnerId, partner));
+		Map<Long, Long> load = new HashMap<>();
+		partners.forEach(partner -> load.put(partner.partnerId, partner.activeOrders));
+		double total = 0;
+		for (long[] pair : plan.getPairs()) {
+			total += cost(byOrder.get(pair[0]), byPartner.get(pair[1]), load.merge(pair[1], 1L, Long::sum) - 1);
+		}
+		return total;
+	}
+
+	private double cost(BatchDispatcher.Pending order, BatchDispatcher.Available partner, long active) {
+		double distance = PartnerLocationIndex.distanceKm(order.latitude, order.longitude, partner.latitude, partner.longitude);
+		return partnerRanker.score(distance, active, partner.rating) - order.waitingMinutes * 0.1;
+	}
+
+	private static void assertWithinLimit(BatchDispatcher.Plan plan, List<BatchDispatcher.Available> partners) {
+		Map<Long, Long> load = new HashMap<>();
+		partners.forEach(partner -> load.put(partner.partnerId, partner.activeOrders));
+		assertEquals(plan.getPairs().size(), plan.getPairs().stream().mapToLong(pair -> pair[0]).distinct().count());
+		for (long[] pair : plan.getPairs()) {
+			assertTrue(load.merge(pair[1], 1L, Long::sum) <= PartnerRanker.MAX_ACTIVE_ORDERS, "partner " + pair[1]);
+		}
+	}
+
+	private void goOnline(DeliveryPartnerAuth partner, double kmNorth) {
+		orderAssignmentService.updateAvailability(partner.getId(), true);
+		orderAssignmentService.keepPartnerAlive(partner.getId(), BASE_LATITUDE + kmNorth * KM, BASE_LONGITUDE);
+	}
+
+	private Order placeOrder(String pincode, String tag, Double storeKmNorth) {
+		Product product = productRepository.save(new Product(null, "Basmati Rice 5kg", "Aged", 650.0, "Staples", null, pincode, 1000));
+		User user = new User();
+		user.setFullName("Customer " + tag);
+		user.setEmail(tag + "-dispatch@grocito.test");
+		user.setPassword("secret");
+		user.setRole("USER");
+		user.setPincode(pincode);
+		userRepository.save(user);
+
+		Order order = new Order();
+		order.setUser(user);
+		order.setPincode(pincode);
+		order.setDeliveryAddress("Flat 12, Baner Road");
+		if (storeKmNorth != null) {
+			order.setPickupLatitude(BigDecimal.valueOf(BASE_LATITUDE + storeKmNorth * KM));
+			order.setPickupLongitude(BigDecimal.valueOf(BASE_LONGITUDE));
+		}
+		OrderItem item = new OrderItem();
+		item.setProduct(new Product(product.getId(), null, null, 0, null, null, null, 0));
+		item.setQuantity(1);
+		item.setOrder(order);
+		order.setItems(new ArrayList<>(List.of(item)));
+		return orderService.placeOrder(order);
+	}
+
+	private DeliveryPartnerAuth partner(String pincode, String tag) {
+		DeliveryPartnerAuth partner = new DeliveryPartnerAuth(tag + "@dispatch.grocito.test", "secret", "97" + Math.abs(tag.hashCode() % 100_000_000),
+				"Partner " + tag, pincode, "BIKE", "MH14" + tag, "DL" + tag);
+		partner.setVerificationStatus("VERIFIED");
+		return partnerRepository.save(partner);
+	}
+}
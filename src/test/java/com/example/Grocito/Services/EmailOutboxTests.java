@@ -0,0 +1,203 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.Grocito.Entity.OutboxEmail;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Repository.OutboxEmailRepository;
+import com.example.Grocito.Repository.UserRepository;
+
+/**
+ * Sends mail through the outbox to a local fake SMTP server: a password reset must return
+ * without waiting for a slow server, a burst of mail must share SMTP connections, and failing
+ * recipients must be retried with backoff and dead-lettered once attempts run out, counting
+ * sends whose lease expired on a crashed instance.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-mail;DB_CLOSE_DELAY=-1",
+		"spring.mail.host=localhost",
+		"spring.mail.username=",
+		"spring.mail.password=",
+		"spring.mail.properties.mail.debug=false",
+		"spring.mail.properties.mail.smtp.auth=false",
+		"spring.mail.properties.mail.smtp.starttls.enable=false",
+		"grocito.mail.outbox.workers=2",
+		"grocito.mail.outbox.batch-size=10",
+		"grocito.mail.outbox.poll-interval-ms=200",
+		"grocito.mail.outbox.max-attempts=3",
+		"grocito.mail.outbox.initial-backoff-ms=100",
+		"grocito.mail.outbox.max-backoff-ms=1000"
+})
+@ActiveProfiles("test")
+class EmailOutboxTests {
+
+	private static final FakeSmtpServer SMTP = startSmtp();
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private EmailService emailService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private OutboxEmailRepository outboxRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@DynamicPropertySource
+	static void mailPort(DynamicPropertyRegistry registry) {
+		registry.add("spring.mail.port", SMTP::getPort);
+	}
+
+	@AfterEach
+	void resetServer() {
+		SMTP.setGreetingDelayMs(0);
+	}
+
+	@AfterAll
+	static void stopSmtp() throws IOException {
+		SMTP.close();
+	}
+
+	@Test
+	void passwordResetDoesNotWaitForSlowMailServer() throws Exception {
+		User user = new User();
+		user.setFullName("Asha Patil");
+		user.setEmail("asha@grocito.test");
+		user.setPassword("secret");
+		user.setRole("USER");
+		user.setRegisteredDate(LocalDate.now());
+		userRepository.save(user);
+		SMTP.setGreetingDelayMs(3000);
+
+		// Returned with the mail queued, not after the server's greeting
+		userService.resetPassword("asha@grocito.test");
+		assertNotEquals("SENT", statusOf("asha@grocito.test"));
+		assertEquals(List.of(), SMTP.receivedFor("asha@grocito.test"));
+
+		awaitTrue(() -> "SENT".equals(statusOf("asha@grocito.test")));
+		String data = SMTP.receivedFor("asha@grocito.test").get(0).data;
+		assertTrue(data.contains("Your temporary password is: " + userRepository.findByEmail("asha@grocito.test").get().getPassword()));
+	}
+
+	@Test
+	void burstOfMailSharesConnections() throws Exception {
+		int connectionsBefore = SMTP.getConnections();
+		// Committed together, so the dispatcher sees them all at once
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int i = 0; i < 30; i++) {
+				emailService.sendWelcomeEmail("burst" + i + "@grocito.test", "Customer " + i);
+			}
+		});
+
+		awaitTrue(() -> outboxFor("burst").stream().allMatch(email -> "SENT".equals(email.getStatus())));
+		for (int i = 0; i < 30; i++) {
+			assertEquals(1, SMTP.receivedFor("burst" + i + "@grocito.test").size());
+		}
+		// Three batches of ten, one connection each
+		assertTrue(SMTP.getConnections() - connectionsBefore <= 3,
+				(SMTP.getConnections() - connectionsBefore) + " connections for 30 emails");
+	}
+
+	@Test
+	void failuresAreRetriedThenDeadLettered() throws Exception {
+		SMTP.rejectAlways("bounce@grocito.test");
+		SMTP.failTimes("flaky@grocito.test", 1);
+		transactionTemplate.executeWithoutResult(status -> {
+			emailService.sendSimpleMessage("bounce@grocito.test", "Hello", "Nobody home");
+			emailService.sendSimpleMessage("flaky@grocito.test", "Hello", "Second time lucky");
+			emailService.sendSimpleMessage("steady@grocito.test", "Hello", "First time");
+		});
+
+		awaitTrue(() -> "DEAD".equals(statusOf("bounce@grocito.test")) && "SENT".equals(statusOf("flaky@grocito.test"))
+				&& "SENT".equals(statusOf("steady@grocito.test")));
+
+		OutboxEmail bounce = outboxFor("bounce@").get(0);
+		assertEquals(3, bounce.getAttempts());
+		assertNotNull(bounce.getLastError());
+		assertEquals(2, outboxFor("flaky@").get(0).getAttempts());
+		assertEquals(1, outboxFor("steady@").get(0).getAttempts());
+		assertEquals(1, SMTP.receivedFor("flaky@grocito.test").size());
+		assertEquals(0, SMTP.receivedFor("bounce@grocito.test").size());
+	}
+
+	@Test
+	void expiredLeasesCountAsFailedAttempts() throws Exception {
+		// Left SENDING by an instance that died mid-send, one with attempts to spare and one without
+		LocalDateTime longAgo = LocalDateTime.now().minusHours(1);
+		OutboxEmail spare = crashedSend("crashed-spare@grocito.test", 0, longAgo);
+		OutboxEmail last = crashedSend("crashed-last@grocito.test", 2, longAgo);
+
+		awaitTrue(() -> "SENT".equals(statusOf("crashed-spare@")) && "DEAD".equals(statusOf("crashed-last@")));
+
+		// The lost attempt and the send
+		assertEquals(2, outboxRepository.findById(spare.getId()).get().getAttempts());
+		assertEquals(1, SMTP.receivedFor("crashed-spare@grocito.test").size());
+		OutboxEmail dead = outboxRepository.findById(last.getId()).get();
+		assertEquals(3, dead.getAttempts());
+		assertEquals("Lease expired while sending", dead.getLastError());
+		assertNull(dead.getClaimToken());
+		assertEquals(0, SMTP.receivedFor("crashed-last@grocito.test").size());
+	}
+
+	private OutboxEmail crashedSend(String recipient, int attempts, LocalDateTime claimedAt) {
+		OutboxEmail email = new OutboxEmail(recipient, "Hello", "Sent once the lease is up");
+		email.setStatus("SENDING");
+		email.setAttempts(attempts);
+		email.setClaimToken(UUID.randomUUID().toString());
+		email.setClaimedAt(claimedAt);
+		return outboxRepository.save(email);
+	}
+
+	private String statusOf(String recipient) {
+		List<OutboxEmail> emails = outboxFor(recipient);
+		return emails.isEmpty() ? null : emails.get(0).getStatus();
+	}
+
+	private List<OutboxEmail> outboxFor(String recipientPrefix) {
+		return outboxRepository.findAll().stream().filter(email -> email.getRecipient().startsWith(recipientPrefix))
+				.collect(Collectors.toList());
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 20_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the outbox");
+			Thread.sleep(50);
+		}
+	}
+
+	private static FakeSmtpServer startSmtp() {
+		try {
+			return new FakeSmtpServer();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package com.example.Grocito.Services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Just enough of an SMTP server (no auth, no TLS) to receive mail from JavaMailSender in tests.
+ * It can be slowed down, reject recipients permanently (550) or for a number of attempts (451),
+ * and counts connections so tests can see whether a batch reused one.
+ */
+class FakeSmtpServer implements AutoCloseable {
+
+	/**
+	 * One accepted message: its recipients and raw DATA
+	 */
+	static final class Received {
+
+		final List<String> recipients;
+		final String data;
+
+		Received(List<String> recipients, String data) {
+			this.recipients = recipients;
+			this.data = data;
+		}
+	}
+
+	private final ServerSocket serverSocket;
+	private final List<Received> received = Collections.synchronizedList(new ArrayList<>());
+	private final AtomicInteger connections = new AtomicInteger();
+	private final Map<String, Integer> rejected = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> temporaryFailures = new ConcurrentHashMap<>();
+	private volatile long greetingDelayMs;
+	private volatile boolean running = true;
+
+	FakeSmtpServer() throws IOException {
+		serverSocket = new ServerSocket(0);
+		Thread acceptor = new Thread(this::acceptLoop, "fake-smtp");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	int getConnections() {
+		return connections.get();
+	}
+
+	List<Received> receivedFor(String recipient) {
+		synchronized (received) {
+			List<Received> matching = new ArrayList<>();
+			for (Received message : received) {
+				if (message.recipients.contains(recipient)) {
+					matching.add(message);
+				}
+			}
+			return matching;
+		}
+	}
+
+	void setGreetingDelayMs(long greetingDelayMs) {
+		this.greetingDelayMs = greetingDelayMs;
+	}
+
+	void rejectAlways(String recipient) {
+		rejected.put(recipient, 550);
+	}
+
+	void failTimes(String recipient, int times) {
+		temporaryFailures.put(recipient, new AtomicInteger(times));
+	}
+
+	@Override
+	public void close() throws IOException {
+		running = false;
+		serverSocket.close();
+	}
+
+	private void acceptLoop() {
+		while (running) {
+			try {
+				Socket socket = serverSocket.accept();
+				connections.incrementAndGet();
+				Thread session = new Thread(() -> serve(socket), "fake-smtp-session");
+				session.setDaemon(true);
+				session.start();
+			} catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		try (socket) {
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+			if (greetingDelayMs > 0) {
+				Thread.sleep(greetingDelayMs);
+			}
+			reply(out, "220 localhost fake ESMTP");
+
+			List<String> recipients = new ArrayList<>();
+			String line;
+			while ((line = in.readLine()) != null) {
+				String command = line.toUpperCase();
+				if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+					reply(out, "250 localhost");
+				} else if (command.startsWith("MAIL FROM")) {
+					recipients.clear();
+					reply(out, "250 OK");
+				} else if (command.startsWith("RCPT TO")) {
+					String recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+					AtomicInteger failuresLeft = temporaryFailures.get(recipient);
+					if (rejected.containsKey(recipient)) {
+						reply(out, rejected.get(recipient) + " No such user");
+					} else if (failuresLeft != null && failuresLeft.getAndDecrement() > 0) {
+						reply(out, "451 Try again later");
+					} else {
+						recipients.add(recipient);
+						reply(out, "250 OK");
+					}
+				} else if (command.equals("DATA")) {
+					reply(out, "354 End data with <CR><LF>.<CR><LF>");
+					StringBuilder data = new StringBuilder();
+					while ((line = in.readLine()) != null && !line.equals(".")) {
+						data.append(line).append('\n');
+					}
+					received.add(new Received(new ArrayList<>(recipients), data.toString()));
+					reply(out, "250 Queued");
+				} else if (command.startsWith("RSET") || command.startsWith("NOOP")) {
+					recipients.clear();
+					reply(out, "250 OK");
+				} else if (command.startsWith("QUIT")) {
+					reply(out, "221 Bye");
+					return;
+				} else {
+					reply(out, "502 Command not implemented");
+				}
+			}
+		} catch (IOException | InterruptedException e) {
+			// Client went away
+		}
+	}
+
+	private static void reply(Writer out, String line) throws IOException {
+		out.write(line + "\r\n");
+		out.flush();
+	}
+}
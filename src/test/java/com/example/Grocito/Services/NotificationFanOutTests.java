@@ -0,0 +1,197 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Repository.DeliveryPartnerAuthRepository;
+import com.example.Grocito.dto.NotificationAudience;
+import com.example.Grocito.dto.NotificationFanOutStatus;
+
+/**
+ * Fans a notification out to 100k users of a pincode through NotificationFanOut: submit must
+ * return before the fan-out starts, every user must get exactly one row, and open streams and
+ * loaded unread counters must follow. Listed users are notified once each, and partner
+ * fan-outs reach verified partners of the pincode only, without touching users' counts.
+ *
+ * Audience size can be raised with -Dgrocito.test.fan-out=1000000.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-fan-out;DB_CLOSE_DELAY=-1",
+		"grocito.notifications.fan-out.chunk-size=1000",
+		"spring.datasource.hikari.maximum-pool-size=" + NotificationFanOutTests.POOL_SIZE
+})
+@ActiveProfiles("test")
+class NotificationFanOutTests {
+
+	static final int POOL_SIZE = 4;
+	private static final int AUDIENCE = Integer.getInteger("grocito.test.fan-out", 100_000);
+
+	@Autowired
+	private NotificationFanOut notificationFanOut;
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private PushChannel pushChannel;
+
+	@Autowired
+	private DeliveryPartnerAuthRepository partnerRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void roleFanOutReachesWholePincode() throws Exception {
+		seedUsers("fan", "USER", "411045", AUDIENCE);
+		seedUsers("elsewhere", "USER", "411046", 50);
+		seedUsers("admin", "ADMIN", "411045", 5);
+		Long watcher = jdbcTemplate.queryForObject("select min(id) from users where pincode = '411045' and role = 'USER'", Long.class);
+		assertEquals(0, notificationService.getUnreadCount(watcher));
+		RecordingSink stream = new RecordingSink();
+		pushChannel.subscribe(List.of(NotificationService.userTopic(watcher)), stream);
+
+		// Submitted with every pooled connection held: the fan-out cannot have begun when it returns
+		List<Connection> held = new ArrayList<>();
+		NotificationFanOutStatus status;
+		try {
+			for (int i = 0; i < POOL_SIZE; i++) {
+				held.add(dataSource.getConnection());
+			}
+			status = notificationFanOut.submit(NotificationAudience.role("USER", "411045"),
+					"Monsoon sale starts now", "PROMO", "/sale");
+			assertFalse(status.isFinished());
+			assertEquals(0, status.getInserted());
+		} finally {
+			for (Connection connection : held) {
+				connection.close();
+			}
+		}
+		awaitFinished(status);
+
+		assertEquals("DONE", status.getStatus());
+		assertEquals(AUDIENCE, status.getRecipients());
+		assertEquals(AUDIENCE, status.getInserted());
+		assertEquals((AUDIENCE + 999) / 1000, status.getChunks());
+		assertEquals(AUDIENCE, count("select count(*) from notifications where message = 'Monsoon sale starts now'"));
+		assertEquals(AUDIENCE, count("select count(distinct user_id) from notifications where message = 'Monsoon sale starts now'"));
+		assertEquals(0, count("select count(*) from notifications n join users u on u.id = n.user_id"
+				+ " where n.message = 'Monsoon sale starts now' and (u.pincode <> '411045' or u.role <> 'USER')"));
+
+		assertEquals(1, notificationService.getUnreadCount(watcher));
+		awaitTrue(() -> stream.events("notification").size() == 1);
+		assertTrue(stream.events("notification").get(0).data.contains(status.getId()));
+		assertEquals(status, notificationFanOut.getStatus(status.getId()));
+	}
+
+	@Test
+	void listedUsersAreNotifiedOnce() throws Exception {
+		seedUsers("listed", "USER", "411047", 3);
+		List<Long> ids = jdbcTemplate.queryForList("select id from users where pincode = '411047' order by id", Long.class);
+
+		NotificationFanOutStatus status = notificationFanOut.submit(NotificationAudience.users(List.of(ids.get(0), ids.get(1), ids.get(0))),
+				"Your order is on its way", "ORDER", null);
+		awaitFinished(status);
+
+		assertEquals("DONE", status.getStatus());
+		assertEquals(2, status.getInserted());
+		assertEquals(1, count("select count(*) from notifications where message = 'Your order is on its way' and user_id = " + ids.get(0)));
+		assertEquals(0, count("select count(*) from notifications where message = 'Your order is on its way' and user_id = " + ids.get(2)));
+	}
+
+	@Test
+	void partnerFanOutReachesVerifiedPartnersOfPincodeOnly() throws Exception {
+		List<DeliveryPartnerAuth> verified = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			verified.add(partner("411048", "verified-" + i, "VERIFIED"));
+		}
+		partner("411048", "pending", "PENDING");
+		partner("411049", "elsewhere", "VERIFIED");
+		Long partnerId = verified.get(0).getId();
+		long userUnreadBefore = notificationService.getUnreadCount(partnerId);
+		RecordingSink partnerStream = new RecordingSink();
+		RecordingSink userStream = new RecordingSink();
+		pushChannel.subscribe(List.of(OrderPushService.partnerTopic(partnerId)), partnerStream);
+		pushChannel.subscribe(List.of(NotificationService.userTopic(partnerId)), userStream);
+
+		NotificationFanOutStatus status = notificationFanOut.submit(NotificationAudience.partners("411048"),
+				"Rain surge: +20 per delivery", "SURGE", null);
+		awaitFinished(status);
+
+		assertEquals("DONE", status.getStatus());
+		assertEquals(3, status.getInserted());
+		assertEquals(3, count("select count(*) from notifications where message = 'Rain surge: +20 per delivery' and recipient_type = 'PARTNER'"));
+		awaitTrue(() -> partnerStream.events("notification").size() == 1);
+		// A user with the same ID is somebody else
+		assertEquals(userUnreadBefore, notificationService.getUnreadCount(partnerId));
+		assertTrue(notificationService.getNotificationsAfter(partnerId, null, 50, false).getContent().stream()
+				.noneMatch(notification -> notification.getMessage().startsWith("Rain surge")));
+		Thread.sleep(200);
+		assertEquals(0, userStream.events().size());
+	}
+
+	@Test
+	void incompleteAudiencesAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> notificationFanOut.submit(NotificationAudience.partners(null), "Hello", "INFO", null));
+		assertThrows(IllegalArgumentException.class, () -> notificationFanOut.submit(NotificationAudience.users(List.of()), "Hello", "INFO", null));
+		assertThrows(IllegalArgumentException.class, () -> notificationFanOut.submit(NotificationAudience.role("USER", null), "", "INFO", null));
+	}
+
+	private void seedUsers(String tag, String role, String pincode, int count) {
+		transactionTemplate.executeWithoutResult(tx -> {
+			List<Object[]> rows = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				rows.add(new Object[] { "Customer " + i, tag + i + "@grocito.test", "secret", role, pincode, Date.valueOf(LocalDate.now()) });
+			}
+			jdbcTemplate.batchUpdate("insert into users (full_name, email, password, role, pincode, registered_date) values (?, ?, ?, ?, ?, ?)", rows);
+		});
+	}
+
+	private DeliveryPartnerAuth partner(String pincode, String tag, String verificationStatus) {
+		DeliveryPartnerAuth partner = new DeliveryPartnerAuth(tag + "@partners.grocito.test", "secret", "97" + Math.abs(tag.hashCode() % 100_000_000),
+				"Partner " + tag, pincode, "BIKE", "MH14" + tag, "DL" + tag);
+		partner.setVerificationStatus(verificationStatus);
+		return partnerRepository.save(partner);
+	}
+
+	private long count(String sql) {
+		return jdbcTemplate.queryForObject(sql, Long.class);
+	}
+
+	private static void awaitFinished(NotificationFanOutStatus status) throws InterruptedException {
+		awaitTrue(status::isFinished);
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 60_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the fan-out");
+			Thread.sleep(20);
+		}
+	}
+}
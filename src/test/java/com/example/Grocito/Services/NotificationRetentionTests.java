@@ -0,0 +1,144 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.Notification;
+import com.example.Grocito.Entity.NotificationSummary;
+
+/**
+ * Retention must remove exactly the read notifications past the retention age, in batches,
+ * leaving recent and unread ones (and the unread count) alone, and account for every removed row
+ * in the per-user summaries, also across runs. The plain lists return the newest items only.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-retention;DB_CLOSE_DELAY=-1",
+		"grocito.notifications.retention.read-days=30",
+		"grocito.notifications.retention.batch-size=500",
+		"grocito.notifications.retention.pause-ms=0",
+		"grocito.notifications.list-limit=25"
+})
+@ActiveProfiles("test")
+class NotificationRetentionTests {
+
+	private static final String INSERT_SQL = "insert into notifications (user_id, recipient_type, message, type, read_status, created_at)"
+			+ " values (?, ?, ?, ?, ?, ?)";
+
+	@Autowired
+	private NotificationRetention notificationRetention;
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void oldReadNotificationsAreSummarizedAndDeletedInBatches() {
+		LocalDateTime now = LocalDateTime.now();
+		List<Object[]> rows = new ArrayList<>();
+		// 2,100 old read rows over three users and two types, one partner's, and some with no type
+		for (int i = 0; i < 2100; i++) {
+			long userId = 7001 + i % 3;
+			rows.add(row(userId, "USER", i % 2 == 0 ? "ORDER" : "PROMO", true, now.minusDays(31 + i % 60).minusMinutes(i)));
+		}
+		for (int i = 0; i < 40; i++) {
+			rows.add(row(7001, "PARTNER", "SURGE", true, now.minusDays(45)));
+			rows.add(row(7002, "USER", null, true, now.minusDays(90 + i)));
+		}
+		// Kept: recent read rows, and old unread rows
+		for (int i = 0; i < 30; i++) {
+			rows.add(row(7001, "USER", "ORDER", true, now.minusDays(29)));
+			rows.add(row(7001, "USER", "ORDER", false, now.minusDays(120)));
+		}
+		jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+		long unreadBefore = notificationService.getUnreadCount(7001L);
+		Map<String, Long> expected = countsPerSummary("read_status = true and created_at < dateadd('DAY', -30, current_timestamp)");
+
+		NotificationRetention.Result result = notificationRetention.compact();
+
+		assertEquals(2180, result.getDeleted());
+		assertEquals(5, result.getBatches());
+		assertEquals(0, count("select count(*) from notifications where read_status = true and created_at < dateadd('DAY', -30, current_timestamp)"));
+		assertEquals(60, count("select count(*) from notifications where user_id between 7001 and 7003"));
+		assertEquals(unreadBefore, unreadRows(7001));
+		assertEquals(30, notificationService.getUnreadCount(7001L));
+
+		assertEquals(expected, summaries());
+		List<NotificationSummary> forUser = notificationService.getSummaries(7002L);
+		assertEquals(List.of(NotificationRetention.NO_TYPE, "ORDER", "PROMO"),
+				forUser.stream().map(NotificationSummary::getType).sorted().collect(Collectors.toList()));
+		assertTrue(forUser.stream().allMatch(summary -> !summary.getFirstCreatedAt().isAfter(summary.getLastCreatedAt())));
+
+		// Nothing left to do, and more rows later add to the same summaries
+		assertEquals(0, notificationRetention.compact().getDeleted());
+		jdbcTemplate.batchUpdate(INSERT_SQL, List.of(row(7003, "USER", "ORDER", true, now.minusDays(40)),
+				row(7003, "USER", "ORDER", true, now.minusDays(400))));
+		assertEquals(2, notificationRetention.compact().getDeleted());
+		NotificationSummary orders = notificationService.getSummaries(7003L).stream()
+				.filter(summary -> "ORDER".equals(summary.getType())).findFirst().orElseThrow();
+		assertEquals(expected.get("7003/USER/ORDER") + 2, orders.getNotificationCount());
+		assertTrue(orders.getFirstCreatedAt().isBefore(now.minusDays(399)));
+	}
+
+	@Test
+	void listsReturnNewestItemsOnly() {
+		long userId = 8001;
+		List<Notification> created = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			created.add(notificationService.createNotification(new Notification(userId, "Offer " + i, "PROMO", null)));
+		}
+		for (int i = 0; i < 10; i++) {
+			notificationService.markAsRead(created.get(39 - i).getId());
+		}
+		created.sort(Comparator.comparing(Notification::getId).reversed());
+
+		List<Notification> all = notificationService.getUserNotifications(userId);
+		assertEquals(ids(created.subList(0, 25)), ids(all));
+		List<Notification> unread = notificationService.getUnreadNotifications(userId);
+		assertEquals(ids(created.subList(10, 35)), ids(unread));
+	}
+
+	private static Object[] row(long userId, String recipientType, String type, boolean read, LocalDateTime createdAt) {
+		return new Object[] { userId, recipientType, "Old news", type, read, Timestamp.valueOf(createdAt) };
+	}
+
+	private Map<String, Long> countsPerSummary(String where) {
+		return jdbcTemplate.query("select user_id, recipient_type, coalesce(type, '" + NotificationRetention.NO_TYPE + "') t, count(*) c"
+				+ " from notifications where " + where + " group by user_id, recipient_type, coalesce(type, '" + NotificationRetention.NO_TYPE + "')",
+				(rs, rowNum) -> Map.entry(rs.getLong(1) + "/" + rs.getString(2) + "/" + rs.getString(3), rs.getLong(4)))
+				.stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+	}
+
+	private Map<String, Long> summaries() {
+		return jdbcTemplate.query("select user_id, recipient_type, type, notification_count from notification_summaries",
+				(rs, rowNum) -> Map.entry(rs.getLong(1) + "/" + rs.getString(2) + "/" + rs.getString(3), rs.getLong(4)))
+				.stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+	}
+
+	private long unreadRows(long userId) {
+		return count("select count(*) from notifications where recipient_type = 'USER' and read_status = false and user_id = " + userId);
+	}
+
+	private long count(String sql) {
+		return jdbcTemplate.queryForObject(sql, Long.class);
+	}
+
+	private static List<Long> ids(List<Notification> notifications) {
+		return notifications.stream().map(Notification::getId).collect(Collectors.toList());
+	}
+}
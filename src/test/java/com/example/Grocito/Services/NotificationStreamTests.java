@@ -0,0 +1,222 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.Notification;
+import com.example.Grocito.Repository.NotificationRepository;
+import com.example.Grocito.dto.CursorPage;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The in-memory unread counter must match the database through creates, repeated and
+ * concurrent reads and deletes, and answer without queries once loaded. New notifications and
+ * count changes must reach the user's stream, and the history must page newest first by cursor
+ * at one statement per page.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-notifications;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+		"spring.datasource.hikari.maximum-pool-size=16",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+class NotificationStreamTests {
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private NotificationRepository notificationRepository;
+
+	@Autowired
+	private PushChannel pushChannel;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void unreadCountFollowsCreateReadAndDelete() {
+		long userId = 1001;
+		assertEquals(0, notificationService.getUnreadCount(userId));
+
+		List<Notification> created = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			created.add(notificationService.createNotification(new Notification(userId, "Order " + i + " shipped", "ORDER", null)));
+		}
+		assertCounted(userId, 5);
+
+		notificationService.markAsRead(created.get(0).getId());
+		notificationService.markAsRead(created.get(0).getId());
+		assertCounted(userId, 4);
+
+		notificationService.deleteNotification(created.get(1).getId());
+		notificationService.deleteNotification(created.get(0).getId());
+		notificationService.deleteNotification(created.get(0).getId());
+		assertCounted(userId, 3);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(3, notificationService.getUnreadCount(userId));
+		}
+		assertEquals(0, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void concurrentChangesKeepCounterExact() throws Exception {
+		long userId = 2002;
+		int threads = 8;
+		int perThread = 100;
+		List<Long> ids = new ArrayList<>();
+		AtomicBoolean writing = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+
+		// Loads race the writers from the very first change
+		Future<?> reader = pool.submit(() -> {
+			start.await();
+			while (writing.get()) {
+				assertTrue(notificationService.getUnreadCount(userId) >= 0);
+			}
+			return null;
+		});
+		List<Future<?>> writers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			writers.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < perThread; i++) {
+					Notification notification = notificationService.createNotification(new Notification(userId, "Offer " + i, "PROMO", null));
+					Long someId;
+					synchronized (ids) {
+						ids.add(notification.getId());
+						someId = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+					}
+					// Often the same notification from two threads at once, or one just deleted
+					try {
+						notificationService.markAsRead(someId);
+					} catch (RuntimeException e) {
+						assertTrue(e.getMessage().startsWith("Notification not found"), e.getMessage());
+					}
+					if (i % 10 == 0) {
+						synchronized (ids) {
+							ids.remove(notification.getId());
+						}
+						notificationService.deleteNotification(notification.getId());
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> writer : writers) {
+			writer.get();
+		}
+		writing.set(false);
+		reader.get();
+		pool.shutdown();
+
+		assertCounted(userId, notificationRepository.countByUserIdAndRecipientTypeAndReadStatus(userId, "USER", false));
+	}
+
+	@Test
+	void streamReceivesNotificationsAndCountChanges() throws Exception {
+		long userId = 3003;
+		RecordingSink stream = new RecordingSink();
+		RecordingSink otherUser = new RecordingSink();
+		pushChannel.subscribe(List.of(NotificationService.userTopic(userId)), stream);
+		pushChannel.subscribe(List.of(NotificationService.userTopic(3004L)), otherUser);
+
+		List<Notification> created = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			created.add(notificationService.createNotification(new Notification(userId, "Delivered " + i, "ORDER", "/orders/" + i)));
+		}
+		notificationService.markAsRead(created.get(2).getId());
+
+		awaitTrue(() -> stream.events("notification").size() == 3 && stream.events("unread-count").size() == 4);
+		List<PushChannel.Frame> notifications = stream.events("notification");
+		for (int i = 0; i < 3; i++) {
+			assertTrue(notifications.get(i).data.contains("\"id\":" + created.get(i).getId()), notifications.get(i).data);
+		}
+		List<String> counts = stream.events("unread-count").stream().map(frame -> frame.data).collect(Collectors.toList());
+		assertTrue(counts.get(2).contains("\"unreadCount\":3"), counts.toString());
+		assertTrue(counts.get(3).contains("\"unreadCount\":2"), counts.toString());
+		assertEquals(0, otherUser.events().size());
+	}
+
+	@Test
+	void historyPagesNewestFirst() {
+		long userId = 4004;
+		List<Notification> all = new ArrayList<>();
+		for (int i = 0; i < 45; i++) {
+			Notification notification = notificationService.createNotification(new Notification(userId, "Message " + i, "INFO", null));
+			if (i % 3 == 0) {
+				notificationService.markAsRead(notification.getId());
+				notification.setReadStatus(true);
+			}
+			all.add(notification);
+		}
+		notificationService.createNotification(new Notification(4005L, "Someone else's", "INFO", null));
+		all.sort(Comparator.comparing(Notification::getId).reversed());
+
+		assertEquals(ids(all), walk(userId, false));
+		assertEquals(ids(all.stream().filter(notification -> !notification.getReadStatus()).collect(Collectors.toList())), walk(userId, true));
+		assertThrows(IllegalArgumentException.class, () -> notificationService.getNotificationsAfter(userId, "not-a-cursor", 20, false));
+	}
+
+	private List<Long> walk(long userId, boolean unreadOnly) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		List<Long> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			statistics.clear();
+			CursorPage<Notification> page = notificationService.getNotificationsAfter(userId, cursor, 20, unreadOnly);
+			assertEquals(1, statistics.getPrepareStatementCount());
+			page.getContent().forEach(notification -> seen.add(notification.getId()));
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null);
+		assertEquals((seen.size() + 19) / 20, pages);
+		assertNull(cursor);
+		return seen;
+	}
+
+	private static List<Long> ids(List<Notification> notifications) {
+		return notifications.stream().map(Notification::getId).collect(Collectors.toList());
+	}
+
+	private void assertCounted(long userId, long expected) {
+		assertEquals(expected, notificationRepository.countByUserIdAndRecipientTypeAndReadStatus(userId, "USER", false));
+		assertEquals(expected, notificationService.getUnreadCount(userId));
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for push events");
+			Thread.sleep(20);
+		}
+	}
+}
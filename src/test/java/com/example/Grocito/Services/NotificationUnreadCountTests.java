@@ -0,0 +1,95 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+
+import com.example.Grocito.Entity.Notification;
+
+/**
+ * Unread counters must stay within grocito.notifications.unread-count.max-size and be dropped
+ * once their time-to-live is up, while counts stay right whether kept or not.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-unread-counts;DB_CLOSE_DELAY=-1",
+		"grocito.notifications.unread-count.max-size=2",
+		"grocito.notifications.unread-count.ttl-ms=1000",
+		"grocito.notifications.unread-count.sweep-interval-ms=600000"
+})
+@ActiveProfiles("test")
+class NotificationUnreadCountTests {
+
+	private static final AtomicLong NOW = new AtomicLong(1_000_000);
+
+	@Autowired
+	private NotificationService notificationService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void freshCounters() {
+		AopTestUtils.<NotificationService>getTargetObject(notificationService).useClock(NOW::get);
+		NOW.addAndGet(10_000);
+		notificationService.sweepUnreadCounts();
+	}
+
+	@Test
+	void countersBeyondTheMaximumAreReadButNotKept() {
+		for (long userId = 3001; userId <= 3004; userId++) {
+			notificationService.createNotification(new Notification(userId, "Welcome", "INFO", null));
+			assertEquals(1, notificationService.getUnreadCount(userId));
+		}
+
+		// Rows written behind the service's back show only in counts that are not kept
+		for (long userId = 3001; userId <= 3004; userId++) {
+			insertUnread(userId);
+		}
+		assertEquals(1, notificationService.getUnreadCount(3001L));
+		assertEquals(1, notificationService.getUnreadCount(3002L));
+		assertEquals(2, notificationService.getUnreadCount(3003L));
+		assertEquals(2, notificationService.getUnreadCount(3004L));
+
+		// Kept or not, changes through the service are counted
+		notificationService.createNotification(new Notification(3001L, "Offer", "PROMO", null));
+		notificationService.createNotification(new Notification(3004L, "Offer", "PROMO", null));
+		assertEquals(2, notificationService.getUnreadCount(3001L));
+		assertEquals(3, notificationService.getUnreadCount(3004L));
+	}
+
+	@Test
+	void countersAreDroppedOnceTheirTimeToLiveIsUp() {
+		long userId = 3101;
+		assertEquals(0, notificationService.getUnreadCount(userId));
+		insertUnread(userId);
+
+		NOW.addAndGet(999);
+		assertEquals(0, notificationService.getUnreadCount(userId));
+		NOW.addAndGet(1);
+		assertEquals(1, notificationService.getUnreadCount(userId));
+
+		// Expired counters make room for others once swept
+		assertEquals(0, notificationService.getUnreadCount(3102L));
+		NOW.addAndGet(1000);
+		notificationService.sweepUnreadCounts();
+		assertEquals(0, notificationService.getUnreadCount(3103L));
+		assertEquals(0, notificationService.getUnreadCount(3104L));
+		insertUnread(3103L);
+		insertUnread(3104L);
+		assertEquals(0, notificationService.getUnreadCount(3103L));
+		assertEquals(0, notificationService.getUnreadCount(3104L));
+	}
+
+	private void insertUnread(long userId) {
+		jdbcTemplate.update("insert into notifications (user_id, recipient_type, message, type, read_status, created_at)"
+				+ " values (?, 'USER', 'Behind the back', 'INFO', false, current_timestamp)", userId);
+	}
+}
@@ -0,0 +1,240 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.OrderItem;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Repository.DeliveryPartnerAuthRepository;
+import com.example.Grocito.Repository.OrderRepository;
+import com.example.Grocito.Repository.ProductRepository;
+import com.example.Grocito.Repository.UserRepository;
+
+/**
+ * Tens of thousands of offers made from many threads must each come due exactly once, no
+ * earlier than their deadline and within a tick after it, unless settled first. An
+ * ignored offer must go back to the next best partner, an accepted one must stay, and offers
+ * outstanding in the database must be picked up again after a restart.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-offers;DB_CLOSE_DELAY=-1",
+		"grocito.assignment.offer.timeout-ms=400",
+		"grocito.assignment.offer.tick-ms=50"
+})
+@ActiveProfiles("test")
+class OfferTimeoutTests {
+
+	private static final double BASE_LATITUDE = 18.5204;
+	private static final double BASE_LONGITUDE = 73.8567;
+	// About a kilometre north
+	private static final double KM = 0.009;
+
+	@Autowired
+	private OrderAssignmentService orderAssignmentService;
+
+	@Autowired
+	private OfferTimeouts offerTimeouts;
+
+	@Autowired
+	private PartnerAvailabilityRegistry partnerAvailability;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private DeliveryPartnerAuthRepository partnerRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void manyOffersComeDueOnceAfterTheirDeadline() throws Exception {
+		int offers = 50_000;
+		int threads = 8;
+		long tickMs = 10;
+		long started = 1_000_000;
+		OfferTimeouts timeouts = new OfferTimeouts(500, tickMs, () -> started);
+
+		// Each thread offers its share of orders with deadlines spread over the next 400 ms, and
+		// settles every third of them
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Map<Long, Long>>> results = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			results.add(pool.submit(() -> {
+				SplittableRandom random = new SplittableRandom(thread);
+				Map<Long, Long> deadlines = new HashMap<>();
+				for (long orderId = 1 + thread; orderId <= offers; orderId += threads) {
+					long deadline = started + 100 + random.nextInt(300);
+					timeouts.offered(orderId, 1_000 + orderId % 500, deadline, List.of());
+					if (orderId % 3 == 0) {
+						timeouts.settled(orderId);
+					} else {
+						deadlines.put(orderId, deadline);
+					}
+				}
+				return deadlines;
+			}));
+		}
+		Map<Long, Long> expected = new HashMap<>();
+		for (Future<Map<Long, Long>> result : results) {
+			expected.putAll(result.get());
+		}
+		pool.shutdown();
+		assertEquals(expected.size(), timeouts.outstandingCount());
+
+		// The wheel turned once a tick, on a clock stepped by hand
+		Map<Long, Long> dueAt = new HashMap<>();
+		for (long now = started + tickMs; now <= started + 1_000; now += tickMs) {
+			for (OfferTimeouts.Offer offer : timeouts.due(now)) {
+				assertNull(dueAt.put(offer.getOrderId(), now), "order " + offer.getOrderId() + " came due twice");
+				assertTrue(now >= offer.getDeadlineMillis(), "order " + offer.getOrderId() + " came due early");
+				assertTrue(now - offer.getDeadlineMillis() <= tickMs, "order " + offer.getOrderId() + " came due "
+						+ (now - offer.getDeadlineMillis()) + " ms late");
+				assertEquals(expected.get(offer.getOrderId()), offer.getDeadlineMillis());
+			}
+		}
+
+		assertEquals(expected.keySet(), dueAt.keySet());
+		assertEquals(0, timeouts.outstandingCount());
+	}
+
+	@Test
+	void ignoredOfferMovesToTheNextPartnerAndAnAcceptedOneStays() throws Exception {
+		DeliveryPartnerAuth near = partner("411045", "near");
+		DeliveryPartnerAuth far = partner("411045", "far");
+		goOnline(near, 0.5);
+		goOnline(far, 3);
+
+		Order order = placeOrder("411045", "ignored", 0.0);
+		orderAssignmentService.assignOrderAutomatically(order.getId());
+		assertEquals(near.getId(), orderRepository.findById(order.getId()).get().getDeliveryPartner().getId());
+		assertEquals(near.getId(), offerTimeouts.get(order.getId()).getPartnerId());
+
+		// The near partner lets it time out; it goes to the far one, and the near one is free again
+		Order reoffered = await(order.getId(), o -> o.getDeliveryPartner() != null && o.getDeliveryPartner().getId().equals(far.getId()));
+		assertEquals("ASSIGNED", reoffered.getStatus());
+		assertEquals(List.of(near.getId()), offerTimeouts.get(order.getId()).getDeclined());
+		assertTrue(partnerAvailability.isAvailable(near.getId()));
+		assertFalse(orderAssignmentService.acceptOffer(order.getId(), near.getId()));
+
+		// The far partner accepts in time, so it stays theirs
+		assertTrue(orderAssignmentService.acceptOffer(order.getId(), far.getId()));
+		assertNull(offerTimeouts.get(order.getId()));
+		Thread.sleep(700);
+		Order accepted = orderRepository.findById(order.getId()).get();
+		assertEquals("ASSIGNED", accepted.getStatus());
+		assertEquals(far.getId(), accepted.getDeliveryPartner().getId());
+		assertNull(accepted.getOfferExpiresAt());
+
+		// Nobody left to offer it to once both have let it time out
+		Order second = placeOrder("411045", "unwanted", 0.0);
+		orderAssignmentService.assignOrderAutomatically(second.getId());
+		assertEquals(near.getId(), orderRepository.findById(second.getId()).get().getDeliveryPartner().getId());
+		Order waiting = await(second.getId(), o -> "PLACED".equals(o.getStatus()) && offerTimeouts.get(o.getId()) == null);
+		assertNull(waiting.getDeliveryPartner());
+	}
+
+	@Test
+	void outstandingOffersAreRecoveredFromTheDatabase() throws Exception {
+		DeliveryPartnerAuth first = partner("411046", "first");
+		DeliveryPartnerAuth second = partner("411046", "second");
+		goOnline(first, 0.5);
+		goOnline(second, 3);
+
+		Order order = placeOrder("411046", "recovered", 0.0);
+		assertTrue(orderAssignmentService.offerOrderToPartner(order.getId(), first.getId()));
+		// As after a restart: the offer is only in the database, and its deadline has passed
+		offerTimeouts.settled(order.getId());
+		jdbcTemplate.update("UPDATE orders SET offer_expires_at = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP) WHERE id = ?", order.getId());
+
+		assertTrue(offerTimeouts.recover() >= 1);
+		Order reoffered = await(order.getId(), o -> o.getDeliveryPartner() != null && o.getDeliveryPartner().getId().equals(second.getId()));
+		assertEquals("ASSIGNED", reoffered.getStatus());
+
+		// Picking up accepts the offer
+		orderAssignmentService.updateOrderStatus(order.getId(), "PICKED_UP", second.getId());
+		assertNull(offerTimeouts.get(order.getId()));
+		Thread.sleep(700);
+		assertEquals("PICKED_UP", orderRepository.findById(order.getId()).get().getStatus());
+	}
+
+	private Order await(Long orderId, Predicate<Order> condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (true) {
+			Order order = orderRepository.findById(orderId).get();
+			if (condition.test(order)) {
+				return order;
+			}
+			assertTrue(System.currentTimeMillis() < deadline, "order " + orderId + " stuck in " + order.getStatus());
+			Thread.sleep(20);
+		}
+	}
+
+	private void goOnline(DeliveryPartnerAuth partner, double kmNorth) {
+		orderAssignmentService.updateAvailability(partner.getId(), true);
+		orderAssignmentService.keepPartnerAlive(partner.getId(), BASE_LATITUDE + kmNorth * KM, BASE_LONGITUDE);
+	}
+
+	private Order placeOrder(String pincode, String tag, Double storeKmNorth) {
+		Product product = productRepository.save(new Product(null, "Toor Dal 1kg", "Unpolished", 160.0, "Staples", null, pincode, 1000));
+		User user = new User();
+		user.setFullName("Customer " + tag);
+		user.setEmail(tag + "-offers@grocito.test");
+		user.setPassword("secret");
+		user.setRole("USER");
+		user.setPincode(pincode);
+		userRepository.save(user);
+
+		Order order = new Order();
+		order.setUser(user);
+		order.setPincode(pincode);
+		order.setDeliveryAddress("House 7, Aundh Road");
+		order.setPickupLatitude(BigDecimal.valueOf(BASE_LATITUDE + storeKmNorth * KM));
+		order.setPickupLongitude(BigDecimal.valueOf(BASE_LONGITUDE));
+		OrderItem item = new OrderItem();
+		item.setProduct(new Product(product.getId(), null, null, 0, null, null, null, 0));
+		item.setQuantity(1);
+		item.setOrder(order);
+		order.setItems(new ArrayList<>(List.of(item)));
+		return orderService.placeOrder(order);
+	}
+
+	private DeliveryPartnerAuth partner(String pincode, String tag) {
+		DeliveryPartnerAuth partner = new DeliveryPartnerAuth(tag + "@offers.grocito.test", "secret", "96" + Math.abs(tag.hashCode() % 100_000_000),
+				"Partner " + tag, pincode, "BIKE", "MH14" + tag, "DL" + tag);
+		partner.setVerificationStatus("VERIFIED");
+		return partnerRepository.save(partner);
+	}
+}
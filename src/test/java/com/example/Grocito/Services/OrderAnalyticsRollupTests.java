@@ -0,0 +1,255 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.OrderItem;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Repository.OrderRepository;
+import com.example.Grocito.Repository.ProductRepository;
+import com.example.Grocito.Repository.UserRepository;
+
+/**
+ * The order rollup must always hold what a recount of the orders table finds: after orders are
+ * placed, moved and cancelled, after a rebuild corrects changes made behind the service's back,
+ * and when rebuilds and folds of the delta journal run while orders keep changing. Once folded,
+ * the rollup rows alone must hold it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-order-rollup;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class OrderAnalyticsRollupTests {
+
+	private static final String[] WALK = { "PACKED", "OUT_FOR_DELIVERY", "DELIVERED" };
+
+	@Autowired
+	private OrderAnalyticsService orderAnalyticsService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void rollupMatchesARecountThroughPlaceStatusChangeCancelAndRebuild() {
+		User customer = customer("411061", "lifecycle");
+		Product product = product("411061", 100);
+		List<Long> ids = new ArrayList<>();
+		for (int i = 1; i <= 6; i++) {
+			ids.add(placeOrder(customer, product, i).getId());
+		}
+		assertRollupMatchesRecount("411061");
+		assertEquals(6L, totals("411061").getOrderCount("PLACED"));
+
+		orderService.updateOrderStatus(ids.get(0), "PACKED");
+		orderService.updateOrderStatus(ids.get(1), "PACKED");
+		orderService.updateOrderStatus(ids.get(1), "OUT_FOR_DELIVERY");
+		orderService.updateOrderStatus(ids.get(1), "DELIVERED");
+		assertRollupMatchesRecount("411061");
+
+		orderService.cancelOrder(ids.get(0));
+		orderService.cancelOrder(ids.get(2));
+		assertRollupMatchesRecount("411061");
+		assertEquals(2L, totals("411061").getOrderCount("CANCELLED"));
+
+		// Changes behind the service's back show only once a rebuild corrects them
+		jdbcTemplate.update("UPDATE orders SET status = 'DELIVERED' WHERE id = ?", ids.get(3));
+		jdbcTemplate.update("UPDATE orders SET total_amount = total_amount + 40 WHERE id = ?", ids.get(4));
+		assertNotEquals(recount("411061"), counts(totals("411061")));
+		assertEquals(2, orderAnalyticsService.rebuild(LocalDate.now().minusDays(1), LocalDate.now()));
+		assertRollupMatchesRecount("411061");
+
+		// A rebuild of a rollup in step changes nothing
+		assertEquals(0, orderAnalyticsService.rebuild(LocalDate.now().minusDays(1), LocalDate.now()));
+		assertRollupMatchesRecount("411061");
+
+		// Folding the journal moves its deltas into the rollup rows without changing a total
+		assertTrue(orderAnalyticsService.pendingDeltas() > 0);
+		orderAnalyticsService.fold();
+		assertEquals(0L, orderAnalyticsService.pendingDeltas());
+		assertRollupMatchesRecount("411061");
+		orderService.updateOrderStatus(ids.get(5), "PACKED");
+		assertRollupMatchesRecount("411061");
+	}
+
+	@Test
+	void rebuildsAndFoldsWhileOrdersChangeLoseNoDelta() throws Exception {
+		User customer = customer("411062", "racing");
+		Product product = product("411062", 1000);
+		List<Long> ids = saveOrders(customer, "411062", 120);
+		orderAnalyticsService.rebuildAll();
+
+		// Drift for the concurrent rebuilds to correct, on orders no writer touches
+		for (Long id : ids.subList(100, 120)) {
+			jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED' WHERE id = ?", id);
+		}
+
+		int writers = 4;
+		ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean writing = new AtomicBoolean(true);
+		AtomicInteger rebuilds = new AtomicInteger();
+		AtomicInteger folded = new AtomicInteger();
+		try {
+			Future<?> rebuilder = pool.submit(() -> {
+				start.await();
+				do {
+					orderAnalyticsService.rebuild(LocalDate.now().minusDays(40), LocalDate.now());
+					rebuilds.incrementAndGet();
+				} while (writing.get());
+				return null;
+			});
+			Future<?> folder = pool.submit(() -> {
+				start.await();
+				do {
+					folded.addAndGet(orderAnalyticsService.fold());
+				} while (writing.get());
+				return null;
+			});
+			List<Future<?>> changes = new ArrayList<>();
+			for (int w = 0; w < writers; w++) {
+				List<Long> own = ids.subList(w * 25, w * 25 + 25);
+				changes.add(pool.submit(() -> {
+					start.await();
+					for (int i = 0; i < own.size(); i++) {
+						Long id = own.get(i);
+						if (i % 5 == 0) {
+							orderService.cancelOrder(id);
+						} else {
+							for (String status : WALK) {
+								orderService.updateOrderStatus(id, status);
+							}
+						}
+						if (i % 8 == 0) {
+							placeOrder(customer, product, 1);
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> change : changes) {
+				change.get();
+			}
+			writing.set(false);
+			rebuilder.get();
+			folder.get();
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertTrue(rebuilds.get() >= 1);
+		assertTrue(folded.get() > 0);
+		assertRollupMatchesRecount("411062");
+		orderAnalyticsService.fold();
+		assertEquals(0L, orderAnalyticsService.pendingDeltas());
+		assertRollupMatchesRecount("411062");
+		assertEquals(80L, totals("411062").getOrderCount("DELIVERED"));
+		assertEquals(40L, totals("411062").getOrderCount("CANCELLED"));
+		assertEquals(16L, totals("411062").getOrderCount("PLACED"));
+	}
+
+	private void assertRollupMatchesRecount(String pincode) {
+		OrderAnalyticsService.StatusTotals totals = totals(pincode);
+		assertEquals(recount(pincode), counts(totals));
+		Map<String, Double> revenue = new HashMap<>();
+		jdbcTemplate.query("SELECT status, SUM(total_amount) FROM orders WHERE pincode = ? GROUP BY status",
+				rs -> { revenue.put(rs.getString(1), rs.getDouble(2)); }, pincode);
+		revenue.forEach((status, amount) -> assertEquals(amount, totals.getRevenue(status), 0.001, status));
+	}
+
+	private Map<String, Long> recount(String pincode) {
+		Map<String, Long> counts = new HashMap<>();
+		jdbcTemplate.query("SELECT status, COUNT(*) FROM orders WHERE pincode = ? GROUP BY status",
+				rs -> { counts.put(rs.getString(1), rs.getLong(2)); }, pincode);
+		return counts;
+	}
+
+	private static Map<String, Long> counts(OrderAnalyticsService.StatusTotals totals) {
+		return totals.getCountsByStatus();
+	}
+
+	private OrderAnalyticsService.StatusTotals totals(String pincode) {
+		return orderAnalyticsService.getStatusTotals(pincode, OrderAnalyticsService.MIN_DATE, OrderAnalyticsService.MAX_DATE);
+	}
+
+	private List<Long> saveOrders(User customer, String pincode, int count) {
+		LocalDateTime now = LocalDateTime.now();
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Order order = new Order();
+			order.setUser(customer);
+			order.setPincode(pincode);
+			order.setStatus("PLACED");
+			order.setOrderTime(now.minusHours(i * 7L));
+			order.setDeliveryAddress("Flat " + i + ", Aundh Road");
+			order.setTotalAmount(100 + i);
+			orders.add(order);
+		}
+		List<Long> ids = new ArrayList<>();
+		for (Order order : orderRepository.saveAll(orders)) {
+			ids.add(order.getId());
+		}
+		return ids;
+	}
+
+	private Order placeOrder(User customer, Product product, int quantity) {
+		Order order = new Order();
+		order.setUser(customer);
+		order.setPincode(customer.getPincode());
+		order.setDeliveryAddress("Flat 7, Aundh Road");
+		OrderItem item = new OrderItem();
+		item.setProduct(new Product(product.getId(), null, null, 0, null, null, null, 0));
+		item.setQuantity(quantity);
+		item.setOrder(order);
+		order.setItems(new ArrayList<>(List.of(item)));
+		return orderService.placeOrder(order);
+	}
+
+	private Product product(String pincode, int stock) {
+		return productRepository.save(new Product(null, "Toor Dal 1kg", "Unpolished", 140.0, "Staples", null, pincode, stock));
+	}
+
+	private User customer(String pincode, String tag) {
+		User user = new User();
+		user.setFullName("Customer " + tag);
+		user.setEmail(tag + "-rollup@grocito.test");
+		user.setPassword("secret");
+		user.setRole("USER");
+		user.setPincode(pincode);
+		return userRepository.save(user);
+	}
+}
@@ -0,0 +1,188 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.OrderItem;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Repository.DeliveryPartnerAuthRepository;
+import com.example.Grocito.Repository.ProductRepository;
+import com.example.Grocito.Repository.UserRepository;
+
+/**
+ * Order events pushed to delivery partners: a new order reaches its pincode's partners only and
+ * is serialized once for all of them, an assignment and the following status updates reach the
+ * pincode and the assigned partner exactly once each, and a client that stops reading neither
+ * holds up publishing nor other clients, and is told to resync instead of buffering without end.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-push;DB_CLOSE_DELAY=-1",
+		"grocito.push.buffer-size=16"
+})
+@ActiveProfiles("test")
+class OrderPushTests {
+
+	@Autowired
+	private PushChannel pushChannel;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderAssignmentService orderAssignmentService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private DeliveryPartnerAuthRepository partnerRepository;
+
+	@Test
+	void placedOrderReachesOnlyItsPincode() throws Exception {
+		RecordingSink first = new RecordingSink();
+		RecordingSink second = new RecordingSink();
+		RecordingSink elsewhere = new RecordingSink();
+		pushChannel.subscribe(List.of("pincode:411011"), first);
+		pushChannel.subscribe(List.of("pincode:411011", "partner:999999"), second);
+		pushChannel.subscribe(List.of("pincode:411099"), elsewhere);
+
+		Order order = placeOrder("411011", "placed");
+
+		awaitTrue(() -> first.events().size() == 1 && second.events().size() == 1);
+		PushChannel.Frame frame = first.events().get(0);
+		assertEquals("order-placed", frame.name);
+		assertTrue(frame.data.contains("\"id\":" + order.getId()), frame.data);
+		// Serialized once, whoever receives it
+		assertSame(frame, second.events().get(0));
+		Thread.sleep(200);
+		assertEquals(0, elsewhere.events().size());
+	}
+
+	@Test
+	void assignmentAndStatusUpdatesReachPincodeAndPartnerOnce() throws Exception {
+		DeliveryPartnerAuth partner = partner("411022", "rider-one");
+		DeliveryPartnerAuth otherPartner = partner("411022", "rider-two");
+		Order order = placeOrder("411022", "assigned");
+
+		// What subscribePartner subscribes to
+		RecordingSink partnerSink = new RecordingSink();
+		RecordingSink otherSink = new RecordingSink();
+		pushChannel.subscribe(List.of(OrderPushService.pincodeTopic("411022"), OrderPushService.partnerTopic(partner.getId())), partnerSink);
+		pushChannel.subscribe(List.of(OrderPushService.pincodeTopic("411022"), OrderPushService.partnerTopic(otherPartner.getId())), otherSink);
+
+		assertTrue(orderAssignmentService.assignOrderToPartner(order.getId(), partner.getId()));
+		orderAssignmentService.updateOrderStatus(order.getId(), "PICKED_UP", partner.getId());
+		orderAssignmentService.updateOrderStatus(order.getId(), "OUT_FOR_DELIVERY", partner.getId());
+
+		awaitTrue(() -> partnerSink.events().size() == 3 && otherSink.events().size() == 3);
+		Thread.sleep(200);
+		for (RecordingSink sink : List.of(partnerSink, otherSink)) {
+			List<PushChannel.Frame> events = sink.events();
+			assertEquals(3, events.size());
+			assertTrue(events.stream().allMatch(event -> "order-status".equals(event.name)));
+			assertTrue(events.get(0).data.contains("\"status\":\"ASSIGNED\""), events.get(0).data);
+			assertTrue(events.get(0).data.contains("\"deliveryPartnerId\":" + partner.getId()), events.get(0).data);
+			assertTrue(events.get(1).data.contains("\"status\":\"PICKED_UP\""), events.get(1).data);
+			assertTrue(events.get(2).data.contains("\"status\":\"OUT_FOR_DELIVERY\""), events.get(2).data);
+		}
+	}
+
+	@Test
+	void slowClientDoesNotHoldUpOthers() throws Exception {
+		CountDownLatch unblock = new CountDownLatch(1);
+		RecordingSink slow = new RecordingSink() {
+			@Override
+			public void send(PushChannel.Frame frame) {
+				try {
+					unblock.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.send(frame);
+			}
+		};
+		RecordingSink fast = new RecordingSink();
+		PushChannel.Subscriber slowSubscriber = pushChannel.subscribe(List.of("pincode:411033"), slow);
+		pushChannel.subscribe(List.of("pincode:411033"), fast);
+
+		// Rounds of half a buffer, so a client that keeps up never overflows. The slow client is
+		// held the whole time, so every publish here returned without waiting for it
+		int events = 400;
+		for (int i = 0; i < events; i++) {
+			pushChannel.publish(List.of("pincode:411033"), "tick", i);
+			if (i % 8 == 7) {
+				int published = i + 1;
+				awaitTrue(() -> fast.events().size() == published);
+			}
+		}
+
+		List<PushChannel.Frame> fastReceived = fast.events();
+		for (int i = 0; i < events; i++) {
+			assertEquals(String.valueOf(i), fastReceived.get(i).data);
+		}
+		assertTrue(slowSubscriber.buffer.size() <= 16);
+
+		unblock.countDown();
+		awaitTrue(() -> slow.events().stream().anyMatch(frame -> "resync".equals(frame.name)));
+		Thread.sleep(200);
+		List<PushChannel.Frame> received = slow.events();
+		// The first event it was stuck on, a resync, and at most one buffer's worth after it
+		assertTrue(received.size() <= 2 + 16, received.size() + " events");
+		assertEquals("0", received.get(0).data);
+		assertEquals("resync", received.get(1).name);
+	}
+
+	private Order placeOrder(String pincode, String tag) {
+		Product product = productRepository.save(new Product(null, "Basmati Rice 1kg", "Aged", 120.0, "Staples", null, pincode, 1000));
+		User user = new User();
+		user.setFullName("Customer " + tag);
+		user.setEmail(tag + "-customer@grocito.test");
+		user.setPassword("secret");
+		user.setRole("USER");
+		user.setPincode(pincode);
+		userRepository.save(user);
+
+		Order order = new Order();
+		order.setUser(user);
+		order.setPincode(pincode);
+		order.setDeliveryAddress("Flat 2, FC Road");
+		OrderItem item = new OrderItem();
+		item.setProduct(new Product(product.getId(), null, null, 0, null, null, null, 0));
+		item.setQuantity(2);
+		item.setOrder(order);
+		order.setItems(new ArrayList<>(List.of(item)));
+		return orderService.placeOrder(order);
+	}
+
+	private DeliveryPartnerAuth partner(String pincode, String tag) {
+		DeliveryPartnerAuth partner = new DeliveryPartnerAuth(tag + "@grocito.test", "secret", "98" + Math.abs(tag.hashCode() % 100_000_000),
+				"Partner " + tag, pincode, "BIKE", "MH12" + tag, "DL" + tag);
+		partner.setVerificationStatus("VERIFIED");
+		return partnerRepository.save(partner);
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for push events");
+			Thread.sleep(20);
+		}
+	}
+}
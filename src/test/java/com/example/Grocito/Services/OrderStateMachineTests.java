@@ -0,0 +1,412 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.OrderItem;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Repository.DeliveryPartnerAuthRepository;
+import com.example.Grocito.Repository.OrderRepository;
+import com.example.Grocito.Repository.ProductRepository;
+import com.example.Grocito.Repository.UserRepository;
+import com.example.Grocito.dto.BulkStatusUpdate;
+
+/**
+ * Partners racing to accept the same orders must leave each with exactly one of them, and
+ * status changes racing on one order must each apply at most once, in an order the state machine
+ * allows, however they interleave. Bulk updates must give every id its own outcome, move
+ * orders that changed since they were read only as far as the machine allows, and never count an
+ * order a concurrent writer moved as one of their own.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-order-states;DB_CLOSE_DELAY=-1",
+		"grocito.orders.bulk-chunk-size=100"
+})
+@ActiveProfiles("test")
+class OrderStateMachineTests {
+
+	@Autowired
+	private OrderAssignmentService orderAssignmentService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderStateMachine orderStateMachine;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private DeliveryPartnerAuthRepository partnerRepository;
+
+	@Autowired
+	private OrderAnalyticsService orderAnalyticsService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void concurrentAcceptsHaveExactlyOneWinnerPerOrder() throws Exception {
+		int orders = 100;
+		int partnersPerOrder = 5;
+		User customer = customer("411050", "accepts");
+		Product product = product("411050", 10_000);
+		List<Long> orderIds = new ArrayList<>();
+		for (int i = 0; i < orders; i++) {
+			orderIds.add(placeOrder(customer, product, 1).getId());
+		}
+		List<DeliveryPartnerAuth> partners = new ArrayList<>();
+		for (int i = 0; i < orders * partnersPerOrder; i++) {
+			partners.add(partner("411050", "accept-" + i));
+		}
+		partners = partnerRepository.saveAll(partners);
+
+		// Every partner accepts one order, five to an order, all let go at once
+		long claimedBefore = (Long) orderStateMachine.getStats().get("claimed");
+		long lostBefore = (Long) orderStateMachine.getStats().get("lostClaims");
+		List<Callable<Boolean>> accepts = new ArrayList<>();
+		CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < partners.size(); i++) {
+			Long orderId = orderIds.get(i % orders);
+			Long partnerId = partners.get(i).getId();
+			accepts.add(() -> {
+				start.await();
+				return orderAssignmentService.assignOrderToPartner(orderId, partnerId);
+			});
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (Callable<Boolean> accept : accepts) {
+			results.add(pool.submit(accept));
+		}
+		start.countDown();
+		Map<Long, List<Long>> winners = new HashMap<>();
+		int losers = 0;
+		for (int i = 0; i < results.size(); i++) {
+			if (results.get(i).get()) {
+				winners.computeIfAbsent(orderIds.get(i % orders), id -> new ArrayList<>()).add(partners.get(i).getId());
+			} else {
+				losers++;
+			}
+		}
+		pool.shutdown();
+		long claimed = (Long) orderStateMachine.getStats().get("claimed") - claimedBefore;
+		long lost = (Long) orderStateMachine.getStats().get("lostClaims") - lostBefore;
+
+		assertEquals(orders, winners.size());
+		for (Long orderId : orderIds) {
+			assertEquals(1, winners.get(orderId).size(), "winners of order " + orderId);
+			Order order = orderRepository.findById(orderId).get();
+			assertEquals("ASSIGNED", order.getStatus());
+			assertEquals(winners.get(orderId).get(0), order.getDeliveryPartner().getId());
+		}
+		// Every other partner is told no and counted as a lost claim, whether it read the order
+		// before it was taken and lost the UPDATE or read it already taken
+		assertEquals(accepts.size() - orders, losers);
+		assertEquals(orders, claimed);
+		assertEquals(accepts.size() - orders, lost);
+	}
+
+	@Test
+	void racingStatusChangesApplyOnceAndCancellingReleasesStockOnce() throws Exception {
+		int orders = 100;
+		User customer = customer("411051", "races");
+		Product product = product("411051", 1_000);
+		List<Long> orderIds = new ArrayList<>();
+		for (int i = 0; i < orders; i++) {
+			orderIds.add(placeOrder(customer, product, 2).getId());
+		}
+		assertEquals(1_000 - 2 * orders, productRepository.findById(product.getId()).get().getStock());
+
+		// Each order is packed once and cancelled three times at the same moment
+		long movedBefore = (Long) orderStateMachine.getStats().get("moved");
+		long retriedBefore = (Long) orderStateMachine.getStats().get("retried");
+		long refusedBefore = (Long) orderStateMachine.getStats().get("refused");
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		List<Future<Boolean>> packs = new ArrayList<>();
+		List<Future<Boolean>> cancels = new ArrayList<>();
+		for (Long orderId : orderIds) {
+			packs.add(pool.submit(() -> succeeds(start, () -> orderService.updateOrderStatus(orderId, "PACKED"))));
+			for (int i = 0; i < 3; i++) {
+				cancels.add(pool.submit(() -> succeeds(start, () -> orderService.cancelOrder(orderId))));
+			}
+		}
+		start.countDown();
+		int packed = 0;
+		int cancelled = 0;
+		for (Future<Boolean> pack : packs) {
+			packed += pack.get() ? 1 : 0;
+		}
+		for (Future<Boolean> cancel : cancels) {
+			cancelled += cancel.get() ? 1 : 0;
+		}
+		pool.shutdown();
+		long moved = (Long) orderStateMachine.getStats().get("moved") - movedBefore;
+		long retried = (Long) orderStateMachine.getStats().get("retried") - retriedBefore;
+		long refused = (Long) orderStateMachine.getStats().get("refused") - refusedBefore;
+
+		// Packing may come before the cancellation or lose to it, never after it
+		assertEquals(orders, cancelled);
+		assertEquals(packed + cancelled, moved);
+		// Every change that did not apply was refused by the machine, none gave up retrying
+		assertEquals(packs.size() + cancels.size() - moved, refused);
+		// A change retries once per move of its order it missed, so the first mover of an order
+		// never retries and the rest at most once, or twice when a pack got in before the cancel
+		assertTrue(retried <= 3L * orders + 2L * packed, retried + " retries");
+		for (Long orderId : orderIds) {
+			Order order = orderRepository.findById(orderId).get();
+			assertEquals("CANCELLED", order.getStatus());
+			assertNotNull(order.getCancelledAt());
+		}
+		assertEquals(1_000, productRepository.findById(product.getId()).get().getStock());
+	}
+
+	@Test
+	void onlyTransitionsOfTheMachineAreApplied() {
+		User customer = customer("411052", "machine");
+		Product product = product("411052", 100);
+		DeliveryPartnerAuth partner = partnerRepository.save(partner("411052", "machine"));
+		DeliveryPartnerAuth other = partnerRepository.save(partner("411052", "other"));
+
+		Order order = placeOrder(customer, product, 1);
+		assertThrows(RuntimeException.class, () -> orderService.updateOrderStatus(order.getId(), "DELIVERED"));
+		assertThrows(RuntimeException.class, () -> orderService.updateOrderStatus(order.getId(), "ASSIGNED"));
+		assertTrue(orderAssignmentService.assignOrderToPartner(order.getId(), partner.getId()));
+		assertFalse(orderAssignmentService.assignOrderToPartner(order.getId(), other.getId()));
+
+		assertThrows(RuntimeException.class, () -> orderAssignmentService.updateOrderStatus(order.getId(), "PICKED_UP", other.getId()));
+		assertThrows(RuntimeException.class, () -> orderAssignmentService.updateOrderStatus(order.getId(), "DELIVERED", partner.getId()));
+		assertThrows(RuntimeException.class, () -> orderAssignmentService.updateOrderStatus(order.getId(), "PLACED", partner.getId()));
+		orderAssignmentService.updateOrderStatus(order.getId(), "PICKED_UP", partner.getId());
+		orderAssignmentService.updateOrderStatus(order.getId(), "OUT_FOR_DELIVERY", partner.getId());
+		Order delivered = orderAssignmentService.updateOrderStatus(order.getId(), "DELIVERED", partner.getId());
+		assertEquals("DELIVERED", delivered.getStatus());
+		assertNotNull(delivered.getDeliveredAt());
+
+		assertThrows(RuntimeException.class, () -> orderService.cancelOrder(order.getId()));
+		assertThrows(RuntimeException.class, () -> orderService.updateOrderStatus(order.getId(), "PLACED"));
+		assertTrue(OrderStateMachine.isFinal("DELIVERED"));
+		assertEquals(99, productRepository.findById(product.getId()).get().getStock());
+	}
+
+	@Test
+	void bulkUpdateReportsEveryOrderAndKeepsTheRollupInStep() {
+		User customer = customer("411053", "bulk");
+		List<Long> own = saveOrders(customer, "411053", 400);
+		List<Long> elsewhere = saveOrders(customer, "411054", 50);
+		List<Long> delivered = own.subList(0, 20);
+		jdbcTemplate.update("UPDATE orders SET status = 'DELIVERED' WHERE id BETWEEN ? AND ?", delivered.get(0), delivered.get(19));
+		orderAnalyticsService.rebuildAll();
+
+		List<Long> ids = new ArrayList<>(own);
+		ids.addAll(elsewhere);
+		ids.add(999_999_999L);
+		ids.add(own.get(100));
+		BulkStatusUpdate result = orderService.bulkUpdateStatus(ids, "PACKED", "ADMIN", "411053");
+
+		assertEquals(451, result.getOutcomes().size());
+		assertEquals(380, result.getUpdated());
+		assertEquals(71, result.getFailed());
+		assertEquals(BulkStatusUpdate.UPDATED, result.getOutcomes().get(own.get(100)));
+		assertEquals("PLACED", result.getPreviousStatuses().get(own.get(100)));
+		assertEquals(BulkStatusUpdate.NOT_ALLOWED, result.getOutcomes().get(delivered.get(0)));
+		assertEquals("DELIVERED", result.getPreviousStatuses().get(delivered.get(0)));
+		assertEquals(BulkStatusUpdate.ACCESS_DENIED, result.getOutcomes().get(elsewhere.get(0)));
+		assertEquals(BulkStatusUpdate.NOT_FOUND, result.getOutcomes().get(999_999_999L));
+		assertEquals(380, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM orders WHERE pincode = '411053' AND status = 'PACKED'", Integer.class));
+		assertEquals(50, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM orders WHERE pincode = '411054' AND status = 'PLACED'", Integer.class));
+
+		// The batched rollup deltas add up to what a rebuild from the orders table finds
+		Map<String, Long> recorded = orderAnalyticsService.getStatusTotals("411053", OrderAnalyticsService.MIN_DATE, OrderAnalyticsService.MAX_DATE).getCountsByStatus();
+		orderAnalyticsService.rebuildAll();
+		assertEquals(orderAnalyticsService.getStatusTotals("411053", OrderAnalyticsService.MIN_DATE, OrderAnalyticsService.MAX_DATE).getCountsByStatus(), recorded);
+		assertEquals(380L, recorded.get("PACKED"));
+	}
+
+	@Test
+	void ordersChangedSinceTheBulkReadThemAreMovedOneByOne() {
+		User customer = customer("411055", "stale");
+		List<Long> ids = saveOrders(customer, "411055", 6);
+		List<Order> read = orderRepository.findByIdIn(ids);
+
+		// After the read: one is packed, which can still be cancelled, and one is delivered, which cannot
+		orderService.updateOrderStatus(ids.get(0), "PACKED");
+		jdbcTemplate.update("UPDATE orders SET status = 'DELIVERED' WHERE id = ?", ids.get(1));
+
+		BulkStatusUpdate result = new BulkStatusUpdate("CANCELLED");
+		List<Order> changed = new ArrayList<>();
+		transactionTemplate.executeWithoutResult(tx -> orderStateMachine.moveAll(read, "CANCELLED", result, changed));
+
+		assertEquals(5, result.getUpdated());
+		assertEquals(5, changed.size());
+		assertEquals("PACKED", result.getPreviousStatuses().get(ids.get(0)));
+		assertEquals(BulkStatusUpdate.NOT_ALLOWED, result.getOutcomes().get(ids.get(1)));
+		assertEquals("DELIVERED", result.getPreviousStatuses().get(ids.get(1)));
+		for (Long id : ids.subList(2, 6)) {
+			assertEquals("PLACED", result.getPreviousStatuses().get(id));
+		}
+		for (Order order : changed) {
+			assertEquals("CANCELLED", order.getStatus());
+			assertEquals("CANCELLED", orderRepository.findById(order.getId()).get().getStatus());
+		}
+	}
+
+	@Test
+	void ordersAConcurrentWriterMovedAreNeverTakenForTheBulks() throws Exception {
+		User customer = customer("411056", "writer");
+		List<Long> ids = saveOrders(customer, "411056", 40);
+		List<Order> read = orderRepository.findByIdIn(ids);
+
+		// A writer packs the first orders after the bulk read them, then races it for the rest from the far end
+		Set<Long> packedByWriter = ConcurrentHashMap.newKeySet();
+		for (Long id : ids.subList(0, 4)) {
+			orderService.updateOrderStatus(id, "PACKED");
+			packedByWriter.add(id);
+		}
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		CountDownLatch start = new CountDownLatch(1);
+		Future<?> writer = pool.submit(() -> {
+			start.await();
+			for (int i = ids.size() - 1; i >= 4; i--) {
+				try {
+					orderService.updateOrderStatus(ids.get(i), "PACKED");
+					packedByWriter.add(ids.get(i));
+				} catch (RuntimeException e) {
+					// Packed by the bulk first
+				}
+			}
+			return null;
+		});
+		BulkStatusUpdate result = new BulkStatusUpdate("PACKED");
+		List<Order> changed = new ArrayList<>();
+		start.countDown();
+		transactionTemplate.executeWithoutResult(tx -> orderStateMachine.moveAll(read, "PACKED", result, changed));
+		writer.get();
+		pool.shutdown();
+
+		Set<Long> packedByBulk = new HashSet<>();
+		result.getOutcomes().forEach((id, outcome) -> {
+			if (BulkStatusUpdate.UPDATED.equals(outcome)) {
+				packedByBulk.add(id);
+			}
+		});
+		for (Long id : ids) {
+			assertTrue(packedByBulk.contains(id) != packedByWriter.contains(id), "order " + id);
+			assertEquals("PACKED", orderRepository.findById(id).get().getStatus());
+		}
+		for (Long id : ids.subList(0, 4)) {
+			assertEquals(BulkStatusUpdate.NOT_ALLOWED, result.getOutcomes().get(id));
+			assertEquals("PACKED", result.getPreviousStatuses().get(id));
+		}
+		Set<Long> changedIds = new HashSet<>();
+		for (Order order : changed) {
+			assertEquals("PLACED", result.getPreviousStatuses().get(order.getId()));
+			changedIds.add(order.getId());
+		}
+		assertEquals(packedByBulk, changedIds);
+	}
+
+	private List<Long> saveOrders(User customer, String pincode, int count) {
+		LocalDateTime now = LocalDateTime.now();
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Order order = new Order();
+			order.setUser(customer);
+			order.setPincode(pincode);
+			order.setStatus("PLACED");
+			order.setOrderTime(now.minusHours(i * 7L));
+			order.setDeliveryAddress("Flat " + i + ", Baner Road");
+			order.setTotalAmount(100 + i);
+			orders.add(order);
+		}
+		List<Long> ids = new ArrayList<>();
+		for (Order order : orderRepository.saveAll(orders)) {
+			ids.add(order.getId());
+		}
+		return ids;
+	}
+
+	private static boolean succeeds(CountDownLatch start, Runnable change) throws InterruptedException {
+		start.await();
+		try {
+			change.run();
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private Order placeOrder(User customer, Product product, int quantity) {
+		Order order = new Order();
+		order.setUser(customer);
+		order.setPincode(customer.getPincode());
+		order.setDeliveryAddress("Flat 12, Baner Road");
+		OrderItem item = new OrderItem();
+		item.setProduct(new Product(product.getId(), null, null, 0, null, null, null, 0));
+		item.setQuantity(quantity);
+		item.setOrder(order);
+		order.setItems(new ArrayList<>(List.of(item)));
+		return orderService.placeOrder(order);
+	}
+
+	private Product product(String pincode, int stock) {
+		return productRepository.save(new Product(null, "Basmati Rice 5kg", "Aged", 650.0, "Staples", null, pincode, stock));
+	}
+
+	private User customer(String pincode, String tag) {
+		User user = new User();
+		user.setFullName("Customer " + tag);
+		user.setEmail(tag + "-states@grocito.test");
+		user.setPassword("secret");
+		user.setRole("USER");
+		user.setPincode(pincode);
+		return userRepository.save(user);
+	}
+
+	private static DeliveryPartnerAuth partner(String pincode, String tag) {
+		DeliveryPartnerAuth partner = new DeliveryPartnerAuth(tag + "@states.grocito.test", "secret", "97" + Math.abs(tag.hashCode() % 100_000_000),
+				"Partner " + tag, pincode, "BIKE", "MH12" + tag, "DL" + tag);
+		partner.setVerificationStatus("VERIFIED");
+		return partner;
+	}
+}
@@ -0,0 +1,255 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.DeliveryPartner;
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.OrderItem;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Repository.DeliveryPartnerAuthRepository;
+import com.example.Grocito.Repository.DeliveryPartnerRepository;
+import com.example.Grocito.Repository.ProductRepository;
+import com.example.Grocito.Repository.UserRepository;
+
+/**
+ * The partner location index must return the same k nearest partners as a scan of every
+ * position, also while other threads move partners about; its throughput and lookup latency are
+ * measured by PartnerLocationIndexBenchmark. Automatic assignment must pick the best placed online
+ * partner of the order's pincode, skipping partners at the active order limit and weighing
+ * distance against load.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-assignment;DB_CLOSE_DELAY=-1",
+		"grocito.assignment.pickup-points=411060=18.5204:73.8567"
+})
+@ActiveProfiles("test")
+class PartnerAssignmentTests {
+
+	private static final double PICKUP_LATITUDE = 18.5204;
+	private static final double PICKUP_LONGITUDE = 73.8567;
+	// About a kilometre north
+	private static final double KM = 0.009;
+
+	@Autowired
+	private PartnerLocationIndex partnerLocationIndex;
+
+	@Autowired
+	private PartnerRanker partnerRanker;
+
+	@Autowired
+	private OrderAssignmentService orderAssignmentService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private DeliveryPartnerAuthRepository partnerRepository;
+
+	@Autowired
+	private DeliveryPartnerService deliveryPartnerService;
+
+	@Autowired
+	private DeliveryPartnerRepository deliveryPartnerRepository;
+
+	@Test
+	void nearestMatchesFullScan() {
+		Random random = new Random(19);
+		Map<Long, double[]> placed = new HashMap<>();
+		for (long id = 1_000_000; id < 1_020_000; id++) {
+			double[] point = { 12.90 + random.nextDouble() * 0.17, 77.55 + random.nextDouble() * 0.2 };
+			partnerLocationIndex.online(id, id % 2 == 0 ? "560001" : "560002", 4.5);
+			partnerLocationIndex.moveTo(id, point[0], point[1]);
+			placed.put(id, point);
+		}
+		for (int query = 0; query < 500; query++) {
+			double latitude = 12.89 + random.nextDouble() * 0.19;
+			double longitude = 77.54 + random.nextDouble() * 0.22;
+			String pincode = query % 3 == 0 ? null : "560001";
+			double maxKm = query % 5 == 0 ? 0.5 : 5;
+
+			List<Long> expected = placed.entrySet().stream()
+					.filter(entry -> pincode == null || entry.getKey() % 2 == 0)
+					.map(entry -> Map.entry(entry.getKey(),
+							PartnerLocationIndex.distanceKm(latitude, longitude, entry.getValue()[0], entry.getValue()[1])))
+					.filter(entry -> entry.getValue() <= maxKm)
+					.sorted(Map.Entry.comparingByValue())
+					.limit(8).map(Map.Entry::getKey).collect(Collectors.toList());
+			List<Long> found = partnerLocationIndex.nearest(latitude, longitude, 8, maxKm, pincode).stream()
+					.map(PartnerLocationIndex.Candidate::getPartnerId).collect(Collectors.toList());
+			assertEquals(expected, found, "query " + query);
+		}
+		placed.keySet().forEach(partnerLocationIndex::offline);
+		assertTrue(partnerLocationIndex.nearest(12.98, 77.65, 8, 50, null).stream().noneMatch(candidate -> placed.containsKey(candidate.getPartnerId())));
+	}
+
+	@Test
+	void nearestMatchesFullScanAfterConcurrentMoves() throws Exception {
+		int partners = 20_000;
+		long firstId = 2_000_000;
+		for (long id = firstId; id < firstId + partners; id++) {
+			partnerLocationIndex.online(id, "4110" + (id % 50), null);
+			partnerLocationIndex.moveTo(id, 22.45 + (id % 977) * 0.00017, 88.25 + (id % 1009) * 0.0002);
+		}
+
+		// Riders drifting about a city of their own, some across cells; each thread owns every fourth partner so its
+		// last position is known
+		int threads = 4;
+		int rounds = 20;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Map<Long, double[]>>> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			workers.add(pool.submit(() -> {
+				Random random = new Random(thread);
+				Map<Long, double[]> last = new HashMap<>();
+				for (int round = 0; round < rounds; round++) {
+					for (long id = firstId + thread; id < firstId + partners; id += threads) {
+						double[] point = { 22.45 + random.nextDouble() * 0.17, 88.25 + random.nextDouble() * 0.2 };
+						assertTrue(partnerLocationIndex.moveTo(id, point[0], point[1]));
+						last.put(id, point);
+					}
+				}
+				return last;
+			}));
+		}
+		Map<Long, double[]> placed = new HashMap<>();
+		for (Future<Map<Long, double[]>> worker : workers) {
+			placed.putAll(worker.get());
+		}
+		pool.shutdown();
+
+		Random random = new Random(7);
+		for (int query = 0; query < 200; query++) {
+			double latitude = 22.46 + random.nextDouble() * 0.15;
+			double longitude = 88.26 + random.nextDouble() * 0.18;
+			List<Long> expected = placed.entrySet().stream()
+					.map(entry -> Map.entry(entry.getKey(),
+							PartnerLocationIndex.distanceKm(latitude, longitude, entry.getValue()[0], entry.getValue()[1])))
+					.filter(entry -> entry.getValue() <= 10)
+					.sorted(Map.Entry.comparingByValue())
+					.limit(8).map(Map.Entry::getKey).collect(Collectors.toList());
+			List<Long> found = partnerLocationIndex.nearest(latitude, longitude, 8, 10, null).stream()
+					.map(PartnerLocationIndex.Candidate::getPartnerId).collect(Collectors.toList());
+			assertEquals(expected, found, "query " + query);
+		}
+		placed.keySet().forEach(partnerLocationIndex::offline);
+	}
+
+	@Test
+	void assignsBestPlacedPartnerOfPincode() {
+		DeliveryPartnerAuth near = partner("411060", "near");
+		DeliveryPartnerAuth second = partner("411060", "second");
+		DeliveryPartnerAuth further = partner("411060", "further");
+		DeliveryPartnerAuth offline = partner("411060", "offline");
+		DeliveryPartnerAuth otherPincode = partner("411061", "other-pincode");
+		goOnline(near, 0.5);
+		goOnline(second, 1);
+		goOnline(further, 2.5);
+		goOnline(offline, 0.1);
+		orderAssignmentService.updateAvailability(offline.getId(), false);
+		goOnline(otherPincode, 0.05);
+
+		// The nearest partner is already carrying two orders
+		assertTrue(orderAssignmentService.assignOrderToPartner(placeOrder("411060", "busy-1").getId(), near.getId()));
+		assertTrue(orderAssignmentService.assignOrderToPartner(placeOrder("411060", "busy-2").getId(), near.getId()));
+
+		Order first = orderAssignmentService.assignOrderAutomatically(placeOrder("411060", "first").getId(), PICKUP_LATITUDE, PICKUP_LONGITUDE);
+		assertEquals(second.getId(), first.getDeliveryPartner().getId());
+		assertEquals("ASSIGNED", first.getStatus());
+
+		// 1 km with an order on (score 3.5) now loses to 2.5 km with none (3.0); the pickup point comes from configuration
+		Order next = orderAssignmentService.assignOrderAutomatically(placeOrder("411060", "next").getId());
+		assertEquals(further.getId(), next.getDeliveryPartner().getId());
+
+		// Full, offline and out-of-pincode partners are never candidates
+		List<Long> ranked = partnerRanker.rank("411060", PICKUP_LATITUDE, PICKUP_LONGITUDE).stream()
+				.map(PartnerRanker.RankedPartner::getPartnerId).collect(Collectors.toList());
+		assertEquals(List.of(second.getId(), further.getId()), ranked);
+	}
+
+	@Test
+	void partnersOnlineThroughTheirProfileAreKnownByAuthId() {
+		// A delivery_partners row logging in with an auth record of another id
+		DeliveryPartner profile = new DeliveryPartner("Partner profile", "profile-411062", "BIKE", "MH12profile", "DLprofile", "411062");
+		profile.setVerificationStatus("VERIFIED");
+		DeliveryPartnerAuth login = partner("411062", "profile");
+		if (login.getId().equals(deliveryPartnerRepository.save(profile).getId())) {
+			login = partner("411062", "profile-login");
+		}
+		profile.setAuthRecord(login);
+		profile = deliveryPartnerRepository.save(profile);
+		assertNotEquals(login.getId(), profile.getId());
+
+		deliveryPartnerService.updateAvailability(profile.getId(), true, "ONLINE");
+		deliveryPartnerService.updateLocation(profile.getId(), PICKUP_LATITUDE + 0.3 * KM, PICKUP_LONGITUDE);
+
+		List<PartnerLocationIndex.Candidate> nearest = partnerLocationIndex.nearest(PICKUP_LATITUDE, PICKUP_LONGITUDE, 8, 5, "411062");
+		assertEquals(List.of(login.getId()), nearest.stream().map(PartnerLocationIndex.Candidate::getPartnerId).collect(Collectors.toList()));
+		assertEquals(0.3, nearest.get(0).getDistanceKm(), 0.05);
+
+		Order order = orderAssignmentService.assignOrderAutomatically(placeOrder("411062", "profile").getId(), PICKUP_LATITUDE, PICKUP_LONGITUDE);
+		assertEquals(login.getId(), order.getDeliveryPartner().getId());
+
+		deliveryPartnerService.updateAvailability(profile.getId(), false, "OFFLINE");
+		assertTrue(partnerLocationIndex.inPincode("411062").isEmpty());
+	}
+
+	private void goOnline(DeliveryPartnerAuth partner, double kmNorth) {
+		orderAssignmentService.updateAvailability(partner.getId(), true);
+		orderAssignmentService.keepPartnerAlive(partner.getId(), PICKUP_LATITUDE + kmNorth * KM, PICKUP_LONGITUDE);
+	}
+
+	private Order placeOrder(String pincode, String tag) {
+		Product product = productRepository.save(new Product(null, "Toor Dal 1kg", "Unpolished", 160.0, "Staples", null, pincode, 1000));
+		User user = new User();
+		user.setFullName("Customer " + tag);
+		user.setEmail(tag + "-assignment@grocito.test");
+		user.setPassword("secret");
+		user.setRole("USER");
+		user.setPincode(pincode);
+		userRepository.save(user);
+
+		Order order = new Order();
+		order.setUser(user);
+		order.setPincode(pincode);
+		order.setDeliveryAddress("Lane 5, Koregaon Park");
+		OrderItem item = new OrderItem();
+		item.setProduct(new Product(product.getId(), null, null, 0, null, null, null, 0));
+		item.setQuantity(1);
+		item.setOrder(order);
+		order.setItems(new ArrayList<>(List.of(item)));
+		return orderService.placeOrder(order);
+	}
+
+	private DeliveryPartnerAuth partner(String pincode, String tag) {
+		DeliveryPartnerAuth partner = new DeliveryPartnerAuth(tag + "@riders.grocito.test", "secret", "96" + Math.abs(tag.hashCode() % 100_000_000),
+				"Partner " + tag, pincode, "BIKE", "MH12" + tag, "DL" + tag);
+		partner.setVerificationStatus("VERIFIED");
+		return partnerRepository.save(partner);
+	}
+}
@@ -0,0 +1,288 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.OrderItem;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Repository.DeliveryPartnerAuthRepository;
+import com.example.Grocito.Repository.ProductRepository;
+import com.example.Grocito.Repository.UserRepository;
+
+/**
+ * Partners that stop sending heartbeats must drop out within a tick or two of the TTL while those
+ * that keep beating stay, under a heavy heartbeat rate from many threads every pincode's
+ * available set must end up exactly as the last online, offline, busy and free calls left it,
+ * and a partner must leave the available set at two active orders and come back on delivery.
+ * The maps under the registry must grow however many puts race, and never show a key before its
+ * value.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-availability;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class PartnerAvailabilityRegistryTests {
+
+	@Autowired
+	private OrderAssignmentService orderAssignmentService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private DeliveryPartnerAuthRepository partnerRepository;
+
+	@Test
+	void silentPartnersExpireWhileBeatingOnesStay() {
+		AtomicLong now = new AtomicLong(1_000_000);
+		long started = now.get();
+		PartnerAvailabilityRegistry registry = new PartnerAvailabilityRegistry(300, 25, now::get);
+		registry.online(1, "560100");
+		registry.online(2, "560100");
+		registry.online(3, "560100");
+		registry.online(4, "560100");
+		registry.offline(3);
+		assertFalse(registry.heartbeat(3));
+
+		// 1 beats throughout, 2 never, 4 until 200 ms in; the wheel turns every 10 ms
+		int expired = 0;
+		long silentGoneAt = 0;
+		long stoppedGoneAt = 0;
+		for (long elapsed = 10; elapsed <= 700; elapsed += 10) {
+			now.set(started + elapsed);
+			assertTrue(registry.heartbeat(1));
+			if (elapsed <= 200) {
+				assertTrue(registry.heartbeat(4));
+			}
+			expired += registry.advance(now.get());
+			if (silentGoneAt == 0 && !registry.isOnline(2)) {
+				silentGoneAt = elapsed;
+			}
+			if (stoppedGoneAt == 0 && !registry.isOnline(4)) {
+				stoppedGoneAt = elapsed;
+			}
+		}
+
+		assertEquals(2, expired);
+		assertTrue(silentGoneAt >= 300 && silentGoneAt <= 350, "silent partner dropped after " + silentGoneAt + " ms");
+		assertTrue(stoppedGoneAt >= 500 && stoppedGoneAt <= 550, "stopped partner dropped after " + stoppedGoneAt + " ms");
+		assertTrue(registry.isOnline(1));
+		assertTrue(registry.isAvailable(1));
+		assertFalse(registry.isAvailable(2));
+		assertFalse(registry.heartbeat(2));
+		assertEquals(List.of(1L), registry.available("560100"));
+
+		// Coming back starts afresh
+		registry.online(2, "560100");
+		assertTrue(registry.isAvailable(2));
+		assertEquals(2, registry.availableCount("560100"));
+		now.addAndGet(299);
+		assertEquals(0, registry.advance(now.get()));
+		assertTrue(registry.isOnline(2));
+	}
+
+	@Test
+	void heavyHeartbeatsLeaveSetsAsTheLastChangesLeftThem() throws Exception {
+		int partners = 100_000;
+		long firstId = 1_000_000;
+		PartnerAvailabilityRegistry registry = new PartnerAvailabilityRegistry(300_000, 1_000);
+		for (long id = firstId; id < firstId + partners; id++) {
+			registry.online(id, pincode(id));
+		}
+
+		// Four threads beating as fast as they can while one thread changes partners' state
+		AtomicBoolean running = new AtomicBoolean(true);
+		ExecutorService pool = Executors.newFixedThreadPool(5);
+		List<Future<?>> beaters = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			beaters.add(pool.submit(() -> {
+				SplittableRandom random = new SplittableRandom();
+				while (running.get()) {
+					registry.heartbeat(firstId + random.nextInt(partners));
+				}
+			}));
+		}
+		// 0 available, 1 busy, 2 offline
+		Map<Long, Integer> expected = new HashMap<>();
+		Future<?> changes = pool.submit(() -> {
+			SplittableRandom random = new SplittableRandom(21);
+			for (int i = 0; i < 200_000; i++) {
+				long id = firstId + random.nextInt(partners);
+				switch (random.nextInt(4)) {
+				case 0:
+					registry.offline(id);
+					expected.put(id, 2);
+					break;
+				case 1:
+					registry.online(id, pincode(id));
+					expected.put(id, 0);
+					break;
+				case 2:
+					registry.busy(id);
+					if (expected.getOrDefault(id, 0) == 0) {
+						expected.put(id, 1);
+					}
+					break;
+				default:
+					registry.free(id);
+					if (expected.getOrDefault(id, 0) == 1) {
+						expected.put(id, 0);
+					}
+				}
+			}
+		});
+		changes.get();
+		running.set(false);
+		for (Future<?> beater : beaters) {
+			beater.get();
+		}
+		pool.shutdown();
+
+		Map<String, Set<Long>> availableByPincode = new HashMap<>();
+		for (long id = firstId; id < firstId + partners; id++) {
+			int state = expected.getOrDefault(id, 0);
+			assertEquals(state == 0, registry.isAvailable(id), "partner " + id);
+			assertEquals(state != 2, registry.isOnline(id), "partner " + id);
+			assertEquals(state != 2, registry.heartbeat(id), "partner " + id);
+			if (state == 0) {
+				availableByPincode.computeIfAbsent(pincode(id), key -> new HashSet<>()).add(id);
+			}
+		}
+		for (Map.Entry<String, Set<Long>> pincode : availableByPincode.entrySet()) {
+			assertEquals(pincode.getValue(), new HashSet<>(registry.available(pincode.getKey())), pincode.getKey());
+			assertEquals(pincode.getValue().size(), registry.availableCount(pincode.getKey()));
+		}
+	}
+
+	@Test
+	void racingPutsGrowTheMapAndNeverShowAnUnsetValue() throws Exception {
+		int writers = 8;
+		int keysPerWriter = 20_000;
+		// Starts at the smallest table, so the writers race through every growth
+		ConcurrentLongMap map = new ConcurrentLongMap();
+		AtomicBoolean writing = new AtomicBoolean(true);
+		AtomicLong unset = new AtomicLong();
+		ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+		List<Future<?>> readers = new ArrayList<>();
+		for (int r = 0; r < 2; r++) {
+			readers.add(pool.submit(() -> {
+				SplittableRandom random = new SplittableRandom();
+				while (writing.get()) {
+					long key = 1 + random.nextInt(writers * keysPerWriter);
+					// Every value put is the key's own index, 0 for the first key of each writer
+					long value = map.get(key);
+					if (value != ConcurrentLongMap.MISSING && value != (key - 1) % keysPerWriter) {
+						unset.incrementAndGet();
+					}
+				}
+			}));
+		}
+		List<Future<?>> puts = new ArrayList<>();
+		for (int w = 0; w < writers; w++) {
+			long first = 1 + (long) w * keysPerWriter;
+			puts.add(pool.submit(() -> {
+				for (long key = first; key < first + keysPerWriter; key++) {
+					map.put(key, (key - 1) % keysPerWriter);
+				}
+			}));
+		}
+		for (Future<?> put : puts) {
+			put.get(60, TimeUnit.SECONDS);
+		}
+		writing.set(false);
+		for (Future<?> reader : readers) {
+			reader.get();
+		}
+		pool.shutdown();
+
+		assertEquals(0, unset.get());
+		assertEquals(writers * keysPerWriter, map.size());
+		for (long key = 1; key <= writers * keysPerWriter; key++) {
+			assertEquals((key - 1) % keysPerWriter, map.get(key), "key " + key);
+		}
+	}
+
+	@Test
+	void fullPartnersLeaveAvailabilityUntilADelivery() {
+		DeliveryPartnerAuth partner = new DeliveryPartnerAuth("rider@availability.grocito.test", "secret", "9811122233",
+				"Partner Availability", "411080", "BIKE", "MH12AV01", "DLAV01");
+		partner.setVerificationStatus("VERIFIED");
+		partner = partnerRepository.save(partner);
+		Long partnerId = partner.getId();
+
+		orderAssignmentService.updateAvailability(partnerId, true);
+		assertEquals(List.of(partnerId), orderAssignmentService.getAvailablePartners("411080"));
+		assertEquals(true, orderAssignmentService.getDashboardData(partnerId).get("isAvailable"));
+
+		Order first = placeOrder("first");
+		assertTrue(orderAssignmentService.assignOrderToPartner(first.getId(), partnerId));
+		assertEquals(List.of(partnerId), orderAssignmentService.getAvailablePartners("411080"));
+		assertTrue(orderAssignmentService.assignOrderToPartner(placeOrder("second").getId(), partnerId));
+		assertEquals(List.of(), orderAssignmentService.getAvailablePartners("411080"));
+		assertEquals(false, orderAssignmentService.getDashboardData(partnerId).get("isAvailable"));
+
+		orderAssignmentService.updateOrderStatus(first.getId(), "PICKED_UP", partnerId);
+		orderAssignmentService.updateOrderStatus(first.getId(), "OUT_FOR_DELIVERY", partnerId);
+		orderAssignmentService.updateOrderStatus(first.getId(), "DELIVERED", partnerId);
+		assertEquals(List.of(partnerId), orderAssignmentService.getAvailablePartners("411080"));
+		assertEquals(true, orderAssignmentService.getDashboardData(partnerId).get("isAvailable"));
+
+		orderAssignmentService.updateAvailability(partnerId, false);
+		assertEquals(false, orderAssignmentService.getDashboardData(partnerId).get("isAvailable"));
+	}
+
+	private static String pincode(long partnerId) {
+		return String.valueOf(560000 + partnerId % 200);
+	}
+
+	private Order placeOrder(String tag) {
+		Product product = productRepository.save(new Product(null, "Sunflower Oil 1l", "Refined", 180.0, "Staples", null, "411080", 1000));
+		User user = new User();
+		user.setFullName("Customer " + tag);
+		user.setEmail(tag + "-availability@grocito.test");
+		user.setPassword("secret");
+		user.setRole("USER");
+		user.setPincode("411080");
+		userRepository.save(user);
+
+		Order order = new Order();
+		order.setUser(user);
+		order.setPincode("411080");
+		order.setDeliveryAddress("Plot 4, Hinjewadi Phase 1");
+		OrderItem item = new OrderItem();
+		item.setProduct(new Product(product.getId(), null, null, 0, null, null, null, 0));
+		item.setQuantity(1);
+		item.setOrder(order);
+		order.setItems(new ArrayList<>(List.of(item)));
+		return orderService.placeOrder(order);
+	}
+}
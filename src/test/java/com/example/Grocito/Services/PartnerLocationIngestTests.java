@@ -0,0 +1,232 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+
+import com.example.Grocito.Entity.DeliveryPartner;
+import com.example.Grocito.Entity.DeliveryPartnerAuth;
+import com.example.Grocito.Repository.DeliveryPartnerAuthRepository;
+import com.example.Grocito.Repository.DeliveryPartnerRepository;
+
+/**
+ * Heartbeats and location updates must not write to delivery_partners until a flush, and a
+ * flush must write each partner once, with its latest position, however many pings it sent;
+ * partners without a row are forgotten rather than kept around. Dashboard heartbeats carry the
+ * partner's auth id, which must never be taken for a delivery_partners id.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-location-ingest;DB_CLOSE_DELAY=-1",
+		"grocito.partners.location.flush-interval-ms=600000"
+})
+@ActiveProfiles("test")
+class PartnerLocationIngestTests {
+
+	@Autowired
+	private PartnerLocationIngest partnerLocationIngest;
+
+	@Autowired
+	private DeliveryPartnerService deliveryPartnerService;
+
+	@Autowired
+	private OrderAssignmentService orderAssignmentService;
+
+	@Autowired
+	private DeliveryPartnerRepository deliveryPartnerRepository;
+
+	@Autowired
+	private DeliveryPartnerAuthRepository deliveryPartnerAuthRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private static int logins;
+
+	@Test
+	void pingsAreCoalescedAndWrittenOnlyOnFlush() throws Exception {
+		int partners = 10_000;
+		List<DeliveryPartner> rows = new ArrayList<>();
+		for (int i = 0; i < partners; i++) {
+			rows.add(newPartner("ingest-" + i));
+		}
+		List<Long> ids = new ArrayList<>();
+		for (DeliveryPartner partner : deliveryPartnerRepository.saveAll(rows)) {
+			ids.add(partner.getId());
+		}
+		// Every other partner logs in to the dashboard. Auth records are made in reverse, so a
+		// partner's auth id is some other partner's delivery_partners id.
+		Map<Long, Long> authIds = new HashMap<>();
+		for (int i = partners - 2; i >= 0; i -= 2) {
+			authIds.put(ids.get(i), link(ids.get(i), "ingest-" + i));
+		}
+		assertTrue(authIds.entrySet().stream().noneMatch(partner -> partner.getKey().equals(partner.getValue())));
+		partnerLocationIngest.flush();
+
+		// Eight threads, each owning every eighth partner so its last ping is known. Partners with
+		// a login ping through the dashboard heartbeat, the others through the location endpoint.
+		int threads = 8;
+		int pingsPerPartner = 10;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Map<Long, double[]>>> results = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			results.add(pool.submit(() -> {
+				SplittableRandom random = new SplittableRandom(thread);
+				Map<Long, double[]> last = new HashMap<>();
+				for (int round = 0; round < pingsPerPartner; round++) {
+					for (int i = thread; i < partners; i += threads) {
+						Long id = ids.get(i);
+						Long authId = authIds.get(id);
+						boolean located = random.nextInt(4) != 0;
+						double latitude = 18.4 + random.nextDouble() / 10;
+						double longitude = 73.8 + random.nextDouble() / 10;
+						if (authId != null) {
+							if (located) {
+								orderAssignmentService.keepPartnerAlive(authId, latitude, longitude);
+							} else {
+								orderAssignmentService.keepPartnerAlive(authId);
+							}
+						} else {
+							deliveryPartnerService.updateLocation(id, located ? latitude : null, located ? longitude : null);
+						}
+						if (located) {
+							last.put(id, new double[] { latitude, longitude });
+						}
+					}
+				}
+				return last;
+			}));
+		}
+		Map<Long, double[]> expected = new HashMap<>();
+		for (Future<Map<Long, double[]>> result : results) {
+			expected.putAll(result.get());
+		}
+		pool.shutdown();
+
+		assertEquals(0, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM delivery_partners WHERE phone_number LIKE 'ingest-%' "
+						+ "AND (current_latitude IS NOT NULL OR last_active_at IS NOT NULL)", Integer.class));
+		assertEquals(partners, partnerLocationIngest.pending());
+
+		assertEquals(partners, partnerLocationIngest.flush());
+		assertEquals(0, partnerLocationIngest.pending());
+		assertEquals(partners, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM delivery_partners WHERE phone_number LIKE 'ingest-%' AND last_active_at IS NOT NULL", Integer.class));
+		for (Map.Entry<Long, double[]> partner : expected.entrySet()) {
+			Map<String, Object> row = jdbcTemplate.queryForMap(
+					"SELECT current_latitude, current_longitude FROM delivery_partners WHERE id = ?", partner.getKey());
+			assertEquals(partner.getValue()[0], ((BigDecimal) row.get("current_latitude")).doubleValue(), 1e-7);
+			assertEquals(partner.getValue()[1], ((BigDecimal) row.get("current_longitude")).doubleValue(), 1e-7);
+		}
+
+		// Nothing left to write
+		assertEquals(0, partnerLocationIngest.flush());
+	}
+
+	@Test
+	void dashboardHeartbeatsMoveThePartnerWhoseLoginSentThem() {
+		Long partnerId = savePartner("dashboard");
+		Long authId = link(partnerId, "dashboard");
+		// Another partner whose delivery_partners id is the first one's auth id
+		while (!deliveryPartnerRepository.existsById(authId)) {
+			savePartner("padding-" + UUID.randomUUID().toString().substring(0, 8));
+		}
+		assertNotEquals(partnerId, authId);
+		jdbcTemplate.update("UPDATE delivery_partners SET current_latitude = 19.0, current_longitude = 72.8 WHERE id = ?", authId);
+		LocalDateTime otherSeenAt = deliveryPartnerRepository.findById(authId).get().getLastActiveAt();
+
+		orderAssignmentService.keepPartnerAlive(authId, 18.52, 73.85);
+		assertEquals(1, partnerLocationIngest.flush());
+
+		DeliveryPartner partner = deliveryPartnerRepository.findById(partnerId).get();
+		assertEquals(18.52, partner.getCurrentLatitude().doubleValue(), 1e-7);
+		assertEquals(73.85, partner.getCurrentLongitude().doubleValue(), 1e-7);
+		DeliveryPartner other = deliveryPartnerRepository.findById(authId).get();
+		assertEquals(19.0, other.getCurrentLatitude().doubleValue(), 1e-7);
+		assertEquals(72.8, other.getCurrentLongitude().doubleValue(), 1e-7);
+		assertEquals(otherSeenAt, other.getLastActiveAt());
+
+		// Of two pings under the partner's two ids the newer wins, though the older is written last
+		AtomicLong now = new AtomicLong(System.currentTimeMillis());
+		PartnerLocationIngest ingest = AopTestUtils.getTargetObject(partnerLocationIngest);
+		ingest.useClock(now::get);
+		try {
+			orderAssignmentService.keepPartnerAlive(authId, 18.70, 73.95);
+			now.incrementAndGet();
+			deliveryPartnerService.updateLocation(partnerId, 18.60, 73.90);
+		} finally {
+			ingest.useClock(System::currentTimeMillis);
+		}
+		assertEquals(1, partnerLocationIngest.flush());
+		partner = deliveryPartnerRepository.findById(partnerId).get();
+		assertEquals(18.60, partner.getCurrentLatitude().doubleValue(), 1e-7);
+		assertEquals(partnerLocationIngest.latest(partnerId).getSeenAtMillis(),
+				partner.getLastActiveAt().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
+	}
+
+	@Test
+	void bareHeartbeatKeepsTheLastPositionAndUnknownPartnersAreForgotten() {
+		Long partnerId = savePartner("heartbeat");
+		deliveryPartnerService.updateLocation(partnerId, 18.52, 73.85);
+		deliveryPartnerService.updateLocation(partnerId, null, null);
+		assertTrue(partnerLocationIngest.latest(partnerId).hasPosition());
+		assertEquals(18.52, partnerLocationIngest.latest(partnerId).getLatitude());
+
+		long unknownId = 9_000_000L;
+		orderAssignmentService.keepPartnerAlive(unknownId, 18.6, 73.9);
+		assertFalse(deliveryPartnerService.updateLocation(unknownId, 18.6, 73.9));
+		assertNull(partnerLocationIngest.latest(unknownId));
+		// The missing row is remembered until a partner is saved under the id
+		jdbcTemplate.update("UPDATE delivery_partners SET id = ? WHERE id = ?", unknownId, savePartner("renumbered"));
+		assertFalse(deliveryPartnerService.updateLocation(unknownId, 18.6, 73.9));
+		partnerLocationIngest.linkAuth(unknownId, null);
+		assertTrue(deliveryPartnerService.updateLocation(unknownId, 18.6, 73.9));
+		partnerLocationIngest.flush();
+
+		DeliveryPartner partner = deliveryPartnerRepository.findById(partnerId).get();
+		assertEquals(18.52, partner.getCurrentLatitude().doubleValue(), 1e-7);
+		assertEquals(73.85, partner.getCurrentLongitude().doubleValue(), 1e-7);
+		assertEquals(partnerLocationIngest.latest(partnerId).getSeenAtMillis(),
+				partner.getLastActiveAt().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
+		assertNull(partnerLocationIngest.latestForAuth(unknownId));
+	}
+
+	private Long savePartner(String tag) {
+		return deliveryPartnerRepository.save(newPartner(tag)).getId();
+	}
+
+	// Gives the partner a login and returns its auth id
+	private Long link(Long partnerId, String tag) {
+		DeliveryPartnerAuth auth = new DeliveryPartnerAuth(tag + "@ingest.grocito.test", "secret",
+				"95" + String.format("%08d", logins++), "Partner " + tag, "411001", "BIKE", "MH12" + tag, "DL" + tag);
+		auth = deliveryPartnerAuthRepository.save(auth);
+		jdbcTemplate.update("UPDATE delivery_partners SET auth_id = ? WHERE id = ?", auth.getId(), partnerId);
+		return auth.getId();
+	}
+
+	private static DeliveryPartner newPartner(String tag) {
+		return new DeliveryPartner("Partner " + tag, tag, "BIKE", "MH12" + tag, "DL" + tag, "411001");
+	}
+}
@@ -0,0 +1,141 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.Grocito.Entity.Product;
+
+/**
+ * The product cache must drop the least recently used entry when full, reload entries once
+ * their time-to-live is up, and never cache a load that an eviction of the same key overtook,
+ * while loads of other keys carry on being cached. Checkout evicts the product only.
+ */
+class ProductCacheTests {
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+	private final ProductCache cache = new ProductCache(2, 300, 2, 60, now::get);
+
+	@Test
+	void leastRecentlyUsedProductIsDroppedWhenFull() {
+		AtomicInteger loads = new AtomicInteger();
+		get(1L, loads);
+		get(2L, loads);
+		get(1L, loads);
+		// 2 is now the least recently used
+		get(3L, loads);
+		assertEquals(3, loads.get());
+
+		get(1L, loads);
+		get(3L, loads);
+		assertEquals(3, loads.get());
+		get(2L, loads);
+		assertEquals(4, loads.get());
+		assertEquals(2L, stats("products").get("evictions"));
+		assertEquals(2L, stats("products").get("size"));
+	}
+
+	@Test
+	void entriesAreReloadedOnceTheirTimeToLiveIsUp() {
+		AtomicInteger loads = new AtomicInteger();
+		get(1L, loads);
+		now.addAndGet(299_999);
+		get(1L, loads);
+		assertEquals(1, loads.get());
+
+		now.addAndGet(1);
+		get(1L, loads);
+		assertEquals(2, loads.get());
+		assertEquals(1L, stats("products").get("expirations"));
+
+		List<Product> listing = cache.getListing("411001", null, () -> List.of(product(1L, "411001")));
+		now.addAndGet(59_999);
+		assertSame(listing, cache.getListing("411001", null, () -> List.of(product(1L, "411001"))));
+		now.addAndGet(1);
+		assertNotSame(listing, cache.getListing("411001", null, () -> List.of(product(1L, "411001"))));
+	}
+
+	@Test
+	void loadOvertakenByAnEvictionOfItsKeyIsNotCached() {
+		AtomicInteger loads = new AtomicInteger();
+		// A stock change lands while product 1 is read, and while product 2 is read
+		Optional<Product> stale = cache.getProduct(1L, () -> {
+			loads.incrementAndGet();
+			cache.evictStock(1L);
+			return Optional.of(product(1L, "411001"));
+		});
+		assertEquals(1L, stale.get().getId());
+		cache.getProduct(2L, () -> {
+			loads.incrementAndGet();
+			cache.evictStock(1L);
+			return Optional.of(product(2L, "411001"));
+		});
+
+		// 1 was not cached, 2 was, though an eviction of another product overlapped it
+		get(1L, loads);
+		get(2L, loads);
+		assertEquals(3, loads.get());
+
+		// Listings: an eviction of one pincode spoils only that pincode's load
+		AtomicInteger listingLoads = new AtomicInteger();
+		cache.getListing("411001", null, () -> {
+			listingLoads.incrementAndGet();
+			cache.evictPincode("411001");
+			return List.of(product(1L, "411001"));
+		});
+		cache.getListing("411002", null, () -> {
+			listingLoads.incrementAndGet();
+			cache.evictPincode("411001");
+			return List.of(product(3L, "411002"));
+		});
+		cache.getListing("411001", null, () -> {
+			listingLoads.incrementAndGet();
+			return List.of(product(1L, "411001"));
+		});
+		cache.getListing("411002", null, () -> {
+			listingLoads.incrementAndGet();
+			return List.of(product(3L, "411002"));
+		});
+		assertEquals(3, listingLoads.get());
+	}
+
+	@Test
+	void checkoutEvictsTheProductButNotItsPincodeListings() {
+		AtomicInteger loads = new AtomicInteger();
+		get(1L, loads);
+		List<Product> listing = cache.getListing("411001", null, () -> List.of(product(1L, "411001")));
+
+		cache.evictStock(1L);
+		get(1L, loads);
+		assertEquals(2, loads.get());
+		assertSame(listing, cache.getListing("411001", null, List::of));
+
+		// An admin stock change evicts both
+		cache.evictProduct(product(1L, "411001"));
+		assertEquals(List.of(), cache.getListing("411001", null, List::of));
+	}
+
+	private void get(Long id, AtomicInteger loads) {
+		cache.getProduct(id, () -> {
+			loads.incrementAndGet();
+			return Optional.of(product(id, "411001"));
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Long> stats(String region) {
+		return (Map<String, Long>) cache.getStats().get(region);
+	}
+
+	private static Product product(Long id, String pincode) {
+		return new Product(id, "Product " + id, "", 10.0, "Staples", null, pincode, 5);
+	}
+}
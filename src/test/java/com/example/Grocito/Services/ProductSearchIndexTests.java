@@ -0,0 +1,242 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Repository.ProductRepository;
+
+/**
+ * The search index must split text into lowercase letter-and-digit tokens, rank name over
+ * category over description, exact over prefix and rare over common terms, page through one
+ * stable ranking, forget old versions of updated or removed products, keep to the requested
+ * pincode, and find the same products the database query finds on a catalogue where the two
+ * agree by design (whole-word and word-start matches on name and description). Keyword searches
+ * must load only the page asked for, and never more than the largest page allowed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-search-index;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ProductSearchIndexTests {
+
+	private static final String[] PINCODES = { "411001", "411002", "411003" };
+
+	@Autowired
+	private ProductSearchIndex productSearchIndex;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private final ProductSearchIndex index = new ProductSearchIndex();
+
+	@Test
+	void textIsSplitIntoLowercaseLetterAndDigitTokens() {
+		assertArrayEquals(new String[] { "organic", "milk", "1l", "amul" }, ProductSearchIndex.tokenize("Organic Milk, 1L (Amul)"));
+		assertArrayEquals(new String[] { "kaju", "katli", "250g" }, ProductSearchIndex.tokenize("  Kaju-Katli/250g  "));
+		assertArrayEquals(new String[] { "café", "crème" }, ProductSearchIndex.tokenize("Café Crème"));
+		assertArrayEquals(new String[0], ProductSearchIndex.tokenize(" -- & -- "));
+		assertArrayEquals(new String[0], ProductSearchIndex.tokenize(""));
+		assertArrayEquals(new String[0], ProductSearchIndex.tokenize(null));
+
+		// Every query token must match, the query being tokenized the same way
+		index.index(product(1L, "Organic Milk 1L", "Staples", "", "411001"));
+		index.index(product(2L, "Organic Atta", "Staples", "", "411001"));
+		assertEquals(List.of(1L), ids("ORGANIC, milk!", null));
+		assertEquals(List.of(1L), ids("org mil", null));
+		assertEquals(List.of(), ids("organic ghee", null));
+		assertEquals(List.of(), ids(" , ", null));
+	}
+
+	@Test
+	void nameOutranksCategoryOutranksDescription() {
+		index.index(product(1L, "Toned Pouch", "Dairy", "fresh milk from local farms", "411001"));
+		index.index(product(2L, "Toned Tetra", "Milk", "", "411001"));
+		index.index(product(3L, "Milk Toned", "Dairy", "", "411001"));
+		assertEquals(List.of(3L, 2L, 1L), ids("milk", null));
+	}
+
+	@Test
+	void exactMatchOutranksPrefixMatch() {
+		index.index(product(1L, "Milkshake Mango", "Beverages", "", "411001"));
+		index.index(product(2L, "Milk Mango", "Beverages", "", "411001"));
+		assertEquals(List.of(2L, 1L), ids("milk", null));
+	}
+
+	@Test
+	void rareTermsWeighMoreThanCommonOnes() {
+		// "amul" is in 2 products, "milk" in 6: the name match on the rarer term wins
+		index.index(product(1L, "Milk Cream", "Dairy", "by amul", "411001"));
+		index.index(product(2L, "Amul Ghee", "Dairy", "made from milk", "411001"));
+		for (long id = 3; id <= 6; id++) {
+			index.index(product(id, "Milk Pouch " + id, "Dairy", "", "411001"));
+		}
+		assertEquals(List.of(2L, 1L), ids("amul milk", null));
+	}
+
+	@Test
+	void pagesSliceOneRankingWithTiesInInsertionOrder() {
+		// Equal scores keep the order products were indexed in, whatever their ids
+		for (long i = 0; i < 30; i++) {
+			index.index(product(1000 - i, "Basmati Rice " + i, "Staples", "", "411001"));
+		}
+		index.index(product(1L, "Rice Basmati", "Staples", "", "411001"));
+		List<Long> all = ids("rice", null);
+		assertEquals(31, all.size());
+		assertEquals(List.of(1000L, 999L, 998L), all.subList(0, 3));
+		assertEquals(1L, all.get(30));
+
+		List<Long> paged = new ArrayList<>();
+		for (int offset = 0; offset < 31; offset += 7) {
+			ProductSearchIndex.Hits hits = index.search("rice", null, null, ProductSearchIndex.Order.RELEVANCE, offset, 7);
+			assertEquals(31, hits.getTotalMatches());
+			paged.addAll(hits.getProductIds());
+		}
+		assertEquals(all, paged);
+		assertEquals(List.of(), index.search("rice", null, null, ProductSearchIndex.Order.RELEVANCE, 40, 7).getProductIds());
+
+		// Other orders page the same way
+		List<Long> byId = index.search("rice", null, null, ProductSearchIndex.Order.ID, 0, 3).getProductIds();
+		assertEquals(List.of(1L, 971L, 972L), byId);
+	}
+
+	@Test
+	void updatedAndRemovedProductsAreNotFoundUnderTheirOldText() {
+		index.index(product(1L, "Amul Butter", "Dairy", "", "411001"));
+		index.index(product(2L, "Amul Cheese", "Dairy", "", "411001"));
+		assertEquals(List.of(1L, 2L), ids("amul", null));
+
+		index.index(product(1L, "Nandini Butter", "Dairy", "", "411001"));
+		assertEquals(List.of(2L), ids("amul", null));
+		assertEquals(List.of(1L), ids("nandini", null));
+		assertEquals(1, index.search("butter", null, null, ProductSearchIndex.Order.RELEVANCE, 0, 10).getTotalMatches());
+
+		index.remove(2L);
+		assertEquals(List.of(), ids("amul", null));
+		assertEquals(0, index.search("cheese", null, null, ProductSearchIndex.Order.ID, 0, 10).getTotalMatches());
+
+		// Moving a product to another pincode leaves nothing behind in the old one
+		index.index(product(1L, "Nandini Butter", "Dairy", "", "411002"));
+		assertEquals(List.of(), ids("butter", "411001"));
+		assertEquals(List.of(1L), ids("butter", "411002"));
+
+		// A removed product can come back
+		index.index(product(2L, "Amul Cheese", "Dairy", "", "411001"));
+		assertEquals(List.of(2L), ids("amul", null));
+	}
+
+	@Test
+	void searchKeepsToTheRequestedPincodeAndCategory() {
+		index.index(product(1L, "Fresh Paneer", "Dairy", "", "411001"));
+		index.index(product(2L, "Fresh Paneer", "Dairy", "", "411002"));
+		index.index(product(3L, "Fresh Paneer Tikka", "Frozen", "", "411002"));
+		assertEquals(List.of(1L), ids("paneer", "411001"));
+		assertEquals(List.of(2L, 3L), ids("paneer", "411002"));
+		assertEquals(List.of(), ids("paneer", "560001"));
+		assertEquals(List.of(1L, 2L, 3L), ids("paneer", null));
+		assertEquals(List.of(3L), index.search("paneer", "411002", "Frozen", ProductSearchIndex.Order.RELEVANCE, 0, 10).getProductIds());
+		assertEquals(List.of(), index.search("paneer", "411001", "Frozen", ProductSearchIndex.Order.RELEVANCE, 0, 10).getProductIds());
+	}
+
+	@Test
+	void indexFindsWhatTheDatabaseQueryFinds() {
+		Random random = new Random(7);
+		String[] brands = { "Amul", "Nandini", "Heritage", "Mother" };
+		String[] adjectives = { "Fresh", "Organic", "Premium", "Classic", "Spicy", "Sweet" };
+		String[] items = { "Milk", "Butter", "Paneer", "Bread", "Tomato", "Potato", "Onion", "Mango", "Apple", "Rice", "Atta", "Ghee" };
+		String[] categories = { "Dairy", "Staples", "Produce", "Bakery" };
+		List<Product> catalogue = new ArrayList<>();
+		for (int i = 0; i < 400; i++) {
+			catalogue.add(new Product(null,
+					brands[random.nextInt(brands.length)] + " " + adjectives[random.nextInt(adjectives.length)] + " "
+							+ items[random.nextInt(items.length)],
+					adjectives[random.nextInt(adjectives.length)] + " " + items[random.nextInt(items.length)] + " From Local Farms",
+					10 + random.nextInt(500), categories[random.nextInt(categories.length)], null,
+					PINCODES[random.nextInt(PINCODES.length)], 20));
+		}
+		productRepository.saveAll(catalogue);
+		productSearchIndex.rebuild();
+
+		for (String keyword : new String[] { "Milk", "Organic", "Pan", "Rice", "Heritage", "Mang", "Atta", "Ghee" }) {
+			assertEquals(idSet(productRepository.searchProducts(keyword)), idSet(searchAll(keyword, null)), keyword);
+			for (String pincode : PINCODES) {
+				assertEquals(idSet(productRepository.searchProductsByPincode(keyword, pincode)),
+						idSet(searchAll(keyword, pincode)), keyword + " in " + pincode);
+			}
+		}
+		assertEquals(Set.of(), idSet(productService.searchProducts("Biscuit", 0, 20)));
+	}
+
+	@Test
+	void keywordSearchLoadsOnePageOfTheRankedMatches() {
+		List<Product> catalogue = new ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			catalogue.add(new Product(null, "Kesar Mango " + i, "Ripe Kesar Mango", 80 + i, "Produce", null, "411009", 20));
+		}
+		productRepository.saveAll(catalogue);
+		productSearchIndex.rebuild();
+
+		List<Long> ranked = productSearchIndex.search("Kesar", "411009", null, ProductSearchIndex.Order.RELEVANCE, 0, 1_000).getProductIds();
+		assertEquals(250, ranked.size());
+		assertEquals(ranked.subList(0, 20), ids(productService.searchProducts("Kesar", 0, 20)));
+		assertEquals(ranked.subList(40, 60), ids(productService.searchProductsByPincode("Kesar", "411009", 2, 20)));
+		assertEquals(ranked.subList(240, 250), ids(productService.searchProductsByPincode("Kesar", "411009", 12, 20)));
+		assertEquals(List.of(), productService.searchProducts("Kesar", 13, 20));
+		// However large the page asked for, no more than the cap is loaded
+		assertEquals(ranked.subList(0, ProductService.MAX_SEARCH_PAGE_SIZE), ids(productService.searchProducts("Kesar", 0, 10_000)));
+		assertThrows(RuntimeException.class, () -> productService.searchProducts("Kesar", 0, 0));
+		assertThrows(RuntimeException.class, () -> productService.searchProducts("Kesar", -1, 20));
+	}
+
+	private List<Product> searchAll(String keyword, String pincode) {
+		List<Product> all = new ArrayList<>();
+		for (int page = 0; ; page++) {
+			List<Product> products = pincode == null
+					? productService.searchProducts(keyword, page, 50)
+					: productService.searchProductsByPincode(keyword, pincode, page, 50);
+			all.addAll(products);
+			if (products.size() < 50) {
+				return all;
+			}
+		}
+	}
+
+	private List<Long> ids(String query, String pincode) {
+		return index.search(query, pincode, null, ProductSearchIndex.Order.RELEVANCE, 0, 100).getProductIds();
+	}
+
+	private static List<Long> ids(List<Product> products) {
+		List<Long> ids = new ArrayList<>();
+		for (Product product : products) {
+			ids.add(product.getId());
+		}
+		return ids;
+	}
+
+	private static Set<Long> idSet(List<Product> products) {
+		Set<Long> ids = new HashSet<>();
+		for (Product product : products) {
+			ids.add(product.getId());
+		}
+		return ids;
+	}
+
+	private static Product product(Long id, String name, String category, String description, String pincode) {
+		return new Product(id, name, description, 50.0, category, null, pincode, 10);
+	}
+}
@@ -0,0 +1,145 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Repository.ProductRepository;
+
+/**
+ * Suggestions must come from the requested pincode's trie only, match any word start of a name,
+ * tolerate as many typos as the query length allows (none up to 2 characters, 1 up to 5, 2
+ * beyond), rank closer matches first and then shorter names, and reflect renamed, moved and
+ * removed products once their pincode is refreshed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-suggest;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ProductSuggesterTests {
+
+	@Autowired
+	private ProductSuggester suggester;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Test
+	void prefixesFindWordStartsWithinThePincodeOnly() {
+		suggester.index(product(1L, "Amul Taaza Milk", "560001"));
+		suggester.index(product(2L, "Amul Butter", "560001"));
+		suggester.index(product(3L, "Mother Dairy Milk", "560001"));
+		suggester.index(product(4L, "Amul Gold Milk", "560002"));
+		suggester.refresh();
+
+		assertEquals(List.of(2L, 1L), ids("amu", "560001"));
+		assertEquals(List.of(4L), ids("amu", "560002"));
+		assertEquals(List.of(1L, 3L), ids("milk", "560001"));
+		assertEquals(List.of(1L), ids("taaza m", "560001"));
+		assertEquals(List.of(3L), ids("DAIRY", "560001"));
+		assertEquals(List.of(2L), ids("amu", "560001", 1));
+		assertEquals(List.of(), ids("amu", "560009"));
+		assertEquals(List.of(), ids("amu", null));
+		assertEquals(List.of(), ids("  ", "560001"));
+	}
+
+	@Test
+	void typosAreToleratedAsTheQueryLengthAllows() {
+		suggester.index(product(11L, "Nandini Milk Peda", "560011"));
+		suggester.index(product(12L, "Cadbury Silk", "560011"));
+		suggester.index(product(13L, "Good Day Butter Cookies", "560011"));
+		suggester.refresh();
+
+		// Up to 2 characters: exact only
+		assertEquals(List.of(11L), ids("na", "560011"));
+		assertEquals(List.of(), ids("nx", "560011"));
+
+		// Up to 5: one substitution, insertion, deletion or transposition
+		assertSuggested("nand", "560011", 11L, 0);
+		assertSuggested("nend", "560011", 11L, 1);
+		assertSuggested("nanid", "560011", 11L, 1);
+		assertSuggested("mlik", "560011", 11L, 1);
+		assertSuggested("cadbry", "560011", 12L, 1);
+		assertEquals(List.of(), ids("bttr", "560011"));
+
+		// Beyond 5: two edits
+		assertSuggested("buter cokies", "560011", 13L, 2);
+		assertEquals(List.of(), ids("bitr cokis", "560011"));
+
+		// Closer matches rank first, though the name is longer
+		assertEquals(List.of(11L, 12L), ids("milk", "560011"));
+		assertEquals(List.of(0, 1), distances("milk", "560011"));
+	}
+
+	@Test
+	void renamedMovedAndRemovedProductsShowOnceRefreshed() {
+		suggester.index(product(21L, "Britannia Marie Gold", "560021"));
+		suggester.index(product(22L, "Britannia Bourbon", "560021"));
+		suggester.refresh();
+		assertEquals(List.of(22L, 21L), ids("brit", "560021"));
+
+		// Renamed: found under the new name only, from the next refresh
+		suggester.index(product(21L, "Parle Marie", "560021"));
+		assertEquals(List.of(22L, 21L), ids("brit", "560021"));
+		suggester.refresh();
+		assertEquals(List.of(22L), ids("brit", "560021"));
+		assertEquals(List.of(21L), ids("parle", "560021"));
+
+		// Moved to another pincode
+		suggester.index(product(22L, "Britannia Bourbon", "560022"));
+		suggester.refresh();
+		assertEquals(List.of(), ids("brit", "560021"));
+		assertEquals(List.of(22L), ids("brit", "560022"));
+
+		// Removed, down to an empty pincode
+		suggester.remove(21L);
+		suggester.remove(22L);
+		suggester.refresh();
+		assertEquals(List.of(), ids("parle", "560021"));
+		assertEquals(List.of(), ids("brit", "560022"));
+
+		// A rebuild picks up products written to the database directly
+		Product saved = productRepository.save(new Product(null, "Haldiram Bhujia", "", 90.0, "Snacks", null, "560023", 8));
+		assertEquals(List.of(), ids("haldi", "560023"));
+		suggester.rebuild();
+		assertEquals(List.of(saved.getId()), ids("haldi", "560023"));
+	}
+
+	private void assertSuggested(String query, String pincode, Long id, int distance) {
+		List<ProductSuggester.Suggestion> suggestions = suggester.suggest(query, pincode, ProductSuggester.MAX_SUGGESTIONS);
+		assertEquals(1, suggestions.size(), query);
+		assertEquals(id, suggestions.get(0).getId(), query);
+		assertEquals(distance, suggestions.get(0).getDistance(), query);
+	}
+
+	private List<Long> ids(String query, String pincode) {
+		return ids(query, pincode, ProductSuggester.MAX_SUGGESTIONS);
+	}
+
+	private List<Long> ids(String query, String pincode, int limit) {
+		List<Long> ids = new ArrayList<>();
+		for (ProductSuggester.Suggestion suggestion : suggester.suggest(query, pincode, limit)) {
+			ids.add(suggestion.getId());
+		}
+		return ids;
+	}
+
+	private List<Integer> distances(String query, String pincode) {
+		List<Integer> distances = new ArrayList<>();
+		for (ProductSuggester.Suggestion suggestion : suggester.suggest(query, pincode, ProductSuggester.MAX_SUGGESTIONS)) {
+			distances.add(suggestion.getDistance());
+		}
+		return distances;
+	}
+
+	private static Product product(Long id, String name, String pincode) {
+		return new Product(id, name, "", 40.0, "Snacks", null, pincode, 10);
+	}
+}
@@ -0,0 +1,35 @@
+package com.example.Grocito.Services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A PushChannel client for tests: keeps every event frame it is sent, ignoring keepalives.
+ */
+class RecordingSink implements PushChannel.Sink {
+
+	private final List<PushChannel.Frame> received = Collections.synchronizedList(new ArrayList<>());
+
+	@Override
+	public void send(PushChannel.Frame frame) {
+		if (frame.name != null) {
+			received.add(frame);
+		}
+	}
+
+	@Override
+	public void close() {
+	}
+
+	List<PushChannel.Frame> events() {
+		synchronized (received) {
+			return received.stream().collect(Collectors.toList());
+		}
+	}
+
+	List<PushChannel.Frame> events(String name) {
+		return events().stream().filter(frame -> name.equals(frame.name)).collect(Collectors.toList());
+	}
+}
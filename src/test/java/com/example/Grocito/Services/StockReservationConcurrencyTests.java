@@ -0,0 +1,196 @@
+package com.example.Grocito.Services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.Grocito.Entity.Order;
+import com.example.Grocito.Entity.OrderItem;
+import com.example.Grocito.Entity.Product;
+import com.example.Grocito.Entity.User;
+import com.example.Grocito.Repository.OrderRepository;
+import com.example.Grocito.Repository.ProductRepository;
+import com.example.Grocito.Repository.UserRepository;
+
+/**
+ * Hundreds of buyers race for a hot SKU with limited stock through OrderService.placeOrder,
+ * once on the database path and once with the SKU served from the HotStockLedger.
+ * Exactly as many orders as there were units must succeed, stock must end at zero (after the
+ * ledger flush) and every other buyer must get a clean "Not enough stock" failure. The ledger
+ * must never turn a buyer away while enough stock is left, however fragmented its stripes are.
+ *
+ * Buyer count can be raised with -Dgrocito.test.buyers=2000.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.datasource.url=jdbc:h2:mem:grocito-stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+		"spring.datasource.hikari.maximum-pool-size=32"
+})
+@ActiveProfiles("test")
+class StockReservationConcurrencyTests {
+
+	private static final int BUYERS = Integer.getInteger("grocito.test.buyers", 400);
+	private static final int THREADS = 64;
+	private static final int STOCK = 150;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private HotStockLedger hotStockLedger;
+
+	@Test
+	void parallelBuyersNeverOversellHotSku() throws Exception {
+		race("database");
+	}
+
+	@Test
+	void parallelBuyersNeverOversellLedgerSku() throws Exception {
+		race("ledger");
+	}
+
+	@Test
+	void ledgerNeverReportsAFalseShortfall() throws Exception {
+		// Each buyer holds at most its own quantity at a time and the stock is their sum, so whatever
+		// the others hold, enough is always left for the next reserve
+		int rounds = 2000;
+		long productId = 9_000_001L;
+		long stock = 0;
+		for (int t = 0; t < THREADS; t++) {
+			stock += quantity(t);
+		}
+		// More stripes than cores here leave the stock scattered, as it is on a big machine
+		HotStockLedger ledger = new HotStockLedger(16);
+		ledger.designate(productId, stock);
+
+		AtomicInteger shortfalls = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> results = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int quantity = quantity(t);
+			results.add(pool.submit(() -> {
+				start.await();
+				for (int round = 0; round < rounds; round++) {
+					if (!ledger.reserve(productId, quantity)) {
+						shortfalls.incrementAndGet();
+						continue;
+					}
+					// Held while the others run, then handed back to this thread's stripe, leaving the
+					// stock spread across the stripes
+					Thread.yield();
+					ledger.release(productId, quantity);
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> result : results) {
+			result.get();
+		}
+		pool.shutdown();
+
+		assertEquals(0, shortfalls.get());
+		assertEquals(stock, ledger.available(productId));
+		assertFalse(ledger.reserve(productId, (int) stock + 1));
+	}
+
+	private static int quantity(int thread) {
+		return 1 + (thread % 4) * 5;
+	}
+
+	private void race(String path) throws Exception {
+		long ordersBefore = orderRepository.count();
+		Product staple = productRepository.save(new Product(null, "Toned Milk 500ml", "Daily", 28.0, "Dairy", null, "411001", 1_000_000));
+		Product hotSku = productRepository.save(new Product(null, "Alphonso Mango 1kg", "Seasonal", 499.0, "Fruits", null, "411001", STOCK));
+		if ("ledger".equals(path)) {
+			hotStockLedger.designate(hotSku.getId(), STOCK);
+		}
+		List<User> buyers = new ArrayList<>();
+		for (int i = 0; i < BUYERS; i++) {
+			User user = new User();
+			user.setFullName("Buyer " + i);
+			user.setEmail(path + "-buyer" + i + "@grocito.test");
+			user.setPassword("secret");
+			user.setRole("USER");
+			user.setPincode("411001");
+			buyers.add(userRepository.save(user));
+		}
+
+		AtomicInteger placed = new AtomicInteger();
+		AtomicInteger soldOut = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> results = new ArrayList<>();
+		for (User buyer : buyers) {
+			results.add(pool.submit(() -> {
+				start.await();
+				try {
+					orderService.placeOrder(order(buyer, hotSku, staple));
+					placed.incrementAndGet();
+				} catch (RuntimeException e) {
+					assertTrue(e.getMessage().startsWith("Not enough stock available"), e.getMessage());
+					soldOut.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> result : results) {
+			result.get();
+		}
+		pool.shutdown();
+		pool.awaitTermination(10, TimeUnit.SECONDS);
+
+		hotStockLedger.flush();
+
+		assertEquals(STOCK, placed.get());
+		assertEquals(BUYERS - STOCK, soldOut.get());
+		assertEquals(0, productRepository.findById(hotSku.getId()).get().getStock());
+		// Failed orders must not keep the staple line of their batch either
+		assertEquals(1_000_000 - 2 * STOCK, productRepository.findById(staple.getId()).get().getStock());
+		assertEquals(ordersBefore + STOCK, orderRepository.count());
+	}
+
+	private static Order order(User buyer, Product hotSku, Product staple) {
+		Order order = new Order();
+		order.setUser(buyer);
+		order.setPincode("411001");
+		order.setDeliveryAddress("Flat 1, MG Road");
+		// The staple has the lower ID, so a shortfall happens after it was decremented
+		order.setItems(new ArrayList<>(List.of(item(order, staple, 2), item(order, hotSku, 1))));
+		return order;
+	}
+
+	private static OrderItem item(Order order, Product product, int quantity) {
+		OrderItem item = new OrderItem();
+		item.setProduct(new Product(product.getId(), null, null, 0, null, null, null, 0));
+		item.setQuantity(quantity);
+		item.setOrder(order);
+		return item;
+	}
+}